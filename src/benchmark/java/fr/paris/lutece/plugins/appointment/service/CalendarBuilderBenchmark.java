@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.paris.lutece.plugins.appointment.business.planning.TimeSlot;
+import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
+import fr.paris.lutece.plugins.appointment.business.planning.WorkingDay;
+import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
+import fr.paris.lutece.plugins.appointment.business.slot.Slot;
+
+/**
+ * Benchmarks of the generation of the calendars of a form: build of the slots of a period, search of the week definition of a date and check of the
+ * slots sent by a user. The closing days and the slots in database are built in memory, so that only the computation is measured. Run with the
+ * benchmark profile: mvn -P benchmark integration-test
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class CalendarBuilderBenchmark
+{
+    private static final int ID_FORM = 1;
+    private static final LocalDate STARTING_DATE = LocalDate.of( 2025, 1, 6 );
+    private static final LocalTime STARTING_TIME = LocalTime.of( 8, 0 );
+    private static final LocalTime ENDING_TIME = LocalTime.of( 18, 0 );
+    private static final int NB_PLACES = 1;
+
+    // The parameters are public fields named as in the results of JMH
+
+    /**
+     * Number of weeks of the calendar
+     */
+    @Param( {
+            "1", "4", "13", "52"
+    } )
+    public int horizonWeeks;
+
+    /**
+     * Duration of the appointments in minutes
+     */
+    @Param( {
+            "10", "30", "60"
+    } )
+    public int durationAppointments;
+
+    private Map<WeekDefinition, ReservationRule> _mapReservationRule;
+    private List<WeekDefinition> _listWeekDefinition;
+    private List<LocalDate> _listDateOfClosingDay;
+    private Map<LocalDateTime, Slot> _mapSlot;
+    private LocalDate _endingDate;
+    private LocalDate _dateToSearch;
+    private List<Slot> _listSlotToCheck;
+    private List<Slot> _listSlotBuilded;
+
+    /**
+     * Build the week definitions, the closing days and the slots in database of the calendar
+     */
+    @Setup( Level.Trial )
+    public void setUp( )
+    {
+        _endingDate = STARTING_DATE.plusWeeks( horizonWeeks ).minusDays( 1 );
+        _mapReservationRule = new HashMap<>( );
+        _listWeekDefinition = new ArrayList<>( );
+        // One week definition per week, alternating two reservation rules, as a form with a weekly planning
+        ReservationRule [ ] tabReservationRule = {
+                buildReservationRule( 1, 2 ), buildReservationRule( 2, 3 )
+        };
+        for ( int nWeek = 0; nWeek < horizonWeeks; nWeek++ )
+        {
+            ReservationRule reservationRule = tabReservationRule [nWeek % tabReservationRule.length];
+            WeekDefinition weekDefinition = new WeekDefinition( );
+            weekDefinition.setIdWeekDefinition( nWeek + 1 );
+            weekDefinition.setIdReservationRule( reservationRule.getIdReservationRule( ) );
+            weekDefinition.setDateOfApply( STARTING_DATE.plusWeeks( nWeek ) );
+            weekDefinition.setEndingDateOfApply( STARTING_DATE.plusWeeks( nWeek ).plusDays( 6 ) );
+            _mapReservationRule.put( weekDefinition, reservationRule );
+            _listWeekDefinition.add( weekDefinition );
+        }
+        _dateToSearch = _endingDate;
+
+        // A closing day every four weeks
+        _listDateOfClosingDay = new ArrayList<>( );
+        for ( LocalDate date = STARTING_DATE.plusDays( 2 ); !date.isAfter( _endingDate ); date = date.plusWeeks( 4 ) )
+        {
+            _listDateOfClosingDay.add( date );
+        }
+
+        // A slot already in database every ten slots
+        List<Slot> listSlotVirtual = CalendarBuilder.buildListSlot( ID_FORM, _mapReservationRule, STARTING_DATE, _endingDate, Collections.emptyList( ),
+                Collections.emptyMap( ) );
+        _mapSlot = new HashMap<>( );
+        for ( int i = 0; i < listSlotVirtual.size( ); i += 10 )
+        {
+            Slot slot = listSlotVirtual.get( i );
+            slot.setIdSlot( i + 1 );
+            slot.setNbRemainingPlaces( 0 );
+            slot.setNbPotentialRemainingPlaces( 0 );
+            slot.setNbPlacestaken( slot.getMaxCapacity( ) );
+            _mapSlot.put( slot.getStartingDateTime( ), slot );
+        }
+
+        // The slots sent by a user taking the last appointments of the calendar
+        _listSlotBuilded = CalendarBuilder.buildListSlot( ID_FORM, _mapReservationRule, STARTING_DATE, _endingDate, _listDateOfClosingDay, _mapSlot );
+        _listSlotToCheck = new ArrayList<>( _listSlotBuilded.subList( Math.max( 0, _listSlotBuilded.size( ) - 3 ), _listSlotBuilded.size( ) ) );
+    }
+
+    /**
+     * Build all the slots of the calendar
+     * 
+     * @return the slots
+     */
+    @Benchmark
+    public List<Slot> buildListSlot( )
+    {
+        return CalendarBuilder.buildListSlot( ID_FORM, _mapReservationRule, STARTING_DATE, _endingDate, _listDateOfClosingDay, _mapSlot );
+    }
+
+    /**
+     * Build the slots of the calendar shown to the users, with the number of places to take
+     * 
+     * @return the slots
+     */
+    @Benchmark
+    public List<Slot> buildListSlotWithNbPlaces( )
+    {
+        return CalendarBuilder.buildListSlot( ID_FORM, _mapReservationRule, STARTING_DATE, _endingDate, NB_PLACES, false, _listDateOfClosingDay, _mapSlot );
+    }
+
+    /**
+     * Search the week definition of the last date of the calendar
+     * 
+     * @return the week definition
+     */
+    @Benchmark
+    public WeekDefinition getClosestWeekDefinitionInPast( )
+    {
+        return Utilities.getClosestWeekDefinitionInPast( _listWeekDefinition, _dateToSearch );
+    }
+
+    /**
+     * Check the slots sent by a user against the slots of the calendar
+     * 
+     * @return true if the slots are built correctly
+     */
+    @Benchmark
+    public boolean checkListSlotIsBuildedCorrectly( )
+    {
+        return AppointmentUtilities.isEachSlotInListSlotBuilded( _listSlotToCheck, _listSlotBuilded );
+    }
+
+    /**
+     * Build a reservation rule open from monday to friday, with a time slot every duration of appointment
+     * 
+     * @param nIdReservationRule
+     *            the reservation rule id
+     * @param nMaxCapacity
+     *            the max capacity of the slots
+     * @return the reservation rule
+     */
+    private ReservationRule buildReservationRule( int nIdReservationRule, int nMaxCapacity )
+    {
+        ReservationRule reservationRule = new ReservationRule( );
+        reservationRule.setIdReservationRule( nIdReservationRule );
+        reservationRule.setIdForm( ID_FORM );
+        reservationRule.setMaxCapacityPerSlot( nMaxCapacity );
+        reservationRule.setDurationAppointments( durationAppointments );
+        List<WorkingDay> listWorkingDay = new ArrayList<>( );
+        for ( DayOfWeek dayOfWeek = DayOfWeek.MONDAY; dayOfWeek.compareTo( DayOfWeek.FRIDAY ) <= 0; dayOfWeek = dayOfWeek.plus( 1 ) )
+        {
+            WorkingDay workingDay = new WorkingDay( );
+            workingDay.setIdReservationRule( nIdReservationRule );
+            workingDay.setDayOfWeek( dayOfWeek.getValue( ) );
+            List<TimeSlot> listTimeSlot = new ArrayList<>( );
+            for ( LocalTime time = STARTING_TIME; time.isBefore( ENDING_TIME ); time = time.plusMinutes( durationAppointments ) )
+            {
+                TimeSlot timeSlot = new TimeSlot( );
+                timeSlot.setStartingTime( time );
+                timeSlot.setEndingTime( time.plusMinutes( durationAppointments ) );
+                timeSlot.setIsOpen( true );
+                timeSlot.setMaxCapacity( nMaxCapacity );
+                listTimeSlot.add( timeSlot );
+            }
+            workingDay.setListTimeSlot( listTimeSlot );
+            listWorkingDay.add( workingDay );
+        }
+        reservationRule.setListWorkingDay( listWorkingDay );
+        return reservationRule;
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.paris.lutece.plugins.appointment.business.AppointmentTest;
+import fr.paris.lutece.plugins.appointment.business.SlotTest;
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentQuotaSummary;
+import fr.paris.lutece.plugins.appointment.business.slot.Slot;
+import fr.paris.lutece.plugins.appointment.web.dto.AppointmentDTO;
+import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFormDTO;
+import fr.paris.lutece.util.sql.TransactionManager;
+
+/**
+ * Benchmarks of the booking against the test database, with several users booking at the same time: the save of the slots of an appointment by
+ * SlotSafeService.saveSlots, in its transaction and under the locks of the slots, and the checks of the limits of the appointments of a user. The fixture
+ * is a form with slots of a large capacity, so that they are never full, and users who already have appointments. Run with the benchmark profile: mvn -P
+ * benchmark integration-test -Djmh.includes=SlotBookingBenchmark
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class SlotBookingBenchmark
+{
+    private static final int MAX_CAPACITY = 1000000;
+    private static final int DURATION_SLOT = 30;
+    private static final int NB_USERS = 100;
+    private static final int NB_APPOINTMENTS_PER_USER = 5;
+    private static final LocalTime STARTING_TIME = LocalTime.of( 8, 0 );
+
+    // The parameters are public fields named as in the results of JMH
+
+    /**
+     * Number of slots open to the users: 1 for all the users booking the same slot
+     */
+    @Param( {
+            "1", "10", "100"
+    } )
+    public int nbSlots;
+
+    private int _nIdForm;
+    private final List<Slot> _listSlot = new ArrayList<>( );
+    private final List<Integer> _listIdAppointment = new ArrayList<>( );
+    private LocalDate _startingDate;
+
+    /**
+     * Initialize the Lutece context and create the form, its slots and the appointments of the users
+     * 
+     * @throws Exception
+     *             if the fixture can not be created
+     */
+    @Setup( Level.Trial )
+    public void setUp( ) throws Exception
+    {
+        new BenchmarkContext( ).init( );
+        AppointmentFormDTO appointmentForm = FormServiceTest.buildAppointmentForm( );
+        _nIdForm = FormService.createAppointmentForm( appointmentForm );
+        _startingDate = LocalDate.now( ).plusDays( 1 );
+        LocalDateTime startingDateTime = _startingDate.atTime( STARTING_TIME );
+        for ( int i = 0; i < nbSlots; i++ )
+        {
+            LocalDateTime slotStart = startingDateTime.plusMinutes( (long) DURATION_SLOT * i );
+            Slot slot = SlotTest.buildSlot( _nIdForm, slotStart, slotStart.plusMinutes( DURATION_SLOT ), MAX_CAPACITY, MAX_CAPACITY, 0, MAX_CAPACITY,
+                    Boolean.TRUE, Boolean.FALSE );
+            _listSlot.add( SlotService.saveSlot( slot ) );
+        }
+        for ( int nUser = 0; nUser < NB_USERS; nUser++ )
+        {
+            for ( int i = 0; i < NB_APPOINTMENTS_PER_USER; i++ )
+            {
+                Slot slot = SlotService.findSlotById( _listSlot.get( ( nUser + i ) % nbSlots ).getIdSlot( ) );
+                AppointmentDTO appointmentDTO = AppointmentTest.buildAppointmentDTO( _nIdForm, slot, getEmail( nUser ), "User" + nUser, "Benchmark",
+                        slot.getStartingTime( ), slot.getEndingTime( ), 1 );
+                _listIdAppointment.add( AppointmentService.saveAppointment( appointmentDTO ) );
+            }
+        }
+    }
+
+    /**
+     * Give back their capacity to the slots, so that the saves of the previous iterations never make them full
+     */
+    @Setup( Level.Iteration )
+    public void resetSlots( )
+    {
+        for ( Slot slot : _listSlot )
+        {
+            Slot slotToReset = SlotService.findSlotById( slot.getIdSlot( ) );
+            slotToReset.setNbRemainingPlaces( MAX_CAPACITY );
+            slotToReset.setNbPotentialRemainingPlaces( MAX_CAPACITY );
+            slotToReset.setNbPlacestaken( 0 );
+            SlotService.updateSlot( slotToReset );
+        }
+    }
+
+    /**
+     * Delete the appointments, the users and the form
+     */
+    @TearDown( Level.Trial )
+    public void tearDown( )
+    {
+        AppointmentBulkDeleteService.deleteAppointments( _listIdAppointment );
+        FormServiceTest.cleanForm( _nIdForm );
+    }
+
+    /**
+     * Save the slots of an appointment with one user
+     * 
+     * @return the ids of the slots updated
+     * @throws Exception
+     *             if the slots can not be saved
+     */
+    @Benchmark
+    @Threads( 1 )
+    public Set<Integer> saveSlots1Thread( ) throws Exception
+    {
+        return saveSlots( );
+    }
+
+    /**
+     * Save the slots of an appointment with four users at the same time
+     * 
+     * @return the ids of the slots updated
+     * @throws Exception
+     *             if the slots can not be saved
+     */
+    @Benchmark
+    @Threads( 4 )
+    public Set<Integer> saveSlots4Threads( ) throws Exception
+    {
+        return saveSlots( );
+    }
+
+    /**
+     * Save the slots of an appointment with sixteen users at the same time
+     * 
+     * @return the ids of the slots updated
+     * @throws Exception
+     *             if the slots can not be saved
+     */
+    @Benchmark
+    @Threads( 16 )
+    public Set<Integer> saveSlots16Threads( ) throws Exception
+    {
+        return saveSlots( );
+    }
+
+    /**
+     * Check the limits of the appointments of a user with one user
+     * 
+     * @return the number of appointments of the user on the period
+     */
+    @Benchmark
+    @Threads( 1 )
+    public int checkQuotas1Thread( )
+    {
+        return checkQuotas( );
+    }
+
+    /**
+     * Check the limits of the appointments of a user with four users at the same time
+     * 
+     * @return the number of appointments of the user on the period
+     */
+    @Benchmark
+    @Threads( 4 )
+    public int checkQuotas4Threads( )
+    {
+        return checkQuotas( );
+    }
+
+    /**
+     * Check the limits of the appointments of a user with sixteen users at the same time
+     * 
+     * @return the number of appointments of the user on the period
+     */
+    @Benchmark
+    @Threads( 16 )
+    public int checkQuotas16Threads( )
+    {
+        return checkQuotas( );
+    }
+
+    /**
+     * Save the slots of an appointment of one place on a random slot, in a transaction, as SlotSafeService.saveAppointment does
+     * 
+     * @return the ids of the slots updated
+     * @throws Exception
+     *             if the slots can not be saved
+     */
+    private Set<Integer> saveSlots( ) throws Exception
+    {
+        Slot slot = _listSlot.get( ThreadLocalRandom.current( ).nextInt( nbSlots ) );
+        AppointmentDTO appointmentDTO = AppointmentTest.buildAppointmentDTO( _nIdForm, slot, getEmail( 0 ), "User0", "Benchmark", slot.getStartingTime( ),
+                slot.getEndingTime( ), 1 );
+        appointmentDTO.setNbMaxPotentialBookedSeats( 1 );
+        AppointmentService.buildListAppointmentSlot( appointmentDTO );
+        List<Lock> listLock = new ArrayList<>( );
+        TransactionManager.beginTransaction( AppointmentPlugin.getPlugin( ) );
+        try
+        {
+            Set<Integer> listIdSlotUpdated = SlotSafeService.saveSlots( appointmentDTO, listLock, null );
+            TransactionManager.commitTransaction( AppointmentPlugin.getPlugin( ) );
+            return listIdSlotUpdated;
+        }
+        catch( Exception e )
+        {
+            TransactionManager.rollBack( AppointmentPlugin.getPlugin( ) );
+            throw e;
+        }
+        finally
+        {
+            for ( Lock lock : listLock )
+            {
+                lock.unlock( );
+            }
+        }
+    }
+
+    /**
+     * Check the limits of the appointments of a random user: the summary of its appointments by form and by category, read from the cache when it is
+     * still valid, and the count of its appointments on a period, always read from the database
+     * 
+     * @return the number of appointments of the user on the period
+     */
+    private int checkQuotas( )
+    {
+        String strEmail = getEmail( ThreadLocalRandom.current( ).nextInt( NB_USERS ) );
+        AppointmentQuotaSummary summary = AppointmentQuotaService.getSummary( strEmail, 0 );
+        int nNbAppointments = AppointmentQuotaService.countAppointmentsOnPeriod( strEmail, _nIdForm, 0, _startingDate, _startingDate.plusWeeks( 1 ) );
+        return ( summary != null ) ? nNbAppointments : -1;
+    }
+
+    /**
+     * Get the email of a user of the fixture
+     * 
+     * @param nUser
+     *            the number of the user
+     * @return the email
+     */
+    private static String getEmail( int nUser )
+    {
+        return "benchmark" + nUser + "@appointment.test";
+    }
+}
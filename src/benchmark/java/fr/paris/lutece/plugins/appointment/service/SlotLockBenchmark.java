@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the locks of the slots taken when saving an appointment, with several users booking at the same time. The save in database is replaced
+ * by a fixed amount of work done while the locks are held, so that only the contention on the locks is measured; the save itself is measured by
+ * SlotBookingBenchmark. Run with the benchmark profile: mvn -P benchmark integration-test
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class SlotLockBenchmark
+{
+    // Work done while holding the locks, standing for the update of the slots and the creation of the appointment
+    private static final long WORK_IN_LOCK = 500;
+
+    // The parameters are public fields named as in the results of JMH
+
+    /**
+     * Number of slots open to the users: 1 for all the users booking the same slot
+     */
+    @Param( {
+            "1", "10", "1000"
+    } )
+    public int nbSlots;
+
+    /**
+     * Number of consecutive slots of an appointment
+     */
+    @Param( {
+            "1", "3"
+    } )
+    public int nbSlotsPerAppointment;
+
+    /**
+     * Initialize the Lutece context read by SlotSafeService, as for the tests
+     * 
+     * @throws Exception
+     *             if the context can not be initialized
+     */
+    @Setup( Level.Trial )
+    public void initContext( ) throws Exception
+    {
+        new BenchmarkContext( ).init( );
+    }
+
+    /**
+     * Book with one user
+     * 
+     * @throws InterruptedException
+     *             if the thread is interrupted
+     */
+    @Benchmark
+    @Threads( 1 )
+    public void lockSlots1Thread( ) throws InterruptedException
+    {
+        lockAndSave( );
+    }
+
+    /**
+     * Book with four users at the same time
+     * 
+     * @throws InterruptedException
+     *             if the thread is interrupted
+     */
+    @Benchmark
+    @Threads( 4 )
+    public void lockSlots4Threads( ) throws InterruptedException
+    {
+        lockAndSave( );
+    }
+
+    /**
+     * Book with sixteen users at the same time
+     * 
+     * @throws InterruptedException
+     *             if the thread is interrupted
+     */
+    @Benchmark
+    @Threads( 16 )
+    public void lockSlots16Threads( ) throws InterruptedException
+    {
+        lockAndSave( );
+    }
+
+    /**
+     * Take the locks of the slots of an appointment, as SlotSafeService.saveAppointment does, and release them after the work of the save
+     * 
+     * @throws InterruptedException
+     *             if the thread is interrupted
+     */
+    private void lockAndSave( ) throws InterruptedException
+    {
+        int nFirstIdSlot = 1 + ThreadLocalRandom.current( ).nextInt( nbSlots );
+        List<Integer> listIdSlot = new ArrayList<>( nbSlotsPerAppointment );
+        for ( int i = 0; i < nbSlotsPerAppointment; i++ )
+        {
+            listIdSlot.add( nFirstIdSlot + i );
+        }
+        List<Lock> listLock = new ArrayList<>( nbSlotsPerAppointment );
+        try
+        {
+            SlotSafeService.lockSlots( listIdSlot, listLock );
+            Blackhole.consumeCPU( WORK_IN_LOCK );
+        }
+        finally
+        {
+            for ( Lock lock : listLock )
+            {
+                lock.unlock( );
+            }
+        }
+    }
+}
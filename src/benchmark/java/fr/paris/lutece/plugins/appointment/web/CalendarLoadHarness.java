@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.web;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load-test harness of the front office calendar view. Unlike the JMH benchmarks next to it, it is run by hand against a running webapp, and prints the
+ * throughput of the calendar view for an increasing number of concurrent clients (1, 2, 4... up to the max number of threads). It is compiled with the
+ * benchmark profile and run with its test classpath:
+ * 
+ * <pre>
+ * mvn -P benchmark test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=fr.paris.lutece.plugins.appointment.web.CalendarLoadHarness
+ *     -Dexec.args="&lt;base url&gt; &lt;id form&gt; [duration in seconds] [max threads] [shared|separate]"
+ * </pre>
+ * 
+ * With "shared" (the default), all the clients use the same HTTP session, so they hit the same instance of AppointmentApp: this is the case that was
+ * serialized when the calendar view was synchronized. With "separate", each request opens its own session.
+ */
+public final class CalendarLoadHarness
+{
+    private static final String PATH_CALENDAR = "/jsp/site/Portal.jsp?page=appointment&view=getViewAppointmentCalendar&id_form=";
+    private static final String HEADER_COOKIE = "Cookie";
+    private static final String HEADER_SET_COOKIE = "Set-Cookie";
+    private static final String MODE_SEPARATE = "separate";
+    private static final int DEFAULT_DURATION = 20;
+    private static final int WARM_UP_REQUESTS = 20;
+    private static final int TIMEOUT = 30000;
+
+    /**
+     * Private constructor
+     */
+    private CalendarLoadHarness( )
+    {
+    }
+
+    /**
+     * Run the harness
+     * 
+     * @param args
+     *            the base url of the webapp, the id of the form, the duration of each step in seconds, the max number of threads, and the session mode
+     * @throws Exception
+     *             if the harness can not run
+     */
+    public static void main( String [ ] args ) throws Exception
+    {
+        if ( args.length < 2 )
+        {
+            System.out.println( "Usage: CalendarLoadHarness <base url> <id form> [duration in seconds] [max threads] [shared|separate]" );
+            return;
+        }
+        String strUrl = args [0] + PATH_CALENDAR + Integer.parseInt( args [1] );
+        int nDuration = ( args.length > 2 ) ? Integer.parseInt( args [2] ) : DEFAULT_DURATION;
+        int nMaxThreads = ( args.length > 3 ) ? Integer.parseInt( args [3] ) : Runtime.getRuntime( ).availableProcessors( ) * 2;
+        boolean bSharedSession = args.length <= 4 || !MODE_SEPARATE.equals( args [4] );
+
+        String strCookie = null;
+        for ( int i = 0; i < WARM_UP_REQUESTS; i++ )
+        {
+            String strSetCookie = request( strUrl, strCookie );
+            if ( bSharedSession && strCookie == null && strSetCookie != null )
+            {
+                strCookie = strSetCookie.split( ";" ) [0];
+            }
+        }
+
+        System.out.println( "threads\trequests/s\tmean latency (ms)\terrors" );
+        for ( int nThreads = 1; nThreads <= nMaxThreads; nThreads = nThreads * 2 )
+        {
+            runStep( strUrl, strCookie, nThreads, nDuration );
+        }
+    }
+
+    /**
+     * Run the clients during a given time and print the results
+     * 
+     * @param strUrl
+     *            the url of the calendar
+     * @param strCookie
+     *            the cookie of the shared session, or null
+     * @param nThreads
+     *            the number of concurrent clients
+     * @param nDuration
+     *            the duration in seconds
+     * @throws InterruptedException
+     *             if the harness is interrupted
+     */
+    private static void runStep( String strUrl, String strCookie, int nThreads, int nDuration ) throws InterruptedException
+    {
+        AtomicLong nbRequests = new AtomicLong( );
+        AtomicLong nbErrors = new AtomicLong( );
+        AtomicLong lTotalLatency = new AtomicLong( );
+        long lEnd = System.nanoTime( ) + nDuration * 1_000_000_000L;
+        CountDownLatch latch = new CountDownLatch( nThreads );
+        for ( int i = 0; i < nThreads; i++ )
+        {
+            Thread thread = new Thread( ( ) -> {
+                while ( System.nanoTime( ) < lEnd )
+                {
+                    long lStart = System.nanoTime( );
+                    try
+                    {
+                        request( strUrl, strCookie );
+                        nbRequests.incrementAndGet( );
+                        lTotalLatency.addAndGet( System.nanoTime( ) - lStart );
+                    }
+                    catch( IOException e )
+                    {
+                        nbErrors.incrementAndGet( );
+                    }
+                }
+                latch.countDown( );
+            } );
+            thread.start( );
+        }
+        latch.await( );
+        long lNbRequests = nbRequests.get( );
+        double dMeanLatency = ( lNbRequests == 0 ) ? 0 : lTotalLatency.get( ) / 1_000_000.0 / lNbRequests;
+        System.out.println( String.format( "%d\t%.1f\t%.1f\t%d", nThreads, (double) lNbRequests / nDuration, dMeanLatency, nbErrors.get( ) ) );
+    }
+
+    /**
+     * Request the calendar and read the whole response
+     * 
+     * @param strUrl
+     *            the url of the calendar
+     * @param strCookie
+     *            the cookie to send, or null
+     * @return the Set-Cookie header of the response, or null
+     * @throws IOException
+     *             if the request fails or does not return 200
+     */
+    private static String request( String strUrl, String strCookie ) throws IOException
+    {
+        HttpURLConnection connection = (HttpURLConnection) new URL( strUrl ).openConnection( );
+        connection.setConnectTimeout( TIMEOUT );
+        connection.setReadTimeout( TIMEOUT );
+        if ( strCookie != null )
+        {
+            connection.setRequestProperty( HEADER_COOKIE, strCookie );
+        }
+        try
+        {
+            if ( connection.getResponseCode( ) != HttpURLConnection.HTTP_OK )
+            {
+                throw new IOException( "HTTP " + connection.getResponseCode( ) );
+            }
+            byte [ ] buffer = new byte [8192];
+            try ( InputStream in = connection.getInputStream( ) )
+            {
+                while ( in.read( buffer ) != -1 )
+                {
+                    // Read the whole page, as a browser would
+                }
+            }
+            return connection.getHeaderField( HEADER_SET_COOKIE );
+        }
+        finally
+        {
+            connection.disconnect( );
+        }
+    }
+}
@@ -42,12 +42,14 @@ import fr.paris.lutece.util.sql.DAOUtil;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.Serializable;
 import java.sql.Statement;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -88,10 +90,19 @@ public final class AppointmentDAO implements IAppointmentDAO
             + " FROM appointment_appointment app " + "INNER JOIN appointment_user user ON app.id_user = user.id_user "
             + " INNER JOIN appointment_appointment_slot app_slot ON app.id_appointment = app_slot.id_appointment"
             + " INNER JOIN appointment_slot slot ON app_slot.id_slot = slot.id_slot WHERE id_form != 0";
+    private static final String SQL_QUERY_FROM_FILTER = " FROM appointment_appointment app INNER JOIN appointment_user user ON app.id_user = user.id_user "
+            + " INNER JOIN appointment_appointment_slot app_slot ON app.id_appointment = app_slot.id_appointment"
+            + " INNER JOIN appointment_slot slot ON app_slot.id_slot = slot.id_slot WHERE id_form != 0";
+    private static final String SQL_QUERY_COUNT_BY_FILTER = "SELECT COUNT(DISTINCT app.id_appointment)" + SQL_QUERY_FROM_FILTER;
+    private static final String SQL_QUERY_SELECT_PAGE_BY_FILTER = "SELECT app.id_appointment, ";
 
     private static final String SQL_QUERY_INSERT_APPT_SLT = "INSERT INTO appointment_appointment_slot (id_appointment, id_slot, nb_places) VALUES ( ?, ?, ?)";
     private static final String SQL_QUERY_DELETE_APPT_SLT = "DELETE FROM appointment_appointment_slot WHERE id_appointment = ?";
     private static final String SQL_QUERY_SELECT_APPT_SLT = "SELECT id_appointment, id_slot, nb_places FROM appointment_appointment_slot where id_appointment = ?";
+    private static final String SQL_QUERY_SELECT_APPT_SLT_BY_LIST_ID = "SELECT id_appointment, id_slot, nb_places FROM appointment_appointment_slot WHERE id_appointment IN ( ";
+    private static final String SQL_QUERY_DELETE_APPT_SLT_BY_LIST_ID = "DELETE FROM appointment_appointment_slot WHERE id_appointment IN ( ";
+    private static final String SQL_QUERY_SELECT_BY_LIST_ID = SQL_QUERY_SELECT_COLUMNS + "FROM appointment_appointment appointment WHERE id_appointment IN ( ";
+    private static final String SQL_QUERY_DELETE_BY_LIST_ID = "DELETE FROM appointment_appointment WHERE id_appointment IN ( ";
 
     private static final String SQL_QUERY_SELECT_BY_LIST_ID_SLOT = SQL_QUERY_SELECT_COLUMNS
             + ",appt_slot.nb_places FROM appointment_appointment appointment INNER JOIN appointment_appointment_slot appt_slot on ( appt_slot.id_appointment = appointment.id_appointment ) where appt_slot.id_slot IN(";
@@ -104,6 +115,15 @@ public final class AppointmentDAO implements IAppointmentDAO
             + "JOIN appointment_form form ON form.id_form = slot.id_form "
             + "JOIN appointment_category cat on cat.id_category = form.id_category and cat.id_category = ? ";
 
+    private static final String SQL_QUERY_FROM_EMAIL = " FROM appointment_appointment app JOIN appointment_user user ON user.id_user = app.id_user AND user.email = ?"
+            + " JOIN appointment_appointment_slot app_slot ON app_slot.id_appointment = app.id_appointment JOIN appointment_slot slot ON slot.id_slot = app_slot.id_slot";
+    private static final String SQL_QUERY_SELECT_QUOTA_SUMMARY_BY_EMAIL = "SELECT slot.id_form, form.id_category, COUNT(DISTINCT app.id_appointment),"
+            + " COUNT(DISTINCT CASE WHEN slot.ending_date_time >= ? THEN app.id_appointment END), MAX(slot.starting_date_time), MAX(app.date_appointment_create)"
+            + SQL_QUERY_FROM_EMAIL + " JOIN appointment_form form ON form.id_form = slot.id_form"
+            + " WHERE app.is_cancelled = 0 AND app.id_appointment <> ? GROUP BY slot.id_form, form.id_category";
+    private static final String SQL_QUERY_COUNT_BY_EMAIL_AND_FORM_ON_PERIOD = "SELECT COUNT(DISTINCT app.id_appointment)" + SQL_QUERY_FROM_EMAIL
+            + " WHERE slot.id_form = ? AND app.is_cancelled = 0 AND app.id_appointment <> ? AND slot.starting_date_time >= ? AND slot.starting_date_time < ?";
+
     private static final String SQL_QUERY_SELECT_ID = "SELECT id_appointment FROM appointment_appointment ";
     private static final String SQL_FILTER_FIRST_NAME = "UPPER(user.first_name) LIKE ?";
     private static final String SQL_FILTER_LAST_NAME = "UPPER(user.last_name) LIKE ?";
@@ -127,10 +147,23 @@ public final class AppointmentDAO implements IAppointmentDAO
     private static final String SQL_SORT_APP_IS_CANCELLED = "app.is_cancelled";
     private static final String SQL_SORT_ASC = " ASC ";
     private static final String SQL_SORT_DESC = " DESC ";
+    private static final String SQL_SORT_MIN_SLOT_STARTING_DATE_TIME = "MIN(slot.starting_date_time)";
+    private static final String SQL_SORT_COALESCE_START = "COALESCE(";
+    private static final String SQL_SORT_COALESCE_END = ",'')";
+    private static final String SQL_GROUP_BY_ID_APPOINTMENT = " GROUP BY app.id_appointment";
+    private static final String SQL_HAVING = " HAVING ( ";
+    private static final String SQL_SEEK_AFTER = " > ? OR ( ";
+    private static final String SQL_SEEK_BEFORE = " < ? OR ( ";
+    private static final String SQL_SEEK_EQUALS_AFTER = " = ? AND app.id_appointment > ? ) )";
+    private static final String SQL_SEEK_EQUALS_BEFORE = " = ? AND app.id_appointment < ? ) )";
+    private static final String SQL_ORDER_BY_ID_APPOINTMENT = ", app.id_appointment";
+    private static final String SQL_LIMIT = " LIMIT ?";
+    private static final String SQL_OFFSET = " OFFSET ?";
 
     private static final String CONSTANT_AND = " AND ";
     private static final String CONSTANT_PERCENT = "%";
     private static final String CONSTANT_ORDER_BY = " ORDER BY ";
+    private static final String CONSTANT_COMMA = ", ";
 
     private static final String LAST_NAME = "last_name";
     private static final String FIRST_NAME = "first_name";
@@ -141,6 +174,14 @@ public final class AppointmentDAO implements IAppointmentDAO
     private static final String ADMIN = "admin";
     private static final String STATUS = "status";
 
+    /**
+     * Type of the value of the column used to sort the appointments
+     */
+    private enum SortType
+    {
+        STRING, INTEGER, BOOLEAN, DATE
+    }
+
 
     @Override
     public void insert( Appointment appointment, Plugin plugin )
@@ -240,6 +281,95 @@ public final class AppointmentDAO implements IAppointmentDAO
         }
     }
 
+    @Override
+    public void deleteByListId( List<Integer> listIdAppointment, Plugin plugin )
+    {
+        if ( CollectionUtils.isEmpty( listIdAppointment ) )
+        {
+            return;
+        }
+        try ( DAOUtil daoUtil = new DAOUtil( getListIdQuery( SQL_QUERY_DELETE_APPT_SLT_BY_LIST_ID, listIdAppointment ), plugin ) )
+        {
+            setListId( daoUtil, listIdAppointment );
+            daoUtil.executeUpdate( );
+        }
+        try ( DAOUtil daoUtil = new DAOUtil( getListIdQuery( SQL_QUERY_DELETE_BY_LIST_ID, listIdAppointment ), plugin ) )
+        {
+            setListId( daoUtil, listIdAppointment );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    @Override
+    public List<Appointment> findByListId( List<Integer> listIdAppointment, Plugin plugin )
+    {
+        Map<Integer, Appointment> mapAppointment = new LinkedHashMap<>( );
+        if ( CollectionUtils.isEmpty( listIdAppointment ) )
+        {
+            return new ArrayList<>( );
+        }
+        try ( DAOUtil daoUtil = new DAOUtil( getListIdQuery( SQL_QUERY_SELECT_BY_LIST_ID, listIdAppointment ), plugin ) )
+        {
+            setListId( daoUtil, listIdAppointment );
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                Appointment appointment = buildAppointment( daoUtil );
+                appointment.setListAppointmentSlot( new ArrayList<>( ) );
+                mapAppointment.put( appointment.getIdAppointment( ), appointment );
+            }
+        }
+        try ( DAOUtil daoUtil = new DAOUtil( getListIdQuery( SQL_QUERY_SELECT_APPT_SLT_BY_LIST_ID, listIdAppointment ), plugin ) )
+        {
+            setListId( daoUtil, listIdAppointment );
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                AppointmentSlot appointmentSlot = new AppointmentSlot( );
+                appointmentSlot.setIdAppointment( daoUtil.getInt( 1 ) );
+                appointmentSlot.setIdSlot( daoUtil.getInt( 2 ) );
+                appointmentSlot.setNbPlaces( daoUtil.getInt( 3 ) );
+                Appointment appointment = mapAppointment.get( appointmentSlot.getIdAppointment( ) );
+                if ( appointment != null )
+                {
+                    appointment.getListAppointmentSlot( ).add( appointmentSlot );
+                }
+            }
+        }
+        return new ArrayList<>( mapAppointment.values( ) );
+    }
+
+    /**
+     * Build a query ending with a list of ids
+     * 
+     * @param strQuery
+     *            the query, ending with an opened IN clause
+     * @param listId
+     *            the ids
+     * @return the query
+     */
+    private static String getListIdQuery( String strQuery, List<Integer> listId )
+    {
+        return strQuery + listId.stream( ).map( i -> "?" ).collect( Collectors.joining( "," ) ) + " )";
+    }
+
+    /**
+     * Set a list of ids as the parameters of a query
+     * 
+     * @param daoUtil
+     *            the daoUtil
+     * @param listId
+     *            the ids
+     */
+    private static void setListId( DAOUtil daoUtil, List<Integer> listId )
+    {
+        int nIndex = 1;
+        for ( Integer nId : listId )
+        {
+            daoUtil.setInt( nIndex++, nId );
+        }
+    }
+
     @Override
     public Appointment select( int nIdAppointment, Plugin plugin )
     {
@@ -438,6 +568,124 @@ public final class AppointmentDAO implements IAppointmentDAO
         return list;
     }
 
+    @Override
+    public List<AppointmentCursor> findPageByFilter( AppointmentFilterDTO appointmentFilter, AppointmentCursor cursor, int nOffset, int nLimit,
+            Plugin plugin )
+    {
+        List<AppointmentCursor> listCursor = new ArrayList<>( );
+        if ( appointmentFilter.getOrderBy( ) == null )
+        {
+            appointmentFilter.setOrderBy( DATE_APPOINTMENT );
+        }
+        SortType sortType = getSortType( appointmentFilter.getOrderBy( ) );
+        String strSortExpression = getSortExpression( appointmentFilter.getOrderBy( ), sortType );
+        String strSortDirection = appointmentFilter.isOrderAsc( ) ? SQL_SORT_ASC : SQL_SORT_DESC;
+
+        StringBuilder sbSql = new StringBuilder(
+                getSqlQueryFromFilter( appointmentFilter, SQL_QUERY_SELECT_PAGE_BY_FILTER + strSortExpression + SQL_QUERY_FROM_FILTER ) );
+        sbSql.append( SQL_GROUP_BY_ID_APPOINTMENT );
+        if ( sortType != SortType.DATE )
+        {
+            // The sorted column must be grouped to be selected along with the id
+            sbSql.append( CONSTANT_COMMA ).append( getSortColumn( appointmentFilter.getOrderBy( ) ) );
+        }
+        if ( cursor != null )
+        {
+            sbSql.append( SQL_HAVING ).append( strSortExpression );
+            sbSql.append( appointmentFilter.isOrderAsc( ) ? SQL_SEEK_AFTER : SQL_SEEK_BEFORE );
+            sbSql.append( strSortExpression );
+            sbSql.append( appointmentFilter.isOrderAsc( ) ? SQL_SEEK_EQUALS_AFTER : SQL_SEEK_EQUALS_BEFORE );
+        }
+        sbSql.append( CONSTANT_ORDER_BY ).append( strSortExpression ).append( strSortDirection );
+        sbSql.append( SQL_ORDER_BY_ID_APPOINTMENT ).append( strSortDirection );
+        sbSql.append( SQL_LIMIT );
+        if ( nOffset > 0 )
+        {
+            sbSql.append( SQL_OFFSET );
+        }
+
+        try ( DAOUtil daoUtil = new DAOUtil( sbSql.toString( ), plugin ) )
+        {
+            int nIndex = addFilterParametersToDAOUtil( appointmentFilter, daoUtil );
+            if ( cursor != null )
+            {
+                setSortValue( daoUtil, ++nIndex, sortType, cursor.getSortValue( ) );
+                setSortValue( daoUtil, ++nIndex, sortType, cursor.getSortValue( ) );
+                daoUtil.setInt( ++nIndex, cursor.getIdAppointment( ) );
+            }
+            daoUtil.setInt( ++nIndex, nLimit );
+            if ( nOffset > 0 )
+            {
+                daoUtil.setInt( ++nIndex, nOffset );
+            }
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                listCursor.add( new AppointmentCursor( daoUtil.getInt( 1 ), getSortValue( daoUtil, 2, sortType ) ) );
+            }
+        }
+        return listCursor;
+    }
+
+    @Override
+    public int countByFilter( AppointmentFilterDTO appointmentFilter, Plugin plugin )
+    {
+        int nCount = 0;
+        try ( DAOUtil daoUtil = new DAOUtil( getSqlQueryFromFilter( appointmentFilter, SQL_QUERY_COUNT_BY_FILTER ), plugin ) )
+        {
+            addFilterParametersToDAOUtil( appointmentFilter, daoUtil );
+            daoUtil.executeQuery( );
+            if ( daoUtil.next( ) )
+            {
+                nCount = daoUtil.getInt( 1 );
+            }
+        }
+        return nCount;
+    }
+
+    @Override
+    public AppointmentQuotaSummary findQuotaSummaryByEmail( String strEmail, int nIdAppointmentExcluded, LocalDateTime dateNow, Plugin plugin )
+    {
+        AppointmentQuotaSummary summary = new AppointmentQuotaSummary( );
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_QUOTA_SUMMARY_BY_EMAIL, plugin ) )
+        {
+            daoUtil.setTimestamp( 1, Timestamp.valueOf( dateNow ) );
+            daoUtil.setString( 2, strEmail );
+            daoUtil.setInt( 3, nIdAppointmentExcluded );
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                Timestamp lastStartingDateTime = daoUtil.getTimestamp( 5 );
+                Timestamp lastDateAppointmentTaken = daoUtil.getTimestamp( 6 );
+                summary.addForm( daoUtil.getInt( 1 ), daoUtil.getInt( 2 ), daoUtil.getInt( 3 ), daoUtil.getInt( 4 ),
+                        lastStartingDateTime != null ? lastStartingDateTime.toLocalDateTime( ) : null,
+                        lastDateAppointmentTaken != null ? lastDateAppointmentTaken.toLocalDateTime( ) : null );
+            }
+        }
+        return summary;
+    }
+
+    @Override
+    public int countByEmailAndFormOnPeriod( String strEmail, int nIdForm, int nIdAppointmentExcluded, LocalDateTime startingDateTime,
+            LocalDateTime endingDateTime, Plugin plugin )
+    {
+        int nCount = 0;
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_COUNT_BY_EMAIL_AND_FORM_ON_PERIOD, plugin ) )
+        {
+            daoUtil.setString( 1, strEmail );
+            daoUtil.setInt( 2, nIdForm );
+            daoUtil.setInt( 3, nIdAppointmentExcluded );
+            daoUtil.setTimestamp( 4, Timestamp.valueOf( startingDateTime ) );
+            daoUtil.setTimestamp( 5, Timestamp.valueOf( endingDateTime ) );
+            daoUtil.executeQuery( );
+            if ( daoUtil.next( ) )
+            {
+                nCount = daoUtil.getInt( 1 );
+            }
+        }
+        return nCount;
+    }
+
     @Override
     public List<Appointment> findByCategoryAndMail( int nIdCategory, String mail, Plugin plugin )
     {
@@ -493,8 +741,9 @@ public final class AppointmentDAO implements IAppointmentDAO
      *            the filter
      * @param daoUtil
      *            the daoutil
+     * @return the index of the last parameter set
      */
-    private void addFilterParametersToDAOUtil( AppointmentFilterDTO appointmentFilter, DAOUtil daoUtil )
+    private int addFilterParametersToDAOUtil( AppointmentFilterDTO appointmentFilter, DAOUtil daoUtil )
     {
         int nIndex = 0;
         if ( appointmentFilter.getIdForm( ) != 0 )
@@ -558,6 +807,7 @@ public final class AppointmentDAO implements IAppointmentDAO
         {
             daoUtil.setInt( ++nIndex, id );
         }
+        return nIndex;
     }
 
     /**
@@ -639,44 +889,151 @@ public final class AppointmentDAO implements IAppointmentDAO
             appointmentFilter.setOrderBy( DATE_APPOINTMENT );
         }
 
-        switch( appointmentFilter.getOrderBy( ) )
+        sbSql.append( getSortColumn( appointmentFilter.getOrderBy( ) ) );
+        if ( appointmentFilter.isOrderAsc( ) )
+        {
+            sbSql.append( SQL_SORT_ASC );
+        }
+        else
+        {
+            sbSql.append( SQL_SORT_DESC );
+        }
+        return sbSql.toString( );
+    }
+
+    /**
+     * Get the column used to sort the appointments
+     * 
+     * @param strOrderBy
+     *            the order by of the filter
+     * @return the sql column
+     */
+    private static String getSortColumn( String strOrderBy )
+    {
+        switch( strOrderBy )
         {
             case LAST_NAME:
-                sbSql.append( SQL_SORT_USER_LAST_NAME );
-                break;
+                return SQL_SORT_USER_LAST_NAME;
             case FIRST_NAME:
-                sbSql.append( SQL_SORT_USER_FIRST_NAME );
-                break;
+                return SQL_SORT_USER_FIRST_NAME;
             case EMAIL:
-                sbSql.append( SQL_SORT_USER_EMAIL );
-                break;
+                return SQL_SORT_USER_EMAIL;
             case PHONE_NUMBER:
-                sbSql.append( SQL_SORT_USER_PHONE_NUMBER );
-                break;
+                return SQL_SORT_USER_PHONE_NUMBER;
             case NB_BOOKED_SEATS:
-                sbSql.append( SQL_SORT_APP_NB_PLACES );
-                break;
-            case DATE_APPOINTMENT:
-                sbSql.append( SQL_SORT_SLOT_STARTING_DATE_TIME );
-                break;
+                return SQL_SORT_APP_NB_PLACES;
             case ADMIN:
-                sbSql.append( SQL_SORT_APP_ID_ADMIN_USER );
-                break;
+                return SQL_SORT_APP_ID_ADMIN_USER;
             case STATUS:
-                sbSql.append( SQL_SORT_APP_IS_CANCELLED );
-                break;
+                return SQL_SORT_APP_IS_CANCELLED;
             default:
-                sbSql.append( SQL_SORT_SLOT_STARTING_DATE_TIME );
+                return SQL_SORT_SLOT_STARTING_DATE_TIME;
         }
-        if ( appointmentFilter.isOrderAsc( ) )
+    }
+
+    /**
+     * Get the type of the value of the column used to sort the appointments
+     * 
+     * @param strOrderBy
+     *            the order by of the filter
+     * @return the sort type
+     */
+    private static SortType getSortType( String strOrderBy )
+    {
+        switch( strOrderBy )
         {
-            sbSql.append( SQL_SORT_ASC );
+            case LAST_NAME:
+            case FIRST_NAME:
+            case EMAIL:
+            case PHONE_NUMBER:
+                return SortType.STRING;
+            case NB_BOOKED_SEATS:
+            case ADMIN:
+                return SortType.INTEGER;
+            case STATUS:
+                return SortType.BOOLEAN;
+            default:
+                return SortType.DATE;
         }
-        else
+    }
+
+    /**
+     * Get the sort expression of a page of appointments. An appointment taken on several slots is sorted by its first slot, and the null strings are
+     * sorted as empty strings so that they can be compared with the cursor.
+     * 
+     * @param strOrderBy
+     *            the order by of the filter
+     * @param sortType
+     *            the sort type
+     * @return the sql expression
+     */
+    private static String getSortExpression( String strOrderBy, SortType sortType )
+    {
+        switch( sortType )
         {
-            sbSql.append( SQL_SORT_DESC );
+            case STRING:
+                return SQL_SORT_COALESCE_START + getSortColumn( strOrderBy ) + SQL_SORT_COALESCE_END;
+            case DATE:
+                return SQL_SORT_MIN_SLOT_STARTING_DATE_TIME;
+            default:
+                return getSortColumn( strOrderBy );
+        }
+    }
+
+    /**
+     * Read the sort value of an appointment
+     * 
+     * @param daoUtil
+     *            the daoUtil
+     * @param nIndex
+     *            the index of the column
+     * @param sortType
+     *            the sort type
+     * @return the sort value
+     */
+    private static Serializable getSortValue( DAOUtil daoUtil, int nIndex, SortType sortType )
+    {
+        switch( sortType )
+        {
+            case STRING:
+                return daoUtil.getString( nIndex );
+            case INTEGER:
+                return daoUtil.getInt( nIndex );
+            case BOOLEAN:
+                return daoUtil.getBoolean( nIndex );
+            default:
+                return daoUtil.getTimestamp( nIndex );
+        }
+    }
+
+    /**
+     * Set the sort value of a cursor as a parameter of the query
+     * 
+     * @param daoUtil
+     *            the daoUtil
+     * @param nIndex
+     *            the index of the parameter
+     * @param sortType
+     *            the sort type
+     * @param sortValue
+     *            the sort value
+     */
+    private static void setSortValue( DAOUtil daoUtil, int nIndex, SortType sortType, Serializable sortValue )
+    {
+        switch( sortType )
+        {
+            case STRING:
+                daoUtil.setString( nIndex, (String) sortValue );
+                break;
+            case INTEGER:
+                daoUtil.setInt( nIndex, (Integer) sortValue );
+                break;
+            case BOOLEAN:
+                daoUtil.setBoolean( nIndex, (Boolean) sortValue );
+                break;
+            default:
+                daoUtil.setTimestamp( nIndex, (Timestamp) sortValue );
         }
-        return sbSql.toString( );
     }
 
     @Override
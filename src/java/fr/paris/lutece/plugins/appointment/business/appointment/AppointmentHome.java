@@ -33,6 +33,7 @@
  */
 package fr.paris.lutece.plugins.appointment.business.appointment;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import fr.paris.lutece.plugins.appointment.service.AppointmentPlugin;
@@ -113,6 +114,29 @@ public final class AppointmentHome
         _dao.delete( nKey, _plugin );
     }
 
+    /**
+     * Delete the appointments whose identifiers are specified in parameter
+     * 
+     * @param listIdAppointment
+     *            the ids of the appointments
+     */
+    public static void deleteByListId( List<Integer> listIdAppointment )
+    {
+        _dao.deleteByListId( listIdAppointment, _plugin );
+    }
+
+    /**
+     * Return the appointments whose identifiers are specified in parameter, with their links with the slots
+     * 
+     * @param listIdAppointment
+     *            the ids of the appointments
+     * @return the appointments found
+     */
+    public static List<Appointment> findByListId( List<Integer> listIdAppointment )
+    {
+        return _dao.findByListId( listIdAppointment, _plugin );
+    }
+
     /**
      * Return an instance of the Appointment whose identifier is specified in parameter
      * 
@@ -216,6 +240,73 @@ public final class AppointmentHome
         return _dao.findIdsByFilter( appointmentFilter, _plugin );
     }
 
+    /**
+     * Returns a page of the appointments matching the filter, sorted by the order of the filter
+     * 
+     * @param appointmentFilter
+     *            the filter
+     * @param cursor
+     *            the cursor of the last appointment of the previous page, or null
+     * @param nOffset
+     *            the number of appointments to skip
+     * @param nLimit
+     *            the maximum number of appointments of the page
+     * @return the cursors of the appointments of the page
+     */
+    public static List<AppointmentCursor> findPageByFilter( AppointmentFilterDTO appointmentFilter, AppointmentCursor cursor, int nOffset, int nLimit )
+    {
+        return _dao.findPageByFilter( appointmentFilter, cursor, nOffset, nLimit, _plugin );
+    }
+
+    /**
+     * Returns the number of appointments matching the filter
+     * 
+     * @param appointmentFilter
+     *            the filter
+     * @return the number of appointments
+     */
+    public static int countByFilter( AppointmentFilterDTO appointmentFilter )
+    {
+        return _dao.countByFilter( appointmentFilter, _plugin );
+    }
+
+    /**
+     * Find the summary of the appointments of a user that are not cancelled, aggregated by form and by category
+     * 
+     * @param strEmail
+     *            the email of the user
+     * @param nIdAppointmentExcluded
+     *            the id of an appointment to leave out of the summary (the appointment being modified), 0 if none
+     * @param dateNow
+     *            the current date, the appointments ended before it are not counted as upcoming
+     * @return the summary of the appointments of the user
+     */
+    public static AppointmentQuotaSummary findQuotaSummaryByEmail( String strEmail, int nIdAppointmentExcluded, LocalDateTime dateNow )
+    {
+        return _dao.findQuotaSummaryByEmail( strEmail, nIdAppointmentExcluded, dateNow, _plugin );
+    }
+
+    /**
+     * Count the appointments of a user on a form that are not cancelled and start in a period
+     * 
+     * @param strEmail
+     *            the email of the user
+     * @param nIdForm
+     *            the id of the form
+     * @param nIdAppointmentExcluded
+     *            the id of an appointment to leave out of the count (the appointment being modified), 0 if none
+     * @param startingDateTime
+     *            the beginning of the period (included)
+     * @param endingDateTime
+     *            the end of the period (excluded)
+     * @return the number of appointments
+     */
+    public static int countByEmailAndFormOnPeriod( String strEmail, int nIdForm, int nIdAppointmentExcluded, LocalDateTime startingDateTime,
+            LocalDateTime endingDateTime )
+    {
+        return _dao.countByEmailAndFormOnPeriod( strEmail, nIdForm, nIdAppointmentExcluded, startingDateTime, endingDateTime, _plugin );
+    }
+
     /**
      * Find a list of appointments by id category and mail
      * 
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.business.appointment;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Summary of the appointments of a user (identified by an email) that are not cancelled, aggregated by form and by category. It holds what is needed to
+ * check the limits of the forms and of the categories on the number of appointments of a user, without loading the appointments.
+ */
+public final class AppointmentQuotaSummary implements Serializable
+{
+    /**
+     * Serial version UID
+     */
+    private static final long serialVersionUID = 3027419806346612755L;
+
+    private final Map<Integer, Integer> _mapNbAppointmentsByForm = new HashMap<>( );
+    private final Map<Integer, LocalDateTime> _mapLastStartingDateTimeByForm = new HashMap<>( );
+    private final Map<Integer, LocalDateTime> _mapLastDateAppointmentTakenByForm = new HashMap<>( );
+    private final Map<Integer, Integer> _mapNbUpcomingAppointmentsByCategory = new HashMap<>( );
+
+    /**
+     * Add the aggregates of the appointments of the user on a form
+     * 
+     * @param nIdForm
+     *            the id of the form
+     * @param nIdCategory
+     *            the id of the category of the form
+     * @param nNbAppointments
+     *            the number of appointments on the form
+     * @param nNbUpcomingAppointments
+     *            the number of appointments on the form that are not ended yet
+     * @param lastStartingDateTime
+     *            the starting date of the last appointment on the form
+     * @param lastDateAppointmentTaken
+     *            the date the last appointment on the form was taken
+     */
+    public void addForm( int nIdForm, int nIdCategory, int nNbAppointments, int nNbUpcomingAppointments, LocalDateTime lastStartingDateTime,
+            LocalDateTime lastDateAppointmentTaken )
+    {
+        _mapNbAppointmentsByForm.merge( nIdForm, nNbAppointments, Integer::sum );
+        if ( lastStartingDateTime != null )
+        {
+            _mapLastStartingDateTimeByForm.merge( nIdForm, lastStartingDateTime, ( d1, d2 ) -> d1.isAfter( d2 ) ? d1 : d2 );
+        }
+        if ( lastDateAppointmentTaken != null )
+        {
+            _mapLastDateAppointmentTakenByForm.merge( nIdForm, lastDateAppointmentTaken, ( d1, d2 ) -> d1.isAfter( d2 ) ? d1 : d2 );
+        }
+        if ( nIdCategory != 0 )
+        {
+            _mapNbUpcomingAppointmentsByCategory.merge( nIdCategory, nNbUpcomingAppointments, Integer::sum );
+        }
+    }
+
+    /**
+     * Returns the number of appointments of the user on a form
+     * 
+     * @param nIdForm
+     *            the id of the form
+     * @return the number of appointments
+     */
+    public int getNbAppointments( int nIdForm )
+    {
+        return _mapNbAppointmentsByForm.getOrDefault( nIdForm, 0 );
+    }
+
+    /**
+     * Returns the starting date of the last appointment of the user on a form
+     * 
+     * @param nIdForm
+     *            the id of the form
+     * @return the starting date, or null if the user has no appointment on the form
+     */
+    public LocalDateTime getLastStartingDateTime( int nIdForm )
+    {
+        return _mapLastStartingDateTimeByForm.get( nIdForm );
+    }
+
+    /**
+     * Returns the date the last appointment of the user on a form was taken
+     * 
+     * @param nIdForm
+     *            the id of the form
+     * @return the date the appointment was taken, or null if the user has no appointment on the form
+     */
+    public LocalDateTime getLastDateAppointmentTaken( int nIdForm )
+    {
+        return _mapLastDateAppointmentTakenByForm.get( nIdForm );
+    }
+
+    /**
+     * Returns the number of appointments of the user on the forms of a category that are not ended yet
+     * 
+     * @param nIdCategory
+     *            the id of the category
+     * @return the number of appointments
+     */
+    public int getNbUpcomingAppointmentsOnCategory( int nIdCategory )
+    {
+        return _mapNbUpcomingAppointmentsByCategory.getOrDefault( nIdCategory, 0 );
+    }
+}
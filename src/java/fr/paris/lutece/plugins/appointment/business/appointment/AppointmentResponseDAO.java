@@ -35,8 +35,15 @@ package fr.paris.lutece.plugins.appointment.business.appointment;
 
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
+import fr.paris.lutece.plugins.genericattributes.business.Entry;
+import fr.paris.lutece.plugins.genericattributes.business.Field;
+import fr.paris.lutece.plugins.genericattributes.business.Response;
+import fr.paris.lutece.portal.business.file.File;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.util.sql.DAOUtil;
 
@@ -52,6 +59,10 @@ public final class AppointmentResponseDAO implements IAppointmentResponseDAO
     private static final String SQL_QUERY_INSERT_APPOINTMENT_RESPONSE = "INSERT INTO appointment_appointment_response ( id_appointment, id_response) VALUES (?,?)";
     private static final String SQL_QUERY_REMOVE_FROM_ID_RESPONSE = "DELETE FROM appointment_appointment_response WHERE id_response = ?";
     private static final String SQL_QUERY_SELECT_APPOINTMENT_RESPONSE_LIST = "SELECT id_response FROM appointment_appointment_response WHERE id_appointment = ?";
+    private static final String SQL_QUERY_REMOVE_BY_LIST_ID_APPOINTMENT = "DELETE FROM appointment_appointment_response WHERE id_appointment IN ( ";
+    private static final String SQL_QUERY_SELECT_RESPONSE_BY_LIST_ID_APPOINTMENT = "SELECT app_resp.id_appointment, resp.id_response, resp.response_value, resp.id_entry, resp.iteration_number, resp.id_field, resp.id_file, resp.status FROM genatt_response resp JOIN appointment_appointment_response app_resp ON resp.id_response = app_resp.id_response WHERE app_resp.id_appointment IN ( ";
+    private static final String SQL_QUERY_SELECT_ID_FILE_BY_LIST_ID_APPOINTMENT = "SELECT resp.id_file FROM genatt_response resp JOIN appointment_appointment_response app_resp ON resp.id_response = app_resp.id_response WHERE resp.id_file IS NOT NULL AND app_resp.id_appointment IN ( ";
+    private static final String SQL_QUERY_REMOVE_RESPONSE_BY_LIST_ID_APPOINTMENT = "DELETE FROM genatt_response WHERE id_response IN ( SELECT id_response FROM appointment_appointment_response WHERE id_appointment IN ( ";
 
     @Override
     public void insertAppointmentResponse( int nIdAppointment, int nIdResponse, Plugin plugin )
@@ -91,4 +102,129 @@ public final class AppointmentResponseDAO implements IAppointmentResponseDAO
         return listIdResponse;
     }
 
+    @Override
+    public Map<Integer, List<Response>> findListResponseByListIdAppointment( List<Integer> listIdAppointment, Plugin plugin )
+    {
+        Map<Integer, List<Response>> mapResponse = new HashMap<>( );
+        if ( listIdAppointment.isEmpty( ) )
+        {
+            return mapResponse;
+        }
+        String query = SQL_QUERY_SELECT_RESPONSE_BY_LIST_ID_APPOINTMENT + listIdAppointment.stream( ).map( i -> "?" ).collect( Collectors.joining( "," ) )
+                + " ) ORDER BY resp.id_response";
+        try ( DAOUtil daoUtil = new DAOUtil( query, plugin ) )
+        {
+            int nIndex = 1;
+            for ( Integer nIdAppointment : listIdAppointment )
+            {
+                daoUtil.setInt( nIndex++, nIdAppointment );
+            }
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                mapResponse.computeIfAbsent( daoUtil.getInt( 1 ), id -> new ArrayList<>( ) ).add( dataToResponse( daoUtil ) );
+            }
+        }
+        return mapResponse;
+    }
+
+    /**
+     * Build a response from the current row of a query on the responses
+     * 
+     * @param daoUtil
+     *            the daoUtil, on the row of the response
+     * @return the response
+     */
+    private static Response dataToResponse( DAOUtil daoUtil )
+    {
+        int nIndex = 2;
+        Response response = new Response( );
+        response.setIdResponse( daoUtil.getInt( nIndex++ ) );
+        response.setResponseValue( daoUtil.getString( nIndex++ ) );
+        Entry entry = new Entry( );
+        entry.setIdEntry( daoUtil.getInt( nIndex++ ) );
+        response.setEntry( entry );
+        response.setIterationNumber( daoUtil.getInt( nIndex++ ) );
+        int nIdField = daoUtil.getInt( nIndex++ );
+        if ( nIdField != 0 )
+        {
+            Field field = new Field( );
+            field.setIdField( nIdField );
+            response.setField( field );
+        }
+        int nIdFile = daoUtil.getInt( nIndex++ );
+        if ( nIdFile != 0 )
+        {
+            File file = new File( );
+            file.setIdFile( nIdFile );
+            response.setFile( file );
+        }
+        response.setStatus( daoUtil.getInt( nIndex ) );
+        return response;
+    }
+
+    @Override
+    public void removeAppointmentResponseByListIdAppointment( List<Integer> listIdAppointment, Plugin plugin )
+    {
+        if ( listIdAppointment.isEmpty( ) )
+        {
+            return;
+        }
+        String query = SQL_QUERY_REMOVE_BY_LIST_ID_APPOINTMENT + listIdAppointment.stream( ).map( i -> "?" ).collect( Collectors.joining( "," ) ) + " )";
+        try ( DAOUtil daoUtil = new DAOUtil( query, plugin ) )
+        {
+            int nIndex = 1;
+            for ( Integer nIdAppointment : listIdAppointment )
+            {
+                daoUtil.setInt( nIndex++, nIdAppointment );
+            }
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    @Override
+    public List<Integer> findListIdFileByListIdAppointment( List<Integer> listIdAppointment, Plugin plugin )
+    {
+        List<Integer> listIdFile = new ArrayList<>( );
+        if ( listIdAppointment.isEmpty( ) )
+        {
+            return listIdFile;
+        }
+        String query = SQL_QUERY_SELECT_ID_FILE_BY_LIST_ID_APPOINTMENT + listIdAppointment.stream( ).map( i -> "?" ).collect( Collectors.joining( "," ) ) + " )";
+        try ( DAOUtil daoUtil = new DAOUtil( query, plugin ) )
+        {
+            int nIndex = 1;
+            for ( Integer nIdAppointment : listIdAppointment )
+            {
+                daoUtil.setInt( nIndex++, nIdAppointment );
+            }
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                listIdFile.add( daoUtil.getInt( 1 ) );
+            }
+        }
+        return listIdFile;
+    }
+
+    @Override
+    public void removeResponseByListIdAppointment( List<Integer> listIdAppointment, Plugin plugin )
+    {
+        if ( listIdAppointment.isEmpty( ) )
+        {
+            return;
+        }
+        String query = SQL_QUERY_REMOVE_RESPONSE_BY_LIST_ID_APPOINTMENT + listIdAppointment.stream( ).map( i -> "?" ).collect( Collectors.joining( "," ) )
+                + " ) )";
+        try ( DAOUtil daoUtil = new DAOUtil( query, plugin ) )
+        {
+            int nIndex = 1;
+            for ( Integer nIdAppointment : listIdAppointment )
+            {
+                daoUtil.setInt( nIndex++, nIdAppointment );
+            }
+            daoUtil.executeUpdate( );
+        }
+    }
+
 }
@@ -35,11 +35,13 @@ package fr.paris.lutece.plugins.appointment.business.appointment;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import fr.paris.lutece.plugins.appointment.service.AppointmentPlugin;
 import fr.paris.lutece.plugins.genericattributes.business.FieldHome;
 import fr.paris.lutece.plugins.genericattributes.business.Response;
 import fr.paris.lutece.plugins.genericattributes.business.ResponseHome;
+import fr.paris.lutece.portal.business.file.FileHome;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.portal.service.plugin.PluginService;
 import fr.paris.lutece.portal.service.spring.SpringContextService;
@@ -124,4 +126,34 @@ public final class AppointmentResponseHome
         return _dao.findListIdResponse( nIdAppointment, _plugin );
     }
 
+    /**
+     * Get the responses of a list of appointments. The responses are loaded with a single query, joining the responses of genericattributes with their
+     * appointments. The entry and the field of a response only have their id.
+     * 
+     * @param listIdAppointment
+     *            the ids of the appointments
+     * @return the responses by appointment id
+     */
+    public static Map<Integer, List<Response>> findListResponseByListIdAppointment( List<Integer> listIdAppointment )
+    {
+        return _dao.findListResponseByListIdAppointment( listIdAppointment, _plugin );
+    }
+
+    /**
+     * Remove the responses of a list of appointments. The responses and their associations with the appointments are removed with one statement each, only
+     * the files of the responses are removed one by one.
+     * 
+     * @param listIdAppointment
+     *            the ids of the appointments
+     */
+    public static void removeResponsesByListIdAppointment( List<Integer> listIdAppointment )
+    {
+        for ( Integer nIdFile : _dao.findListIdFileByListIdAppointment( listIdAppointment, _plugin ) )
+        {
+            FileHome.remove( nIdFile );
+        }
+        _dao.removeResponseByListIdAppointment( listIdAppointment, _plugin );
+        _dao.removeAppointmentResponseByListIdAppointment( listIdAppointment, _plugin );
+    }
+
 }
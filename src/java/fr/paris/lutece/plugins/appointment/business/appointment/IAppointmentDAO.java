@@ -33,6 +33,7 @@
  */
 package fr.paris.lutece.plugins.appointment.business.appointment;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFilterDTO;
@@ -87,6 +88,27 @@ public interface IAppointmentDAO
      */
     void delete( int nIdAppointment, Plugin plugin );
 
+    /**
+     * Delete a list of appointments and their links with the slots
+     * 
+     * @param listIdAppointment
+     *            the ids of the appointments to delete
+     * @param plugin
+     *            the Plugin
+     */
+    void deleteByListId( List<Integer> listIdAppointment, Plugin plugin );
+
+    /**
+     * Load a list of appointments with their links with the slots
+     * 
+     * @param listIdAppointment
+     *            the ids of the appointments
+     * @param plugin
+     *            the Plugin
+     * @return the appointments found
+     */
+    List<Appointment> findByListId( List<Integer> listIdAppointment, Plugin plugin );
+
     /**
      * Load the data from the table
      * 
@@ -186,6 +208,70 @@ public interface IAppointmentDAO
      */
     List<Integer> findIdsByFilter( AppointmentFilterDTO appointmentFilter, Plugin plugin );
 
+    /**
+     * Returns a page of the appointments matching the filter, sorted by the order of the filter. The page starts after the given cursor, or at the given
+     * offset if there is no cursor.
+     *
+     * @param appointmentFilter
+     *            the filter
+     * @param cursor
+     *            the cursor of the last appointment of the previous page, or null
+     * @param nOffset
+     *            the number of appointments to skip
+     * @param nLimit
+     *            the maximum number of appointments of the page
+     * @param plugin
+     *            the plugin
+     * @return the cursors of the appointments of the page, in the order of the filter
+     */
+    List<AppointmentCursor> findPageByFilter( AppointmentFilterDTO appointmentFilter, AppointmentCursor cursor, int nOffset, int nLimit, Plugin plugin );
+
+    /**
+     * Returns the number of appointments matching the filter
+     *
+     * @param appointmentFilter
+     *            the filter
+     * @param plugin
+     *            the plugin
+     * @return the number of appointments
+     */
+    int countByFilter( AppointmentFilterDTO appointmentFilter, Plugin plugin );
+
+    /**
+     * Find the summary of the appointments of a user that are not cancelled, aggregated by form and by category
+     * 
+     * @param strEmail
+     *            the email of the user
+     * @param nIdAppointmentExcluded
+     *            the id of an appointment to leave out of the summary (the appointment being modified), 0 if none
+     * @param dateNow
+     *            the current date, the appointments ended before it are not counted as upcoming
+     * @param plugin
+     *            the plugin
+     * @return the summary of the appointments of the user
+     */
+    AppointmentQuotaSummary findQuotaSummaryByEmail( String strEmail, int nIdAppointmentExcluded, LocalDateTime dateNow, Plugin plugin );
+
+    /**
+     * Count the appointments of a user on a form that are not cancelled and start in a period
+     * 
+     * @param strEmail
+     *            the email of the user
+     * @param nIdForm
+     *            the id of the form
+     * @param nIdAppointmentExcluded
+     *            the id of an appointment to leave out of the count (the appointment being modified), 0 if none
+     * @param startingDateTime
+     *            the beginning of the period (included)
+     * @param endingDateTime
+     *            the end of the period (excluded)
+     * @param plugin
+     *            the plugin
+     * @return the number of appointments
+     */
+    int countByEmailAndFormOnPeriod( String strEmail, int nIdForm, int nIdAppointmentExcluded, LocalDateTime startingDateTime, LocalDateTime endingDateTime,
+            Plugin plugin );
+
     /**
      * Find a list of appointments by id category and mail
      * 
@@ -34,7 +34,9 @@
 package fr.paris.lutece.plugins.appointment.business.appointment;
 
 import java.util.List;
+import java.util.Map;
 
+import fr.paris.lutece.plugins.genericattributes.business.Response;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 
 /**
@@ -78,4 +80,48 @@ public interface IAppointmentResponseDAO
      */
     List<Integer> findListIdResponse( int nIdAppointment, Plugin plugin );
 
+    /**
+     * Get the responses of a list of appointments, read in the table of the responses of genericattributes. The entry, the field and the file of a response
+     * only have their id.
+     * 
+     * @param listIdAppointment
+     *            the ids of the appointments
+     * @param plugin
+     *            the plugin
+     * @return the responses by appointment id, ordered by id. The appointments without response are not in the map
+     */
+    Map<Integer, List<Response>> findListResponseByListIdAppointment( List<Integer> listIdAppointment, Plugin plugin );
+
+    /**
+     * Remove the associations between a list of appointments and their responses
+     * 
+     * @param listIdAppointment
+     *            the ids of the appointments
+     * @param plugin
+     *            the plugin
+     */
+    void removeAppointmentResponseByListIdAppointment( List<Integer> listIdAppointment, Plugin plugin );
+
+    /**
+     * Get the ids of the files of the responses of a list of appointments
+     * 
+     * @param listIdAppointment
+     *            the ids of the appointments
+     * @param plugin
+     *            the plugin
+     * @return the ids of the files
+     */
+    List<Integer> findListIdFileByListIdAppointment( List<Integer> listIdAppointment, Plugin plugin );
+
+    /**
+     * Remove the responses of a list of appointments, in the table of the responses of genericattributes. The associations with the appointments must be
+     * removed after.
+     * 
+     * @param listIdAppointment
+     *            the ids of the appointments
+     * @param plugin
+     *            the plugin
+     */
+    void removeResponseByListIdAppointment( List<Integer> listIdAppointment, Plugin plugin );
+
 }
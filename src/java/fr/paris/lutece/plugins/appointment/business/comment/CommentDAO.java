@@ -33,6 +33,7 @@
  */
 package fr.paris.lutece.plugins.appointment.business.comment;
 
+import fr.paris.lutece.portal.business.user.AdminUser;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.util.ReferenceList;
 import fr.paris.lutece.util.sql.DAOUtil;
@@ -41,7 +42,9 @@ import java.sql.Date;
 import java.sql.Statement;
 import java.sql.Time;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * This class provides Data Access methods for Comment objects
@@ -57,6 +60,7 @@ public final class CommentDAO implements ICommentDAO
     private static final String SQL_QUERY_SELECTALL = "SELECT id_comment, id_form, starting_validity_date, starting_validity_time, ending_validity_date, ending_validity_time, comment, comment_creation_date, comment_user_creator FROM appointment_comment";
     private static final String SQL_QUERY_SELECTALL_ID = "SELECT id_comment FROM appointment_comment";
     private static final String SQL_QUERY_SELECT_BETWEEN = "SELECT id_comment, id_form, starting_validity_date, starting_validity_time, ending_validity_date, ending_validity_time, comment, comment_creation_date, comment_user_creator FROM appointment_comment WHERE starting_validity_date <= ? and ending_validity_date >= ? and id_form = ?";
+    private static final String SQL_QUERY_SELECT_CREATORS = "SELECT access_code, first_name, last_name FROM core_admin_user WHERE access_code IN ( ";
     private static final String SQL_QUERY_SELECT_INCLUSIVE = "SELECT id_comment, id_form, starting_validity_date, starting_validity_time, ending_validity_date, ending_validity_time, comment, comment_creation_date, comment_user_creator FROM appointment_comment WHERE starting_validity_date <= ? and ending_validity_date >= ? and id_form = ?";
 
     /**
@@ -362,4 +366,37 @@ public final class CommentDAO implements ICommentDAO
         }
     }
 
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public List<AdminUser> selectCreatorsList( Collection<String> collectionLogin )
+    {
+        List<AdminUser> listUser = new ArrayList<>( );
+        if ( collectionLogin.isEmpty( ) )
+        {
+            return listUser;
+        }
+        String strQuery = SQL_QUERY_SELECT_CREATORS + collectionLogin.stream( ).map( i -> "?" ).collect( Collectors.joining( "," ) ) + " )";
+        // The admin users are in the tables of the core
+        try ( DAOUtil daoUtil = new DAOUtil( strQuery ) )
+        {
+            int nIndex = 1;
+            for ( String strLogin : collectionLogin )
+            {
+                daoUtil.setString( nIndex++, strLogin );
+            }
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                AdminUser user = new AdminUser( );
+                user.setAccessCode( daoUtil.getString( 1 ) );
+                user.setFirstName( daoUtil.getString( 2 ) );
+                user.setLastName( daoUtil.getString( 3 ) );
+                listUser.add( user );
+            }
+        }
+        return listUser;
+    }
+
 }
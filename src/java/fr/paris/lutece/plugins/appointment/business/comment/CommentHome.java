@@ -34,12 +34,14 @@
 package fr.paris.lutece.plugins.appointment.business.comment;
 
 import fr.paris.lutece.plugins.appointment.service.AppointmentPlugin;
+import fr.paris.lutece.portal.business.user.AdminUser;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.portal.service.plugin.PluginService;
 import fr.paris.lutece.portal.service.spring.SpringContextService;
 import fr.paris.lutece.util.ReferenceList;
 
 import java.sql.Date;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -179,4 +181,16 @@ public final class CommentHome
     {
         return _dao.selectCommentsReferenceList( _plugin );
     }
+
+    /**
+     * Load the first and last names of the admin users who created comments, with one query
+     * 
+     * @param collectionLogin
+     *            the logins of the admin users
+     * @return the admin users found, with only their login, first name and last name
+     */
+    public static List<AdminUser> findCreatorsList( Collection<String> collectionLogin )
+    {
+        return _dao.selectCreatorsList( collectionLogin );
+    }
 }
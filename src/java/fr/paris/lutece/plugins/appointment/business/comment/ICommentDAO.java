@@ -33,10 +33,12 @@
  */
 package fr.paris.lutece.plugins.appointment.business.comment;
 
+import fr.paris.lutece.portal.business.user.AdminUser;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.util.ReferenceList;
 
 import java.sql.Date;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -154,4 +156,13 @@ public interface ICommentDAO
      * @return The referenceList which contains the data of all the comment objects
      */
     ReferenceList selectCommentsReferenceList( Plugin plugin );
+
+    /**
+     * Load the first and last names of the admin users who created comments, from their logins
+     * 
+     * @param collectionLogin
+     *            the logins of the admin users
+     * @return the admin users found, with only their login, first name and last name
+     */
+    List<AdminUser> selectCreatorsList( Collection<String> collectionLogin );
 }
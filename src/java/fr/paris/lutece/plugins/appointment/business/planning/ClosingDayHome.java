@@ -125,6 +125,19 @@ public final class ClosingDayHome
         _dao.deleteByIdForm( nIdForm, _plugin );
     }
 
+    /**
+     * Copy the closing days of a form to another form
+     * 
+     * @param nIdForm
+     *            identifier of the form to copy
+     * @param nIdNewForm
+     *            identifier of the form of the copy
+     */
+    public static void copyByIdForm( int nIdForm, int nIdNewForm )
+    {
+        _dao.copyByIdForm( nIdForm, nIdNewForm, _plugin );
+    }
+
     /**
      * Returns an instance of the ClosingDay whose identifier is specified in parameter
      * 
@@ -98,6 +98,18 @@ public interface IClosingDayDAO
      */
     void deleteByIdForm( int nIdForm, Plugin plugin );
 
+    /**
+     * Copy the closing days of a form to another form
+     * 
+     * @param nIdForm
+     *            identifier of the form to copy
+     * @param nIdNewForm
+     *            identifier of the form of the copy
+     * @param plugin
+     *            the plugin
+     */
+    void copyByIdForm( int nIdForm, int nIdNewForm, Plugin plugin );
+
     /**
      * Load the data from the table
      * 
@@ -86,6 +86,28 @@ public interface ITimeSlotDAO
      */
     void deleteByIdWorkingDay( int nIdWorkingDay, Plugin plugin );
 
+    /**
+     * Delete all the time slots of a form
+     * 
+     * @param nIdForm
+     *            identifier of the form
+     * @param plugin
+     *            the plugin
+     */
+    void deleteByIdForm( int nIdForm, Plugin plugin );
+
+    /**
+     * Copy the time slots of a reservation rule to another reservation rule. The working days must have been copied first
+     * 
+     * @param nIdReservationRule
+     *            identifier of the reservation rule to copy
+     * @param nIdNewReservationRule
+     *            identifier of the reservation rule of the copy
+     * @param plugin
+     *            the plugin
+     */
+    void copyByIdReservationRule( int nIdReservationRule, int nIdNewReservationRule, Plugin plugin );
+
     /**
      * Load the data from the table
      * 
@@ -107,4 +129,26 @@ public interface ITimeSlotDAO
      * @return the list of all the time slots of the working day
      */
     List<TimeSlot> findByIdWorkingDay( int nIdWorkingDay, Plugin plugin );
+
+    /**
+     * Get all the time slots of the working days of a reservation rule
+     * 
+     * @param nIdReservationRule
+     *            the reservation rule id
+     * @param plugin
+     *            the plugin
+     * @return the list of all the time slots of the reservation rule
+     */
+    List<TimeSlot> findByIdReservationRule( int nIdReservationRule, Plugin plugin );
+
+    /**
+     * Get all the time slots of all the reservation rules of a form
+     * 
+     * @param nIdForm
+     *            the form id
+     * @param plugin
+     *            the plugin
+     * @return the list of all the time slots of the form
+     */
+    List<TimeSlot> findByIdForm( int nIdForm, Plugin plugin );
 }
@@ -87,6 +87,28 @@ public interface IWeekDefinitionDAO
      */
     void deleteByIdReservationRule( int nIdReservationRule, Plugin plugin );
 
+    /**
+     * Delete all the week definitions of a form
+     * 
+     * @param nIdForm
+     *            identifier of the form
+     * @param plugin
+     *            the plugin
+     */
+    void deleteByIdForm( int nIdForm, Plugin plugin );
+
+    /**
+     * Copy the week definitions of a reservation rule to another reservation rule
+     * 
+     * @param nIdReservationRule
+     *            identifier of the reservation rule to copy
+     * @param nIdNewReservationRule
+     *            identifier of the reservation rule of the copy
+     * @param plugin
+     *            the plugin
+     */
+    void copyByIdReservationRule( int nIdReservationRule, int nIdNewReservationRule, Plugin plugin );
+
     /**
      * Load the data from the table
      * 
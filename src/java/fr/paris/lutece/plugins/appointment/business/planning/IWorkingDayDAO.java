@@ -85,6 +85,28 @@ public interface IWorkingDayDAO
      */
     void deleteByIdReservationRule( int nIdReservationRule, Plugin plugin );
 
+    /**
+     * Delete all the working days of a form
+     * 
+     * @param nIdForm
+     *            identifier of the form
+     * @param plugin
+     *            the plugin
+     */
+    void deleteByIdForm( int nIdForm, Plugin plugin );
+
+    /**
+     * Copy the working days of a reservation rule to another reservation rule
+     * 
+     * @param nIdReservationRule
+     *            identifier of the reservation rule to copy
+     * @param nIdNewReservationRule
+     *            identifier of the reservation rule of the copy
+     * @param plugin
+     *            the plugin
+     */
+    void copyByIdReservationRule( int nIdReservationRule, int nIdNewReservationRule, Plugin plugin );
+
     /**
      * Load the data from the table
      * 
@@ -107,4 +129,15 @@ public interface IWorkingDayDAO
      */
     List<WorkingDay> findByIdReservationRule( int nIdWeekDefinitionRule, Plugin plugin );
 
+    /**
+     * Get all the working days of all the reservation rules of a form
+     * 
+     * @param nIdForm
+     *            the form id
+     * @param plugin
+     *            the Plugin
+     * @return the list of all the working days of the form
+     */
+    List<WorkingDay> findByIdForm( int nIdForm, Plugin plugin );
+
 }
@@ -53,9 +53,16 @@ public final class TimeSlotDAO implements ITimeSlotDAO
     private static final String SQL_QUERY_UPDATE = "UPDATE appointment_time_slot SET starting_time = ?, ending_time = ?, is_open = ?, max_capacity = ?, id_working_day = ? WHERE id_time_slot = ?";
     private static final String SQL_QUERY_DELETE = "DELETE FROM appointment_time_slot WHERE id_time_slot = ?";
     private static final String SQL_QUERY_DELETE_BY_ID_DAY = "DELETE FROM appointment_time_slot WHERE id_working_day = ?";
+    private static final String SQL_QUERY_DELETE_BY_ID_FORM = "DELETE FROM appointment_time_slot WHERE id_working_day IN ( SELECT wd.id_working_day FROM appointment_working_day wd INNER JOIN appointment_reservation_rule rr ON ( wd.id_reservation_rule = rr.id_reservation_rule ) WHERE rr.id_form = ? )";
+    // The time slots are attached to the working day of the copy with the same day of week
+    private static final String SQL_QUERY_COPY_BY_ID_RESERVATION_RULE = "INSERT INTO appointment_time_slot ( starting_time, ending_time, is_open, max_capacity, id_working_day ) SELECT ts.starting_time, ts.ending_time, ts.is_open, ts.max_capacity, copy_wd.id_working_day FROM appointment_time_slot ts INNER JOIN appointment_working_day wd ON ( ts.id_working_day = wd.id_working_day ) INNER JOIN appointment_working_day copy_wd ON ( copy_wd.day_of_week = wd.day_of_week AND copy_wd.id_reservation_rule = ? ) WHERE wd.id_reservation_rule = ?";
     private static final String SQL_QUERY_SELECT_COLUMNS = "SELECT id_time_slot, starting_time, ending_time, is_open, max_capacity, id_working_day FROM appointment_time_slot";
     private static final String SQL_QUERY_SELECT = SQL_QUERY_SELECT_COLUMNS + " WHERE id_time_slot = ?";
     private static final String SQL_QUERY_SELECT_BY_ID_WORKING_DAY = SQL_QUERY_SELECT_COLUMNS + " WHERE id_working_day = ?";
+    private static final String SQL_QUERY_SELECT_COLUMNS_JOIN = "SELECT ts.id_time_slot, ts.starting_time, ts.ending_time, ts.is_open, ts.max_capacity, ts.id_working_day FROM appointment_time_slot ts INNER JOIN appointment_working_day wd ON ( ts.id_working_day = wd.id_working_day )";
+    private static final String SQL_QUERY_SELECT_BY_ID_RESERVATION_RULE = SQL_QUERY_SELECT_COLUMNS_JOIN + " WHERE wd.id_reservation_rule = ? ORDER BY ts.id_time_slot";
+    private static final String SQL_QUERY_SELECT_BY_ID_FORM = SQL_QUERY_SELECT_COLUMNS_JOIN
+            + " INNER JOIN appointment_reservation_rule rr ON ( wd.id_reservation_rule = rr.id_reservation_rule ) WHERE rr.id_form = ? ORDER BY ts.id_time_slot";
 
     @Override
     public void insert( TimeSlot timeSlot, Plugin plugin )
@@ -99,6 +106,27 @@ public final class TimeSlotDAO implements ITimeSlotDAO
         }
     }
 
+    @Override
+    public void deleteByIdForm( int nIdForm, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_BY_ID_FORM, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdForm );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    @Override
+    public void copyByIdReservationRule( int nIdReservationRule, int nIdNewReservationRule, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_COPY_BY_ID_RESERVATION_RULE, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdNewReservationRule );
+            daoUtil.setInt( 2, nIdReservationRule );
+            daoUtil.executeUpdate( );
+        }
+    }
+
     @Override
     public TimeSlot select( int nIdTimeSlot, Plugin plugin )
     {
@@ -131,6 +159,44 @@ public final class TimeSlotDAO implements ITimeSlotDAO
         return listTimeSLots;
     }
 
+    @Override
+    public List<TimeSlot> findByIdReservationRule( int nIdReservationRule, Plugin plugin )
+    {
+        return findByIdParent( SQL_QUERY_SELECT_BY_ID_RESERVATION_RULE, nIdReservationRule, plugin );
+    }
+
+    @Override
+    public List<TimeSlot> findByIdForm( int nIdForm, Plugin plugin )
+    {
+        return findByIdParent( SQL_QUERY_SELECT_BY_ID_FORM, nIdForm, plugin );
+    }
+
+    /**
+     * Get the time slots selected by a query with a single id parameter
+     * 
+     * @param strQuery
+     *            the query
+     * @param nId
+     *            the id
+     * @param plugin
+     *            the plugin
+     * @return the list of the time slots found
+     */
+    private List<TimeSlot> findByIdParent( String strQuery, int nId, Plugin plugin )
+    {
+        List<TimeSlot> listTimeSlots = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new DAOUtil( strQuery, plugin ) )
+        {
+            daoUtil.setInt( 1, nId );
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                listTimeSlots.add( buildTimeSlot( daoUtil ) );
+            }
+        }
+        return listTimeSlots;
+    }
+
     /**
      * Build a time slot business object from the resultset
      * 
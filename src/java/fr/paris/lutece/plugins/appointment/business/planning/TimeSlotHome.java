@@ -110,6 +110,30 @@ public final class TimeSlotHome
         _dao.deleteByIdWorkingDay( nIdWorkingDay, _plugin );
     }
 
+    /**
+     * Delete all the time slots of a form
+     * 
+     * @param nIdForm
+     *            identifier of the form
+     */
+    public static void deleteByIdForm( int nIdForm )
+    {
+        _dao.deleteByIdForm( nIdForm, _plugin );
+    }
+
+    /**
+     * Copy the time slots of a reservation rule to another reservation rule. The working days must have been copied first
+     * 
+     * @param nIdReservationRule
+     *            identifier of the reservation rule to copy
+     * @param nIdNewReservationRule
+     *            identifier of the reservation rule of the copy
+     */
+    public static void copyByIdReservationRule( int nIdReservationRule, int nIdNewReservationRule )
+    {
+        _dao.copyByIdReservationRule( nIdReservationRule, nIdNewReservationRule, _plugin );
+    }
+
     /**
      * Returns an instance of the TimeSlot whose identifier is specified in parameter
      * 
@@ -134,4 +158,28 @@ public final class TimeSlotHome
         return _dao.findByIdWorkingDay( nIdWorkingDay, _plugin );
     }
 
+    /**
+     * Get all the time slots of the working days of a reservation rule
+     * 
+     * @param nIdReservationRule
+     *            the reservation rule id
+     * @return the list of all the time slots of the reservation rule
+     */
+    public static List<TimeSlot> findByIdReservationRule( int nIdReservationRule )
+    {
+        return _dao.findByIdReservationRule( nIdReservationRule, _plugin );
+    }
+
+    /**
+     * Get all the time slots of all the reservation rules of a form
+     * 
+     * @param nIdForm
+     *            the form id
+     * @return the list of all the time slots of the form
+     */
+    public static List<TimeSlot> findByIdForm( int nIdForm )
+    {
+        return _dao.findByIdForm( nIdForm, _plugin );
+    }
+
 }
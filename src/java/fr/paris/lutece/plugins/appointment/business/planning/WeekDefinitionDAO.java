@@ -55,6 +55,8 @@ public final class WeekDefinitionDAO implements IWeekDefinitionDAO
     private static final String SQL_QUERY_UPDATE = "UPDATE appointment_week_definition SET date_of_apply = ?, ending_date_of_apply = ?,  id_reservation_rule = ? WHERE id_week_definition = ?";
     private static final String SQL_QUERY_DELETE = "DELETE FROM appointment_week_definition WHERE id_week_definition = ?";
     private static final String SQL_QUERY_DELETE_BY_ID_RESERVATION_RULE = "DELETE FROM appointment_week_definition WHERE id_reservation_rule = ?";
+    private static final String SQL_QUERY_DELETE_BY_ID_FORM = "DELETE FROM appointment_week_definition WHERE id_reservation_rule IN ( SELECT id_reservation_rule FROM appointment_reservation_rule WHERE id_form = ? )";
+    private static final String SQL_QUERY_COPY_BY_ID_RESERVATION_RULE = "INSERT INTO appointment_week_definition ( date_of_apply, ending_date_of_apply, id_reservation_rule ) SELECT date_of_apply, ending_date_of_apply, ? FROM appointment_week_definition WHERE id_reservation_rule = ?";
     private static final String SQL_QUERY_SELECT_COLUMNS = "SELECT id_week_definition, date_of_apply, ending_date_of_apply, id_reservation_rule FROM appointment_week_definition ";
     private static final String SQL_QUERY_SELECT = SQL_QUERY_SELECT_COLUMNS + " WHERE id_week_definition = ?";
     private static final String SQL_QUERY_SELECT_BY_ID_FORM = " SELECT appw.id_week_definition, appw.date_of_apply, appw.ending_date_of_apply, appw.id_reservation_rule FROM appointment_week_definition appw INNER JOIN appointment_reservation_rule rule on ( rule.id_reservation_rule = appw.id_reservation_rule ) where rule.id_form = ? ";
@@ -105,6 +107,27 @@ public final class WeekDefinitionDAO implements IWeekDefinitionDAO
         }
     }
 
+    @Override
+    public void deleteByIdForm( int nIdForm, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_BY_ID_FORM, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdForm );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    @Override
+    public void copyByIdReservationRule( int nIdReservationRule, int nIdNewReservationRule, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_COPY_BY_ID_RESERVATION_RULE, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdNewReservationRule );
+            daoUtil.setInt( 2, nIdReservationRule );
+            daoUtil.executeUpdate( );
+        }
+    }
+
     @Override
     public WeekDefinition select( int nIdWeekDefinition, Plugin plugin )
     {
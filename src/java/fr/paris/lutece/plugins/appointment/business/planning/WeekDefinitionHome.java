@@ -112,6 +112,30 @@ public final class WeekDefinitionHome
 
     }
 
+    /**
+     * Delete all the week definitions of a form
+     * 
+     * @param nIdForm
+     *            identifier of the form
+     */
+    public static void deleteByIdForm( int nIdForm )
+    {
+        _dao.deleteByIdForm( nIdForm, _plugin );
+    }
+
+    /**
+     * Copy the week definitions of a reservation rule to another reservation rule
+     * 
+     * @param nIdReservationRule
+     *            identifier of the reservation rule to copy
+     * @param nIdNewReservationRule
+     *            identifier of the reservation rule of the copy
+     */
+    public static void copyByIdReservationRule( int nIdReservationRule, int nIdNewReservationRule )
+    {
+        _dao.copyByIdReservationRule( nIdReservationRule, nIdNewReservationRule, _plugin );
+    }
+
     /**
      * Returns an instance of the WeekDefinition whose identifier is specified in parameter
      * 
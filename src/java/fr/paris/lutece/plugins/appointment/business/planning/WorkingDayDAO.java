@@ -53,9 +53,12 @@ public final class WorkingDayDAO implements IWorkingDayDAO
     private static final String SQL_QUERY_UPDATE = "UPDATE appointment_working_day SET day_of_week = ?, id_reservation_rule = ? WHERE id_working_day = ?";
     private static final String SQL_QUERY_DELETE = "DELETE FROM appointment_working_day WHERE id_working_day = ? ";
     private static final String SQL_QUERY_DELETE_BY_RESERVATION_RULE = "DELETE FROM appointment_working_day WHERE id_reservation_rule = ? ";
+    private static final String SQL_QUERY_DELETE_BY_ID_FORM = "DELETE FROM appointment_working_day WHERE id_reservation_rule IN ( SELECT id_reservation_rule FROM appointment_reservation_rule WHERE id_form = ? )";
+    private static final String SQL_QUERY_COPY_BY_ID_RESERVATION_RULE = "INSERT INTO appointment_working_day ( day_of_week, id_reservation_rule ) SELECT day_of_week, ? FROM appointment_working_day WHERE id_reservation_rule = ?";
     private static final String SQL_QUERY_SELECT_COLUMNS = "SELECT id_working_day, day_of_week, id_reservation_rule FROM appointment_working_day";
     private static final String SQL_QUERY_SELECT = SQL_QUERY_SELECT_COLUMNS + " WHERE id_working_day = ?";
     private static final String SQL_QUERY_SELECT_BY_ID_WEEK_DEFINITION_RULE = SQL_QUERY_SELECT_COLUMNS + " WHERE id_reservation_rule = ?";
+    private static final String SQL_QUERY_SELECT_BY_ID_FORM = "SELECT wd.id_working_day, wd.day_of_week, wd.id_reservation_rule FROM appointment_working_day wd INNER JOIN appointment_reservation_rule rr ON ( wd.id_reservation_rule = rr.id_reservation_rule ) WHERE rr.id_form = ? ORDER BY wd.id_working_day";
 
     @Override
     public void insert( WorkingDay workingDay, Plugin plugin )
@@ -99,6 +102,27 @@ public final class WorkingDayDAO implements IWorkingDayDAO
         }
     }
 
+    @Override
+    public void deleteByIdForm( int nIdForm, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_BY_ID_FORM, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdForm );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    @Override
+    public void copyByIdReservationRule( int nIdReservationRule, int nIdNewReservationRule, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_COPY_BY_ID_RESERVATION_RULE, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdNewReservationRule );
+            daoUtil.setInt( 2, nIdReservationRule );
+            daoUtil.executeUpdate( );
+        }
+    }
+
     @Override
     public WorkingDay select( int nIdWorkingDay, Plugin plugin )
     {
@@ -131,6 +155,22 @@ public final class WorkingDayDAO implements IWorkingDayDAO
         return listWorkingDays;
     }
 
+    @Override
+    public List<WorkingDay> findByIdForm( int nIdForm, Plugin plugin )
+    {
+        List<WorkingDay> listWorkingDays = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_ID_FORM, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdForm );
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                listWorkingDays.add( buildWorkingDay( daoUtil ) );
+            }
+        }
+        return listWorkingDays;
+    }
+
     /**
      * Build a WorkingDay business object from the resultset
      * 
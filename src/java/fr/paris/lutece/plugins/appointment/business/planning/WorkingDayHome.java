@@ -110,6 +110,30 @@ public final class WorkingDayHome
         _dao.deleteByIdReservationRule( nIdReservationRule, _plugin );
     }
 
+    /**
+     * Delete all the working days of a form
+     * 
+     * @param nIdForm
+     *            identifier of the form
+     */
+    public static void deleteByIdForm( int nIdForm )
+    {
+        _dao.deleteByIdForm( nIdForm, _plugin );
+    }
+
+    /**
+     * Copy the working days of a reservation rule to another reservation rule
+     * 
+     * @param nIdReservationRule
+     *            identifier of the reservation rule to copy
+     * @param nIdNewReservationRule
+     *            identifier of the reservation rule of the copy
+     */
+    public static void copyByIdReservationRule( int nIdReservationRule, int nIdNewReservationRule )
+    {
+        _dao.copyByIdReservationRule( nIdReservationRule, nIdNewReservationRule, _plugin );
+    }
+
     /**
      * Returns an instance of the WorkingDay whose identifier is specified in parameter
      * 
@@ -134,4 +158,16 @@ public final class WorkingDayHome
         return _dao.findByIdReservationRule( nIdReservationRule, _plugin );
     }
 
+    /**
+     * Find the Working Days of all the Reservation Rules of a form
+     * 
+     * @param nIdForm
+     *            the form id
+     * @return a list of the working days of the form
+     */
+    public static List<WorkingDay> findByIdForm( int nIdForm )
+    {
+        return _dao.findByIdForm( nIdForm, _plugin );
+    }
+
 }
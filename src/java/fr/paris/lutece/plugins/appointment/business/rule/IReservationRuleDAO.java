@@ -77,6 +77,16 @@ public interface IReservationRuleDAO
      */
     void delete( int nIdReservationRule, Plugin plugin );
 
+    /**
+     * Delete all the reservation rules of a form. The week definitions and the working days of the form must have been deleted first
+     * 
+     * @param nIdForm
+     *            identifier of the form
+     * @param plugin
+     *            the plugin
+     */
+    void deleteByIdForm( int nIdForm, Plugin plugin );
+
     /**
      * Load the data from the table
      * 
@@ -56,6 +56,7 @@ public final class ReservationRuleDAO implements IReservationRuleDAO
     private static final String SQL_QUERY_INSERT = "INSERT INTO appointment_reservation_rule ( name, description, color, enable, max_capacity_per_slot, max_people_per_appointment, duration_appointments, id_form) VALUES ( ?, ?, ?, ?, ?, ?, ?, ? )";
     private static final String SQL_QUERY_SELECT = SQL_QUERY_SELECT_COLUMNS + " WHERE id_reservation_rule = ?";
     private static final String SQL_QUERY_DELETE = "DELETE FROM appointment_reservation_rule WHERE id_reservation_rule = ?";
+    private static final String SQL_QUERY_DELETE_BY_ID_FORM = "DELETE FROM appointment_reservation_rule WHERE id_form = ?";
     private static final String SQL_QUERY_SELECT_BY_ID_FORM = SQL_QUERY_SELECT_COLUMNS + " WHERE id_form = ?";
     private static final String SQL_QUERY_SELECT_COLUMNS_JOIN = " SELECT appr.id_reservation_rule, appr.name, appr.description, appr.color, appr.enable, appr.max_capacity_per_slot, appr.max_people_per_appointment, appr.duration_appointments, appr.id_form from appointment_reservation_rule appr INNER JOIN appointment_week_definition weekd on ( appr.id_reservation_rule = weekd.id_reservation_rule ) where appr.id_form= ? ";
     private static final String SQL_QUERY_SELECT_BY_ID_FORM_AND_DATE_OF_APPLY = SQL_QUERY_SELECT_COLUMNS_JOIN + " AND weekd.date_of_apply = ? ";
@@ -93,6 +94,16 @@ public final class ReservationRuleDAO implements IReservationRuleDAO
         }
     }
 
+    @Override
+    public void deleteByIdForm( int nIdForm, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_BY_ID_FORM, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdForm );
+            daoUtil.executeUpdate( );
+        }
+    }
+
     @Override
     public ReservationRule select( int nIdReservationRule, Plugin plugin )
     {
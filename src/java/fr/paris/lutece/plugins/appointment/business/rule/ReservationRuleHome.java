@@ -100,6 +100,17 @@ public final class ReservationRuleHome
         _dao.delete( nKey, _plugin );
     }
 
+    /**
+     * Delete all the reservation rules of a form. The week definitions and the working days of the form must have been deleted first
+     * 
+     * @param nIdForm
+     *            identifier of the form
+     */
+    public static void deleteByIdForm( int nIdForm )
+    {
+        _dao.deleteByIdForm( nIdForm, _plugin );
+    }
+
     /**
      * Returns an instance of the ReservationRule whose identifier is specified in parameter
      * 
@@ -36,6 +36,7 @@ package fr.paris.lutece.plugins.appointment.business.slot;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 import fr.paris.lutece.portal.service.plugin.Plugin;
 
@@ -67,6 +68,26 @@ public interface ISlotDAO
      */
     void update( Slot slot, Plugin plugin );
 
+    /**
+     * Insert several slots in the table, in one batch. The id of each slot is set with the generated key
+     * 
+     * @param listSlot
+     *            the slots to insert
+     * @param plugin
+     *            the plugin
+     */
+    void insertBatch( List<Slot> listSlot, Plugin plugin );
+
+    /**
+     * Update several slots in the table, in one batch
+     * 
+     * @param listSlot
+     *            the slots to update
+     * @param plugin
+     *            the plugin
+     */
+    void updateBatch( List<Slot> listSlot, Plugin plugin );
+
     /**
      * Delete a appointment from the table
      * 
@@ -87,6 +108,18 @@ public interface ISlotDAO
      */
     public void deleteByIdForm( int nIdForm, Plugin plugin );
 
+    /**
+     * Copy the specific slots of a form to another form, with all their places available
+     * 
+     * @param nIdForm
+     *            identifier of the form to copy
+     * @param nIdNewForm
+     *            identifier of the form of the copy
+     * @param plugin
+     *            the plugin
+     */
+    void copySpecificByIdForm( int nIdForm, int nIdNewForm, Plugin plugin );
+
     /**
      * Load the data from the table
      * 
@@ -128,6 +161,21 @@ public interface ISlotDAO
      */
     List<Slot> findSlotWithAppointmentByDateRange( int nIdForm, LocalDateTime startingDateTime, LocalDateTime endingDateTime, Plugin plugin );
 
+    /**
+     * Check if there is a slot containing an appointment for the date range, without loading the slots
+     * 
+     * @param nIdForm
+     *            the Form Id
+     * @param startingDateTime
+     *            the starting date
+     * @param endingDateTime
+     *            the ending date
+     * @param plugin
+     *            the plugin
+     * @return true if a slot whose dates are included in the given period is containing an appointment
+     */
+    boolean existsSlotWithAppointmentByDateRange( int nIdForm, LocalDateTime startingDateTime, LocalDateTime endingDateTime, Plugin plugin );
+
     /**
      * Returns all the specific slot for the form
      * 
@@ -187,6 +235,17 @@ public interface ISlotDAO
      */
     Slot findSlotWithMaxDate( int nIdForm, Plugin plugin );
 
+    /**
+     * Returns the slots of a list of ids
+     * 
+     * @param listIdSlot
+     *            the slot ids
+     * @param plugin
+     *            the plugin
+     * @return the slots found
+     */
+    List<Slot> findByListIdSlot( List<Integer> listIdSlot, Plugin plugin );
+
     /**
      * Returns all the slots of a form
      * 
@@ -207,6 +266,34 @@ public interface ISlotDAO
      */
     void updatePotentialRemainingPlaces( int nbPotentialRemainingPlaces, int nIdSlot, Plugin plugin );
 
+    /**
+     * Add a number of places to the potential remaining places of several slots, in one batch. The potential remaining places of a slot stay lower than its
+     * remaining places.
+     * 
+     * @param mapNbPlacesBySlot
+     *            the number of places to add (or to remove if negative), by id of slot
+     * @param plugin
+     *            the plugin
+     */
+    void addPotentialRemainingPlaces( Map<Integer, Integer> mapNbPlacesBySlot, Plugin plugin );
+
+    /**
+     * Take places on a slot with a conditional update: the places are taken only if the slot still has enough remaining places and is not over
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @param nbPlaces
+     *            the number of places to take
+     * @param nbMaxPotentialBookedSeats
+     *            the number of places potentially taken by the user, to give back to the potential remaining places
+     * @param dateTime
+     *            the date time before which the slot must not be over
+     * @param plugin
+     *            the plugin
+     * @return true if the places have been taken, false otherwise
+     */
+    boolean takePlaces( int nIdSlot, int nbPlaces, int nbMaxPotentialBookedSeats, LocalDateTime dateTime, Plugin plugin );
+
     /**
      * update the availabilities metrics
      * 
@@ -39,6 +39,8 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.util.sql.DAOUtil;
@@ -55,12 +57,18 @@ public final class SlotDAO implements ISlotDAO
     private static final String SQL_QUERY_INSERT = "INSERT INTO appointment_slot (starting_date_time, ending_date_time, is_open, is_specific, max_capacity, nb_remaining_places, nb_potential_remaining_places, nb_places_taken, id_form) VALUES ( ?, ?, ?, ?, ?, ?, ?, ?, ?)";
     private static final String SQL_QUERY_UPDATE = "UPDATE appointment_slot SET starting_date_time = ?, ending_date_time = ?, is_open = ?, is_specific = ?, max_capacity = ?, nb_remaining_places = ?, nb_potential_remaining_places = ?, nb_places_taken = ?, id_form = ? WHERE id_slot = ?";
     private static final String SQL_QUERY_UPDATE_POTENTIAL_REMAINING_PLACE = "UPDATE appointment_slot SET nb_potential_remaining_places = ? WHERE id_slot = ?";
+    // The potential remaining places are set first, so that every database computes them with the previous number of remaining places
+    private static final String SQL_QUERY_UPDATE_ADD_POTENTIAL_REMAINING_PLACE = "UPDATE appointment_slot SET nb_potential_remaining_places = LEAST( nb_potential_remaining_places + ?, nb_remaining_places ) WHERE id_slot = ?";
+    private static final String SQL_QUERY_UPDATE_TAKE_PLACES = "UPDATE appointment_slot SET nb_potential_remaining_places = LEAST( nb_potential_remaining_places + ? - ?, nb_remaining_places - ? ), nb_remaining_places = nb_remaining_places - ?, nb_places_taken = nb_places_taken + ? WHERE id_slot = ? AND nb_remaining_places >= ? AND ending_date_time >= ?";
     private static final String SQL_QUERY_UPDATE_POTENTIAL_REMAINING_PLACE_IF_SHUTDOWN = "UPDATE appointment_slot SET nb_potential_remaining_places = nb_remaining_places WHERE nb_potential_remaining_places < nb_remaining_places ";
     private static final String SQL_QUERY_DELETE = "DELETE FROM appointment_slot WHERE id_slot = ?";
     private static final String SQL_QUERY_DELETE_BY_ID_FORM = "DELETE FROM appointment_slot WHERE id_form = ?";
+    // The places of the copies are all available
+    private static final String SQL_QUERY_COPY_SPECIFIC_BY_ID_FORM = "INSERT INTO appointment_slot (starting_date_time, ending_date_time, is_open, is_specific, max_capacity, nb_remaining_places, nb_potential_remaining_places, nb_places_taken, id_form) SELECT starting_date_time, ending_date_time, is_open, is_specific, max_capacity, max_capacity, max_capacity, 0, ? FROM appointment_slot WHERE id_form = ? AND is_specific = 1";
     private static final String SQL_QUERY_SELECT_COLUMNS = "SELECT id_slot, starting_date_time, ending_date_time, is_open, is_specific, max_capacity, nb_remaining_places, nb_potential_remaining_places, nb_places_taken, id_form ";
     private static final String SQL_FROM_APPOINTMENT_SLOT = "FROM appointment_slot";
     private static final String SQL_QUERY_SELECT = SQL_QUERY_SELECT_COLUMNS + SQL_FROM_APPOINTMENT_SLOT + " WHERE id_slot = ?";
+    private static final String SQL_QUERY_SELECT_BY_LIST_ID_SLOT = SQL_QUERY_SELECT_COLUMNS + SQL_FROM_APPOINTMENT_SLOT + " WHERE id_slot IN ( ";
     private static final String SQL_QUERY_SELECT_BY_ID_FORM = SQL_QUERY_SELECT_COLUMNS + SQL_FROM_APPOINTMENT_SLOT + " WHERE id_form = ?";
     private static final String SQL_QUERY_SELECT_BY_ID_FORM_AND_IS_SPECIFIC = SQL_QUERY_SELECT_BY_ID_FORM + " AND is_specific = 1";
     private static final String SQL_QUERY_SELECT_BY_ID_FORM_AND_DATE_RANGE = SQL_QUERY_SELECT_COLUMNS + SQL_FROM_APPOINTMENT_SLOT
@@ -76,6 +84,7 @@ public final class SlotDAO implements ISlotDAO
             + " INNER JOIN appointment_appointment appt ON (appt_slot.id_appointment = appt.id_appointment ) WHERE appt.id_appointment = ?";
 
     private static final String SQL_QUERY_SELECT_SLOT_WITH_APPOINTMNT_BY_ID_FORM_AND_DATE_RANGE = "SELECT distinct slot.id_slot, slot.starting_date_time, slot.ending_date_time, slot.is_open, slot.is_specific, slot.max_capacity, slot.nb_remaining_places, slot.nb_potential_remaining_places, slot.nb_places_taken, slot.id_form  from appointment_slot slot JOIN appointment_appointment_slot appt_slot on ( slot.id_slot = appt_slot.id_slot ) WHERE slot.id_form = ? AND slot.starting_date_time >= ? AND slot.ending_date_time <= ? ";
+    private static final String SQL_QUERY_EXISTS_SLOT_WITH_APPOINTMENT_BY_ID_FORM_AND_DATE_RANGE = "SELECT EXISTS ( SELECT 1 FROM appointment_slot slot JOIN appointment_appointment_slot appt_slot on ( slot.id_slot = appt_slot.id_slot ) WHERE slot.id_form = ? AND slot.starting_date_time >= ? AND slot.ending_date_time <= ? )";
     private static final String SQL_QUERY_SELECT_SPECIFIC_DATE_SLOT = "SELECT distinct DATE( starting_date_time) as date_value from appointment_slot where is_specific = 1 and id_form = ? ";
 
     @Override
@@ -100,6 +109,50 @@ public final class SlotDAO implements ISlotDAO
         }
     }
 
+    @Override
+    public void insertBatch( List<Slot> listSlot, Plugin plugin )
+    {
+        if ( listSlot.isEmpty( ) )
+        {
+            return;
+        }
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT, Statement.RETURN_GENERATED_KEYS, plugin ) )
+        {
+            for ( Slot slot : listSlot )
+            {
+                fillDaoUtil( daoUtil, slot, true );
+                daoUtil.addBatch( );
+            }
+            daoUtil.executeBatch( );
+            // The generated keys are returned in the order of the batch
+            for ( Slot slot : listSlot )
+            {
+                if ( daoUtil.nextGeneratedKey( ) )
+                {
+                    slot.setIdSlot( daoUtil.getGeneratedKeyInt( 1 ) );
+                }
+            }
+        }
+    }
+
+    @Override
+    public void updateBatch( List<Slot> listSlot, Plugin plugin )
+    {
+        if ( listSlot.isEmpty( ) )
+        {
+            return;
+        }
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_UPDATE, plugin ) )
+        {
+            for ( Slot slot : listSlot )
+            {
+                fillDaoUtil( daoUtil, slot, false );
+                daoUtil.addBatch( );
+            }
+            daoUtil.executeBatch( );
+        }
+    }
+
     @Override
     public void delete( int nIdSlot, Plugin plugin )
     {
@@ -120,6 +173,17 @@ public final class SlotDAO implements ISlotDAO
         }
     }
 
+    @Override
+    public void copySpecificByIdForm( int nIdForm, int nIdNewForm, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_COPY_SPECIFIC_BY_ID_FORM, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdNewForm );
+            daoUtil.setInt( 2, nIdForm );
+            daoUtil.executeUpdate( );
+        }
+    }
+
     @Override
     public Slot select( int nIdSlot, Plugin plugin )
     {
@@ -172,6 +236,24 @@ public final class SlotDAO implements ISlotDAO
         return listSlots;
     }
 
+    @Override
+    public boolean existsSlotWithAppointmentByDateRange( int nIdForm, LocalDateTime startingDateTime, LocalDateTime endingDateTime, Plugin plugin )
+    {
+        boolean bExists = false;
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_EXISTS_SLOT_WITH_APPOINTMENT_BY_ID_FORM_AND_DATE_RANGE, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdForm );
+            daoUtil.setTimestamp( 2, Timestamp.valueOf( startingDateTime ) );
+            daoUtil.setTimestamp( 3, Timestamp.valueOf( endingDateTime ) );
+            daoUtil.executeQuery( );
+            if ( daoUtil.next( ) )
+            {
+                bExists = daoUtil.getBoolean( 1 );
+            }
+        }
+        return bExists;
+    }
+
     @Override
     public List<Slot> findIsSpecificByIdForm( int nIdForm, Plugin plugin )
     {
@@ -204,6 +286,31 @@ public final class SlotDAO implements ISlotDAO
         return listSlot;
     }
 
+    @Override
+    public List<Slot> findByListIdSlot( List<Integer> listIdSlot, Plugin plugin )
+    {
+        List<Slot> listSlot = new ArrayList<>( );
+        if ( listIdSlot.isEmpty( ) )
+        {
+            return listSlot;
+        }
+        String strQuery = SQL_QUERY_SELECT_BY_LIST_ID_SLOT + listIdSlot.stream( ).map( i -> "?" ).collect( Collectors.joining( "," ) ) + " )";
+        try ( DAOUtil daoUtil = new DAOUtil( strQuery, plugin ) )
+        {
+            int nIndex = 1;
+            for ( Integer nIdSlot : listIdSlot )
+            {
+                daoUtil.setInt( nIndex++, nIdSlot );
+            }
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                listSlot.add( buildSlot( daoUtil ) );
+            }
+        }
+        return listSlot;
+    }
+
     @Override
     public List<Slot> findOpenSlotsByIdFormAndDateRange( int nIdForm, LocalDateTime startingDateTime, LocalDateTime endingDateTime, Plugin plugin )
     {
@@ -281,6 +388,43 @@ public final class SlotDAO implements ISlotDAO
         }
     }
 
+    @Override
+    public void addPotentialRemainingPlaces( Map<Integer, Integer> mapNbPlacesBySlot, Plugin plugin )
+    {
+        if ( mapNbPlacesBySlot.isEmpty( ) )
+        {
+            return;
+        }
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_UPDATE_ADD_POTENTIAL_REMAINING_PLACE, plugin ) )
+        {
+            for ( Map.Entry<Integer, Integer> entry : mapNbPlacesBySlot.entrySet( ) )
+            {
+                daoUtil.setInt( 1, entry.getValue( ) );
+                daoUtil.setInt( 2, entry.getKey( ) );
+                daoUtil.addBatch( );
+            }
+            daoUtil.executeBatch( );
+        }
+    }
+
+    @Override
+    public boolean takePlaces( int nIdSlot, int nbPlaces, int nbMaxPotentialBookedSeats, LocalDateTime dateTime, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_UPDATE_TAKE_PLACES, plugin ) )
+        {
+            int nIndex = 1;
+            daoUtil.setInt( nIndex++, nbMaxPotentialBookedSeats );
+            daoUtil.setInt( nIndex++, nbPlaces );
+            daoUtil.setInt( nIndex++, nbPlaces );
+            daoUtil.setInt( nIndex++, nbPlaces );
+            daoUtil.setInt( nIndex++, nbPlaces );
+            daoUtil.setInt( nIndex++, nIdSlot );
+            daoUtil.setInt( nIndex++, nbPlaces );
+            daoUtil.setTimestamp( nIndex, Timestamp.valueOf( dateTime ) );
+            return daoUtil.executeUpdate( ) > 0;
+        }
+    }
+
     /**
      * Build a Slot business object from the resultset
      * 
@@ -322,7 +466,6 @@ public final class SlotDAO implements ISlotDAO
      */
     private DAOUtil buildDaoUtil( String query, Slot slot, Plugin plugin, boolean isInsert )
     {
-        int nIndex = 1;
         DAOUtil daoUtil = null;
         if ( isInsert )
         {
@@ -332,6 +475,23 @@ public final class SlotDAO implements ISlotDAO
         {
             daoUtil = new DAOUtil( query, plugin );
         }
+        fillDaoUtil( daoUtil, slot, isInsert );
+        return daoUtil;
+    }
+
+    /**
+     * Set the values of the Slot business object on the parameters of the daoUtil
+     * 
+     * @param daoUtil
+     *            the daoUtil of an insert or an update query
+     * @param slot
+     *            the slot
+     * @param isInsert
+     *            true if it is an insert query. If false, it is an update, in this case, there is a where parameter id to set
+     */
+    private void fillDaoUtil( DAOUtil daoUtil, Slot slot, boolean isInsert )
+    {
+        int nIndex = 1;
         daoUtil.setTimestamp( nIndex++, slot.getStartingTimestampDate( ) );
         daoUtil.setTimestamp( nIndex++, slot.getEndingTimestampDate( ) );
         daoUtil.setBoolean( nIndex++, slot.getIsOpen( ) );
@@ -345,7 +505,6 @@ public final class SlotDAO implements ISlotDAO
         {
             daoUtil.setInt( nIndex, slot.getIdSlot( ) );
         }
-        return daoUtil;
     }
 
     @Override
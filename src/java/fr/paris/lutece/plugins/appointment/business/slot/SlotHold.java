@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.business.slot;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Business class of a hold: the places of a slot temporarily taken by a user during the filling of the appointment form
+ */
+public final class SlotHold implements Serializable
+{
+    /**
+     * Serial version UID
+     */
+    private static final long serialVersionUID = -3179563522917454362L;
+
+    /**
+     * Id of the session of the user
+     */
+    private String _strIdSession;
+
+    /**
+     * Id of the slot
+     */
+    private int _nIdSlot;
+
+    /**
+     * Id of the form of the slot
+     */
+    private int _nIdForm;
+
+    /**
+     * Number of places held
+     */
+    private int _nNbPlaces;
+
+    /**
+     * Date time at which the hold expires
+     */
+    private LocalDateTime _expirationDateTime;
+
+    /**
+     * Id of the node that owns the hold
+     */
+    private String _strIdNode;
+
+    /**
+     * Get the id of the session of the user
+     * 
+     * @return the id of the session
+     */
+    public String getIdSession( )
+    {
+        return _strIdSession;
+    }
+
+    /**
+     * Set the id of the session of the user
+     * 
+     * @param strIdSession
+     *            the id of the session
+     */
+    public void setIdSession( String strIdSession )
+    {
+        _strIdSession = strIdSession;
+    }
+
+    /**
+     * Get the id of the slot
+     * 
+     * @return the id of the slot
+     */
+    public int getIdSlot( )
+    {
+        return _nIdSlot;
+    }
+
+    /**
+     * Set the id of the slot
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     */
+    public void setIdSlot( int nIdSlot )
+    {
+        _nIdSlot = nIdSlot;
+    }
+
+    /**
+     * Get the id of the form
+     * 
+     * @return the id of the form
+     */
+    public int getIdForm( )
+    {
+        return _nIdForm;
+    }
+
+    /**
+     * Set the id of the form
+     * 
+     * @param nIdForm
+     *            the id of the form
+     */
+    public void setIdForm( int nIdForm )
+    {
+        _nIdForm = nIdForm;
+    }
+
+    /**
+     * Get the number of places held
+     * 
+     * @return the number of places
+     */
+    public int getNbPlaces( )
+    {
+        return _nNbPlaces;
+    }
+
+    /**
+     * Set the number of places held
+     * 
+     * @param nNbPlaces
+     *            the number of places
+     */
+    public void setNbPlaces( int nNbPlaces )
+    {
+        _nNbPlaces = nNbPlaces;
+    }
+
+    /**
+     * Get the expiration date time of the hold
+     * 
+     * @return the expiration date time
+     */
+    public LocalDateTime getExpirationDateTime( )
+    {
+        return _expirationDateTime;
+    }
+
+    /**
+     * Set the expiration date time of the hold
+     * 
+     * @param expirationDateTime
+     *            the expiration date time
+     */
+    public void setExpirationDateTime( LocalDateTime expirationDateTime )
+    {
+        _expirationDateTime = expirationDateTime;
+    }
+
+    /**
+     * Get the id of the node that owns the hold
+     * 
+     * @return the id of the node
+     */
+    public String getIdNode( )
+    {
+        return _strIdNode;
+    }
+
+    /**
+     * Set the id of the node that owns the hold
+     * 
+     * @param strIdNode
+     *            the id of the node
+     */
+    public void setIdNode( String strIdNode )
+    {
+        _strIdNode = strIdNode;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.business.slot;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.util.sql.DAOUtil;
+
+/**
+ * This class provides Data Access methods for SlotHold objects
+ */
+public final class SlotHoldDAO implements ISlotHoldDAO
+{
+    private static final String SQL_QUERY_INSERT = "INSERT INTO appointment_slot_hold (nb_places, expiration_date, id_form, id_node, id_session, id_slot) VALUES ( ?, ?, ?, ?, ?, ? )";
+    private static final String SQL_QUERY_UPDATE = "UPDATE appointment_slot_hold SET nb_places = ?, expiration_date = ?, id_form = ?, id_node = ? WHERE id_session = ? AND id_slot = ?";
+    private static final String SQL_QUERY_DELETE = "DELETE FROM appointment_slot_hold WHERE id_session = ? AND id_slot = ?";
+    private static final String SQL_QUERY_SELECT_BY_ID_NODE = "SELECT id_session, id_slot, id_form, nb_places, expiration_date, id_node FROM appointment_slot_hold WHERE id_node = ?";
+
+    @Override
+    public void insert( SlotHold slotHold, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = buildDaoUtil( SQL_QUERY_INSERT, slotHold, plugin ) )
+        {
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    @Override
+    public void update( SlotHold slotHold, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = buildDaoUtil( SQL_QUERY_UPDATE, slotHold, plugin ) )
+        {
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    @Override
+    public void deleteList( List<SlotHold> listSlotHold, Plugin plugin )
+    {
+        if ( listSlotHold.isEmpty( ) )
+        {
+            return;
+        }
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE, plugin ) )
+        {
+            for ( SlotHold slotHold : listSlotHold )
+            {
+                daoUtil.setString( 1, slotHold.getIdSession( ) );
+                daoUtil.setInt( 2, slotHold.getIdSlot( ) );
+                daoUtil.addBatch( );
+            }
+            daoUtil.executeBatch( );
+        }
+    }
+
+    @Override
+    public List<SlotHold> selectByIdNode( String strIdNode, Plugin plugin )
+    {
+        List<SlotHold> listSlotHold = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_ID_NODE, plugin ) )
+        {
+            daoUtil.setString( 1, strIdNode );
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                int nIndex = 1;
+                SlotHold slotHold = new SlotHold( );
+                slotHold.setIdSession( daoUtil.getString( nIndex++ ) );
+                slotHold.setIdSlot( daoUtil.getInt( nIndex++ ) );
+                slotHold.setIdForm( daoUtil.getInt( nIndex++ ) );
+                slotHold.setNbPlaces( daoUtil.getInt( nIndex++ ) );
+                slotHold.setExpirationDateTime( daoUtil.getTimestamp( nIndex++ ).toLocalDateTime( ) );
+                slotHold.setIdNode( daoUtil.getString( nIndex ) );
+                listSlotHold.add( slotHold );
+            }
+        }
+        return listSlotHold;
+    }
+
+    /**
+     * Build a daoUtil object with the SlotHold business object. The key of the hold is set in the last parameters.
+     * 
+     * @param query
+     *            the query
+     * @param slotHold
+     *            the hold
+     * @param plugin
+     *            the plugin
+     * @return a new daoUtil with all its values assigned
+     */
+    private DAOUtil buildDaoUtil( String query, SlotHold slotHold, Plugin plugin )
+    {
+        int nIndex = 1;
+        DAOUtil daoUtil = new DAOUtil( query, plugin );
+        daoUtil.setInt( nIndex++, slotHold.getNbPlaces( ) );
+        daoUtil.setTimestamp( nIndex++, Timestamp.valueOf( slotHold.getExpirationDateTime( ) ) );
+        daoUtil.setInt( nIndex++, slotHold.getIdForm( ) );
+        daoUtil.setString( nIndex++, slotHold.getIdNode( ) );
+        daoUtil.setString( nIndex++, slotHold.getIdSession( ) );
+        daoUtil.setInt( nIndex, slotHold.getIdSlot( ) );
+        return daoUtil;
+    }
+}
@@ -36,6 +36,7 @@ package fr.paris.lutece.plugins.appointment.business.slot;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 import fr.paris.lutece.plugins.appointment.service.AppointmentPlugin;
 import fr.paris.lutece.portal.service.plugin.Plugin;
@@ -89,6 +90,34 @@ public final class SlotHome
         return slot;
     }
 
+    /**
+     * Create several slots in one batch
+     * 
+     * @param listSlot
+     *            the slots to create
+     * @return the slots created, with their primary key
+     */
+    public static List<Slot> createList( List<Slot> listSlot )
+    {
+        _dao.insertBatch( listSlot, _plugin );
+
+        return listSlot;
+    }
+
+    /**
+     * Update several slots in one batch
+     * 
+     * @param listSlot
+     *            the slots to update
+     * @return the slots updated
+     */
+    public static List<Slot> updateList( List<Slot> listSlot )
+    {
+        _dao.updateBatch( listSlot, _plugin );
+
+        return listSlot;
+    }
+
     /**
      * Delete the Slot whose identifier is specified in parameter
      * 
@@ -112,6 +141,19 @@ public final class SlotHome
         _dao.deleteByIdForm( nIdForm, _plugin );
     }
 
+    /**
+     * Copy the specific slots of a form to another form, with all their places available
+     * 
+     * @param nIdForm
+     *            identifier of the form to copy
+     * @param nIdNewForm
+     *            identifier of the form of the copy
+     */
+    public static void copySpecificByIdForm( int nIdForm, int nIdNewForm )
+    {
+        _dao.copySpecificByIdForm( nIdForm, nIdNewForm, _plugin );
+    }
+
     /**
      * Returns an instance of the Slot whose identifier is specified in parameter
      * 
@@ -160,6 +202,22 @@ public final class SlotHome
 
     }
 
+    /**
+     * Check if there is a slot containing an appointment for the date range, without loading the slots
+     * 
+     * @param nIdForm
+     *            the Form Id
+     * @param startingDateTime
+     *            the starting date
+     * @param endingDateTime
+     *            the ending date
+     * @return true if a slot whose dates are included in the given period is containing an appointment
+     */
+    public static boolean existsSlotWithAppointmentByDateRange( int nIdForm, LocalDateTime startingDateTime, LocalDateTime endingDateTime )
+    {
+        return _dao.existsSlotWithAppointmentByDateRange( nIdForm, startingDateTime, endingDateTime, _plugin );
+    }
+
     /**
      * Returns a list of specific slots for a form
      * 
@@ -224,6 +282,18 @@ public final class SlotHome
         return _dao.findSlotWithMaxDate( nIdForm, _plugin );
     }
 
+    /**
+     * Returns the slots of a list of ids
+     * 
+     * @param listIdSlot
+     *            the slot ids
+     * @return the slots found
+     */
+    public static List<Slot> findByListIdSlot( List<Integer> listIdSlot )
+    {
+        return _dao.findByListIdSlot( listIdSlot, _plugin );
+    }
+
     /**
      * Returns a list of slots of a form
      * 
@@ -249,6 +319,33 @@ public final class SlotHome
 
     }
 
+    /**
+     * Add a number of places to the potential remaining places of several slots, in one batch
+     * 
+     * @param mapNbPlacesBySlot
+     *            the number of places to add (or to remove if negative), by id of slot
+     */
+    public static void addPotentialRemainingPlaces( Map<Integer, Integer> mapNbPlacesBySlot )
+    {
+        _dao.addPotentialRemainingPlaces( mapNbPlacesBySlot, _plugin );
+    }
+
+    /**
+     * Take places on a slot, only if the slot still has enough remaining places and is not over
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @param nbPlaces
+     *            the number of places to take
+     * @param nbMaxPotentialBookedSeats
+     *            the number of places potentially taken by the user
+     * @return true if the places have been taken, false if the slot is full or over
+     */
+    public static boolean takePlaces( int nIdSlot, int nbPlaces, int nbMaxPotentialBookedSeats )
+    {
+        return _dao.takePlaces( nIdSlot, nbPlaces, nbMaxPotentialBookedSeats, LocalDateTime.now( ), _plugin );
+    }
+
     /**
      * Reset Potential Remaining Places
      * 
@@ -75,6 +75,16 @@ public interface IUserDAO
      */
     void delete( int nIdUser, Plugin plugin );
 
+    /**
+     * Delete a list of records from the table
+     * 
+     * @param listIdUser
+     *            the identifiers of the users to delete
+     * @param plugin
+     *            the Plugin
+     */
+    void deleteByListId( List<Integer> listIdUser, Plugin plugin );
+
     /**
      * Load the data from the table
      * 
@@ -36,6 +36,7 @@ package fr.paris.lutece.plugins.appointment.business.user;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.util.sql.DAOUtil;
@@ -52,6 +53,7 @@ public final class UserDAO implements IUserDAO
     private static final String SQL_QUERY_INSERT = "INSERT INTO appointment_user ( guid, first_name, last_name, email, phone_number) VALUES ( ?, ?, ?, ?, ?)";
     private static final String SQL_QUERY_UPDATE = "UPDATE appointment_user SET guid = ?, first_name = ?, last_name = ?, email = ?, phone_number = ? WHERE id_user = ?";
     private static final String SQL_QUERY_DELETE = "DELETE FROM appointment_user WHERE id_user = ?";
+    private static final String SQL_QUERY_DELETE_BY_LIST_ID = "DELETE FROM appointment_user WHERE id_user IN ( ";
     private static final String SQL_QUERY_SELECT_COLUMNS = "SELECT id_user, guid, first_name, last_name, email, phone_number FROM appointment_user";
     private static final String SQL_QUERY_SELECT = SQL_QUERY_SELECT_COLUMNS + " WHERE id_user = ?";
     private static final String SQL_QUERY_SELECT_BY_GUID = SQL_QUERY_SELECT_COLUMNS + " WHERE guid = ?";
@@ -91,6 +93,25 @@ public final class UserDAO implements IUserDAO
         }
     }
 
+    @Override
+    public void deleteByListId( List<Integer> listIdUser, Plugin plugin )
+    {
+        if ( listIdUser.isEmpty( ) )
+        {
+            return;
+        }
+        String query = SQL_QUERY_DELETE_BY_LIST_ID + listIdUser.stream( ).map( i -> "?" ).collect( Collectors.joining( "," ) ) + " )";
+        try ( DAOUtil daoUtil = new DAOUtil( query, plugin ) )
+        {
+            int nIndex = 1;
+            for ( Integer nIdUser : listIdUser )
+            {
+                daoUtil.setInt( nIndex++, nIdUser );
+            }
+            daoUtil.executeUpdate( );
+        }
+    }
+
     @Override
     public User select( int nIdUser, Plugin plugin )
     {
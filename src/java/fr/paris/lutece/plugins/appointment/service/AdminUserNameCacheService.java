@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import fr.paris.lutece.plugins.appointment.business.comment.CommentHome;
+import fr.paris.lutece.portal.business.user.AdminUser;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+/**
+ * Cache of the names of the admin users displayed with the comments, by login. Only the logins displayed are loaded, with one query for the logins missing
+ * from the cache, and they are kept for a short time so that a modification of an admin user is soon visible. Once the cache is full, the names used the
+ * least recently are evicted.
+ */
+public final class AdminUserNameCacheService
+{
+    private static final String PROPERTY_CACHE_TTL = "appointment.adminUserName.cache.ttl";
+    private static final String PROPERTY_CACHE_MAX_SIZE = "appointment.adminUserName.cache.maxSize";
+    private static final int DEFAULT_CACHE_TTL = 300;
+    private static final int DEFAULT_CACHE_MAX_SIZE = 1000;
+
+    private static final int _nMaxSize = AppPropertiesService.getPropertyInt( PROPERTY_CACHE_MAX_SIZE, DEFAULT_CACHE_MAX_SIZE );
+    private static final Map<String, AdminUserName> _mapUserName = new LinkedHashMap<String, AdminUserName>( 16, 0.75f, true )
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry( Map.Entry<String, AdminUserName> eldest )
+        {
+            return size( ) > _nMaxSize;
+        }
+    };
+
+    /**
+     * Name of an admin user
+     */
+    public static final class AdminUserName
+    {
+        private final String _strFirstName;
+        private final String _strLastName;
+        private final long _lExpirationTime;
+
+        /**
+         * Constructor
+         * 
+         * @param strFirstName
+         *            the first name
+         * @param strLastName
+         *            the last name
+         * @param lExpirationTime
+         *            the time in nanoseconds after which the name must be loaded again
+         */
+        AdminUserName( String strFirstName, String strLastName, long lExpirationTime )
+        {
+            _strFirstName = strFirstName;
+            _strLastName = strLastName;
+            _lExpirationTime = lExpirationTime;
+        }
+
+        /**
+         * Get the first name
+         * 
+         * @return the first name
+         */
+        public String getFirstName( )
+        {
+            return _strFirstName;
+        }
+
+        /**
+         * Get the last name
+         * 
+         * @return the last name
+         */
+        public String getLastName( )
+        {
+            return _strLastName;
+        }
+    }
+
+    /**
+     * Private constructor - this class does not need to be instantiated
+     */
+    private AdminUserNameCacheService( )
+    {
+    }
+
+    /**
+     * Get the names of admin users from their logins, loading the ones that are not in the cache
+     * 
+     * @param collectionLogin
+     *            the logins
+     * @return the names of the admin users found, by login
+     */
+    public static Map<String, AdminUserName> getUserNames( Collection<String> collectionLogin )
+    {
+        Map<String, AdminUserName> mapUserName = new HashMap<>( );
+        Set<String> setLoginToLoad = new HashSet<>( );
+        long lNow = System.nanoTime( );
+        synchronized( _mapUserName )
+        {
+            for ( String strLogin : collectionLogin )
+            {
+                if ( strLogin == null )
+                {
+                    continue;
+                }
+                AdminUserName userName = _mapUserName.get( strLogin );
+                if ( userName == null || lNow - userName._lExpirationTime >= 0 )
+                {
+                    setLoginToLoad.add( strLogin );
+                }
+                else
+                {
+                    putUserName( mapUserName, strLogin, userName );
+                }
+            }
+        }
+        if ( setLoginToLoad.isEmpty( ) )
+        {
+            return mapUserName;
+        }
+        int nTtl = AppPropertiesService.getPropertyInt( PROPERTY_CACHE_TTL, DEFAULT_CACHE_TTL );
+        long lExpirationTime = lNow + TimeUnit.SECONDS.toNanos( nTtl );
+        Map<String, AdminUser> mapUser = CommentHome.findCreatorsList( setLoginToLoad ).stream( )
+                .collect( Collectors.toMap( AdminUser::getAccessCode, Function.identity( ), ( user1, user2 ) -> user1 ) );
+        for ( String strLogin : setLoginToLoad )
+        {
+            AdminUser user = mapUser.get( strLogin );
+            // The logins of the users that do not exist anymore are cached too, without name
+            AdminUserName userName = ( user != null ) ? new AdminUserName( user.getFirstName( ), user.getLastName( ), lExpirationTime )
+                    : new AdminUserName( null, null, lExpirationTime );
+            if ( nTtl > 0 )
+            {
+                synchronized( _mapUserName )
+                {
+                    _mapUserName.put( strLogin, userName );
+                }
+            }
+            putUserName( mapUserName, strLogin, userName );
+        }
+        return mapUserName;
+    }
+
+    /**
+     * Get the number of names in the cache
+     * 
+     * @return the number of names
+     */
+    static int getSize( )
+    {
+        synchronized( _mapUserName )
+        {
+            return _mapUserName.size( );
+        }
+    }
+
+    /**
+     * Put the name of an admin user in a map, unless the user does not exist
+     * 
+     * @param mapUserName
+     *            the map of the names by login
+     * @param strLogin
+     *            the login of the admin user
+     * @param userName
+     *            the name of the admin user
+     */
+    private static void putUserName( Map<String, AdminUserName> mapUserName, String strLogin, AdminUserName userName )
+    {
+        if ( userName._strFirstName != null || userName._strLastName != null )
+        {
+            mapUserName.put( strLogin, userName );
+        }
+    }
+}
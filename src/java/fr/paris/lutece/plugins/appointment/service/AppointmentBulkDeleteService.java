@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
+
+import fr.paris.lutece.plugins.appointment.business.appointment.Appointment;
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentHome;
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentResponseHome;
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentSlot;
+import fr.paris.lutece.plugins.appointment.business.slot.Slot;
+import fr.paris.lutece.plugins.appointment.business.slot.SlotHome;
+import fr.paris.lutece.plugins.appointment.business.user.UserHome;
+import fr.paris.lutece.plugins.appointment.service.listeners.AppointmentListenerManager;
+import fr.paris.lutece.plugins.appointment.service.listeners.SlotListenerManager;
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.portal.service.util.AppException;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import fr.paris.lutece.portal.service.workflow.WorkflowService;
+import fr.paris.lutece.util.sql.TransactionManager;
+
+/**
+ * Service to delete a large number of appointments. The appointments are deleted by chunks, each chunk in its own transaction: the appointments of the chunk
+ * are loaded with their slots in two queries, their responses, slot links, appointments and users are deleted with set-based statements, and the places
+ * released on each slot are summed up so that each slot is updated once, under the locks of the slots taken in the lock order before the transaction. Once the chunk is committed, the workflow
+ * resources of its appointments are removed form by form and the listeners are notified once.
+ */
+public final class AppointmentBulkDeleteService
+{
+    private static final String PROPERTY_CHUNK_SIZE = "appointment.bulkDelete.chunkSize";
+    private static final int DEFAULT_CHUNK_SIZE = 500;
+
+    /**
+     * Private constructor - this class does not need to be instantiated
+     */
+    private AppointmentBulkDeleteService( )
+    {
+    }
+
+    /**
+     * Delete a list of appointments, with their responses and their users, and release the places they took on their slots
+     * 
+     * @param listIdAppointment
+     *            the ids of the appointments to delete
+     */
+    public static void deleteAppointments( List<Integer> listIdAppointment )
+    {
+        int nChunkSize = Math.max( AppPropertiesService.getPropertyInt( PROPERTY_CHUNK_SIZE, DEFAULT_CHUNK_SIZE ), 1 );
+        List<Integer> listIdDistinct = listIdAppointment.stream( ).distinct( ).collect( Collectors.toList( ) );
+        for ( int nFrom = 0; nFrom < listIdDistinct.size( ); nFrom += nChunkSize )
+        {
+            deleteChunk( listIdDistinct.subList( nFrom, Math.min( nFrom + nChunkSize, listIdDistinct.size( ) ) ) );
+        }
+    }
+
+    /**
+     * Delete a chunk of appointments in one transaction
+     * 
+     * @param listIdChunk
+     *            the ids of the appointments of the chunk
+     */
+    private static void deleteChunk( List<Integer> listIdChunk )
+    {
+        List<Appointment> listAppointment = AppointmentHome.findByListId( listIdChunk );
+        if ( listAppointment.isEmpty( ) )
+        {
+            return;
+        }
+        List<Integer> listIdAppointment = listAppointment.stream( ).map( Appointment::getIdAppointment ).collect( Collectors.toList( ) );
+        List<Integer> listIdUser = listAppointment.stream( ).map( Appointment::getIdUser ).distinct( ).collect( Collectors.toList( ) );
+        // The places released on each slot by the appointments that are not cancelled, sorted by slot id
+        Map<Integer, Integer> mapNbPlacesBySlot = new TreeMap<>( );
+        Set<Integer> setIdSlot = new TreeSet<>( );
+        for ( Appointment appointment : listAppointment )
+        {
+            for ( AppointmentSlot appSlot : appointment.getListAppointmentSlot( ) )
+            {
+                setIdSlot.add( appSlot.getIdSlot( ) );
+                if ( !appointment.getIsCancelled( ) )
+                {
+                    mapNbPlacesBySlot.merge( appSlot.getIdSlot( ), appSlot.getNbPlaces( ), Integer::sum );
+                }
+            }
+        }
+        Plugin plugin = AppointmentPlugin.getPlugin( );
+        List<Lock> listLock = new ArrayList<>( );
+        try
+        {
+            // The slots are locked before the transaction is opened, as when an appointment is saved, so that the locks of the slots are always taken
+            // before the locks of the rows
+            SlotSafeService.lockSlots( mapNbPlacesBySlot.keySet( ), listLock );
+            TransactionManager.beginTransaction( plugin );
+            try
+            {
+                AppointmentResponseHome.removeResponsesByListIdAppointment( listIdAppointment );
+                AppointmentHome.deleteByListId( listIdAppointment );
+                UserHome.deleteByListId( listIdUser );
+                for ( Map.Entry<Integer, Integer> entry : mapNbPlacesBySlot.entrySet( ) )
+                {
+                    SlotSafeService.releasePlacesOnSlot( entry.getValue( ), entry.getKey( ) );
+                }
+                TransactionManager.commitTransaction( plugin );
+            }
+            catch( Exception e )
+            {
+                TransactionManager.rollBack( plugin );
+                AppLogService.error( "Error delete appointments " + e.getMessage( ), e );
+                throw new AppException( e.getMessage( ), e );
+            }
+            SlotCapacityLedger.invalidate( mapNbPlacesBySlot.keySet( ) );
+            AppointmentQuotaService.evictAll( );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+            throw new AppException( "Interrupted while deleting appointments", e );
+        }
+        finally
+        {
+            for ( Lock lock : listLock )
+            {
+                lock.unlock( );
+            }
+        }
+        // The workflow resources are removed once the appointments are really deleted, so that a rollback keeps them
+        deleteWorkflowResources( listAppointment );
+        AppointmentListenerManager.notifyListenersAppointmentsRemoval( listIdAppointment );
+        SlotListenerManager.notifyListenersSlotsChange( setIdSlot );
+    }
+
+    /**
+     * Remove the appointments from the workflow. The workflow resources of the appointments have their form as external parent, so they are removed form by
+     * form.
+     * 
+     * @param listAppointment
+     *            the appointments, with their slots
+     */
+    private static void deleteWorkflowResources( List<Appointment> listAppointment )
+    {
+        if ( !WorkflowService.getInstance( ).isAvailable( ) )
+        {
+            return;
+        }
+        for ( Map.Entry<Integer, List<Integer>> entry : getListIdAppointmentByForm( listAppointment ).entrySet( ) )
+        {
+            try
+            {
+                WorkflowService.getInstance( ).doRemoveWorkFlowResourceByListId( entry.getValue( ), Appointment.APPOINTMENT_RESOURCE_TYPE, entry.getKey( ) );
+            }
+            catch( Exception e )
+            {
+                AppLogService.error( "Error Workflow, form " + entry.getKey( ), e );
+            }
+        }
+    }
+
+    /**
+     * Group the ids of appointments by the id of their form, found from the slots of the appointments in one query
+     * 
+     * @param listAppointment
+     *            the appointments, with their slots
+     * @return the ids of the appointments, by form id
+     */
+    static Map<Integer, List<Integer>> getListIdAppointmentByForm( List<Appointment> listAppointment )
+    {
+        List<Integer> listIdSlot = listAppointment.stream( ).flatMap( appointment -> appointment.getListAppointmentSlot( ).stream( ) )
+                .map( AppointmentSlot::getIdSlot ).distinct( ).collect( Collectors.toList( ) );
+        Map<Integer, Integer> mapIdFormBySlot = SlotHome.findByListIdSlot( listIdSlot ).stream( )
+                .collect( Collectors.toMap( Slot::getIdSlot, Slot::getIdForm ) );
+        Map<Integer, List<Integer>> mapIdAppointmentByForm = new TreeMap<>( );
+        for ( Appointment appointment : listAppointment )
+        {
+            appointment.getListAppointmentSlot( ).stream( ).map( appSlot -> mapIdFormBySlot.get( appSlot.getIdSlot( ) ) ).filter( Objects::nonNull ).findFirst( )
+                    .ifPresent( nIdForm -> mapIdAppointmentByForm.computeIfAbsent( nIdForm, k -> new ArrayList<>( ) ).add( appointment.getIdAppointment( ) ) );
+        }
+        return mapIdAppointmentByForm;
+    }
+}
@@ -33,62 +33,188 @@
  */
 package fr.paris.lutece.plugins.appointment.service;
 
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
+import fr.paris.lutece.plugins.appointment.service.metrics.LatencyHistogram;
 import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.portal.service.util.AppPropertiesService;
 
+/**
+ * Executor of the asynchronous tasks of the appointment plugin, mainly the notifications of the listeners.
+ * 
+ * Two execution modes can be configured:
+ * <ul>
+ * <li>platform (default): a pool of platform threads with a bounded queue. When the queue is full, the task is run by the calling thread, which slows down
+ * the producers instead of piling up tasks in memory.</li>
+ * <li>virtual: one virtual thread per task, on the runtimes that support them. The platform mode is used on the other runtimes.</li>
+ * </ul>
+ * The executor counts the active, queued, completed and rejected tasks, and records the time spent by the tasks in the queue and running.
+ */
 public enum AppointmentExecutorService
 {
     INSTANCE;
+
+    /**
+     * Mode of execution of the tasks
+     */
+    public enum Mode
+    {
+        PLATFORM, VIRTUAL
+    }
+
     private static final String PROPERTY_THREAD_APPOINTMENT_POOL_MAX_SIZE = "appointment.executor.thread.pool.max.size";
-    private final ExecutorService _executorService = Executors.newFixedThreadPool(
-            AppPropertiesService.getPropertyInt( PROPERTY_THREAD_APPOINTMENT_POOL_MAX_SIZE, Runtime.getRuntime( ).availableProcessors( ) ),
-            new CustomizableThreadFactory( "Lutece-AppointmentExecutor-thread-" ) );
+    private static final String PROPERTY_QUEUE_CAPACITY = "appointment.executor.queue.capacity";
+    private static final String PROPERTY_MODE = "appointment.executor.mode";
+    private static final String PROPERTY_SHUTDOWN_TIMEOUT = "appointment.executor.shutdown.timeout";
+    private static final int DEFAULT_QUEUE_CAPACITY = 1000;
+    private static final int DEFAULT_SHUTDOWN_TIMEOUT = 60;
+    private static final String THREAD_NAME_PREFIX = "Lutece-AppointmentExecutor-thread-";
+    private static final String METHOD_NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = "newVirtualThreadPerTaskExecutor";
+
+    private final AtomicInteger _nActive = new AtomicInteger( );
+    private final AtomicInteger _nQueued = new AtomicInteger( );
+    private final AtomicLong _lCompleted = new AtomicLong( );
+    private final AtomicLong _lRejected = new AtomicLong( );
+    private final LatencyHistogram _waitTimeHistogram = new LatencyHistogram( );
+    private final LatencyHistogram _runTimeHistogram = new LatencyHistogram( );
+
+    private Mode _mode;
+    private final ExecutorService _executorService = createExecutorService( );
+
+    /**
+     * Create the executor of the configured mode
+     * 
+     * @return the executor
+     */
+    private ExecutorService createExecutorService( )
+    {
+        String strMode = AppPropertiesService.getProperty( PROPERTY_MODE, Mode.PLATFORM.name( ) );
+        if ( Mode.VIRTUAL.name( ).equalsIgnoreCase( strMode.trim( ) ) )
+        {
+            ExecutorService virtualThreadExecutor = createVirtualThreadExecutor( );
+            if ( virtualThreadExecutor != null )
+            {
+                _mode = Mode.VIRTUAL;
+                return virtualThreadExecutor;
+            }
+            AppLogService.info( "Virtual threads are not supported by the runtime, the appointment executor uses a pool of platform threads" );
+        }
+        _mode = Mode.PLATFORM;
+        int nPoolSize = Math.max(
+                AppPropertiesService.getPropertyInt( PROPERTY_THREAD_APPOINTMENT_POOL_MAX_SIZE, Runtime.getRuntime( ).availableProcessors( ) ), 1 );
+        int nQueueCapacity = Math.max( AppPropertiesService.getPropertyInt( PROPERTY_QUEUE_CAPACITY, DEFAULT_QUEUE_CAPACITY ), 1 );
+        return new ThreadPoolExecutor( nPoolSize, nPoolSize, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>( nQueueCapacity ),
+                new CustomizableThreadFactory( THREAD_NAME_PREFIX ) );
+    }
+
+    /**
+     * Create an executor starting a virtual thread per task. The factory method is looked up by reflection since the plugin is built for runtimes
+     * without virtual threads.
+     * 
+     * @return the executor, or null if the runtime does not support virtual threads
+     */
+    private static ExecutorService createVirtualThreadExecutor( )
+    {
+        try
+        {
+            Method method = Executors.class.getMethod( METHOD_NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR );
+            return (ExecutorService) method.invoke( null );
+        }
+        catch( ReflectiveOperationException | RuntimeException e )
+        {
+            return null;
+        }
+    }
 
     /**
-     * Executes the given command at some time in the future. The command may execute in a new thread, in a pooled thread, or in the calling thread, at the
-     * discretion of the {@code Executor} implementation.
+     * Executes the given command at some time in the future. The command is run by the calling thread when the executor can not accept it, because its
+     * queue is full or because it is shut down.
      *
-     * @param command
+     * @param task
      *            the runnable task
-     * @throws RejectedExecutionException
-     *             if this task cannot be accepted for execution
      * @throws NullPointerException
      *             if command is null
      */
     public void execute( Runnable task )
     {
-        _executorService.execute( task );
+        Runnable instrumentedTask = instrument( task );
+        try
+        {
+            _executorService.execute( instrumentedTask );
+        }
+        catch( RejectedExecutionException e )
+        {
+            _lRejected.incrementAndGet( );
+            instrumentedTask.run( );
+        }
     }
 
     /**
-     * Submits a Runnable task for execution and returns a Future representing that task. The Future's ge} method will return null upon <em>successful</em>
-     * completion.
+     * Submits a Runnable task for execution and returns a Future representing that task. The Future's get method will return null upon <em>successful</em>
+     * completion. The task is run by the calling thread when the executor can not accept it.
      *
      * @param task
      *            the task to submit
      * @return a Future representing pending completion of the task
-     * @throws RejectedExecutionException
-     *             if the task cannot be scheduled for execution
      * @throws NullPointerException
      *             if the task is null
      */
     public Future<?> submit( Runnable task )
     {
+        FutureTask<Object> future = new FutureTask<>( task, null );
+        execute( future );
+        return future;
+    }
 
-        return _executorService.submit( task );
+    /**
+     * Wrap a task to measure it
+     * 
+     * @param task
+     *            the task
+     * @return the measured task
+     */
+    private Runnable instrument( Runnable task )
+    {
+        if ( task == null )
+        {
+            throw new NullPointerException( );
+        }
+        long lSubmissionTime = System.nanoTime( );
+        _nQueued.incrementAndGet( );
+        return ( ) -> {
+            long lStartTime = System.nanoTime( );
+            _nQueued.decrementAndGet( );
+            _nActive.incrementAndGet( );
+            _waitTimeHistogram.record( lStartTime - lSubmissionTime );
+            try
+            {
+                task.run( );
+            }
+            finally
+            {
+                _nActive.decrementAndGet( );
+                _lCompleted.incrementAndGet( );
+                _runTimeHistogram.record( System.nanoTime( ) - lStartTime );
+            }
+        };
     }
 
     /**
-     * The following method shuts down the _executorService in two phases, first by calling shutdown to reject incoming tasks, and then calling shutdownNow, if
-     * necessary, to cancel any lingering tasks:
+     * The following method shuts down the _executorService in two phases, first by calling shutdown to reject incoming tasks and let the pending tasks
+     * finish, and then calling shutdownNow, if necessary, to cancel any lingering tasks. The tasks submitted after the shutdown are run by the calling thread.
      */
     public void shutdown( )
     {
@@ -96,9 +222,11 @@ public enum AppointmentExecutorService
         _executorService.shutdown( );
         try
         {
-            if ( !_executorService.awaitTermination( 60, TimeUnit.SECONDS ) )
+            if ( !_executorService.awaitTermination( AppPropertiesService.getPropertyInt( PROPERTY_SHUTDOWN_TIMEOUT, DEFAULT_SHUTDOWN_TIMEOUT ),
+                    TimeUnit.SECONDS ) )
             {
-                _executorService.shutdownNow( );
+                List<Runnable> listPendingTask = _executorService.shutdownNow( );
+                AppLogService.error( "The appointment executor has been stopped with " + listPendingTask.size( ) + " pending tasks" );
             }
         }
         catch( InterruptedException e )
@@ -106,8 +234,77 @@ public enum AppointmentExecutorService
             // (Re-)Cancel if current thread also interrupted
             AppLogService.error( e.getMessage( ), e );
             _executorService.shutdownNow( );
-            Thread.currentThread().interrupt();
+            Thread.currentThread( ).interrupt( );
         }
     }
 
+    /**
+     * Get the execution mode of the tasks
+     * 
+     * @return the mode
+     */
+    public Mode getMode( )
+    {
+        return _mode;
+    }
+
+    /**
+     * Get the number of tasks running
+     * 
+     * @return the number of tasks
+     */
+    public int getActiveCount( )
+    {
+        return _nActive.get( );
+    }
+
+    /**
+     * Get the number of tasks waiting to be run
+     * 
+     * @return the number of tasks
+     */
+    public int getQueuedCount( )
+    {
+        return _nQueued.get( );
+    }
+
+    /**
+     * Get the number of tasks completed
+     * 
+     * @return the number of tasks
+     */
+    public long getCompletedCount( )
+    {
+        return _lCompleted.get( );
+    }
+
+    /**
+     * Get the number of tasks that the executor could not accept, and that were run by the calling thread
+     * 
+     * @return the number of tasks
+     */
+    public long getRejectedCount( )
+    {
+        return _lRejected.get( );
+    }
+
+    /**
+     * Get the histogram of the time spent by the tasks waiting to be run
+     * 
+     * @return the histogram
+     */
+    public LatencyHistogram getWaitTimeHistogram( )
+    {
+        return _waitTimeHistogram;
+    }
+
+    /**
+     * Get the histogram of the time spent by the tasks running
+     * 
+     * @return the histogram
+     */
+    public LatencyHistogram getRunTimeHistogram( )
+    {
+        return _runTimeHistogram;
+    }
 }
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.StringUtils;
+
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentHome;
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentQuotaSummary;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+/**
+ * Service to evaluate the limits of the forms and of the categories on the appointments of a user. The appointments of a user are aggregated by form and by
+ * category in one query, whatever their number. The summaries can be kept for a short time in a cache, evicted when an appointment of the user is saved.
+ * The cache is disabled unless a time to live is set: a summary cached on another node is not evicted, and may let a user go past a limit.
+ */
+public final class AppointmentQuotaService
+{
+    private static final String PROPERTY_CACHE_TTL = "appointment.quota.cache.ttl";
+    private static final String PROPERTY_CACHE_MAX_SIZE = "appointment.quota.cache.maxSize";
+    private static final int DEFAULT_CACHE_TTL = 0;
+    private static final int DEFAULT_CACHE_MAX_SIZE = 10000;
+
+    private static final ConcurrentMap<String, CachedSummary> _mapSummary = new ConcurrentHashMap<>( );
+    // Incremented at each eviction, so that a summary loaded before an eviction is not kept
+    private static final AtomicLong _lGeneration = new AtomicLong( );
+
+    /**
+     * Summary of the appointments of a user kept in the cache
+     */
+    private static final class CachedSummary
+    {
+        private final int _nIdAppointmentExcluded;
+        private final long _lExpirationTime;
+        private final AppointmentQuotaSummary _summary;
+
+        CachedSummary( int nIdAppointmentExcluded, long lExpirationTime, AppointmentQuotaSummary summary )
+        {
+            _nIdAppointmentExcluded = nIdAppointmentExcluded;
+            _lExpirationTime = lExpirationTime;
+            _summary = summary;
+        }
+
+        boolean isValid( int nIdAppointmentExcluded, long lNow )
+        {
+            return _nIdAppointmentExcluded == nIdAppointmentExcluded && lNow - _lExpirationTime < 0;
+        }
+    }
+
+    /**
+     * Private constructor - this class does not need to be instantiated
+     */
+    private AppointmentQuotaService( )
+    {
+    }
+
+    /**
+     * Get the summary of the appointments of a user that are not cancelled
+     * 
+     * @param strEmail
+     *            the email of the user
+     * @param nIdAppointmentExcluded
+     *            the id of an appointment to leave out of the summary (the appointment being modified), 0 if none
+     * @return the summary of the appointments of the user
+     */
+    public static AppointmentQuotaSummary getSummary( String strEmail, int nIdAppointmentExcluded )
+    {
+        int nTtl = AppPropertiesService.getPropertyInt( PROPERTY_CACHE_TTL, DEFAULT_CACHE_TTL );
+        if ( nTtl <= 0 )
+        {
+            return AppointmentHome.findQuotaSummaryByEmail( strEmail, nIdAppointmentExcluded, LocalDateTime.now( ) );
+        }
+        String strKey = getKey( strEmail );
+        long lNow = System.nanoTime( );
+        CachedSummary cachedSummary = _mapSummary.get( strKey );
+        if ( cachedSummary != null && cachedSummary.isValid( nIdAppointmentExcluded, lNow ) )
+        {
+            return cachedSummary._summary;
+        }
+        long lGeneration = _lGeneration.get( );
+        AppointmentQuotaSummary summary = AppointmentHome.findQuotaSummaryByEmail( strEmail, nIdAppointmentExcluded, LocalDateTime.now( ) );
+        if ( _mapSummary.size( ) >= AppPropertiesService.getPropertyInt( PROPERTY_CACHE_MAX_SIZE, DEFAULT_CACHE_MAX_SIZE ) )
+        {
+            _mapSummary.values( ).removeIf( cached -> lNow - cached._lExpirationTime >= 0 );
+        }
+        CachedSummary newCachedSummary = new CachedSummary( nIdAppointmentExcluded, lNow + TimeUnit.SECONDS.toNanos( nTtl ), summary );
+        _mapSummary.put( strKey, newCachedSummary );
+        if ( _lGeneration.get( ) != lGeneration )
+        {
+            // An appointment has been saved while the summary was loaded: the summary may not count it
+            _mapSummary.remove( strKey, newCachedSummary );
+        }
+        return summary;
+    }
+
+    /**
+     * Count the appointments of a user on a form that are not cancelled and start between two days
+     * 
+     * @param strEmail
+     *            the email of the user
+     * @param nIdForm
+     *            the id of the form
+     * @param nIdAppointmentExcluded
+     *            the id of an appointment to leave out of the count (the appointment being modified), 0 if none
+     * @param startingDate
+     *            the first day of the period
+     * @param endingDate
+     *            the last day of the period
+     * @return the number of appointments
+     */
+    public static int countAppointmentsOnPeriod( String strEmail, int nIdForm, int nIdAppointmentExcluded, LocalDate startingDate, LocalDate endingDate )
+    {
+        return AppointmentHome.countByEmailAndFormOnPeriod( strEmail, nIdForm, nIdAppointmentExcluded, startingDate.atStartOfDay( ),
+                endingDate.plusDays( 1 ).atStartOfDay( ) );
+    }
+
+    /**
+     * Remove the summary of the appointments of a user from the cache
+     * 
+     * @param strEmail
+     *            the email of the user
+     */
+    public static void evict( String strEmail )
+    {
+        if ( StringUtils.isNotEmpty( strEmail ) )
+        {
+            _lGeneration.incrementAndGet( );
+            _mapSummary.remove( getKey( strEmail ) );
+        }
+    }
+
+    /**
+     * Remove all the summaries from the cache
+     */
+    public static void evictAll( )
+    {
+        _lGeneration.incrementAndGet( );
+        _mapSummary.clear( );
+    }
+
+    /**
+     * Get the key of the summary of a user in the cache
+     * 
+     * @param strEmail
+     *            the email of the user
+     * @return the key
+     */
+    private static String getKey( String strEmail )
+    {
+        return strEmail.toLowerCase( Locale.ROOT );
+    }
+}
@@ -36,7 +36,10 @@ package fr.paris.lutece.plugins.appointment.service;
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.StringJoiner;
 import java.util.stream.Collectors;
@@ -47,6 +50,7 @@ import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import fr.paris.lutece.plugins.appointment.business.appointment.Appointment;
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentCursor;
 import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentHome;
 import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentSlot;
 import fr.paris.lutece.plugins.appointment.business.form.Form;
@@ -316,6 +320,72 @@ public final class AppointmentService
         return AppointmentHome.findIdsByFilter( appointmentFilter );
     }
 
+    /**
+     * Find a page of the appointments matching the filter, sorted by the database in the order of the filter. The next page is read by passing the
+     * last cursor of this page, which avoids reading again all the previous appointments.
+     *
+     * @param appointmentFilter
+     *         the filter
+     * @param cursor
+     *         the cursor of the last appointment of the previous page, or null to start at the offset
+     * @param nOffset
+     *         the number of appointments to skip
+     * @param nLimit
+     *         the maximum number of appointments of the page
+     * @return the cursors of the appointments of the page
+     */
+    public static List<AppointmentCursor> findPageOfAppointmentsByFilter( AppointmentFilterDTO appointmentFilter, AppointmentCursor cursor, int nOffset,
+            int nLimit )
+    {
+        return AppointmentHome.findPageByFilter( appointmentFilter, cursor, nOffset, nLimit );
+    }
+
+    /**
+     * Build the appointment DTOs of a page of appointments matching the filter, in the order of the page
+     *
+     * @param appointmentFilter
+     *         the filter
+     * @param listCursor
+     *         the cursors of the appointments of the page
+     * @return the appointment DTOs of the page
+     */
+    public static List<AppointmentDTO> findListAppointmentsDTOByListCursor( AppointmentFilterDTO appointmentFilter, List<AppointmentCursor> listCursor )
+    {
+        List<Integer> listIdAppointment = appointmentFilter.getListIdAppointment( );
+        List<Integer> listIdPage = listCursor.stream( ).map( AppointmentCursor::getIdAppointment ).collect( Collectors.toList( ) );
+        List<AppointmentDTO> listAppointmentsDTO;
+        appointmentFilter.setListIdAppointment( listIdPage );
+        try
+        {
+            listAppointmentsDTO = findListAppointmentsDTOByFilter( appointmentFilter );
+        }
+        finally
+        {
+            appointmentFilter.setListIdAppointment( listIdAppointment );
+        }
+
+        // Keep the order of the page read from the database
+        Map<Integer, Integer> mapPosition = new HashMap<>( );
+        for ( int nPosition = 0; nPosition < listIdPage.size( ); nPosition++ )
+        {
+            mapPosition.put( listIdPage.get( nPosition ), nPosition );
+        }
+        listAppointmentsDTO.sort( Comparator.comparing( appointment -> mapPosition.get( appointment.getIdAppointment( ) ) ) );
+        return listAppointmentsDTO;
+    }
+
+    /**
+     * Count the appointments matching the filter
+     *
+     * @param appointmentFilter
+     *         the filter
+     * @return the number of appointments
+     */
+    public static int countAppointmentsByFilter( AppointmentFilterDTO appointmentFilter )
+    {
+        return AppointmentHome.countByFilter( appointmentFilter );
+    }
+
     /**
      * Build an appointment dto from an appointment business object
      *
@@ -415,6 +485,9 @@ public final class AppointmentService
             AppointmentService.deleteAppointment( appointmentToDelete );
             UserHome.delete( appointmentToDelete.getIdUser( ) );
             TransactionManager.commitTransaction( AppointmentPlugin.getPlugin( ) );
+            SlotCapacityLedger
+                    .invalidate( appointmentToDelete.getListAppointmentSlot( ).stream( ).map( AppointmentSlot::getIdSlot ).collect( Collectors.toList( ) ) );
+            AppointmentQuotaService.evictAll( );
             AppointmentListenerManager.notifyListenersAppointmentRemoval( nIdAppointment );
             for ( AppointmentSlot appSlot : appointmentToDelete.getListAppointmentSlot( ) )
             {
@@ -565,6 +638,12 @@ public final class AppointmentService
                 }
             AppointmentHome.update( appointment );
             TransactionManager.commitTransaction( AppointmentPlugin.getPlugin( ) );
+            if ( statusUpdated )
+            {
+                SlotCapacityLedger
+                        .invalidate( oldAppointment.getListAppointmentSlot( ).stream( ).map( AppointmentSlot::getIdSlot ).collect( Collectors.toList( ) ) );
+                AppointmentQuotaService.evictAll( );
+            }
             AppointmentListenerManager.notifyListenersAppointmentUpdated( appointment.getIdAppointment( ) );
             if ( statusUpdated )
             {
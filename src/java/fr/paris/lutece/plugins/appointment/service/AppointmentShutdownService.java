@@ -33,7 +33,8 @@
  */
 package fr.paris.lutece.plugins.appointment.service;
 
-import fr.paris.lutece.plugins.appointment.business.slot.SlotHome;
+import fr.paris.lutece.plugins.appointment.service.listeners.ListenerEventBus;
+import fr.paris.lutece.plugins.appointment.service.lock.SlotHoldManager;
 import fr.paris.lutece.portal.service.init.ShutdownService;
 
 public class AppointmentShutdownService implements ShutdownService
@@ -54,9 +55,12 @@ public class AppointmentShutdownService implements ShutdownService
     @Override
     public void process( )
     {
-        AppointmentUtilities.shutdownSecheduledExecutor( );
+        // The pending holds stay in database, they are recovered at the next start up
+        SlotHoldManager.INSTANCE.shutdown( );
+        PotentialRemainingPlacesWriteBehind.shutdown( );
+        // The pending listener events are handed over to the executor before it is shut down
+        ListenerEventBus.shutdown( );
         AppointmentExecutorService.INSTANCE.shutdown( );
-        SlotHome.resetPotentialRemainingPlaces( );
 
     }
 
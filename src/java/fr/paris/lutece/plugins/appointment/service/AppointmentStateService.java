@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import fr.paris.lutece.plugins.appointment.business.appointment.Appointment;
+import fr.paris.lutece.plugins.appointment.web.dto.AppointmentDTO;
+import fr.paris.lutece.plugins.workflowcore.business.resource.ResourceWorkflow;
+import fr.paris.lutece.plugins.workflowcore.business.state.State;
+import fr.paris.lutece.plugins.workflowcore.service.resource.IResourceWorkflowService;
+import fr.paris.lutece.plugins.workflowcore.service.resource.ResourceWorkflowService;
+import fr.paris.lutece.plugins.workflowcore.service.state.IStateService;
+import fr.paris.lutece.plugins.workflowcore.service.state.StateService;
+import fr.paris.lutece.portal.service.spring.SpringContextService;
+import fr.paris.lutece.portal.service.workflow.WorkflowService;
+
+/**
+ * Service that reads the workflow states of lists of appointments through the workflow services, with one call per form instead of one call per
+ * appointment
+ */
+public final class AppointmentStateService
+{
+    /**
+     * Private constructor - this class does not need to be instantiated
+     */
+    private AppointmentStateService( )
+    {
+    }
+
+    /**
+     * Get the workflow states of a list of appointments of the same workflow. The workflow resources of the appointments have their form as external
+     * parent, so they are read form by form.
+     * 
+     * @param listAppointmentDTO
+     *            the appointments
+     * @param nIdWorkflow
+     *            the workflow id
+     * @return the states by appointment id, empty if the workflow is not available
+     */
+    public static Map<Integer, State> findByListAppointment( List<AppointmentDTO> listAppointmentDTO, int nIdWorkflow )
+    {
+        Map<Integer, State> mapState = new HashMap<>( );
+        if ( listAppointmentDTO.isEmpty( ) || nIdWorkflow <= 0 || !WorkflowService.getInstance( ).isAvailable( ) )
+        {
+            return mapState;
+        }
+        Map<Integer, List<Integer>> mapIdAppointmentByForm = new HashMap<>( );
+        for ( AppointmentDTO appointmentDTO : listAppointmentDTO )
+        {
+            mapIdAppointmentByForm.computeIfAbsent( appointmentDTO.getIdForm( ), id -> new ArrayList<>( ) ).add( appointmentDTO.getIdAppointment( ) );
+        }
+        IResourceWorkflowService resourceWorkflowService = SpringContextService.getBean( ResourceWorkflowService.BEAN_SERVICE );
+        IStateService stateService = SpringContextService.getBean( StateService.BEAN_SERVICE );
+        // The appointments of a list often share a few states
+        Map<Integer, State> mapStateById = new HashMap<>( );
+        for ( Map.Entry<Integer, List<Integer>> entry : mapIdAppointmentByForm.entrySet( ) )
+        {
+            for ( ResourceWorkflow resourceWorkflow : resourceWorkflowService.getListResourceWorkflowByListIdResource( entry.getValue( ),
+                    Appointment.APPOINTMENT_RESOURCE_TYPE, nIdWorkflow, entry.getKey( ) ) )
+            {
+                if ( resourceWorkflow.getState( ) != null )
+                {
+                    State state = mapStateById.computeIfAbsent( resourceWorkflow.getState( ).getId( ), stateService::findByPrimaryKey );
+                    if ( state != null )
+                    {
+                        mapState.put( resourceWorkflow.getIdResource( ), state );
+                    }
+                }
+            }
+        }
+        return mapState;
+    }
+}
@@ -41,18 +41,16 @@ import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.WeekFields;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 
@@ -70,10 +68,11 @@ import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
 import fr.paris.lutece.plugins.appointment.business.planning.WorkingDay;
 import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
 import fr.paris.lutece.plugins.appointment.business.slot.Slot;
+import fr.paris.lutece.plugins.appointment.business.slot.SlotHold;
 import fr.paris.lutece.plugins.appointment.business.user.User;
-import fr.paris.lutece.plugins.appointment.service.lock.SlotEditTask;
+import fr.paris.lutece.plugins.appointment.service.lock.SlotHoldManager;
+import fr.paris.lutece.plugins.appointment.service.metrics.AppointmentMetrics;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentDTO;
-import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFilterDTO;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFormDTO;
 import fr.paris.lutece.plugins.appointment.web.dto.ReservationRuleDTO;
 import fr.paris.lutece.plugins.appointment.web.dto.ResponseRecapDTO;
@@ -90,7 +89,6 @@ import fr.paris.lutece.portal.business.user.AdminUserHome;
 import fr.paris.lutece.portal.service.i18n.I18nService;
 import fr.paris.lutece.portal.service.rbac.RBACService;
 import fr.paris.lutece.portal.service.util.AppLogService;
-import fr.paris.lutece.portal.service.util.AppPropertiesService;
 import fr.paris.lutece.util.beanvalidation.BeanValidationUtil;
 
 /**
@@ -119,10 +117,6 @@ public final class AppointmentUtilities
     public static final String PROPERTY_DEFAULT_EXPIRED_TIME_EDIT_APPOINTMENT = "appointment.edit.expired.time";
 
     public static final int THIRTY_MINUTES = 30;
-    // We don't need to instantiate an ScheduledExecutorService with the removeOnCancel=true because we are using non-periodic and short time tasks.
-    // The getTask call removes the task from the queue.
-    private static final ScheduledExecutorService _secheduledExecutor = Executors
-            .newSingleThreadScheduledExecutor( r -> new Thread( r, "Lutece-AppointmentSecheduledExecutor-thread" ) );
 
     // CONSTANTS
     // Name of the phone number's generic attribute bean
@@ -212,27 +206,19 @@ public final class AppointmentUtilities
     {
         boolean bCheckPassed = true;
         int nbDaysBetweenTwoAppointments = form.getNbDaysBeforeNewAppointment( );
-        if ( nbDaysBetweenTwoAppointments != 0 )
+        if ( nbDaysBetweenTwoAppointments != 0 && StringUtils.isNotEmpty( strEmail ) )
         {
-            List<Slot> listSlots = getSlotsByEmail( strEmail, appointmentDTO.getIdAppointment( ) );
-            if ( CollectionUtils.isNotEmpty( listSlots ) )
+            // Get the last appointment date for this form
+            LocalDateTime dateOfTheLastAppointment = AppointmentQuotaService.getSummary( strEmail, appointmentDTO.getIdAppointment( ) )
+                    .getLastStartingDateTime( form.getIdForm( ) );
+
+            // Check the number of days between this appointment and
+            // the last appointment the user has taken
+            LocalDateTime dateOfTheAppointment = getStartingDateTime( appointmentDTO );
+            if ( dateOfTheLastAppointment != null && dateOfTheAppointment != null
+                    && Math.abs( dateOfTheLastAppointment.toLocalDate( ).until( dateOfTheAppointment, ChronoUnit.DAYS ) ) <= nbDaysBetweenTwoAppointments )
             {
-                // Get the last appointment date for this form
-                listSlots = listSlots.stream( ).filter( s -> s.getIdForm( ) == form.getIdForm( ) ).collect( Collectors.toList( ) );
-                if ( CollectionUtils.isNotEmpty( listSlots ) )
-                {
-                    LocalDateTime dateOfTheLastAppointment = listSlots.stream( ).map( Slot::getStartingDateTime ).max( LocalDateTime::compareTo )
-                            .orElse( null );
-
-                    // Check the number of days between this appointment and
-                    // the last appointment the user has taken
-                    LocalDateTime dateOfTheAppointment = getStartingDateTime( appointmentDTO );
-                    if ( dateOfTheLastAppointment != null && Math
-                            .abs( dateOfTheLastAppointment.toLocalDate( ).until( dateOfTheAppointment, ChronoUnit.DAYS ) ) <= nbDaysBetweenTwoAppointments )
-                    {
-                        bCheckPassed = false;
-                    }
-                }
+                bCheckPassed = false;
             }
         }
         return bCheckPassed;
@@ -255,107 +241,19 @@ public final class AppointmentUtilities
         int nbDaysBetweenTwoAppointments = form.getNbDaysBeforeNewAppointment( );
         if ( nbDaysBetweenTwoAppointments != 0 && StringUtils.isNotEmpty( strEmail ) )
         {
-            AppointmentFilterDTO filter = new AppointmentFilterDTO( );
-            filter.setEmail( strEmail );
-            filter.setStatus( 0 );
-            filter.setIdForm( form.getIdForm( ) );
-            List<Appointment> listAppointment = AppointmentService.findListAppointmentsByFilter( filter );
-            // If we modify an appointment, we remove the
-            // appointment that we currently edit
-            if ( appointmentDTO.getIdAppointment( ) != 0 )
-            {
-                listAppointment.removeIf( a -> a.getIdAppointment( ) != appointmentDTO.getIdAppointment( ) );
-            }
+            // The appointment that we currently edit is left out of the summary
+            LocalDateTime dateOfTheLastAppointmentTaken = AppointmentQuotaService.getSummary( strEmail, appointmentDTO.getIdAppointment( ) )
+                    .getLastDateAppointmentTaken( form.getIdForm( ) );
 
-            if ( CollectionUtils.isNotEmpty( listAppointment ) )
+            if ( dateOfTheLastAppointmentTaken != null
+                    && Math.abs( dateOfTheLastAppointmentTaken.until( LocalDateTime.now( ), ChronoUnit.DAYS ) ) < nbDaysBetweenTwoAppointments )
             {
-
-                LocalDateTime dateOfTheLastAppointmentTaken = listAppointment.stream( ).map( Appointment::getDateAppointmentTaken )
-                        .max( LocalDateTime::compareTo ).orElse( null );
-
-                if ( dateOfTheLastAppointmentTaken != null
-                        && Math.abs( dateOfTheLastAppointmentTaken.until( LocalDateTime.now( ), ChronoUnit.DAYS ) ) < nbDaysBetweenTwoAppointments )
-                {
-                    bCheckPassed = false;
-                }
-
+                bCheckPassed = false;
             }
         }
         return bCheckPassed;
     }
 
-    /**
-     * Get the appointment of a user appointment
-     *
-     * @param strEmail
-     *            the user's email
-     * @param idAppointment
-     *            the id of the appointment
-     * @return the list of appointment
-     */
-    private static List<Appointment> getAppointmentByEmail( String strEmail, int idAppointment )
-    {
-        List<Appointment> listAppointment = new ArrayList<>( );
-        if ( StringUtils.isNotEmpty( strEmail ) )
-        {
-            // Looking for existing users with this email
-            List<User> listUsers = UserService.findUsersByEmail( strEmail );
-            if ( listUsers != null )
-            {
-                // For each User
-                for ( User user : listUsers )
-                {
-                    // looking for its appointment
-                    listAppointment.addAll( AppointmentService.findListAppointmentByUserId( user.getIdUser( ) ) );
-                }
-
-                // If we modify an appointment, we remove the
-                // appointment that we currently edit
-                if ( idAppointment != 0 )
-                {
-                    listAppointment = listAppointment.stream( ).filter( a -> a.getIdAppointment( ) != idAppointment ).collect( Collectors.toList( ) );
-                }
-
-            }
-        }
-        return listAppointment;
-    }
-
-    /**
-     * Get the slot of a user appointment
-     *
-     * @param strEmail
-     *            the user's email
-     * @param idAppointment
-     *            the id of the appointment
-     * @return the list of slots
-     */
-    private static List<Slot> getSlotsByEmail( String strEmail, int idAppointment )
-    {
-        List<Slot> listSlots = new ArrayList<>( );
-        if ( StringUtils.isNotEmpty( strEmail ) )
-        {
-            List<Appointment> listAppointment = getAppointmentByEmail( strEmail, idAppointment );
-            if ( CollectionUtils.isNotEmpty( listAppointment ) )
-            {
-                // I know we could have a join sql query, but I don't
-                // want to join the appointment table with the slot
-                // table, it's too big and not efficient
-
-                for ( Appointment appointment : listAppointment )
-                {
-                    if ( !appointment.getIsCancelled( ) )
-                    {
-                        listSlots = SlotService.findListSlotByIdAppointment( appointment.getIdAppointment( ) );
-                    }
-                }
-
-            }
-
-        }
-        return listSlots;
-    }
-
     /**
      * Check that the number of appointments on a defined period is not above the maximum authorized
      *
@@ -380,50 +278,29 @@ public final class AppointmentUtilities
             }
             LocalDate dateOfTheAppointment = startingDateTime.toLocalDate( );
 
-            AppointmentFilterDTO filter = new AppointmentFilterDTO( );
-            filter.setEmail( strEmail );
-            filter.setIdForm( form.getIdForm( ) );
-            filter.setStatus( 0 );
-            if ( form.getNbDaysForMaxAppointmentsPerUser( ) > 0 )
+            // The appointment that we currently edit is left out of the counts
+            int nIdAppointment = appointmentDTO.getIdAppointment( );
+            int nbAppointments = AppointmentQuotaService.getSummary( strEmail, nIdAppointment ).getNbAppointments( form.getIdForm( ) );
+            // The appointments on a period can not be above the maximum if all the appointments on the form are not
+            if ( nbAppointments >= form.getNbMaxAppointmentsPerUser( ) )
             {
-                filter.setStartingDateOfSearch( Date.valueOf( dateOfTheAppointment.minusDays( (long) form.getNbDaysForMaxAppointmentsPerUser( ) - 1 ) ) );
-                filter.setEndingDateOfSearch( Date.valueOf( dateOfTheAppointment.plusDays( (long) form.getNbDaysForMaxAppointmentsPerUser( ) - 1 ) ) );
-            }
-            List<AppointmentDTO> listAppointmentsDTO = AppointmentService.findListAppointmentsDTOByFilter( filter );
-            // If we modify an appointment, we remove the
-            // appointment that we currently edit
-            if ( appointmentDTO.getIdAppointment( ) != 0 )
-            {
-
-                listAppointmentsDTO.removeIf( appt -> appt.getIdAppointment( ) != appointmentDTO.getIdAppointment( ) );
-            }
-
-            if ( CollectionUtils.isNotEmpty( listAppointmentsDTO ) )
-            {
-                if ( form.getNbDaysForMaxAppointmentsPerUser( ) > 0 )
+                if ( form.getNbDaysForMaxAppointmentsPerUser( ) <= 0 )
                 {
-
-                    List<AppointmentDTO> listAppointmentsBefore = listAppointmentsDTO.stream( )
-                            .filter( appt -> appt.getStartingDateTime( ).toLocalDate( ).isBefore( dateOfTheAppointment )
-                                    || appt.getStartingDateTime( ).toLocalDate( ).isEqual( dateOfTheAppointment ) )
-                            .collect( Collectors.toList( ) );
-                    List<AppointmentDTO> listAppointmentsAfter = listAppointmentsDTO.stream( )
-                            .filter( appt -> appt.getStartingDateTime( ).toLocalDate( ).isAfter( dateOfTheAppointment )
-                                    || appt.getStartingDateTime( ).toLocalDate( ).isEqual( dateOfTheAppointment ) )
-                            .collect( Collectors.toList( ) );
-
-                    if ( listAppointmentsBefore.size( ) >= form.getNbMaxAppointmentsPerUser( )
-                            || listAppointmentsAfter.size( ) >= form.getNbMaxAppointmentsPerUser( ) )
-                    {
-                        return false;
-                    }
+                    return false;
+                }
+                long lNbDaysBeforeAndAfter = (long) form.getNbDaysForMaxAppointmentsPerUser( ) - 1;
+                int nbAppointmentsBefore = AppointmentQuotaService.countAppointmentsOnPeriod( strEmail, form.getIdForm( ), nIdAppointment,
+                        dateOfTheAppointment.minusDays( lNbDaysBeforeAndAfter ), dateOfTheAppointment );
+                if ( nbAppointmentsBefore >= form.getNbMaxAppointmentsPerUser( ) )
+                {
+                    return false;
+                }
+                int nbAppointmentsAfter = AppointmentQuotaService.countAppointmentsOnPeriod( strEmail, form.getIdForm( ), nIdAppointment,
+                        dateOfTheAppointment, dateOfTheAppointment.plusDays( lNbDaysBeforeAndAfter ) );
+                if ( nbAppointmentsAfter >= form.getNbMaxAppointmentsPerUser( ) )
+                {
+                    return false;
                 }
-                else
-                    if ( listAppointmentsDTO.size( ) >= form.getNbMaxAppointmentsPerUser( ) )
-                    {
-
-                        return false;
-                    }
             }
         }
         return true;
@@ -439,6 +316,8 @@ public final class AppointmentUtilities
      *            the email of the user
      * @param form
      *            the form
+     * @param listAppointments
+     *            the list filled in with the appointments of the user on the category when the maximum is reached
      * @return false if the number of appointments is above the maximum authorized on the defined category
      */
     public static boolean checkNbMaxAppointmentsDefinedOnCategory( AppointmentDTO appointmentDTO, String strEmail, AppointmentFormDTO form,
@@ -447,24 +326,17 @@ public final class AppointmentUtilities
         if ( form.getIdCategory( ) != 0 && StringUtils.isNotEmpty( strEmail ) )
         {
             Category category = CategoryService.findCategoryById( form.getIdCategory( ) );
-            if ( category != null && category.getNbMaxAppointmentsPerUser( ) > 0 )
+            if ( category != null && category.getNbMaxAppointmentsPerUser( ) > 0
+                    && AppointmentQuotaService.getSummary( strEmail, appointmentDTO.getIdAppointment( ) )
+                            .getNbUpcomingAppointmentsOnCategory( category.getIdCategory( ) ) >= category.getNbMaxAppointmentsPerUser( ) )
             {
+                // The appointments are only loaded to be listed in the error message
                 LocalDateTime now = LocalDateTime.now( );
                 List<AppointmentDTO> listAppointmentsDTO = AppointmentService.findAppointmentByMailAndCategory( category.getIdCategory( ), strEmail );
-                listAppointmentsDTO.removeIf( appt -> appt.getEndingDateTime( ).isBefore( now ) || appt.getIsCancelled( ) );
-                // If we modify an appointment, we remove the
-                // appointment that we currently edit
-                if ( appointmentDTO.getIdAppointment( ) != 0 )
-                {
-
-                    listAppointmentsDTO.removeIf( appt -> appt.getIdAppointment( ) != appointmentDTO.getIdAppointment( ) );
-                }
+                listAppointmentsDTO.removeIf( appt -> appt.getEndingDateTime( ).isBefore( now ) || appt.getIsCancelled( )
+                        || appt.getIdAppointment( ) == appointmentDTO.getIdAppointment( ) );
                 listAppointments.addAll( listAppointmentsDTO );
-                if ( CollectionUtils.isNotEmpty( listAppointmentsDTO ) && listAppointmentsDTO.size( ) >= category.getNbMaxAppointmentsPerUser( ) )
-                {
-                    return false;
-
-                }
+                return false;
             }
         }
         return true;
@@ -653,54 +525,74 @@ public final class AppointmentUtilities
 
     public static void cancelTaskTimer( HttpServletRequest request, int idSlot )
     {
-        ScheduledFuture<Slot> task = (ScheduledFuture) request.getSession( ).getAttribute( SESSION_TASK_TIMER_SLOT + idSlot );
-        if ( task != null )
+        SlotHold slotHold = (SlotHold) request.getSession( ).getAttribute( SESSION_TASK_TIMER_SLOT + idSlot );
+        if ( slotHold != null )
         {
-            if ( !task.isDone( ) )
-                task.cancel( false );
+            SlotHoldManager.INSTANCE.cancel( slotHold );
             request.getSession( ).removeAttribute( SESSION_TASK_TIMER_SLOT + idSlot );
         }
     }
 
+    /**
+     * Check if the hold of the session on a slot has expired
+     *
+     * @param request
+     *            the request
+     * @param idSlot
+     *            the id Slot
+     * @return true if the session had a hold on the slot and this hold has expired
+     */
     public static boolean isEditSlotTaskExpiredTime( HttpServletRequest request, int idSlot )
     {
-        ScheduledFuture<Slot> task = (ScheduledFuture) request.getSession( ).getAttribute( SESSION_TASK_TIMER_SLOT + idSlot );
-        return ( task != null && task.isDone( ) );
+        SlotHold slotHold = (SlotHold) request.getSession( ).getAttribute( SESSION_TASK_TIMER_SLOT + idSlot );
+        return ( slotHold != null && !SlotHoldManager.INSTANCE.isActive( slotHold ) );
     }
 
     /**
-     * Create a timer on a slot
+     * Hold places on a slot for the session, until the hold expires
      *
-     * @param slot
-     *            the slot
+     * @param request
+     *            the request
+     * @param nIdSlot
+     *            the id of the slot
      * @param appointmentDTO
      *            the appointment
      * @param maxPeoplePerAppointment
      *            the max people per appointment
-     * @return the ScheduledFuture
+     * @return the hold, or null if there is no place to hold
      */
-    public static ScheduledFuture<Slot> putTimerInSession( HttpServletRequest request, int nIdSlot, AppointmentDTO appointmentDTO, int maxPeoplePerAppointment )
+    public static SlotHold putTimerInSession( HttpServletRequest request, int nIdSlot, AppointmentDTO appointmentDTO, int maxPeoplePerAppointment )
     {
+        // No need to take the lock on a slot that the capacity ledger knows without potential remaining places
+        if ( SlotCapacityLedger.isEnabled( ) && SlotCapacityLedger.getNbPotentialRemainingPlaces( nIdSlot ) <= 0 )
+        {
+            appointmentDTO.setNbMaxPotentialBookedSeats( 0 );
+            return null;
+        }
+        long lStartTime = System.nanoTime( );
         Lock lock = SlotSafeService.getLockOnSlot( nIdSlot );
         lock.lock( );
+        AppointmentMetrics.SLOT_LOCK_WAIT.record( System.nanoTime( ) - lStartTime );
         try
         {
             Slot slot = SlotService.findSlotById( nIdSlot );
 
-            int nbPotentialRemainingPlaces = slot.getNbPotentialRemainingPlaces( );
+            // The places taken or given back that are not yet written in database
+            int nbPotentialRemainingPlaces = slot.getNbPotentialRemainingPlaces( )
+                    + PotentialRemainingPlacesWriteBehind.getPendingPotentialRemainingPlaces( nIdSlot );
             int nbPotentialPlacesTaken = Math.min( nbPotentialRemainingPlaces, maxPeoplePerAppointment );
             int nNewNbMaxPotentialBookedSeats = Math.min( nbPotentialPlacesTaken + appointmentDTO.getNbMaxPotentialBookedSeats( ), maxPeoplePerAppointment );
 
-            if ( slot.getNbPotentialRemainingPlaces( ) > 0 )
+            if ( nbPotentialRemainingPlaces > 0 )
             {
 
-                ScheduledFuture<Slot> scheduledFuture = _secheduledExecutor.schedule( new SlotEditTask( slot.getIdSlot( ), nbPotentialPlacesTaken ),
-                        AppPropertiesService.getPropertyInt( PROPERTY_DEFAULT_EXPIRED_TIME_EDIT_APPOINTMENT, 1 ), TimeUnit.MINUTES );
+                SlotHold slotHold = SlotHoldManager.INSTANCE.hold( request.getSession( ).getId( ), slot.getIdSlot( ), slot.getIdForm( ),
+                        nbPotentialPlacesTaken );
                 appointmentDTO.setNbMaxPotentialBookedSeats( nNewNbMaxPotentialBookedSeats );
                 SlotSafeService.decrementPotentialRemainingPlaces( nbPotentialPlacesTaken, slot.getIdSlot( ) );
 
-                request.getSession( ).setAttribute( SESSION_TASK_TIMER_SLOT + slot.getIdSlot( ), scheduledFuture );
-                return scheduledFuture;
+                request.getSession( ).setAttribute( SESSION_TASK_TIMER_SLOT + slot.getIdSlot( ), slotHold );
+                return slotHold;
             }
             appointmentDTO.setNbMaxPotentialBookedSeats( 0 );
         }
@@ -709,6 +601,7 @@ public final class AppointmentUtilities
         {
 
             lock.unlock( );
+            AppointmentMetrics.PUT_TIMER_IN_SESSION.record( System.nanoTime( ) - lStartTime );
         }
         return null;
     }
@@ -947,8 +840,34 @@ public final class AppointmentUtilities
      */
     public static boolean checkNoAppointmentsImpacted( List<Slot> listSlotsImpacted, int idReservationRule )
     {
+        return checkNoAppointmentsImpacted( listSlotsImpacted, WorkingDayService.findListWorkingDayByWeekDefinitionRule( idReservationRule ) );
+    }
 
-        List<WorkingDay> listWorkingDay = WorkingDayService.findListWorkingDayByWeekDefinitionRule( idReservationRule );
+    /**
+     * Check if there are appointments impacted by the new week definition
+     *
+     * @param listSlotsImpacted
+     *            the list of slot impacted
+     * @param reservationRule
+     *            the reservation rule, with its working days and time slots already loaded
+     * @return true if there are no appointments impacted
+     */
+    public static boolean checkNoAppointmentsImpacted( List<Slot> listSlotsImpacted, ReservationRule reservationRule )
+    {
+        return checkNoAppointmentsImpacted( listSlotsImpacted, reservationRule.getListWorkingDay( ) );
+    }
+
+    /**
+     * Check if there are appointments impacted by a list of working days
+     *
+     * @param listSlotsImpacted
+     *            the list of slot impacted
+     * @param listWorkingDay
+     *            the working days with their time slots
+     * @return true if there are no appointments impacted
+     */
+    private static boolean checkNoAppointmentsImpacted( List<Slot> listSlotsImpacted, List<WorkingDay> listWorkingDay )
+    {
         for ( Slot slot : listSlotsImpacted )
         {
             WorkingDay workingDay = listWorkingDay.stream( ).filter( day -> day.getDayOfWeek( ) == slot.getDate( ).getDayOfWeek( ).getValue( ) ).findFirst( )
@@ -1200,42 +1119,39 @@ public final class AppointmentUtilities
                 List<WeekDefinition> listWeekDefinition = WeekDefinitionService.findListWeekDefinition( nIdForm );
                 Map<WeekDefinition, ReservationRule> mapReservationRule = ReservationRuleService.findAllReservationRule( nIdForm, listWeekDefinition );
                 List<Slot> listSlotBuilded = SlotService.buildListSlot( nIdForm, mapReservationRule, minDate.toLocalDate( ), maxDate.toLocalDate( ) );
-                for ( Slot slt : listSlots )
-                {
-                    if ( listSlotBuilded.stream( ).noneMatch( slot -> slt.getStartingDateTime( ).isEqual( slot.getStartingDateTime( ) )
-                            && slt.getEndingDateTime( ).isEqual( slot.getEndingDateTime( ) ) ) )
-                    {
-                        return false;
-                    }
-                }
+                return isEachSlotInListSlotBuilded( listSlots, listSlotBuilded );
             }
         }
         return true;
     }
 
     /**
-     * The following method shuts down the _executorService in two phases, first by calling shutdown to reject incoming tasks, and then calling shutdownNow, if
-     * necessary, to cancel any lingering tasks:
+     * Check that each slot of a list has the same starting and ending date times than one of the slots built for its period
+     *
+     * @param listSlots
+     *            the list of slot to check
+     * @param listSlotBuilded
+     *            the slots built for the period of the list
+     * @return true if each slot of the list has been found in the slots built
      */
-    public static void shutdownSecheduledExecutor( )
+    static boolean isEachSlotInListSlotBuilded( List<Slot> listSlots, List<Slot> listSlotBuilded )
     {
-        _secheduledExecutor.shutdown( );
-        try
+        // Index the periods of the slots built, instead of searching each slot in the whole list
+        Set<Map.Entry<LocalDateTime, LocalDateTime>> setPeriodBuilded = new HashSet<>( listSlotBuilded.size( ) * 2 );
+        for ( Slot slot : listSlotBuilded )
         {
-            if ( !_secheduledExecutor.awaitTermination( 60, TimeUnit.SECONDS ) )
-            {
-                _secheduledExecutor.shutdownNow( );
-            }
+            setPeriodBuilded.add( new AbstractMap.SimpleImmutableEntry<>( slot.getStartingDateTime( ), slot.getEndingDateTime( ) ) );
         }
-        catch( InterruptedException e )
+        for ( Slot slt : listSlots )
         {
-            // (Re-)Cancel if current thread also interrupted
-            AppLogService.error( e.getMessage( ), e );
-            _secheduledExecutor.shutdownNow( );
-            Thread.currentThread().interrupt();
+            if ( !setPeriodBuilded.contains( new AbstractMap.SimpleImmutableEntry<>( slt.getStartingDateTime( ), slt.getEndingDateTime( ) ) ) )
+            {
+                return false;
+            }
         }
-
+        return true;
     }
+
     /**
      * Format the date of the appointment taken
      */
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import fr.paris.lutece.api.user.User;
+import fr.paris.lutece.plugins.appointment.business.appointment.Appointment;
+import fr.paris.lutece.plugins.appointment.web.dto.AppointmentDTO;
+import fr.paris.lutece.plugins.workflowcore.business.action.Action;
+import fr.paris.lutece.plugins.workflowcore.business.state.State;
+import fr.paris.lutece.portal.service.workflow.WorkflowService;
+
+/**
+ * Resolver of the workflow states and actions of a list of appointments. The states of the appointments are read with one call to the workflow services
+ * per form, and the actions are only asked to the workflow service once per state, since the actions available for an appointment only depend on its
+ * state and on the user.
+ * 
+ * A resolver is bound to a user and must only be used for the rendering of one request.
+ */
+public final class AppointmentWorkflowResolver
+{
+    private static final String KEY_SEPARATOR = "_";
+    private static final int NO_STATE = -1;
+
+    private final BiFunction<Integer, Integer, Collection<Action>> _actionLoader;
+    private final Map<String, Collection<Action>> _mapActions = new HashMap<>( );
+
+    /**
+     * Constructor
+     * 
+     * @param user
+     *            the user the actions are resolved for
+     */
+    public AppointmentWorkflowResolver( User user )
+    {
+        this( ( nIdAppointment, nIdWorkflow ) -> WorkflowService.getInstance( ).getActions( nIdAppointment, Appointment.APPOINTMENT_RESOURCE_TYPE,
+                nIdWorkflow, user ) );
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param actionLoader
+     *            the loader of the workflow actions of an appointment, from the id of the appointment and the id of the workflow
+     */
+    AppointmentWorkflowResolver( BiFunction<Integer, Integer, Collection<Action>> actionLoader )
+    {
+        _actionLoader = actionLoader;
+    }
+
+    /**
+     * Set the workflow state and the workflow actions of appointments of the same workflow
+     * 
+     * @param listAppointmentDTO
+     *            the appointments
+     * @param nIdWorkflow
+     *            the id of the workflow of the appointments
+     */
+    public void resolve( List<AppointmentDTO> listAppointmentDTO, int nIdWorkflow )
+    {
+        if ( listAppointmentDTO.isEmpty( ) || nIdWorkflow <= 0 )
+        {
+            return;
+        }
+        Map<Integer, State> mapState = AppointmentStateService.findByListAppointment( listAppointmentDTO, nIdWorkflow );
+        for ( AppointmentDTO appointment : listAppointmentDTO )
+        {
+            State state = mapState.get( appointment.getIdAppointment( ) );
+            if ( state != null )
+            {
+                appointment.setState( state );
+            }
+            appointment.setListWorkflowActions( getActions( appointment.getIdAppointment( ), state, nIdWorkflow ) );
+        }
+    }
+
+    /**
+     * Get the workflow actions of an appointment, from the actions already resolved for its state if any
+     * 
+     * @param nIdAppointment
+     *            the id of the appointment
+     * @param state
+     *            the state of the appointment, or null if the appointment has no state yet
+     * @param nIdWorkflow
+     *            the id of the workflow
+     * @return the workflow actions
+     */
+    Collection<Action> getActions( int nIdAppointment, State state, int nIdWorkflow )
+    {
+        String strKey = nIdWorkflow + KEY_SEPARATOR + ( ( state != null ) ? state.getId( ) : NO_STATE );
+        // The workflow service returns null when it is not available: null is kept too, not to ask again for each appointment
+        if ( !_mapActions.containsKey( strKey ) )
+        {
+            _mapActions.put( strKey, _actionLoader.apply( nIdAppointment, nIdWorkflow ) );
+        }
+        return _mapActions.get( strKey );
+    }
+}
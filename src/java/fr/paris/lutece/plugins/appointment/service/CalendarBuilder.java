@@ -41,12 +41,13 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
-import fr.paris.lutece.plugins.appointment.business.planning.TimeSlot;
 import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
-import fr.paris.lutece.plugins.appointment.business.planning.WorkingDay;
 import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
 import fr.paris.lutece.plugins.appointment.business.slot.Period;
 import fr.paris.lutece.plugins.appointment.business.slot.Slot;
+import fr.paris.lutece.plugins.appointment.service.WeekGrid.DayGrid;
+import fr.paris.lutece.plugins.appointment.service.WeekGrid.GridTimeSlot;
+import fr.paris.lutece.plugins.appointment.service.metrics.AppointmentMetrics;
 
 public class CalendarBuilder
 {
@@ -72,36 +73,52 @@ public class CalendarBuilder
      * @returna list of all the slots built
      */
     public static List<Slot> buildListSlot( int nIdForm, Map<WeekDefinition, ReservationRule> mapReservationRule, LocalDate startingDate, LocalDate endingDate )
+    {
+        long lStartTime = System.nanoTime( );
+        LocalDate startingDateToUse = getStartingDateToUse( mapReservationRule, startingDate );
+        List<Slot> listSlot = buildListSlot( nIdForm, mapReservationRule, startingDate, endingDate,
+                ClosingDayService.findListDateOfClosingDayByIdFormAndDateRange( nIdForm, startingDateToUse, endingDate ),
+                SlotService.buildMapSlotsByIdFormAndDateRangeWithDateForKey( nIdForm, startingDateToUse.atStartOfDay( ), endingDate.atTime( LocalTime.MAX ) ) );
+        AppointmentMetrics.CALENDAR_BUILD.record( System.nanoTime( ) - lStartTime );
+        return listSlot;
+    }
+
+    /**
+     * Build all the slot for a period from the closing days and the slots of the period already loaded
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @param mapReservationRule
+     *            the map of the rule week definition
+     * @param startingDate
+     *            the starting date of the period
+     * @param endingDate
+     *            the ending date of the periode
+     * @param listDateOfClosingDay
+     *            the closing days of the period
+     * @param mapSlot
+     *            the slots of the period in database, by starting date
+     * @return a list of all the slots built
+     */
+    static List<Slot> buildListSlot( int nIdForm, Map<WeekDefinition, ReservationRule> mapReservationRule, LocalDate startingDate, LocalDate endingDate,
+            List<LocalDate> listDateOfClosingDay, Map<LocalDateTime, Slot> mapSlot )
     {
         List<Slot> listSlot = new ArrayList<>( );
-        final List<WeekDefinition> listDateReservationRule = new ArrayList<>( mapReservationRule.keySet( ) );
-        WeekDefinition closestweeDef;
         ReservationRule reservationRuleToApply = null;
         LocalDate dateTemp = startingDate;
         int nMaxCapacity;
         DayOfWeek dayOfWeek;
-        WorkingDay workingDay;
+        WeekGrid weekGrid;
+        DayGrid dayGrid;
         LocalTime minTimeForThisDay;
         LocalTime maxTimeForThisDay;
         LocalTime timeTemp;
         LocalDateTime dateTimeTemp;
         Slot slotToAdd;
-        TimeSlot timeSlot;
+        GridTimeSlot timeSlot;
         LocalDate dateToCompare;
-        // Need to check if this date is not before the form date creation
-        WeekDefinition firsWeek = listDateReservationRule.stream( ).sorted( ( week1, week2 ) -> week1.getDateOfApply( ).compareTo( week2.getDateOfApply( ) ) )
-                .findFirst( ).orElse( null );
-        final LocalDate firstDateOfReservationRule = firsWeek.getDateOfApply( );
-        LocalDate startingDateToUse = startingDate;
-        if ( firstDateOfReservationRule != null && startingDate.isBefore( firstDateOfReservationRule ) )
-        {
-            startingDateToUse = firstDateOfReservationRule;
-        }
-        // Get all the closing day of this period
-        List<LocalDate> listDateOfClosingDay = ClosingDayService.findListDateOfClosingDayByIdFormAndDateRange( nIdForm, startingDateToUse, endingDate );
-        // Get all the slot between these two dates
-        Map<LocalDateTime, Slot> mapSlot = SlotService.buildMapSlotsByIdFormAndDateRangeWithDateForKey( nIdForm, startingDateToUse.atStartOfDay( ),
-                endingDate.atTime( LocalTime.MAX ) );
+        // Index the reservation rules and the closing days of this period
+        CalendarDateIndex dateIndex = new CalendarDateIndex( mapReservationRule, listDateOfClosingDay );
 
         // Get or build all the event for the period
         while ( !dateTemp.isAfter( endingDate ) )
@@ -109,31 +126,26 @@ public class CalendarBuilder
             dateToCompare = dateTemp;
             // Find the closest date of apply of reservation rule with the given
             // date
-            reservationRuleToApply = null;
-            closestweeDef = Utilities.getClosestWeekDefinitionInPast( listDateReservationRule, dateToCompare );
-            if ( closestweeDef != null )
-            {
-
-                reservationRuleToApply = mapReservationRule.get( closestweeDef );
-
-            }
+            reservationRuleToApply = dateIndex.getReservationRule( dateToCompare );
             nMaxCapacity = 0;
             // Get the day of week of the date
             dayOfWeek = dateTemp.getDayOfWeek( );
-            // Get the working day of this day of week
-            workingDay = null;
+            // Get the grid of this day of week
+            weekGrid = null;
+            dayGrid = null;
             if ( reservationRuleToApply != null )
             {
-                nMaxCapacity = reservationRuleToApply.getMaxCapacityPerSlot( );
-                workingDay = WorkingDayService.getWorkingDayOfDayOfWeek( reservationRuleToApply.getListWorkingDay( ), dayOfWeek );
+                weekGrid = WeekGridCacheService.getWeekGrid( reservationRuleToApply );
+                nMaxCapacity = weekGrid.getMaxCapacity( );
+                dayGrid = weekGrid.getDayGrid( dayOfWeek );
 
             }
-            if ( workingDay != null )
+            if ( dayGrid != null )
             {
-                minTimeForThisDay = WorkingDayService.getMinStartingTimeOfAWorkingDay( workingDay );
-                maxTimeForThisDay = WorkingDayService.getMaxEndingTimeOfAWorkingDay( workingDay );
+                minTimeForThisDay = dayGrid.getMinTime( );
+                maxTimeForThisDay = dayGrid.getMaxTime( );
                 // Check if this day is a closing day
-                if ( listDateOfClosingDay.contains( dateTemp ) )
+                if ( dateIndex.isClosingDay( dateTemp ) )
                 {
                     listSlot.add( SlotService.buildSlot( nIdForm, new Period( dateTemp.atTime( minTimeForThisDay ), dateTemp.atTime( maxTimeForThisDay ) ),
                             nMaxCapacity, nMaxCapacity, nMaxCapacity, 0, Boolean.FALSE, Boolean.FALSE ) );
@@ -156,7 +168,7 @@ public class CalendarBuilder
                         else
                         {
                             // Search the timeslot
-                            timeSlot = TimeSlotService.getTimeSlotInListOfTimeSlotWithStartingTime( workingDay.getListTimeSlot( ), timeTemp );
+                            timeSlot = dayGrid.getTimeSlot( timeTemp );
                             if ( timeSlot != null )
                             {
                                 timeTemp = timeSlot.getEndingTime( );
@@ -177,11 +189,11 @@ public class CalendarBuilder
             {
                 // This is not a working day
                 // We build all the slots closed for this day
-                if ( reservationRuleToApply != null )
+                if ( weekGrid != null )
                 {
-                    minTimeForThisDay = WorkingDayService.getMinStartingTimeOfAListOfWorkingDay( reservationRuleToApply.getListWorkingDay( ) );
-                    maxTimeForThisDay = WorkingDayService.getMaxEndingTimeOfAListOfWorkingDay( reservationRuleToApply.getListWorkingDay( ) );
-                    int nDuration = reservationRuleToApply.getDurationAppointments( );
+                    minTimeForThisDay = weekGrid.getMinTimeOfWeek( );
+                    maxTimeForThisDay = weekGrid.getMaxTimeOfWeek( );
+                    int nDuration = weekGrid.getDurationAppointments( );
                     if ( minTimeForThisDay != null && maxTimeForThisDay != null )
                     {
                         timeTemp = minTimeForThisDay;
@@ -236,15 +248,46 @@ public class CalendarBuilder
      */
     public static List<Slot> buildListSlot( int nIdForm, Map<WeekDefinition, ReservationRule> mapReservationRule, LocalDate startingDate, LocalDate endingDate,
             int nNbPlaces, boolean isAllOpenSlot )
+    {
+        long lStartTime = System.nanoTime( );
+        LocalDate startingDateToUse = getStartingDateToUse( mapReservationRule, startingDate );
+        List<Slot> listSlotToShow = buildListSlot( nIdForm, mapReservationRule, startingDate, endingDate, nNbPlaces, isAllOpenSlot,
+                ClosingDayService.findListDateOfClosingDayByIdFormAndDateRange( nIdForm, startingDateToUse, endingDate ),
+                SlotService.buildMapSlotsByIdFormAndDateRangeWithDateForKey( nIdForm, startingDateToUse.atStartOfDay( ), endingDate.atTime( LocalTime.MAX ) ) );
+        AppointmentMetrics.CALENDAR_BUILD.record( System.nanoTime( ) - lStartTime );
+        return listSlotToShow;
+    }
+
+    /**
+     * Build all the slot for a period from the closing days and the slots of the period already loaded
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @param mapReservationRule
+     *            the map of the rule week definition
+     * @param startingDate
+     *            the starting date of the period
+     * @param endingDate
+     *            the ending date of the periode
+     * @param nNbPlaces
+     *            the number of place to take
+     * @param isAllOpenSlot
+     *            build slots with the all open slot
+     * @param listDateOfClosingDay
+     *            the closing days of the period
+     * @param mapSlot
+     *            the slots of the period in database, by starting date
+     * @return a list of all the slots built
+     */
+    static List<Slot> buildListSlot( int nIdForm, Map<WeekDefinition, ReservationRule> mapReservationRule, LocalDate startingDate, LocalDate endingDate,
+            int nNbPlaces, boolean isAllOpenSlot, List<LocalDate> listDateOfClosingDay, Map<LocalDateTime, Slot> mapSlot )
     {
         List<Slot> listSlotToShow = new ArrayList<>( );
 
-        final List<WeekDefinition> listDateReservationRule = new ArrayList<>( mapReservationRule.keySet( ) );
-        WeekDefinition closestweeDef;
         ReservationRule reservationRuleToApply = null;
         LocalDate dateTemp = startingDate;
         DayOfWeek dayOfWeek;
-        WorkingDay workingDay;
+        DayGrid dayGrid;
         LocalTime minTimeForThisDay;
         LocalTime maxTimeForThisDay;
         LocalTime timeTemp;
@@ -261,22 +304,10 @@ public class CalendarBuilder
         int nbSlot;
 
         Slot slotToAdd;
-        TimeSlot timeSlot;
+        GridTimeSlot timeSlot;
         LocalDate dateToCompare;
-        // Need to check if this date is not before the form date creation
-        WeekDefinition firsWeek = listDateReservationRule.stream( ).sorted( ( week1, week2 ) -> week1.getDateOfApply( ).compareTo( week2.getDateOfApply( ) ) )
-                .findFirst( ).orElse( null );
-        final LocalDate firstDateOfReservationRule = firsWeek.getDateOfApply( );
-        LocalDate startingDateToUse = startingDate;
-        if ( firstDateOfReservationRule != null && startingDate.isBefore( firstDateOfReservationRule ) )
-        {
-            startingDateToUse = firstDateOfReservationRule;
-        }
-        // Get all the closing day of this period
-        List<LocalDate> listDateOfClosingDay = ClosingDayService.findListDateOfClosingDayByIdFormAndDateRange( nIdForm, startingDateToUse, endingDate );
-        // Get all the slot between these two dates
-        Map<LocalDateTime, Slot> mapSlot = SlotService.buildMapSlotsByIdFormAndDateRangeWithDateForKey( nIdForm, startingDateToUse.atStartOfDay( ),
-                endingDate.atTime( LocalTime.MAX ) );
+        // Index the reservation rules and the closing days of this period
+        CalendarDateIndex dateIndex = new CalendarDateIndex( mapReservationRule, listDateOfClosingDay );
 
         // Get or build all the event for the period
         while ( !dateTemp.isAfter( endingDate ) )
@@ -284,30 +315,23 @@ public class CalendarBuilder
             dateToCompare = dateTemp;
             // Find the closest date of apply of reservation rule with the given
             // date
-            reservationRuleToApply = null;
-            closestweeDef = Utilities.getClosestWeekDefinitionInPast( listDateReservationRule, dateToCompare );
-            if ( closestweeDef != null )
-            {
-
-                reservationRuleToApply = mapReservationRule.get( closestweeDef );
-
-            }
+            reservationRuleToApply = dateIndex.getReservationRule( dateToCompare );
             // Get the day of week of the date
             dayOfWeek = dateTemp.getDayOfWeek( );
-            // Get the working day of this day of week
-            workingDay = null;
+            // Get the grid of this day of week
+            dayGrid = null;
             if ( reservationRuleToApply != null )
             {
-                workingDay = WorkingDayService.getWorkingDayOfDayOfWeek( reservationRuleToApply.getListWorkingDay( ), dayOfWeek );
+                dayGrid = WeekGridCacheService.getWeekGrid( reservationRuleToApply ).getDayGrid( dayOfWeek );
 
             }
 
-            if ( workingDay != null )
+            if ( dayGrid != null )
             {
-                minTimeForThisDay = WorkingDayService.getMinStartingTimeOfAWorkingDay( workingDay );
-                maxTimeForThisDay = WorkingDayService.getMaxEndingTimeOfAWorkingDay( workingDay );
+                minTimeForThisDay = dayGrid.getMinTime( );
+                maxTimeForThisDay = dayGrid.getMaxTime( );
                 // Check if this day is a closing day
-                if ( !listDateOfClosingDay.contains( dateTemp ) )
+                if ( !dateIndex.isClosingDay( dateTemp ) )
                 {
                     timeTemp = minTimeForThisDay;
                     sumNbPotentialRemainingPlaces = 0;
@@ -337,7 +361,7 @@ public class CalendarBuilder
                         else
                         {
                             // Search the timeslot
-                            timeSlot = TimeSlotService.getTimeSlotInListOfTimeSlotWithStartingTime( workingDay.getListTimeSlot( ), timeTemp );
+                            timeSlot = dayGrid.getTimeSlot( timeTemp );
                             if ( timeSlot != null )
                             {
                                 timeTemp = timeSlot.getEndingTime( );
@@ -425,4 +449,24 @@ public class CalendarBuilder
 
         return sumNbPotentialRemainingPlaces >= nNbPlaces;
     }
+
+    /**
+     * Get the date from which the closing days and the slots of a period must be loaded: the slots can not be before the first week definition of the form
+     * 
+     * @param mapReservationRule
+     *            the map of the rule week definition
+     * @param startingDate
+     *            the starting date of the period
+     * @return the starting date to use
+     */
+    private static LocalDate getStartingDateToUse( Map<WeekDefinition, ReservationRule> mapReservationRule, LocalDate startingDate )
+    {
+        LocalDate firstDateOfReservationRule = mapReservationRule.keySet( ).stream( ).map( WeekDefinition::getDateOfApply ).min( LocalDate::compareTo )
+                .orElse( null );
+        if ( firstDateOfReservationRule != null && startingDate.isBefore( firstDateOfReservationRule ) )
+        {
+            return firstDateOfReservationRule;
+        }
+        return startingDate;
+    }
 }
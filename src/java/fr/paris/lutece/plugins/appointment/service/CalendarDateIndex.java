@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
+import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
+
+/**
+ * Date index used to build the calendars: the reservation rules indexed by the date of apply of their week definitions, and the closing days of the period.
+ * It is built once per calendar and is not modified afterwards, so that the rule and the closing state of each day are resolved in O(log n) and O(1)
+ * instead of scanning the lists.
+ */
+final class CalendarDateIndex
+{
+    private final NavigableMap<LocalDate, Entry<WeekDefinition, ReservationRule>> _mapByDateOfApply = new TreeMap<>( );
+    private final List<Entry<WeekDefinition, ReservationRule>> _listOverlapping;
+    private final Set<LocalDate> _setClosingDay;
+
+    /**
+     * Constructor
+     * 
+     * @param mapReservationRule
+     *            the reservation rules of the week definitions
+     * @param listDateOfClosingDay
+     *            the closing days
+     */
+    CalendarDateIndex( Map<WeekDefinition, ReservationRule> mapReservationRule, Collection<LocalDate> listDateOfClosingDay )
+    {
+        for ( Entry<WeekDefinition, ReservationRule> entry : mapReservationRule.entrySet( ) )
+        {
+            _mapByDateOfApply.putIfAbsent( entry.getKey( ).getDateOfApply( ), entry );
+        }
+        _listOverlapping = isOverlapping( mapReservationRule.size( ) ) ? new ArrayList<>( mapReservationRule.entrySet( ) ) : null;
+        _setClosingDay = new HashSet<>( listDateOfClosingDay );
+    }
+
+    /**
+     * Get the reservation rule that applies on a date
+     * 
+     * @param date
+     *            the date
+     * @return the reservation rule of the week definition that contains the date, null if there is none
+     */
+    ReservationRule getReservationRule( LocalDate date )
+    {
+        if ( _listOverlapping != null )
+        {
+            // The week definitions overlap, keep the behavior of the scan of the list
+            for ( Entry<WeekDefinition, ReservationRule> entry : _listOverlapping )
+            {
+                if ( contains( entry.getKey( ), date ) )
+                {
+                    return entry.getValue( );
+                }
+            }
+            return null;
+        }
+        Entry<LocalDate, Entry<WeekDefinition, ReservationRule>> floorEntry = _mapByDateOfApply.floorEntry( date );
+        if ( floorEntry != null && contains( floorEntry.getValue( ).getKey( ), date ) )
+        {
+            return floorEntry.getValue( ).getValue( );
+        }
+        return null;
+    }
+
+    /**
+     * Check if a date is a closing day
+     * 
+     * @param date
+     *            the date
+     * @return true if the date is a closing day
+     */
+    boolean isClosingDay( LocalDate date )
+    {
+        return _setClosingDay.contains( date );
+    }
+
+    /**
+     * Check if the week definitions overlap. The floor lookup is only valid for disjoint periods, which is what the week assignment maintains
+     * 
+     * @param nNbWeekDefinition
+     *            the number of week definitions
+     * @return true if two week definitions share a date
+     */
+    private boolean isOverlapping( int nNbWeekDefinition )
+    {
+        if ( _mapByDateOfApply.size( ) != nNbWeekDefinition )
+        {
+            return true;
+        }
+        LocalDate previousEndingDate = null;
+        for ( Entry<WeekDefinition, ReservationRule> entry : _mapByDateOfApply.values( ) )
+        {
+            WeekDefinition weekDefinition = entry.getKey( );
+            if ( previousEndingDate != null && !weekDefinition.getDateOfApply( ).isAfter( previousEndingDate ) )
+            {
+                return true;
+            }
+            previousEndingDate = weekDefinition.getEndingDateOfApply( );
+        }
+        return false;
+    }
+
+    /**
+     * Check if a week definition contains a date
+     * 
+     * @param weekDefinition
+     *            the week definition
+     * @param date
+     *            the date
+     * @return true if the date is between the date of apply and the ending date of apply of the week definition
+     */
+    private static boolean contains( WeekDefinition weekDefinition, LocalDate date )
+    {
+        return !weekDefinition.getDateOfApply( ).isAfter( date ) && !weekDefinition.getEndingDateOfApply( ).isBefore( date );
+    }
+}
@@ -40,6 +40,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -49,6 +50,7 @@ import fr.paris.lutece.plugins.appointment.business.comment.CommentNotificationC
 import fr.paris.lutece.plugins.appointment.business.comment.CommentNotificationConfig.NotificationType;
 import fr.paris.lutece.plugins.appointment.business.comment.CommentNotificationHome;
 import fr.paris.lutece.plugins.appointment.business.form.Form;
+import fr.paris.lutece.plugins.appointment.service.AdminUserNameCacheService.AdminUserName;
 import fr.paris.lutece.plugins.appointment.web.dto.CommentDTO;
 import fr.paris.lutece.portal.business.mailinglist.Recipient;
 import fr.paris.lutece.portal.business.user.AdminUser;
@@ -192,13 +194,25 @@ public class CommentService
 
     }
 
+    /**
+     * Build the DTO of comments, with the title of their form and the name of their creator. Only the forms and the admin users of the comments are loaded.
+     * 
+     * @param listComment
+     *            the comments
+     * @return the DTO of the comments
+     */
     public static List<CommentDTO> buildCommentDTO( List<Comment> listComment )
     {
 
         List<CommentDTO> listComments = new ArrayList<>( );
-        List<Form> listFom = FormService.findAllForms( );
-        Collection<AdminUser> listAdminUser = AdminUserHome.findUserList( );
-        AdminUser user = null;
+        Map<Integer, Form> mapForm = new HashMap<>( );
+        for ( Comment comment : listComment )
+        {
+            mapForm.computeIfAbsent( comment.getIdForm( ), FormBundleCacheService.getInstance( )::getForm );
+        }
+        Map<String, AdminUserName> mapUserName = AdminUserNameCacheService
+                .getUserNames( listComment.stream( ).map( Comment::getCreatorUserName ).collect( Collectors.toSet( ) ) );
+        AdminUserName user = null;
         Form frm = null;
         for ( Comment comment : listComment )
         {
@@ -213,8 +227,8 @@ public class CommentService
             commentDTO.setStartingValidityDate( comment.getStartingValidityDate( ) );
             commentDTO.setStartingValidityTime( comment.getStartingValidityTime( ) );
 
-            frm = listFom.stream( ).filter( form -> form.getIdForm( ) == comment.getIdForm( ) ).findAny( ).orElse( null );
-            user = listAdminUser.stream( ).filter( usr -> usr.getAccessCode( ).equals( comment.getCreatorUserName( ) ) ).findAny( ).orElse( null );
+            frm = mapForm.get( comment.getIdForm( ) );
+            user = mapUserName.get( comment.getCreatorUserName( ) );
             if ( frm != null )
             {
                 commentDTO.setFormTitle( frm.getTitle( ) );
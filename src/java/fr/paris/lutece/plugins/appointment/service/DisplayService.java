@@ -89,6 +89,7 @@ public final class DisplayService
         Display display = new Display( );
         fillInDisplayWithAppointmentForm( display, appointmentForm, nIdForm );
         DisplayHome.create( display );
+        FormIconCacheService.evict( nIdForm );
         return display;
     }
 
@@ -101,6 +102,7 @@ public final class DisplayService
     public static void saveDisplay( Display display )
     {
         DisplayHome.create( display );
+        FormIconCacheService.evict( display.getIdForm( ) );
     }
 
     /**
@@ -117,6 +119,8 @@ public final class DisplayService
         Display display = DisplayService.findDisplayWithFormId( nIdForm );
         fillInDisplayWithAppointmentForm( display, appointmentForm, nIdForm );
         DisplayHome.update( display );
+        FormBundleCacheService.getInstance( ).invalidate( nIdForm );
+        FormIconCacheService.evict( nIdForm );
         return display;
     }
 
@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.SerializationUtils;
+
+import fr.paris.lutece.plugins.appointment.business.display.Display;
+import fr.paris.lutece.plugins.appointment.business.display.DisplayHome;
+import fr.paris.lutece.plugins.appointment.business.form.Form;
+import fr.paris.lutece.plugins.appointment.business.form.FormHome;
+import fr.paris.lutece.plugins.appointment.business.localization.Localization;
+import fr.paris.lutece.plugins.appointment.business.localization.LocalizationHome;
+import fr.paris.lutece.plugins.appointment.business.message.FormMessage;
+import fr.paris.lutece.plugins.appointment.business.message.FormMessageHome;
+import fr.paris.lutece.plugins.appointment.business.rule.FormRule;
+import fr.paris.lutece.plugins.appointment.business.rule.FormRuleHome;
+import fr.paris.lutece.portal.service.cache.AbstractCacheableService;
+
+/**
+ * Read-through cache of the configuration of the forms (form, display, localization, form rule and form messages). The bundles are never handed out:
+ * the callers get a new DTO or a copy of the messages, so they can modify what they get without altering the cache.
+ */
+public final class FormBundleCacheService extends AbstractCacheableService
+{
+    private static final String CACHE_NAME = "appointment.formBundleCacheService";
+
+    private static FormBundleCacheService _singleton;
+
+    /**
+     * Incremented on each invalidation, so that a bundle loaded before an update is not put back in the cache after it
+     */
+    private final AtomicLong _lGeneration = new AtomicLong( );
+
+    /**
+     * Private constructor
+     */
+    private FormBundleCacheService( )
+    {
+    }
+
+    /**
+     * Get the instance of the cache
+     * 
+     * @return the instance of the cache
+     */
+    public static synchronized FormBundleCacheService getInstance( )
+    {
+        if ( _singleton == null )
+        {
+            _singleton = new FormBundleCacheService( );
+            _singleton.initCache( );
+        }
+        return _singleton;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName( )
+    {
+        return CACHE_NAME;
+    }
+
+    /**
+     * Get the form of the bundle
+     * 
+     * @param nIdForm
+     *            the form id
+     * @return the form, null if the form does not exist
+     */
+    Form getForm( int nIdForm )
+    {
+        return getBundle( nIdForm ).getForm( );
+    }
+
+    /**
+     * Get the display of the bundle
+     * 
+     * @param nIdForm
+     *            the form id
+     * @return the display, null if the form has none
+     */
+    Display getDisplay( int nIdForm )
+    {
+        return getBundle( nIdForm ).getDisplay( );
+    }
+
+    /**
+     * Get the localization of the bundle
+     * 
+     * @param nIdForm
+     *            the form id
+     * @return the localization, null if the form has none
+     */
+    Localization getLocalization( int nIdForm )
+    {
+        return getBundle( nIdForm ).getLocalization( );
+    }
+
+    /**
+     * Get the form rule of the bundle
+     * 
+     * @param nIdForm
+     *            the form id
+     * @return the form rule, null if the form has none
+     */
+    FormRule getFormRule( int nIdForm )
+    {
+        return getBundle( nIdForm ).getFormRule( );
+    }
+
+    /**
+     * Get a copy of the form messages of the bundle
+     * 
+     * @param nIdForm
+     *            the form id
+     * @return a copy of the form messages, null if the form has none
+     */
+    public FormMessage getFormMessage( int nIdForm )
+    {
+        FormMessage formMessage = getBundle( nIdForm ).getFormMessage( );
+        return formMessage == null ? null : SerializationUtils.clone( formMessage );
+    }
+
+    /**
+     * Remove the bundle of a form from the cache
+     * 
+     * @param nIdForm
+     *            the form id
+     */
+    public void invalidate( int nIdForm )
+    {
+        _lGeneration.incrementAndGet( );
+        removeKey( getKey( nIdForm ) );
+    }
+
+    /**
+     * Get the bundle of a form, loading it from the database if it is not in the cache
+     * 
+     * @param nIdForm
+     *            the form id
+     * @return the bundle
+     */
+    private FormBundle getBundle( int nIdForm )
+    {
+        String strKey = getKey( nIdForm );
+        FormBundle bundle = (FormBundle) getFromCache( strKey );
+        if ( bundle == null )
+        {
+            long lGeneration = _lGeneration.get( );
+            bundle = new FormBundle( FormHome.findByPrimaryKey( nIdForm ), DisplayHome.findByIdForm( nIdForm ), LocalizationHome.findByIdForm( nIdForm ),
+                    FormRuleHome.findByIdForm( nIdForm ), FormMessageHome.findByIdForm( nIdForm ) );
+            if ( bundle.getForm( ) != null )
+            {
+                synchronized( this )
+                {
+                    if ( lGeneration == _lGeneration.get( ) )
+                    {
+                        putInCache( strKey, bundle );
+                    }
+                }
+            }
+        }
+        return bundle;
+    }
+
+    /**
+     * Build the key of a form in the cache
+     * 
+     * @param nIdForm
+     *            the form id
+     * @return the key
+     */
+    private static String getKey( int nIdForm )
+    {
+        return String.valueOf( nIdForm );
+    }
+
+    /**
+     * Snapshot of the configuration of a form. The objects it holds must not be modified nor returned to the callers
+     */
+    private static final class FormBundle
+    {
+        private final Form _form;
+        private final Display _display;
+        private final Localization _localization;
+        private final FormRule _formRule;
+        private final FormMessage _formMessage;
+
+        /**
+         * Constructor
+         * 
+         * @param form
+         *            the form
+         * @param display
+         *            the display of the form
+         * @param localization
+         *            the localization of the form
+         * @param formRule
+         *            the rule of the form
+         * @param formMessage
+         *            the messages of the form
+         */
+        FormBundle( Form form, Display display, Localization localization, FormRule formRule, FormMessage formMessage )
+        {
+            _form = form;
+            _display = display;
+            _localization = localization;
+            _formRule = formRule;
+            _formMessage = formMessage;
+        }
+
+        Form getForm( )
+        {
+            return _form;
+        }
+
+        Display getDisplay( )
+        {
+            return _display;
+        }
+
+        Localization getLocalization( )
+        {
+            return _localization;
+        }
+
+        FormRule getFormRule( )
+        {
+            return _formRule;
+        }
+
+        FormMessage getFormMessage( )
+        {
+            return _formMessage;
+        }
+    }
+}
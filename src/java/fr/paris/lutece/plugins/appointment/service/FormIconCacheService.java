@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+import fr.paris.lutece.plugins.appointment.business.display.Display;
+import fr.paris.lutece.portal.service.image.ImageResource;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+/**
+ * In-memory cache of the icons of the forms, bounded by the total size of the images and by the number of forms. Each icon is identified by the hash of its
+ * content, used as the version of the URL of the icon and as its ETag, so that the browsers and the proxies can keep the icons until they change. Only the
+ * forms that exist are cached, so that requesting the icons of unknown forms can not fill the cache.
+ */
+public final class FormIconCacheService
+{
+    private static final String PROPERTY_CACHE_MAX_SIZE = "appointment.icon.cache.maxSize";
+    private static final long DEFAULT_CACHE_MAX_SIZE = 4L * 1024 * 1024;
+    private static final String PROPERTY_CACHE_MAX_ENTRIES = "appointment.icon.cache.maxEntries";
+    private static final int DEFAULT_CACHE_MAX_ENTRIES = 1000;
+    private static final int HASH_LENGTH = 20;
+
+    // The icons in the order of their last access, to remove the least recently used first
+    private static final Map<Integer, FormIcon> _mapIcon = new LinkedHashMap<>( 16, 0.75f, true );
+    private static final long _lMaxSize = AppPropertiesService.getPropertyLong( PROPERTY_CACHE_MAX_SIZE, DEFAULT_CACHE_MAX_SIZE );
+    private static final int _nMaxEntries = AppPropertiesService.getPropertyInt( PROPERTY_CACHE_MAX_ENTRIES, DEFAULT_CACHE_MAX_ENTRIES );
+    private static long _lSize;
+
+    // Incremented on each eviction, so that an icon loaded before an update is not put back in the cache after it
+    private static long _lGeneration;
+
+    /**
+     * Icon of a form. A form without icon has an icon without image, kept in the cache to avoid querying the database again.
+     */
+    public static final class FormIcon
+    {
+        private final int _nIdForm;
+        private final byte [ ] _image;
+        private final String _strMimeType;
+        private final String _strHash;
+        private final long _lLastModified;
+
+        /**
+         * Constructor
+         * 
+         * @param nIdForm
+         *            the id of the form
+         * @param icon
+         *            the icon of the form, null if the form has no icon
+         */
+        FormIcon( int nIdForm, ImageResource icon )
+        {
+            _nIdForm = nIdForm;
+            boolean bHasImage = icon != null && icon.getImage( ) != null && icon.getImage( ).length > 0;
+            _image = bHasImage ? icon.getImage( ) : null;
+            _strMimeType = bHasImage ? icon.getMimeType( ) : null;
+            _strHash = bHasImage ? DigestUtils.sha256Hex( _image ).substring( 0, HASH_LENGTH ) : null;
+            // The HTTP dates are in seconds
+            _lLastModified = TimeUnit.SECONDS.toMillis( TimeUnit.MILLISECONDS.toSeconds( System.currentTimeMillis( ) ) );
+        }
+
+        /**
+         * Get the id of the form
+         * 
+         * @return the id of the form
+         */
+        public int getIdForm( )
+        {
+            return _nIdForm;
+        }
+
+        /**
+         * Tell if the form has an icon
+         * 
+         * @return true if the form has an icon
+         */
+        public boolean hasImage( )
+        {
+            return _image != null;
+        }
+
+        /**
+         * Get the content of the icon. The array is shared by all the callers and must not be modified.
+         * 
+         * @return the content of the icon, null if the form has no icon
+         */
+        public byte [ ] getImage( )
+        {
+            return _image;
+        }
+
+        /**
+         * Get the mime type of the icon
+         * 
+         * @return the mime type, null if the form has no icon
+         */
+        public String getMimeType( )
+        {
+            return _strMimeType;
+        }
+
+        /**
+         * Get the hash of the content of the icon
+         * 
+         * @return the hash, null if the form has no icon
+         */
+        public String getHash( )
+        {
+            return _strHash;
+        }
+
+        /**
+         * Get the date from which the icon is in the cache
+         * 
+         * @return the date in milliseconds, rounded to the second
+         */
+        public long getLastModified( )
+        {
+            return _lLastModified;
+        }
+
+        /**
+         * Get the size used by the icon in the cache
+         * 
+         * @return the size in bytes
+         */
+        long getSize( )
+        {
+            return _image == null ? 0 : _image.length;
+        }
+    }
+
+    /**
+     * Private constructor - this class does not need to be instantiated
+     */
+    private FormIconCacheService( )
+    {
+    }
+
+    /**
+     * Get the icon of a form, loading it from the database if it is not in the cache. The icon of a form that does not exist is not cached.
+     * 
+     * @param nIdForm
+     *            the id of the form
+     * @return the icon of the form, without image if the form has no icon or does not exist
+     */
+    public static FormIcon getIcon( int nIdForm )
+    {
+        FormIcon formIcon;
+        long lGeneration;
+        synchronized( _mapIcon )
+        {
+            formIcon = _mapIcon.get( nIdForm );
+            lGeneration = _lGeneration;
+        }
+        if ( formIcon == null )
+        {
+            Display display = DisplayService.findDisplayWithFormId( nIdForm );
+            if ( display == null )
+            {
+                return new FormIcon( nIdForm, null );
+            }
+            formIcon = new FormIcon( nIdForm, display.getIcon( ) );
+            put( formIcon, lGeneration );
+        }
+        return formIcon;
+    }
+
+    /**
+     * Get the icon of a form, from the image already loaded with the form if it is not in the cache
+     * 
+     * @param nIdForm
+     *            the id of the form
+     * @param icon
+     *            the icon of the form loaded with the form
+     * @return the icon of the form
+     */
+    public static FormIcon getIcon( int nIdForm, ImageResource icon )
+    {
+        FormIcon formIcon;
+        long lGeneration;
+        synchronized( _mapIcon )
+        {
+            formIcon = _mapIcon.get( nIdForm );
+            lGeneration = _lGeneration;
+        }
+        if ( formIcon == null )
+        {
+            formIcon = new FormIcon( nIdForm, icon );
+            put( formIcon, lGeneration );
+        }
+        return formIcon;
+    }
+
+    /**
+     * Remove the icon of a form from the cache
+     * 
+     * @param nIdForm
+     *            the id of the form
+     */
+    public static void evict( int nIdForm )
+    {
+        synchronized( _mapIcon )
+        {
+            _lGeneration++;
+            FormIcon formIcon = _mapIcon.remove( nIdForm );
+            if ( formIcon != null )
+            {
+                _lSize -= formIcon.getSize( );
+            }
+        }
+    }
+
+    /**
+     * Put an icon in the cache, unless an icon was evicted since it was loaded or it is bigger than the cache, and remove the least recently used icons
+     * beyond the size or the number of entries of the cache
+     * 
+     * @param formIcon
+     *            the icon
+     * @param lGeneration
+     *            the generation of the cache when the icon was loaded
+     */
+    private static void put( FormIcon formIcon, long lGeneration )
+    {
+        synchronized( _mapIcon )
+        {
+            if ( lGeneration != _lGeneration || formIcon.getSize( ) > _lMaxSize )
+            {
+                return;
+            }
+            FormIcon formIconReplaced = _mapIcon.put( formIcon.getIdForm( ), formIcon );
+            _lSize += formIcon.getSize( ) - ( formIconReplaced == null ? 0 : formIconReplaced.getSize( ) );
+            Iterator<FormIcon> iterator = _mapIcon.values( ).iterator( );
+            while ( ( _lSize > _lMaxSize || _mapIcon.size( ) > _nMaxEntries ) && iterator.hasNext( ) )
+            {
+                _lSize -= iterator.next( ).getSize( );
+                iterator.remove( );
+            }
+        }
+    }
+}
@@ -132,7 +132,7 @@ public final class FormMessageService
     }
 
     /**
-     * Find the form messages of a form
+     * Find the form messages of a form. The messages are read from the form bundle cache, the object returned is a copy that can be modified
      * 
      * @param nIdForm
      *            the form id
@@ -140,7 +140,7 @@ public final class FormMessageService
      */
     public static FormMessage findFormMessageByIdForm( int nIdForm )
     {
-        return FormMessageHome.findByIdForm( nIdForm );
+        return FormBundleCacheService.getInstance( ).getFormMessage( nIdForm );
     }
 
     /**
@@ -152,6 +152,7 @@ public final class FormMessageService
     public static void updateFormMessage( FormMessage formMessage )
     {
         FormMessageHome.update( formMessage );
+        FormBundleCacheService.getInstance( ).invalidate( formMessage.getIdForm( ) );
     }
 
 }
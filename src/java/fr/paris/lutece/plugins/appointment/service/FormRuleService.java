@@ -118,6 +118,7 @@ public final class FormRuleService
         FormRule formRule = FormRuleService.findFormRuleWithFormId( nIdForm );
         fillInFormRule( formRule, appointmentForm, nIdForm );
         FormRuleHome.update( formRule );
+        FormBundleCacheService.getInstance( ).invalidate( nIdForm );
         return formRule;
     }
 
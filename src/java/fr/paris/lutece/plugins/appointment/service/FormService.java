@@ -38,7 +38,6 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import org.apache.commons.collections.CollectionUtils;
 
@@ -52,11 +51,8 @@ import fr.paris.lutece.plugins.appointment.business.localization.Localization;
 import fr.paris.lutece.plugins.appointment.business.localization.LocalizationHome;
 import fr.paris.lutece.plugins.appointment.business.message.FormMessage;
 import fr.paris.lutece.plugins.appointment.business.message.FormMessageHome;
-import fr.paris.lutece.plugins.appointment.business.planning.ClosingDay;
 import fr.paris.lutece.plugins.appointment.business.planning.ClosingDayHome;
-import fr.paris.lutece.plugins.appointment.business.planning.TimeSlot;
 import fr.paris.lutece.plugins.appointment.business.planning.TimeSlotHome;
-import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
 import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinitionHome;
 import fr.paris.lutece.plugins.appointment.business.planning.WorkingDay;
 import fr.paris.lutece.plugins.appointment.business.planning.WorkingDayHome;
@@ -64,7 +60,6 @@ import fr.paris.lutece.plugins.appointment.business.rule.FormRule;
 import fr.paris.lutece.plugins.appointment.business.rule.FormRuleHome;
 import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
 import fr.paris.lutece.plugins.appointment.business.rule.ReservationRuleHome;
-import fr.paris.lutece.plugins.appointment.business.slot.Slot;
 import fr.paris.lutece.plugins.appointment.business.slot.SlotHome;
 import fr.paris.lutece.plugins.appointment.service.listeners.AppointmentListenerManager;
 import fr.paris.lutece.plugins.appointment.service.listeners.FormListenerManager;
@@ -119,61 +114,21 @@ public final class FormService
         LocalizationService.createLocalization( appointmentForm, nIdNewForm );
         // Add the form rule
         FormRuleService.createFormRule( appointmentForm, nIdNewForm );
-        // Get all the weekDefinitions, WorkingDays and TimeSlots of the
-        // original form and set the new id
-        // of the copy of the form and save them
-        WeekDefinition copyWeekDefinition;
-        int idCopyReservationRule;
-        WorkingDay copyWorkingDay;
-        int idCopyWorkingDay;
-        TimeSlot copyTimeSlot;
-        List<WeekDefinition> listWeekDefinitions = WeekDefinitionService.findListWeekDefinition( nIdForm );
-        List<WorkingDay> listWorkingDays;
-        List<TimeSlot> listTimeSlots;
-
         // Get all the reservation rules of the original form and set the new id
-        // of the copy of the form and save them
-        ReservationRule copyReservationRule;
-        List<ReservationRule> listReservationRules = ReservationRuleService.findListReservationRule( nIdForm );
+        // of the copy of the form and save them. The planning of each rule
+        // (week definitions, working days and time slots) is copied with one
+        // statement per table, whatever its size
+        List<ReservationRule> listReservationRules = ReservationRuleHome.findByIdForm( nIdForm );
         for ( ReservationRule reservationRule : listReservationRules )
         {
-            int nOldReservationRule = reservationRule.getIdReservationRule( );
-            copyReservationRule = reservationRule;
-            copyReservationRule.setIdReservationRule( 0 );
-            copyReservationRule.setIdForm( nIdNewForm );
-            ReservationRuleService.saveReservationRule( copyReservationRule );
-            listWorkingDays = copyReservationRule.getListWorkingDay( );
-            idCopyReservationRule = copyReservationRule.getIdReservationRule( );
-
-            for ( WorkingDay workingDay : listWorkingDays )
-            {
-                copyWorkingDay = workingDay;
-                copyWorkingDay.setIdWorkingDay( 0 );
-                copyWorkingDay.setIdReservationRule( idCopyReservationRule );
-                copyWorkingDay = WorkingDayService.saveWorkingDay( copyWorkingDay );
-                idCopyWorkingDay = copyWorkingDay.getIdWorkingDay( );
-                listTimeSlots = workingDay.getListTimeSlot( );
-                for ( TimeSlot timeSlot : listTimeSlots )
-                {
-                    copyTimeSlot = timeSlot;
-                    copyTimeSlot.setIdTimeSlot( 0 );
-                    copyTimeSlot.setIdWorkingDay( idCopyWorkingDay );
-                    TimeSlotService.saveTimeSlot( copyTimeSlot );
-                }
-            }
-            List<WeekDefinition> listWeekDef = listWeekDefinitions.stream( ).filter( week -> week.getIdReservationRule( ) == nOldReservationRule )
-                    .collect( Collectors.toList( ) );
-            if ( CollectionUtils.isNotEmpty( listWeekDef ) )
-            {
-
-                for ( WeekDefinition weekDefinition : listWeekDef )
-                {
-                    copyWeekDefinition = weekDefinition;
-                    copyWeekDefinition.setIdWeekDefinition( 0 );
-                    copyWeekDefinition.setIdReservationRule( idCopyReservationRule );
-                    WeekDefinitionHome.create( copyWeekDefinition );
-                }
-            }
+            int nIdReservationRule = reservationRule.getIdReservationRule( );
+            reservationRule.setIdReservationRule( 0 );
+            reservationRule.setIdForm( nIdNewForm );
+            ReservationRuleService.saveReservationRule( reservationRule );
+            int nIdCopyReservationRule = reservationRule.getIdReservationRule( );
+            WorkingDayHome.copyByIdReservationRule( nIdReservationRule, nIdCopyReservationRule );
+            TimeSlotHome.copyByIdReservationRule( nIdReservationRule, nIdCopyReservationRule );
+            WeekDefinitionHome.copyByIdReservationRule( nIdReservationRule, nIdCopyReservationRule );
         }
 
         // Copy the messages of the original form and add them to the copy
@@ -182,33 +137,9 @@ public final class FormService
         copyFormMessage.setIdFormMessage( 0 );
         copyFormMessage.setIdForm( nIdNewForm );
         FormMessageService.saveFormMessage( copyFormMessage );
-        // Get all the closing days of the original form and add them to the
-        // copy
-        List<ClosingDay> listClosingDays = ClosingDayService.findListClosingDay( nIdForm );
-        ClosingDay copyClosingDay;
-        for ( ClosingDay closingDay : listClosingDays )
-        {
-            copyClosingDay = closingDay;
-            copyClosingDay.setIdClosingDay( 0 );
-            copyClosingDay.setIdForm( nIdNewForm );
-            ClosingDayService.saveClosingDay( copyClosingDay );
-        }
-        // Get all the specific slots of the original form and copy them for the
-        // new form
-        List<Slot> listSpecificSlots = SlotService.findSpecificSlotsByIdForm( nIdForm );
-        Slot copySpecificSlot;
-        for ( Slot specificSlot : listSpecificSlots )
-        {
-            copySpecificSlot = specificSlot;
-
-            copySpecificSlot.setIdSlot( 0 );
-            copySpecificSlot.setIdForm( nIdNewForm );
-            copySpecificSlot.setNbPotentialRemainingPlaces( specificSlot.getMaxCapacity( ) );
-            copySpecificSlot.setNbRemainingPlaces( specificSlot.getMaxCapacity( ) );
-            copySpecificSlot.setNbPlacestaken( 0 );
-
-            SlotHome.create( copySpecificSlot );
-        }
+        // Copy the closing days and the specific slots of the original form
+        ClosingDayHome.copyByIdForm( nIdForm, nIdNewForm );
+        SlotHome.copySpecificByIdForm( nIdForm, nIdNewForm );
         // Copy the entries of the original form
         EntryFilter entryFilter = new EntryFilter( );
         entryFilter.setIdResource( nIdForm );
@@ -221,6 +152,7 @@ public final class FormService
             entry.setIdResource( nIdNewForm );
             EntryHome.copy( entry );
         }
+        FormBundleCacheService.getInstance( ).invalidate( nIdNewForm );
         FormListenerManager.notifyListenersFormCreation( nIdForm );
         return nIdNewForm;
     }
@@ -266,6 +198,7 @@ public final class FormService
             WorkingDayService.generateWorkingDayAndListTimeSlot( reservationRule.getIdReservationRule( ), dayOfWeek, startingTime, endingTime, nDuration,
                     nMaxCapacity );
         }
+        FormBundleCacheService.getInstance( ).invalidate( nIdForm );
         FormListenerManager.notifyListenersFormCreation( nIdForm );
         return nIdForm;
     }
@@ -436,19 +369,20 @@ public final class FormService
     public static AppointmentFormDTO buildAppointmentFormWithoutReservationRule( int nIdForm )
     {
         AppointmentFormDTO appointmentForm = new AppointmentFormDTO( );
-        Form form = FormService.findFormLightByPrimaryKey( nIdForm );
+        FormBundleCacheService cache = FormBundleCacheService.getInstance( );
+        Form form = cache.getForm( nIdForm );
         fillAppointmentFormWithFormPart( appointmentForm, form );
-        Display display = DisplayService.findDisplayWithFormId( form.getIdForm( ) );
+        Display display = cache.getDisplay( nIdForm );
         if ( display != null )
         {
             fillAppointmentFormWithDisplayPart( appointmentForm, display );
         }
-        Localization localization = LocalizationService.findLocalizationWithFormId( form.getIdForm( ) );
+        Localization localization = cache.getLocalization( nIdForm );
         if ( localization != null )
         {
             fillAppointmentFormWithLocalizationPart( appointmentForm, localization );
         }
-        FormRule formRule = FormRuleService.findFormRuleWithFormId( form.getIdForm( ) );
+        FormRule formRule = cache.getFormRule( nIdForm );
         if ( formRule != null )
         {
             fillAppointmentFormWithFormRulePart( appointmentForm, formRule );
@@ -654,6 +588,7 @@ public final class FormService
     public static Form updateForm( Form form )
     {
         Form formUpdated = FormHome.update( form );
+        FormBundleCacheService.getInstance( ).invalidate( formUpdated.getIdForm( ) );
         FormListenerManager.notifyListenersFormChange( formUpdated.getIdForm( ) );
         return formUpdated;
     }
@@ -713,20 +648,11 @@ public final class FormService
 
             SlotHome.deleteByIdForm( nIdForm );
 
-            for ( ReservationRule rule : ReservationRuleHome.findByIdForm( nIdForm ) )
-            {
-
-                List<WorkingDay> listWorkingDay = WorkingDayService.findListWorkingDayByWeekDefinitionRule( rule.getIdReservationRule( ) );
-                for ( WorkingDay workingDay : listWorkingDay )
-                {
-
-                    TimeSlotHome.deleteByIdWorkingDay( workingDay.getIdWorkingDay( ) );
-                    WorkingDayHome.delete( workingDay.getIdWorkingDay( ) );
-
-                }
-                WeekDefinitionHome.deleteByIdReservationRule( rule.getIdReservationRule( ) );
-                ReservationRuleHome.delete( rule.getIdReservationRule( ) );
-            }
+            // The planning of the form is deleted with one statement per table, the children first
+            TimeSlotHome.deleteByIdForm( nIdForm );
+            WorkingDayHome.deleteByIdForm( nIdForm );
+            WeekDefinitionHome.deleteByIdForm( nIdForm );
+            ReservationRuleHome.deleteByIdForm( nIdForm );
 
             ClosingDayHome.deleteByIdForm( nIdForm );
             FormRuleHome.deleteByIdFom( nIdForm );
@@ -738,6 +664,9 @@ public final class FormService
             EntryService.getService( ).removeEntriesByIdAppointmentForm( nIdForm );
 
             TransactionManager.commitTransaction( AppointmentPlugin.getPlugin( ) );
+            WeekGridCacheService.evictForm( nIdForm );
+            FormBundleCacheService.getInstance( ).invalidate( nIdForm );
+            FormIconCacheService.evict( nIdForm );
 
             FormListenerManager.notifyListenersFormRemoval( nIdForm );
             AppointmentListenerManager.notifyListenersAppointmentFormRemoval( nIdForm );
@@ -115,6 +115,7 @@ public final class LocalizationService
         Localization localization = LocalizationService.findLocalizationWithFormId( nIdForm );
         fillInLocalizationWithAppointmentForm( localization, appointmentForm, nIdForm );
         LocalizationHome.update( localization );
+        FormBundleCacheService.getInstance( ).invalidate( nIdForm );
         return localization;
     }
 
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
+
+import fr.paris.lutece.plugins.appointment.business.slot.SlotHome;
+import fr.paris.lutece.plugins.appointment.service.listeners.SlotListenerManager;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+/**
+ * Write-behind of the potential remaining places of the slots. The places potentially taken and given back while the users fill the appointment form are
+ * summed by slot in memory, and written in database in one batch at a fixed rate, or on demand before a booking on the slot. This removes most of the updates
+ * of the busiest slots.
+ * 
+ * The write-behind is disabled by default. It must only be enabled on a single node deployment, since the pending places are not shared between nodes.
+ */
+public final class PotentialRemainingPlacesWriteBehind
+{
+    private static final String PROPERTY_WRITE_BEHIND_ENABLED = "appointment.potentialRemainingPlaces.writeBehind.enabled";
+    private static final String PROPERTY_FLUSH_INTERVAL = "appointment.potentialRemainingPlaces.writeBehind.flushInterval";
+    private static final long DEFAULT_FLUSH_INTERVAL = 500L;
+
+    private static final boolean _bEnabled = AppPropertiesService.getPropertyBoolean( PROPERTY_WRITE_BEHIND_ENABLED, false );
+    private static final ConcurrentMap<Integer, Integer> _mapPendingNbPlaces = new ConcurrentHashMap<>( );
+    private static final ScheduledExecutorService _scheduledExecutor = _bEnabled ? createScheduledExecutor( ) : null;
+
+    /**
+     * Private constructor - this class does not need to be instantiated
+     */
+    private PotentialRemainingPlacesWriteBehind( )
+    {
+    }
+
+    /**
+     * Check if the write-behind is enabled. The value is read once, when the class is loaded.
+     * 
+     * @return true if the write-behind is enabled
+     */
+    public static boolean isEnabled( )
+    {
+        return _bEnabled;
+    }
+
+    /**
+     * Add a number of places to the pending potential remaining places of a slot
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @param nbPlaces
+     *            the number of places to add (or to remove if negative)
+     */
+    public static void addPotentialRemainingPlaces( int nIdSlot, int nbPlaces )
+    {
+        // The entry is removed when the places given back and taken cancel each other out
+        _mapPendingNbPlaces.merge( nIdSlot, nbPlaces, ( nPending, nAdded ) -> ( nPending + nAdded == 0 ) ? null : nPending + nAdded );
+    }
+
+    /**
+     * Get the number of places not yet written in database for a slot
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @return the number of pending places (negative if places have been taken)
+     */
+    public static int getPendingPotentialRemainingPlaces( int nIdSlot )
+    {
+        return _mapPendingNbPlaces.getOrDefault( nIdSlot, 0 );
+    }
+
+    /**
+     * Write in database the pending places of all the slots
+     */
+    public static void flush( )
+    {
+        flush( new ArrayList<>( _mapPendingNbPlaces.keySet( ) ) );
+    }
+
+    /**
+     * Write in database the pending places of some slots. The locks of the slots are taken during the write, so that the places are not written between the
+     * read and the update of a slot by another writer.
+     * 
+     * @param listIdSlot
+     *            the ids of the slots
+     */
+    public static void flush( Collection<Integer> listIdSlot )
+    {
+        List<Integer> listIdSlotPending = listIdSlot.stream( ).distinct( ).filter( _mapPendingNbPlaces::containsKey ).collect( Collectors.toList( ) );
+        if ( listIdSlotPending.isEmpty( ) )
+        {
+            return;
+        }
+        Map<Integer, Integer> mapNbPlacesBySlot = new HashMap<>( );
+        List<Lock> listLock = new ArrayList<>( );
+        try
+        {
+            SlotSafeService.lockSlots( listIdSlotPending, listLock );
+            for ( Integer nIdSlot : listIdSlotPending )
+            {
+                Integer nbPlaces = _mapPendingNbPlaces.remove( nIdSlot );
+                if ( nbPlaces != null )
+                {
+                    mapNbPlacesBySlot.put( nIdSlot, nbPlaces );
+                }
+            }
+            SlotHome.addPotentialRemainingPlaces( mapNbPlacesBySlot );
+        }
+        catch( InterruptedException e )
+        {
+            AppLogService.error( "Interrupted while flushing the potential remaining places " + e.getMessage( ), e );
+            Thread.currentThread( ).interrupt( );
+            restore( mapNbPlacesBySlot );
+            return;
+        }
+        catch( RuntimeException e )
+        {
+            AppLogService.error( "Error while flushing the potential remaining places " + e.getMessage( ), e );
+            restore( mapNbPlacesBySlot );
+            return;
+        }
+        finally
+        {
+            for ( Lock lock : listLock )
+            {
+                lock.unlock( );
+            }
+        }
+        for ( Integer nIdSlot : mapNbPlacesBySlot.keySet( ) )
+        {
+            SlotListenerManager.notifyListenersSlotChange( nIdSlot );
+        }
+    }
+
+    /**
+     * Stop the periodic flush and write the pending places in database
+     */
+    public static void shutdown( )
+    {
+        if ( _scheduledExecutor != null )
+        {
+            _scheduledExecutor.shutdown( );
+            try
+            {
+                _scheduledExecutor.awaitTermination( 60, TimeUnit.SECONDS );
+            }
+            catch( InterruptedException e )
+            {
+                AppLogService.error( e.getMessage( ), e );
+                Thread.currentThread( ).interrupt( );
+            }
+        }
+        flush( );
+    }
+
+    /**
+     * Put back places that could not be written in database
+     * 
+     * @param mapNbPlacesBySlot
+     *            the places by id of slot
+     */
+    private static void restore( Map<Integer, Integer> mapNbPlacesBySlot )
+    {
+        mapNbPlacesBySlot.forEach( PotentialRemainingPlacesWriteBehind::addPotentialRemainingPlaces );
+    }
+
+    /**
+     * Create the executor of the periodic flush
+     * 
+     * @return the executor
+     */
+    private static ScheduledExecutorService createScheduledExecutor( )
+    {
+        long lFlushInterval = AppPropertiesService.getPropertyLong( PROPERTY_FLUSH_INTERVAL, DEFAULT_FLUSH_INTERVAL );
+        ScheduledExecutorService scheduledExecutor = Executors
+                .newSingleThreadScheduledExecutor( r -> new Thread( r, "Lutece-AppointmentPotentialRemainingPlaces-thread" ) );
+        scheduledExecutor.scheduleWithFixedDelay( ( ) -> {
+            try
+            {
+                flush( );
+            }
+            catch( Exception e )
+            {
+                // The exception must not stop the periodic flush
+                AppLogService.error( "Error while flushing the potential remaining places " + e.getMessage( ), e );
+            }
+        }, lFlushInterval, lFlushInterval, TimeUnit.MILLISECONDS );
+        return scheduledExecutor;
+    }
+}
@@ -191,6 +191,7 @@ public final class ReservationRuleService
             WorkingDayService.generateWorkingDayAndListTimeSlot( reservationRule.getIdReservationRule( ), dayOfWeek, startingHour, endingHour, nDuration,
                     nMaxCapacity );
         }
+        WeekGridCacheService.evict( reservationRule.getIdReservationRule( ) );
         List<WeekDefinition> listWeek = WeekDefinitionService.findByReservationRule( appointmentForm.getIdReservationRule( ) );
         if ( CollectionUtils.isNotEmpty( listWeek ) )
         {
@@ -218,6 +219,7 @@ public final class ReservationRuleService
 
             }
             ReservationRuleHome.delete( rule.getIdReservationRule( ) );
+            WeekGridCacheService.evict( rule.getIdReservationRule( ) );
         }
     }
 
@@ -252,6 +254,7 @@ public final class ReservationRuleService
         {
             fillInReservationRule( reservationRule, appointmentForm, nIdForm );
             ReservationRuleHome.update( reservationRule );
+            WeekGridCacheService.evict( reservationRule.getIdReservationRule( ) );
         }
         return reservationRule;
     }
@@ -365,14 +368,20 @@ public final class ReservationRuleService
     {
 
         Map<WeekDefinition, ReservationRule> mapReservationRule = new HashMap<>( );
-        List<ReservationRule> listReservationRule = ReservationRuleHome.findByIdForm( nIdForm );
+        if ( listWeekDefinition.isEmpty( ) )
+        {
+            return mapReservationRule;
+        }
+        Map<Integer, ReservationRule> mapReservationRuleById = new HashMap<>( );
+        for ( ReservationRule reservationRule : findListReservationRule( nIdForm ) )
+        {
+            mapReservationRuleById.put( reservationRule.getIdReservationRule( ), reservationRule );
+        }
         for ( WeekDefinition weekDefinition : listWeekDefinition )
         {
-            ReservationRule reservationRule = listReservationRule.stream( ).filter( p -> p.getIdReservationRule( ) == weekDefinition.getIdReservationRule( ) )
-                    .findAny( ).orElse( null );
+            ReservationRule reservationRule = mapReservationRuleById.get( weekDefinition.getIdReservationRule( ) );
             if ( reservationRule != null )
             {
-                reservationRule.setListWorkingDay( WorkingDayService.findListWorkingDayByWeekDefinitionRule( reservationRule.getIdReservationRule( ) ) );
                 mapReservationRule.put( weekDefinition, reservationRule );
             }
 
@@ -391,9 +400,14 @@ public final class ReservationRuleService
     {
 
         List<ReservationRule> listReservationRule = ReservationRuleHome.findByIdForm( nIdForm );
-        for ( ReservationRule reservationRule : listReservationRule )
+        if ( !listReservationRule.isEmpty( ) )
         {
-            reservationRule.setListWorkingDay( WorkingDayService.findListWorkingDayByWeekDefinitionRule( reservationRule.getIdReservationRule( ) ) );
+            Map<Integer, List<WorkingDay>> mapWorkingDay = WorkingDayService.findMapWorkingDayByIdForm( nIdForm );
+            for ( ReservationRule reservationRule : listReservationRule )
+            {
+                List<WorkingDay> listWorkingDay = mapWorkingDay.get( reservationRule.getIdReservationRule( ) );
+                reservationRule.setListWorkingDay( listWorkingDay != null ? listWorkingDay : new ArrayList<>( ) );
+            }
         }
         return listReservationRule;
     }
@@ -411,12 +425,10 @@ public final class ReservationRuleService
     {
 
         List<ReservationRule> listReservationRule = new ArrayList<>( );
-        for ( ReservationRule reservationRule : ReservationRuleHome.findByIdForm( nIdForm ) )
+        for ( ReservationRule reservationRule : findListReservationRule( nIdForm ) )
         {
             if ( listWeekDefinition.stream( ).anyMatch( p -> p.getIdReservationRule( ) == reservationRule.getIdReservationRule( ) ) )
             {
-
-                reservationRule.setListWorkingDay( WorkingDayService.findListWorkingDayByWeekDefinitionRule( reservationRule.getIdReservationRule( ) ) );
                 listReservationRule.add( reservationRule );
             }
         }
@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import fr.paris.lutece.plugins.appointment.business.slot.Slot;
+import fr.paris.lutece.plugins.appointment.business.slot.SlotHome;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+/**
+ * In-memory ledger of the capacity of the slots. It keeps the number of remaining places and potential remaining places of each slot in atomic counters, so
+ * that a booking on a full slot can be rejected with a compare-and-set, without taking the lock on the slot nor querying the database. The database stays the
+ * reference: a reservation accepted by the ledger is still persisted with a conditional update, and the ledger entry is invalidated each time the slot is
+ * written by another way. When the slot is written in a transaction, the entry is invalidated once the transaction is committed, since an entry reloaded
+ * before the commit would keep the places of the slot before the write.
+ * 
+ * The ledger is disabled by default. It must only be enabled on a single node deployment, since the counters are not shared between nodes.
+ */
+public final class SlotCapacityLedger
+{
+    private static final String PROPERTY_CAPACITY_LEDGER_ENABLED = "appointment.capacityLedger.enabled";
+
+    private static final ConcurrentMap<Integer, SlotCapacity> _mapSlotCapacity = new ConcurrentHashMap<>( );
+
+    /**
+     * Private constructor - this class does not need to be instantiated
+     */
+    private SlotCapacityLedger( )
+    {
+    }
+
+    /**
+     * Check if the capacity ledger is enabled
+     * 
+     * @return true if the ledger is enabled
+     */
+    public static boolean isEnabled( )
+    {
+        return AppPropertiesService.getPropertyBoolean( PROPERTY_CAPACITY_LEDGER_ENABLED, false );
+    }
+
+    /**
+     * Try to reserve places on a slot. The reservation is rejected if the slot does not exist, is over or if there are not enough remaining places.
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @param nbPlaces
+     *            the number of places to reserve
+     * @return the number of remaining places of the slot before the reservation, or -1 if the reservation is rejected
+     */
+    public static int tryReserve( int nIdSlot, int nbPlaces )
+    {
+        SlotCapacity capacity = getSlotCapacity( nIdSlot );
+        if ( capacity == null || capacity._endingDateTime.isBefore( LocalDateTime.now( ) ) )
+        {
+            return -1;
+        }
+        while ( true )
+        {
+            int nRemainingPlaces = capacity._nbRemainingPlaces.get( );
+            if ( nRemainingPlaces < nbPlaces )
+            {
+                return -1;
+            }
+            if ( capacity._nbRemainingPlaces.compareAndSet( nRemainingPlaces, nRemainingPlaces - nbPlaces ) )
+            {
+                return nRemainingPlaces;
+            }
+        }
+    }
+
+    /**
+     * Give back places reserved on a slot (when the booking has failed)
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @param nbPlaces
+     *            the number of places to give back
+     */
+    public static void release( int nIdSlot, int nbPlaces )
+    {
+        SlotCapacity capacity = _mapSlotCapacity.get( nIdSlot );
+        if ( capacity != null )
+        {
+            capacity._nbRemainingPlaces.addAndGet( nbPlaces );
+        }
+    }
+
+    /**
+     * Apply to the ledger the potential remaining places of a reservation that has been persisted
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @param nbPlaces
+     *            the number of places booked
+     * @param nbMaxPotentialBookedSeats
+     *            the number of places that were potentially taken by the user
+     */
+    public static void commitReservation( int nIdSlot, int nbPlaces, int nbMaxPotentialBookedSeats )
+    {
+        SlotCapacity capacity = _mapSlotCapacity.get( nIdSlot );
+        if ( capacity != null )
+        {
+            int nRemainingPlaces = capacity._nbRemainingPlaces.get( );
+            capacity._nbPotentialRemainingPlaces.updateAndGet( n -> Math.min( n + nbMaxPotentialBookedSeats - nbPlaces, nRemainingPlaces ) );
+        }
+    }
+
+    /**
+     * Get the number of potential remaining places of a slot known by the ledger
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @return the number of potential remaining places, or -1 if the slot does not exist
+     */
+    public static int getNbPotentialRemainingPlaces( int nIdSlot )
+    {
+        SlotCapacity capacity = getSlotCapacity( nIdSlot );
+        return ( capacity != null ) ? capacity._nbPotentialRemainingPlaces.get( ) : -1;
+    }
+
+    /**
+     * Set the number of potential remaining places of a slot, after it has been written in database
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @param nbPotentialRemainingPlaces
+     *            the number of potential remaining places
+     */
+    public static void updatePotentialRemainingPlaces( int nIdSlot, int nbPotentialRemainingPlaces )
+    {
+        SlotCapacity capacity = _mapSlotCapacity.get( nIdSlot );
+        if ( capacity != null )
+        {
+            capacity._nbPotentialRemainingPlaces.set( nbPotentialRemainingPlaces );
+        }
+    }
+
+    /**
+     * Add a number of places to the potential remaining places of a slot, without exceeding its remaining places
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @param nbPlaces
+     *            the number of places to add (or to remove if negative)
+     */
+    public static void addPotentialRemainingPlaces( int nIdSlot, int nbPlaces )
+    {
+        SlotCapacity capacity = _mapSlotCapacity.get( nIdSlot );
+        if ( capacity != null )
+        {
+            int nRemainingPlaces = capacity._nbRemainingPlaces.get( );
+            capacity._nbPotentialRemainingPlaces.updateAndGet( n -> Math.min( n + nbPlaces, nRemainingPlaces ) );
+        }
+    }
+
+    /**
+     * Remove a slot from the ledger. It will be reloaded from the database on the next reservation.
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     */
+    public static void invalidate( int nIdSlot )
+    {
+        _mapSlotCapacity.remove( nIdSlot );
+    }
+
+    /**
+     * Remove slots from the ledger, once the transaction that has written them is committed. They will be reloaded from the database on the next reservation.
+     * 
+     * @param listIdSlot
+     *            the ids of the slots
+     */
+    public static void invalidate( Collection<Integer> listIdSlot )
+    {
+        for ( Integer nIdSlot : listIdSlot )
+        {
+            _mapSlotCapacity.remove( nIdSlot );
+        }
+    }
+
+    /**
+     * Remove from the ledger the slots that are over
+     */
+    public static void removeSlotsOver( )
+    {
+        LocalDateTime now = LocalDateTime.now( );
+        Iterator<Map.Entry<Integer, SlotCapacity>> it = _mapSlotCapacity.entrySet( ).iterator( );
+        while ( it.hasNext( ) )
+        {
+            if ( it.next( ).getValue( )._endingDateTime.isBefore( now ) )
+            {
+                it.remove( );
+            }
+        }
+    }
+
+    /**
+     * Get the ledger entry of a slot, loading it from the database if needed
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @return the ledger entry, or null if the slot does not exist
+     */
+    private static SlotCapacity getSlotCapacity( int nIdSlot )
+    {
+        return _mapSlotCapacity.computeIfAbsent( nIdSlot, id -> {
+            Slot slot = SlotHome.findByPrimaryKey( id );
+            return ( slot != null ) ? new SlotCapacity( slot ) : null;
+        } );
+    }
+
+    /**
+     * Capacity counters of a slot
+     */
+    private static final class SlotCapacity
+    {
+        private final AtomicInteger _nbRemainingPlaces;
+        private final AtomicInteger _nbPotentialRemainingPlaces;
+        private final LocalDateTime _endingDateTime;
+
+        /**
+         * Constructor
+         * 
+         * @param slot
+         *            the slot
+         */
+        SlotCapacity( Slot slot )
+        {
+            _nbRemainingPlaces = new AtomicInteger( slot.getNbRemainingPlaces( ) );
+            _nbPotentialRemainingPlaces = new AtomicInteger(
+                    slot.getNbPotentialRemainingPlaces( ) + PotentialRemainingPlacesWriteBehind.getPendingPotentialRemainingPlaces( slot.getIdSlot( ) ) );
+            _endingDateTime = slot.getEndingDateTime( );
+        }
+    }
+}
@@ -38,18 +38,18 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
@@ -73,12 +73,15 @@ import fr.paris.lutece.plugins.appointment.exception.SlotFullException;
 import fr.paris.lutece.plugins.appointment.service.listeners.AppointmentListenerManager;
 import fr.paris.lutece.plugins.appointment.service.listeners.SlotListenerManager;
 import fr.paris.lutece.plugins.appointment.service.lock.SlotEditTask;
+import fr.paris.lutece.plugins.appointment.service.metrics.AppointmentMetrics;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentDTO;
 import fr.paris.lutece.plugins.genericattributes.business.Response;
 import fr.paris.lutece.plugins.genericattributes.business.ResponseHome;
 import fr.paris.lutece.portal.business.user.AdminUser;
 import fr.paris.lutece.portal.service.admin.AdminUserService;
+import fr.paris.lutece.portal.service.util.AppException;
 import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
 import fr.paris.lutece.portal.service.workflow.WorkflowService;
 import fr.paris.lutece.portal.web.l10n.LocaleService;
 import fr.paris.lutece.util.sql.TransactionManager;
@@ -86,8 +89,14 @@ import fr.paris.lutece.util.sql.TransactionManager;
 public final class SlotSafeService
 {
 
-    private static final ConcurrentMap<Integer, Lock> _listSlot = new ConcurrentHashMap<>( );
+    private static final String PROPERTY_SLOT_LOCK_STRIPES = "appointment.slot.lock.stripes";
+    private static final int DEFAULT_SLOT_LOCK_STRIPES = 1024;
+
+    // Fixed-size table of locks shared by the slots, so that the memory used does not depend on the number of slots
+    private static final Lock [ ] _slotLocks = createSlotLocks( AppPropertiesService.getPropertyInt( PROPERTY_SLOT_LOCK_STRIPES, DEFAULT_SLOT_LOCK_STRIPES ) );
     private static final ConcurrentMap<Integer, Object> _lockFormId = new ConcurrentHashMap<>( );
+    // Number of slots updated in one batch, all the slots of the batch being locked during the update
+    private static final int SLOT_BATCH_SIZE = 200;
 
     /**
      * Private constructor - this class does not need to be instantiated
@@ -97,18 +106,37 @@ public final class SlotSafeService
     }
 
     /**
-     * Get the slot in memory
+     * Create the table of locks of the slots
      * 
-     * @return Map of slot
+     * @param nbStripes
+     *            the number of locks
+     * @return the table of locks
      */
-    public static Map<Integer, Lock> getListSlotInMemory( )
+    private static Lock [ ] createSlotLocks( int nbStripes )
     {
+        Lock [ ] slotLocks = new Lock [ Math.max( nbStripes, 1 )];
+        for ( int i = 0; i < slotLocks.length; i++ )
+        {
+            slotLocks [i] = new ReentrantLock( );
+        }
+        return slotLocks;
+    }
 
-        return _listSlot;
+    /**
+     * Get the index in the table of locks of the lock of a slot
+     * 
+     * @param nIdSlot
+     *            the Id Slot
+     * @return the index of the lock
+     */
+    private static int getLockIndex( int nIdSlot )
+    {
+        return Math.floorMod( nIdSlot, _slotLocks.length );
     }
 
     /**
-     * get lock for slot
+     * get lock for slot. The lock is shared with the other slots of the same stripe, so it must not be kept while waiting for the lock of another slot,
+     * except through {@link #lockSlots(Collection, List)}
      * 
      * @param nIdSlot
      *            the Id Slot
@@ -120,20 +148,42 @@ public final class SlotSafeService
         {
             return new ReentrantLock( );
         }
-        _listSlot.putIfAbsent( nIdSlot, new ReentrantLock( ) );
-        return _listSlot.get( nIdSlot );
+        return _slotLocks [getLockIndex( nIdSlot )];
+    }
+
+    /**
+     * Take the locks of several slots. The locks are always taken in the same order, so that two threads locking several slots can not deadlock.
+     * 
+     * @param listIdSlot
+     *            the ids of the slots to lock
+     * @param listLock
+     *            the list in which the locks taken are added, to be released by the caller
+     * @throws InterruptedException
+     *             if the thread is interrupted while waiting for a lock
+     */
+    static void lockSlots( Collection<Integer> listIdSlot, List<Lock> listLock ) throws InterruptedException
+    {
+        int [ ] lockIndexes = listIdSlot.stream( ).filter( nIdSlot -> nIdSlot != 0 ).mapToInt( SlotSafeService::getLockIndex ).distinct( ).sorted( )
+                .toArray( );
+        long lStartTime = System.nanoTime( );
+        for ( int nLockIndex : lockIndexes )
+        {
+            Lock lock = _slotLocks [nLockIndex];
+            lock.lockInterruptibly( );
+            listLock.add( lock );
+        }
+        AppointmentMetrics.SLOT_LOCK_WAIT.record( System.nanoTime( ) - lStartTime );
     }
 
     /**
-     * remove slot in map memory
+     * remove slot in memory
      * 
      * @param nIdSlot
      *            the Id Slot
      */
     public static void removeSlotInMemory( int nIdSlot )
     {
-
-        _listSlot.remove( nIdSlot );
+        SlotCapacityLedger.invalidate( nIdSlot );
     }
 
     /**
@@ -203,61 +253,73 @@ public final class SlotSafeService
         listSlot = listSlot.stream( )
                 .filter( slt -> slt.getEndingDateTime( ).isBefore( endingDateTime ) && slt.getEndingDateTime( ).isAfter( startindDateTime ) )
                 .collect( Collectors.toList( ) );
+        List<Slot> listSlotToIncrement = new ArrayList<>( );
         for ( Slot slot : listSlot )
         {
-            if ( !lace )
+            if ( !lace || index % 2 == 0 )
             {
-                incrementMaxCapacity( nIncrementingValue, slot );
-            }
-            else
-            {
-                if ( index % 2 == 0 )
-                {
-                    incrementMaxCapacity( nIncrementingValue, slot );
-                }
-                index++;
+                listSlotToIncrement.add( slot );
             }
+            index++;
+        }
+        // The slots not yet in database are created in one batch
+        List<Slot> listSlotToEdit = listSlotToIncrement.stream( ).filter( slot -> slot.getIdSlot( ) != 0 ).collect( Collectors.toList( ) );
+        listSlotToEdit.addAll( createListSlot( listSlotToIncrement.stream( ).filter( slot -> slot.getIdSlot( ) == 0 ).collect( Collectors.toList( ) ) ) );
+        listSlotToEdit.sort( ( slot1, slot2 ) -> slot1.getStartingDateTime( ).compareTo( slot2.getStartingDateTime( ) ) );
+        for ( int nFromIndex = 0; nFromIndex < listSlotToEdit.size( ); nFromIndex += SLOT_BATCH_SIZE )
+        {
+            incrementMaxCapacity( nIdForm, nIncrementingValue,
+                    listSlotToEdit.subList( nFromIndex, Math.min( nFromIndex + SLOT_BATCH_SIZE, listSlotToEdit.size( ) ) ) );
         }
     }
 
     /**
-     * Incrementing max capacity
+     * Incrementing max capacity of a batch of slots, all locked during the update
      * 
+     * @param nIdForm
+     *            the Id form
      * @param nIncrementingValue
      *            the incrementing value
-     * @param slot
-     *            the slot
+     * @param listSlot
+     *            the slots, ordered by starting date
      */
-    private static void incrementMaxCapacity( int nIncrementingValue, Slot slot )
+    private static void incrementMaxCapacity( int nIdForm, int nIncrementingValue, List<Slot> listSlot )
     {
-        Slot editSlot = null;
-
-        if ( slot.getIdSlot( ) == 0 )
-        {
-            editSlot = createSlot( slot );
-        }
-        else
+        Set<Integer> listIdSlot = listSlot.stream( ).map( Slot::getIdSlot ).collect( Collectors.toSet( ) );
+        List<Lock> listLock = new ArrayList<>( );
+        try
         {
-            editSlot = slot;
+            lockSlots( listIdSlot, listLock );
+            // The slots are read again once locked, their places may have changed
+            LocalDateTime endingDateTime = listSlot.stream( ).map( Slot::getEndingDateTime ).max( LocalDateTime::compareTo ).orElse( null );
+            List<Slot> listSlotToUpdate = SlotService.findSlotsByIdFormAndDateRange( nIdForm, listSlot.get( 0 ).getStartingDateTime( ), endingDateTime )
+                    .stream( ).filter( slot -> listIdSlot.contains( slot.getIdSlot( ) ) ).collect( Collectors.toList( ) );
+            for ( Slot editSlot : listSlotToUpdate )
+            {
+                editSlot.setMaxCapacity( editSlot.getMaxCapacity( ) + nIncrementingValue );
+                editSlot.setNbPotentialRemainingPlaces( editSlot.getNbPotentialRemainingPlaces( ) + nIncrementingValue );
+                editSlot.setNbRemainingPlaces( editSlot.getNbRemainingPlaces( ) + nIncrementingValue );
+                editSlot.setIsSpecific( SlotService.isSpecificSlot( editSlot ) );
+            }
+            SlotHome.updateList( listSlotToUpdate );
+            for ( Slot editSlot : listSlotToUpdate )
+            {
+                SlotCapacityLedger.invalidate( editSlot.getIdSlot( ) );
+            }
+            SlotListenerManager.notifyListenersSlotsChange( listSlotToUpdate.stream( ).map( Slot::getIdSlot ).collect( Collectors.toList( ) ) );
         }
-        Lock lock = getLockOnSlot( editSlot.getIdSlot( ) );
-        lock.lock( );
-        try
+        catch( InterruptedException e )
         {
-            editSlot = SlotService.findSlotById( editSlot.getIdSlot( ) );
-
-            editSlot.setMaxCapacity( editSlot.getMaxCapacity( ) + nIncrementingValue );
-            editSlot.setNbPotentialRemainingPlaces( editSlot.getNbPotentialRemainingPlaces( ) + nIncrementingValue );
-            editSlot.setNbRemainingPlaces( editSlot.getNbRemainingPlaces( ) + nIncrementingValue );
-            editSlot.setIsSpecific( SlotService.isSpecificSlot( editSlot ) );
-            saveSlot( editSlot );
+            Thread.currentThread( ).interrupt( );
+            throw new AppException( "Interrupted while incrementing the max capacity of the slots", e );
         }
         finally
         {
-
-            lock.unlock( );
+            for ( Lock lock : listLock )
+            {
+                lock.unlock( );
+            }
         }
-
     }
 
     /**
@@ -265,9 +327,16 @@ public final class SlotSafeService
      * 
      * @param task
      *            the task timer
+     * @return the slot updated, or null if the update is deferred by the write-behind
      */
     public static Slot incrementPotentialRemainingPlaces( SlotEditTask task )
     {
+        if ( PotentialRemainingPlacesWriteBehind.isEnabled( ) )
+        {
+            PotentialRemainingPlacesWriteBehind.addPotentialRemainingPlaces( task.getIdSlot( ), task.getNbPlacesTaken( ) );
+            SlotCapacityLedger.addPotentialRemainingPlaces( task.getIdSlot( ), task.getNbPlacesTaken( ) );
+            return null;
+        }
         Lock lock = getLockOnSlot( task.getIdSlot( ) );
         Slot slot;
         lock.lock( );
@@ -280,6 +349,7 @@ public final class SlotSafeService
                 int nNewPotentialRemainingPlaces = Math.min( slot.getNbPotentialRemainingPlaces( ) + task.getNbPlacesTaken( ), slot.getNbRemainingPlaces( ) );
                 slot.setNbPotentialRemainingPlaces( nNewPotentialRemainingPlaces );
                 SlotHome.updatePotentialRemainingPlaces( nNewPotentialRemainingPlaces, slot.getIdSlot( ) );
+                SlotCapacityLedger.updatePotentialRemainingPlaces( slot.getIdSlot( ), nNewPotentialRemainingPlaces );
                 SlotListenerManager.notifyListenersSlotChange( slot.getIdSlot( ) );
 
             }
@@ -302,6 +372,12 @@ public final class SlotSafeService
      */
     public static void decrementPotentialRemainingPlaces( int nbPotentialRemainingPlaces, int nIdSlot )
     {
+        if ( PotentialRemainingPlacesWriteBehind.isEnabled( ) )
+        {
+            PotentialRemainingPlacesWriteBehind.addPotentialRemainingPlaces( nIdSlot, -nbPotentialRemainingPlaces );
+            SlotCapacityLedger.addPotentialRemainingPlaces( nIdSlot, -nbPotentialRemainingPlaces );
+            return;
+        }
 
         Lock lock = getLockOnSlot( nIdSlot );
         lock.lock( );
@@ -313,6 +389,7 @@ public final class SlotSafeService
                 int nNewPotentialRemainingPlaces = slot.getNbPotentialRemainingPlaces( ) - nbPotentialRemainingPlaces;
                 slot.setNbPotentialRemainingPlaces( nNewPotentialRemainingPlaces );
                 SlotHome.updatePotentialRemainingPlaces( nNewPotentialRemainingPlaces, nIdSlot );
+                SlotCapacityLedger.updatePotentialRemainingPlaces( nIdSlot, nNewPotentialRemainingPlaces );
                 SlotListenerManager.notifyListenersSlotChange( slot.getIdSlot( ) );
 
             }
@@ -335,6 +412,7 @@ public final class SlotSafeService
      */
     public static int saveAppointment( AppointmentDTO appointmentDTO, HttpServletRequest request )
     {
+        long lStartTime = System.nanoTime( );
         Locale locale = null;
         User user = appointmentDTO.getUser( );
         List<Lock> listLock = new ArrayList<>( );
@@ -355,10 +433,20 @@ public final class SlotSafeService
             }
         }
         AppointmentService.buildListAppointmentSlot( appointmentDTO );
+        // A new booking without overbooking can be rejected by the capacity ledger before taking any lock
+        boolean bUseLedger = !isReport && !appointmentDTO.getOverbookingAllowed( ) && SlotCapacityLedger.isEnabled( );
+        if ( bUseLedger )
+        {
+            reserveInLedger( appointmentDTO );
+        }
+        // The pending potential remaining places must be written before the slots are read (and outside of the transaction, not to be lost on a rollback)
+        PotentialRemainingPlacesWriteBehind
+                .flush( appointmentDTO.getListAppointmentSlot( ).stream( ).map( AppointmentSlot::getIdSlot ).collect( Collectors.toList( ) ) );
+        long lTransactionStartTime = System.nanoTime( );
         TransactionManager.beginTransaction( AppointmentPlugin.getPlugin( ) );
         try
         {
-            Set<Integer> listSlotUpdated = saveSlots( appointmentDTO, listLock, request );
+            Set<Integer> listSlotUpdated = bUseLedger ? takePlacesOnSlots( appointmentDTO, listLock ) : saveSlots( appointmentDTO, listLock, request );
             if ( !isReport )
             {
                 user = UserService.saveUser( appointmentDTO );
@@ -373,10 +461,25 @@ public final class SlotSafeService
                     AppointmentResponseService.insertAppointmentResponse( appointment.getIdAppointment( ), response.getIdResponse( ) );
                 }
             }
+            long lWorkflowStartTime = System.nanoTime( );
             processeActionWorkflow( appointment, request, locale, appointmentDTO.getIdForm( ), isReport );
+            AppointmentMetrics.SAVE_APPOINTMENT_WORKFLOW.record( System.nanoTime( ) - lWorkflowStartTime );
             TransactionManager.commitTransaction( AppointmentPlugin.getPlugin( ) );
+            if ( !bUseLedger )
+            {
+                // The slots have been written without the ledger: their entries are reloaded once the new places are committed
+                SlotCapacityLedger.invalidate( listSlotUpdated );
+            }
             appointmentDTO.setIdAppointment( appointment.getIdAppointment( ) );
             appointmentDTO.setIsSaved( true );
+            AppointmentQuotaService.evict( appointmentDTO.getEmail( ) );
+            if ( bUseLedger )
+            {
+                for ( AppointmentSlot apptSlot : appointmentDTO.getListAppointmentSlot( ) )
+                {
+                    SlotCapacityLedger.commitReservation( apptSlot.getIdSlot( ), apptSlot.getNbPlaces( ), appointmentDTO.getNbMaxPotentialBookedSeats( ) );
+                }
+            }
             notifyListner( appointment, listSlotUpdated, isReport, locale );
             if ( request != null )
             {
@@ -393,11 +496,23 @@ public final class SlotSafeService
         catch( Exception e )
         {
             TransactionManager.rollBack( AppointmentPlugin.getPlugin( ) );
+            if ( bUseLedger && !appointmentDTO.getIsSaved( ) )
+            {
+                releaseInLedger( appointmentDTO, appointmentDTO.getListAppointmentSlot( ).size( ) );
+            }
             AppLogService.error( "Error Save appointment " + e.getMessage( ), e );
+            // The rejections because a slot is full are counted where they are detected
+            if ( !( e instanceof SlotFullException ) )
+            {
+                AppointmentMetrics.SAVE_APPOINTMENT_ERROR.increment( );
+            }
             throw new SlotFullException( e.getMessage( ), e );
         }
         finally
         {
+            long lEndTime = System.nanoTime( );
+            AppointmentMetrics.SAVE_APPOINTMENT_TRANSACTION.record( lEndTime - lTransactionStartTime );
+            AppointmentMetrics.SAVE_APPOINTMENT.record( lEndTime - lStartTime );
             for ( Lock lock : listLock )
             {
                 lock.unlock( );
@@ -405,6 +520,85 @@ public final class SlotSafeService
         }
     }
 
+    /**
+     * Reserve in the capacity ledger the places of the appointment. If a slot has not enough remaining places, the places already reserved are given back and
+     * the booking is rejected.
+     * 
+     * @param appointmentDTO
+     *            the appointment
+     */
+    private static void reserveInLedger( AppointmentDTO appointmentDTO )
+    {
+        List<AppointmentSlot> listAppointmentSlot = appointmentDTO.getListAppointmentSlot( );
+        int nbSumRemainingPlaces = 0;
+        for ( int i = 0; i < listAppointmentSlot.size( ); i++ )
+        {
+            AppointmentSlot appSlot = listAppointmentSlot.get( i );
+            int nbRemainingPlaces = SlotCapacityLedger.tryReserve( appSlot.getIdSlot( ), appSlot.getNbPlaces( ) );
+            if ( nbRemainingPlaces < 0 )
+            {
+                releaseInLedger( appointmentDTO, i );
+                AppointmentMetrics.SLOT_FULL.increment( );
+                throw new SlotFullException( "ERROR SLOT FULL " );
+            }
+            nbSumRemainingPlaces = nbSumRemainingPlaces + nbRemainingPlaces;
+        }
+        // this test is for form with the possibility of taking several appointments on the same slot
+        if ( appointmentDTO.getNbBookedSeats( ) > nbSumRemainingPlaces )
+        {
+            releaseInLedger( appointmentDTO, listAppointmentSlot.size( ) );
+            AppointmentMetrics.SLOT_FULL.increment( );
+            throw new SlotFullException( "ERROR SLOT FULL" );
+        }
+    }
+
+    /**
+     * Give back to the capacity ledger the places reserved for the appointment
+     * 
+     * @param appointmentDTO
+     *            the appointment
+     * @param nbSlotsReserved
+     *            the number of slots of the appointment already reserved in the ledger
+     */
+    private static void releaseInLedger( AppointmentDTO appointmentDTO, int nbSlotsReserved )
+    {
+        for ( AppointmentSlot appSlot : appointmentDTO.getListAppointmentSlot( ).subList( 0, nbSlotsReserved ) )
+        {
+            SlotCapacityLedger.release( appSlot.getIdSlot( ), appSlot.getNbPlaces( ) );
+        }
+    }
+
+    /**
+     * Take the places of the appointment on its slots with a conditional update, without reading the slots again. Used when the places have already been
+     * reserved in the capacity ledger.
+     * 
+     * @param appointmentDTO
+     *            the appointment
+     * @param listLock
+     *            the list of the locks taken
+     * @return list id slot updated
+     * @throws InterruptedException
+     */
+    private static Set<Integer> takePlacesOnSlots( AppointmentDTO appointmentDTO, List<Lock> listLock ) throws InterruptedException
+    {
+        Set<Integer> listSlotUpdated = new HashSet<>( );
+        // The locks keep the update consistent with the other writers of the slots, that rewrite the whole row
+        lockSlots( appointmentDTO.getListAppointmentSlot( ).stream( ).map( AppointmentSlot::getIdSlot ).collect( Collectors.toList( ) ), listLock );
+        for ( AppointmentSlot appSlot : appointmentDTO.getListAppointmentSlot( ) )
+        {
+            if ( !SlotHome.takePlaces( appSlot.getIdSlot( ), appSlot.getNbPlaces( ), appointmentDTO.getNbMaxPotentialBookedSeats( ) ) )
+            {
+                // The ledger was not up to date with the database
+                SlotCapacityLedger.invalidate( appSlot.getIdSlot( ) );
+                AppLogService.error( "ERROR SLOT FULL, ID SLOT: " + appSlot.getIdSlot( ) );
+                AppointmentMetrics.SLOT_FULL.increment( );
+                throw new SlotFullException( "ERROR SLOT FULL " );
+            }
+            listSlotUpdated.add( appSlot.getIdSlot( ) );
+        }
+        return listSlotUpdated;
+    }
+
     /**
      * notify Appointment/Slot Listner
      * 
@@ -475,7 +669,7 @@ public final class SlotSafeService
 
     /**
      * Set the new number of remaining places (and potential) when an appointment is deleted or cancelled This new value must take in account the capacity of
-     * the slot, in case of the slot was already over booked
+     * the slot, in case of the slot was already over booked. The caller invalidates the slot in the capacity ledger once its transaction is committed.
      * 
      * @param nbPlaces
      *            the nb places taken of the appointment that we want to delete (or cancel, or move)
@@ -491,31 +685,7 @@ public final class SlotSafeService
         lock.lock( );
         try
         {
-            Slot slot = SlotService.findSlotById( nIdSlot );
-            if ( slot != null )
-            {
-                int nMaxCapacity = slot.getMaxCapacity( );
-                // The old remaining places of the slot (before we delete or cancel or move the
-                // appointment
-                int nOldRemainingPlaces = slot.getNbRemainingPlaces( );
-                int nOldPotentialRemaningPlaces = slot.getNbPotentialRemainingPlaces( );
-                int nOldPlacesTaken = slot.getNbPlacesTaken( );
-                int nNewPlacesTaken = nOldPlacesTaken - nbPlaces;
-                // The new value of the remaining places of the slot is the minimal
-                // value between :
-                // - the minimal value between the potentially new max capacity and the old remaining places plus the number of places released by the
-                // appointment
-                // - and the capacity of the slot minus the new places taken on the slot
-                int nNewRemainingPlaces = Math.min( Math.min( nMaxCapacity, nOldRemainingPlaces + nbPlaces ), ( nMaxCapacity - nNewPlacesTaken ) );
-
-                int nNewPotentialRemainingPlaces = Math.min( Math.min( nMaxCapacity, nOldPotentialRemaningPlaces + nbPlaces ),
-                        ( nMaxCapacity - nNewPlacesTaken ) );
-
-                slot.setNbRemainingPlaces( nNewRemainingPlaces );
-                slot.setNbPotentialRemainingPlaces( nNewPotentialRemainingPlaces );
-                slot.setNbPlacestaken( nNewPlacesTaken );
-                SlotHome.update( slot );
-            }
+            releasePlacesOnSlot( nbPlaces, nIdSlot );
         }
         finally
         {
@@ -525,9 +695,48 @@ public final class SlotSafeService
 
     }
 
+    /**
+     * Release places on a slot. The caller must hold the lock of the slot, and invalidate the slot in the capacity ledger once its transaction is committed.
+     * Releasing the places of several appointments at once gives the same result as releasing them one by one.
+     * 
+     * @param nbPlaces
+     *            the nb places released on the slot
+     * @param nIdSlot
+     *            the id of the slot
+     */
+    static void releasePlacesOnSlot( int nbPlaces, int nIdSlot )
+    {
+        Slot slot = SlotService.findSlotById( nIdSlot );
+        if ( slot != null )
+        {
+            int nMaxCapacity = slot.getMaxCapacity( );
+            // The old remaining places of the slot (before we delete or cancel or move the
+            // appointment
+            int nOldRemainingPlaces = slot.getNbRemainingPlaces( );
+            int nOldPotentialRemaningPlaces = slot.getNbPotentialRemainingPlaces( );
+            int nOldPlacesTaken = slot.getNbPlacesTaken( );
+            int nNewPlacesTaken = nOldPlacesTaken - nbPlaces;
+            // The new value of the remaining places of the slot is the minimal
+            // value between :
+            // - the minimal value between the potentially new max capacity and the old remaining places plus the number of places released by the
+            // appointment
+            // - and the capacity of the slot minus the new places taken on the slot
+            int nNewRemainingPlaces = Math.min( Math.min( nMaxCapacity, nOldRemainingPlaces + nbPlaces ), ( nMaxCapacity - nNewPlacesTaken ) );
+
+            int nNewPotentialRemainingPlaces = Math.min( Math.min( nMaxCapacity, nOldPotentialRemaningPlaces + nbPlaces ),
+                    ( nMaxCapacity - nNewPlacesTaken ) );
+
+            slot.setNbRemainingPlaces( nNewRemainingPlaces );
+            slot.setNbPotentialRemainingPlaces( nNewPotentialRemainingPlaces );
+            slot.setNbPlacestaken( nNewPlacesTaken );
+            SlotHome.update( slot );
+        }
+    }
+
     /**
      * Set the new number of remaining places (and potential) when an appointment is reactivated(not reserved to reserved) This new value must take in account
-     * the capacity of the slot, in case of the slot was already over booked
+     * the capacity of the slot, in case of the slot was already over booked. The caller invalidates the slot in the capacity ledger once its transaction is
+     * committed.
      * 
      * @param nbPlaces
      *            the nb places taken of the appointment on the slot
@@ -770,7 +979,11 @@ public final class SlotSafeService
         }
         saveSlot( slot );
         // Need to set the new starting and ending time of all the slots
-        // to shift and update them
+        // to shift. They are all computed in memory, the specific flag with
+        // the planning of the day already loaded
+        List<TimeSlot> listTimeSlotOfTheDay = workingDay != null ? workingDay.getListTimeSlot( ) : null;
+        List<Slot> listSlotShifted = new ArrayList<>( );
+        List<Slot> listSlotToRemove = new ArrayList<>( );
         for ( Slot slotToShift : listSlotToShift )
         {
             // If the new ending time is after the previous time
@@ -792,14 +1005,13 @@ public final class SlotSafeService
                     {
                         slotToShift.setEndingDateTime( slotToShift.getEndingDateTime( ).plus( timeToAdd, ChronoUnit.MINUTES ) );
                     }
-                    slotToShift.setIsSpecific( SlotService.isSpecificSlot( slotToShift ) );
-                    saveSlot( slotToShift );
+                    listSlotShifted.add( slotToShift );
                 }
                 else
                 {
                     // Delete this slot (the slot can not be after the
                     // ending time of the day)
-                    SlotService.deleteSlot( slotToShift );
+                    listSlotToRemove.add( slotToShift );
                 }
             }
             else
@@ -808,10 +1020,30 @@ public final class SlotSafeService
                 // time
                 slotToShift.setStartingDateTime( slotToShift.getStartingDateTime( ).minus( timeToSubstract, ChronoUnit.MINUTES ) );
                 slotToShift.setEndingDateTime( slotToShift.getEndingDateTime( ).minus( timeToSubstract, ChronoUnit.MINUTES ) );
-                slotToShift.setIsSpecific( SlotService.isSpecificSlot( slotToShift ) );
-                saveSlot( slotToShift );
+                listSlotShifted.add( slotToShift );
             }
         }
+        for ( Slot slotShifted : listSlotShifted )
+        {
+            slotShifted.setIsSpecific( SlotService.isSpecificSlot( slotShifted, workingDay, listTimeSlotOfTheDay, reservationRule.getMaxCapacityPerSlot( ) ) );
+        }
+        // The slots after the ending time of the day are removed first, so
+        // that they can not conflict with the shifted ones
+        for ( Slot slotToRemove : listSlotToRemove )
+        {
+            SlotService.deleteSlot( slotToRemove );
+        }
+        // The shifted slots are updated in one batch. The statements of a
+        // batch are run in order, so the order of the shift still prevents
+        // two slots from having the same starting or ending time
+        List<Slot> listSlotShiftedInDb = listSlotShifted.stream( ).filter( slotShifted -> slotShifted.getIdSlot( ) != 0 ).collect( Collectors.toList( ) );
+        SlotHome.updateList( listSlotShiftedInDb );
+        for ( Slot slotShifted : listSlotShiftedInDb )
+        {
+            SlotCapacityLedger.invalidate( slotShifted.getIdSlot( ) );
+        }
+        SlotListenerManager.notifyListenersSlotsChange( listSlotShiftedInDb.stream( ).map( Slot::getIdSlot ).collect( Collectors.toList( ) ) );
+        createListSlot( listSlotShifted.stream( ).filter( slotShifted -> slotShifted.getIdSlot( ) == 0 ).collect( Collectors.toList( ) ) );
         if ( !bNewEndingTimeIsAfterThePreviousTime )
         {
             // If the slots have been shift earlier,
@@ -844,7 +1076,7 @@ public final class SlotSafeService
         if ( workingDay != null )
         {
             endingTimeOfTheDay = WorkingDayService.getMaxEndingTimeOfAWorkingDay( workingDay );
-            listTimeSlot = TimeSlotService.findListTimeSlotByWorkingDay( workingDay.getIdWorkingDay( ) );
+            listTimeSlot = workingDay.getListTimeSlot( );
         }
         else
         {
@@ -951,58 +1183,88 @@ public final class SlotSafeService
     public static Slot updateSlot( Slot slot )
     {
         Slot slotToReturn = SlotHome.update( slot );
+        SlotCapacityLedger.invalidate( slot.getIdSlot( ) );
         SlotListenerManager.notifyListenersSlotChange( slot.getIdSlot( ) );
         return slotToReturn;
 
     }
 
     /**
-     * Create in database the slots given
+     * Create in database the slots given, in one batch per form. As in {@link #createSlot(Slot)}, a slot is not created if there is already a slot in
+     * database in its period.
      * 
      * @param listSlotToCreate
      *            the list of slots to create in database
+     * @return the slots created, and the slots of the list already in database
      */
-    private static void createListSlot( List<Slot> listSlotToCreate )
+    private static List<Slot> createListSlot( List<Slot> listSlotToCreate )
     {
-        if ( CollectionUtils.isNotEmpty( listSlotToCreate ) )
+        List<Slot> listSlotSaved = new ArrayList<>( );
+        Map<Integer, List<Slot>> mapSlotToCreateByForm = listSlotToCreate.stream( ).collect( Collectors.groupingBy( Slot::getIdForm ) );
+        for ( Map.Entry<Integer, List<Slot>> entry : mapSlotToCreateByForm.entrySet( ) )
         {
-            for ( Slot slotTemp : listSlotToCreate )
+            Object formLock = getLockOnForm( entry.getKey( ) );
+            synchronized( formLock )
             {
-                createSlot( slotTemp );
+                List<Slot> listSlotOfForm = entry.getValue( );
+                LocalDateTime startingDateTime = listSlotOfForm.stream( ).map( Slot::getStartingDateTime ).min( LocalDateTime::compareTo ).orElse( null );
+                LocalDateTime endingDateTime = listSlotOfForm.stream( ).map( Slot::getEndingDateTime ).max( LocalDateTime::compareTo ).orElse( null );
+                // One query for all the slots already in database, instead of one per slot to create
+                TreeMap<LocalDateTime, Slot> mapSlotInDb = new TreeMap<>(
+                        SlotService.buildMapSlotsByIdFormAndDateRangeWithDateForKey( entry.getKey( ), startingDateTime, endingDateTime ) );
+                List<Slot> listSlotToInsert = new ArrayList<>( );
+                for ( Slot slot : listSlotOfForm )
+                {
+                    // Same check as createSlot: no slot already saved in the period of the slot
+                    boolean bSlotInDb = mapSlotInDb.subMap( slot.getStartingDateTime( ), true, slot.getEndingDateTime( ), true ).values( ).stream( )
+                            .anyMatch( slotInDb -> !slotInDb.getEndingDateTime( ).isAfter( slot.getEndingDateTime( ) ) );
+                    if ( bSlotInDb )
+                    {
+                        Slot slotSaved = mapSlotInDb.get( slot.getStartingDateTime( ) );
+                        if ( slotSaved != null && slotSaved.getIdSlot( ) != 0 )
+                        {
+                            listSlotSaved.add( slotSaved );
+                        }
+                    }
+                    else
+                    {
+                        listSlotToInsert.add( slot );
+                        mapSlotInDb.put( slot.getStartingDateTime( ), slot );
+                    }
+                }
+                if ( !listSlotToInsert.isEmpty( ) )
+                {
+                    SlotHome.createList( listSlotToInsert );
+                    SlotListenerManager.notifyListenersSlotsCreation( listSlotToInsert.stream( ).map( Slot::getIdSlot ).collect( Collectors.toList( ) ) );
+                    listSlotSaved.addAll( listSlotToInsert );
+                }
             }
         }
+        return listSlotSaved;
     }
 
     /**
-     * Clean slotlist
+     * Clean the slots kept in memory
      */
     public static void cleanSlotlist( )
     {
-
-        Iterator<Integer> it = _listSlot.keySet( ).iterator( );
-        int idSlot;
-        while ( it.hasNext( ) )
-        {
-
-            idSlot = it.next( );
-            Slot slot = SlotService.findSlotById( idSlot );
-            if ( slot == null || slot.getStartingDateTime( ).isBefore( LocalDateTime.now( ) ) || slot.getMaxCapacity( ) <= slot.getNbPlacesTaken( ) )
-            {
-                _listSlot.remove( idSlot );
-            }
-
-        }
+        SlotCapacityLedger.removeSlotsOver( );
     }
 
     /**
-     * Save and update slots
+     * Save and update slots. The locks of the slots are taken and added to the list, to be released by the caller after the commit. Package-private for the
+     * benchmarks.
      * 
      * @param appointmentDTO
      *            the appointmentDTO
+     * @param listLock
+     *            the list in which the locks taken are added
+     * @param request
+     *            the request, null if the appointment is not saved from a request
      * @return list id slot updated
      * @throws InterruptedException
      */
-    private static Set<Integer> saveSlots( AppointmentDTO appointmentDTO, List<Lock> listLock, HttpServletRequest request ) throws InterruptedException, CloneNotSupportedException
+    static Set<Integer> saveSlots( AppointmentDTO appointmentDTO, List<Lock> listLock, HttpServletRequest request ) throws InterruptedException, CloneNotSupportedException
     {
         Appointment oldAppointment = null;
         List<Slot> listOldSlot = new ArrayList<>( );
@@ -1016,18 +1278,20 @@ public final class SlotSafeService
             {
                 throw new SlotFullException( "ERROR APPOINTMENT CANCELLED " );
             }
+        }
+        // Lock all the slots (old and new ones) at once, in the lock order
+        Set<Integer> listIdSlotToLock = appointmentDTO.getListAppointmentSlot( ).stream( ).map( AppointmentSlot::getIdSlot )
+                .collect( Collectors.toCollection( HashSet::new ) );
+        if ( oldAppointment != null )
+        {
+            oldAppointment.getListAppointmentSlot( ).forEach( appointmentSlot -> listIdSlotToLock.add( appointmentSlot.getIdSlot( ) ) );
+        }
+        lockSlots( listIdSlotToLock, listLock );
+        if ( oldAppointment != null )
+        {
             // Need to update the old slot
             for ( AppointmentSlot appointmentSlot : oldAppointment.getListAppointmentSlot( ) )
             {
-                Lock lock = getLockOnSlot( appointmentSlot.getIdSlot( ) );
-                if ( lock.tryLock( 3, TimeUnit.SECONDS ) )
-                {
-                    listLock.add( lock );
-                }
-                else
-                {
-                    throw new SlotFullException( "ERROR SLOT LOCKED" );
-                }
                 Slot slt = SlotService.findSlotById( appointmentSlot.getIdSlot( ) );
                 oldAppointment.addSlot( slt.clone( ) );
                 slt = updateRemaningPlacesWithAppointmentMoved( appointmentSlot.getNbPlaces( ), slt );
@@ -1036,7 +1300,10 @@ public final class SlotSafeService
             //We set the appointmentDTO object in the request before proceeding with its update, 
             //especially in the context of report an appointment. 
             //This ensures that the object will be available in the request parameter that we pass during the execution of workflow tasks.
-            request.setAttribute(AppointmentUtilities.OLD_APPOINTMENT_DTO, AppointmentUtilities.buildAppointmentDTO(oldAppointment));
+            if ( request != null )
+            {
+                request.setAttribute(AppointmentUtilities.OLD_APPOINTMENT_DTO, AppointmentUtilities.buildAppointmentDTO(oldAppointment));
+            }
         }
         for ( AppointmentSlot appSlot : appointmentDTO.getListAppointmentSlot( ) )
         {
@@ -1049,15 +1316,6 @@ public final class SlotSafeService
             }
             else
             {
-                Lock lock = getLockOnSlot( appSlot.getIdSlot( ) );
-                if ( lock.tryLock( 3, TimeUnit.SECONDS ) )
-                {
-                    listLock.add( lock );
-                }
-                else
-                {
-                    throw new SlotFullException( "ERROR SLOT LOCKED" );
-                }
                 slt = SlotService.findSlotById( appSlot.getIdSlot( ) );
             }
             if ( slt == null || ( ( appSlot.getNbPlaces( ) > slt.getNbRemainingPlaces( ) && !appointmentDTO.getOverbookingAllowed( ) )
@@ -1065,6 +1323,7 @@ public final class SlotSafeService
 
             {
                 AppLogService.error( "ERROR SLOT FULL, ID SLOT: " + appSlot.getIdSlot( ) );
+                AppointmentMetrics.SLOT_FULL.increment( );
                 throw new SlotFullException( "ERROR SLOT FULL " );
             }
             nbSumRemainingPlaces = nbSumRemainingPlaces + slt.getNbRemainingPlaces( );
@@ -1076,6 +1335,7 @@ public final class SlotSafeService
         if ( appointmentDTO.getNbBookedSeats( ) > nbSumRemainingPlaces && !appointmentDTO.getOverbookingAllowed( ) )
         {
             AppLogService.error( "ERROR SLOT FULL" );
+            AppointmentMetrics.SLOT_FULL.increment( );
             throw new SlotFullException( "ERROR SLOT FULL" );
         }
         listSlotToUpdate.addAll( listOldSlot );
@@ -1084,7 +1344,7 @@ public final class SlotSafeService
     }
 
     /**
-     * Update slots passed in the parmaters
+     * Update slots passed in the parmaters. The caller invalidates the slots in the capacity ledger once its transaction is committed.
      * 
      * @param listSlotToUpdate
      *            the list of slot to update
@@ -1093,9 +1353,9 @@ public final class SlotSafeService
     private static Set<Integer> updateListSlots( List<Slot> listSlotToUpdate )
     {
         Set<Integer> listSlot = new HashSet<>( );
+        SlotHome.updateList( listSlotToUpdate );
         for ( Slot slot : listSlotToUpdate )
         {
-            SlotHome.update( slot );
             listSlot.add( slot.getIdSlot( ) );
         }
         return listSlot;
@@ -1164,6 +1424,7 @@ public final class SlotSafeService
             }
             else
             {
+                AppointmentMetrics.SLOT_FULL.increment( );
                 throw new SlotFullException( "case of overbooking" );
             }
         }
@@ -343,7 +343,7 @@ public final class SlotService
         List<TimeSlot> listTimeSlot = null;
         if ( workingDay != null )
         {
-            listTimeSlot = TimeSlotService.findListTimeSlotByWorkingDay( workingDay.getIdWorkingDay( ) );
+            listTimeSlot = workingDay.getListTimeSlot( );
         }
         return isSpecificSlot( slot, workingDay, listTimeSlot, reservationRule.getMaxCapacityPerSlot( ) );
     }
@@ -228,6 +228,7 @@ public final class TimeSlotService
         {
             saveTimeSlot( timeSlot );
         }
+        WeekGridCacheService.evict( reservationRule.getIdReservationRule( ) );
 
         if ( CollectionUtils.isNotEmpty( listWeek ) )
         {
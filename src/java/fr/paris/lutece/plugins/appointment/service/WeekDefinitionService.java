@@ -39,6 +39,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -460,19 +461,28 @@ public final class WeekDefinitionService
     }
 
     /**
-     * Assign a week to the calendar
+     * Assign a week to the calendar. The listeners are notified with the week persisted with the period of the new week: the new week itself, or the week of
+     * the same reservation rule it has been merged into.
      * 
      * @param nIdForm
      *            the id from
      * @param newWeek
      *            the week to assign
+     * @return the week persisted with the period of the new week
      */
-    public static void assignWeekDefinition( int nIdForm, WeekDefinition newWeek )
+    public static WeekDefinition assignWeekDefinition( int nIdForm, WeekDefinition newWeek )
     {
 
         LocalDate startingDate = newWeek.getDateOfApply( );
         LocalDate endingDate = newWeek.getEndingDateOfApply( );
         List<WeekDefinition> listWeek = WeekDefinitionService.findListWeekDefinition( nIdForm );
+        // Keep the weeks as they are in database, to save only the differences
+        Map<Integer, WeekDefinition> mapWeekInDb = new HashMap<>( );
+        for ( WeekDefinition week : listWeek )
+        {
+            mapWeekInDb.put( week.getIdWeekDefinition( ), copyWeekDefinition( week ) );
+        }
+        List<WeekDefinition> listWeekOfForm = new ArrayList<>( listWeek );
 
         List<WeekDefinition> listWeekToRemove = listWeek.stream( )
                 .filter( week -> ( week.getDateOfApply( ).isAfter( startingDate ) || week.getDateOfApply( ).isEqual( startingDate ) )
@@ -523,38 +533,101 @@ public final class WeekDefinitionService
             buildListWeekToEdit.add( week );
 
         }
+        // The weeks of the form once the new week is assigned
+        listWeekOfForm.removeAll( listWeekToRemove );
+        buildListWeekToEdit.stream( ).filter( week -> week.getIdWeekDefinition( ) == 0 ).forEach( listWeekOfForm::add );
+        WeekDefinition weekAssigned = newWeek;
         if ( newWeek.getIdReservationRule( ) != 0 )
         {
-
-            buildListWeekToEdit.add( newWeek );
+            listWeekOfForm.add( newWeek );
+            weekAssigned = mergeWithAdjacentWeeks( listWeekOfForm, newWeek );
         }
 
-        assignWeekDefintion( listWeekToRemove, buildListWeekToEdit, nIdForm );
-        WeekDefinitionManagerListener.notifyListenersWeekDefinitionAssigned( newWeek );
+        // Once saved, the week assigned has its id and its dates in database
+        assignWeekDefintion( mapWeekInDb, listWeekOfForm );
+        WeekDefinitionManagerListener.notifyListenersWeekDefinitionAssigned( weekAssigned );
+        return weekAssigned;
+    }
+
+    /**
+     * Merge the new week with the weeks of the same reservation rule just before and just after it, so that assigning a reservation rule next to (or over)
+     * the same reservation rule does not split the weeks
+     * 
+     * @param listWeekOfForm
+     *            the weeks of the form, with the new week
+     * @param newWeek
+     *            the new week
+     * @return the week that holds the period of the new week: the week before or the week after if the new week has been merged into it, else the new week
+     */
+    private static WeekDefinition mergeWithAdjacentWeeks( List<WeekDefinition> listWeekOfForm, WeekDefinition newWeek )
+    {
+        WeekDefinition weekBefore = listWeekOfForm.stream( )
+                .filter( week -> week != newWeek && week.getIdReservationRule( ) == newWeek.getIdReservationRule( )
+                        && week.getEndingDateOfApply( ).plusDays( 1 ).isEqual( newWeek.getDateOfApply( ) ) )
+                .findFirst( ).orElse( null );
+        WeekDefinition weekAfter = listWeekOfForm.stream( )
+                .filter( week -> week != newWeek && week.getIdReservationRule( ) == newWeek.getIdReservationRule( )
+                        && week.getDateOfApply( ).isEqual( newWeek.getEndingDateOfApply( ).plusDays( 1 ) ) )
+                .findFirst( ).orElse( null );
+        if ( weekBefore != null )
+        {
+            weekBefore.setEndingDateOfApply( weekAfter != null ? weekAfter.getEndingDateOfApply( ) : newWeek.getEndingDateOfApply( ) );
+            listWeekOfForm.remove( newWeek );
+            listWeekOfForm.remove( weekAfter );
+            return weekBefore;
+        }
+        if ( weekAfter != null )
+        {
+            weekAfter.setDateOfApply( newWeek.getDateOfApply( ) );
+            listWeekOfForm.remove( newWeek );
+            return weekAfter;
+        }
+        return newWeek;
     }
 
-    private static void assignWeekDefintion( List<WeekDefinition> listWeekTodRemove, List<WeekDefinition> listWeekToEdit, int nIdForm )
+    /**
+     * Save the weeks of a form, with the minimal set of deletes, updates and inserts: the weeks in database that are no more in the list are deleted, the
+     * weeks that have changed are updated and the new weeks are created
+     * 
+     * @param mapWeekInDb
+     *            the weeks in database, by id
+     * @param listWeekOfForm
+     *            the weeks of the form to save
+     */
+    private static void assignWeekDefintion( Map<Integer, WeekDefinition> mapWeekInDb, List<WeekDefinition> listWeekOfForm )
     {
+        Set<Integer> setIdWeekToKeep = listWeekOfForm.stream( ).map( WeekDefinition::getIdWeekDefinition ).collect( Collectors.toSet( ) );
         TransactionManager.beginTransaction( AppointmentPlugin.getPlugin( ) );
         try
         {
-            for ( WeekDefinition week : listWeekTodRemove )
+            // The weeks are deleted first and updated before the weeks are
+            // created, so that the unique date of apply of a reservation rule
+            // is never duplicated
+            for ( Integer nIdWeekInDb : mapWeekInDb.keySet( ) )
             {
-                WeekDefinitionHome.delete( week.getIdWeekDefinition( ) );
+                if ( !setIdWeekToKeep.contains( nIdWeekInDb ) )
+                {
+                    WeekDefinitionHome.delete( nIdWeekInDb );
+                }
             }
-            for ( WeekDefinition week : listWeekToEdit )
+            for ( WeekDefinition week : listWeekOfForm )
             {
-
-                if ( week.getIdWeekDefinition( ) != 0 )
+                WeekDefinition weekInDb = mapWeekInDb.get( week.getIdWeekDefinition( ) );
+                if ( weekInDb != null && ( weekInDb.getIdReservationRule( ) != week.getIdReservationRule( )
+                        || !weekInDb.getDateOfApply( ).isEqual( week.getDateOfApply( ) )
+                        || !weekInDb.getEndingDateOfApply( ).isEqual( week.getEndingDateOfApply( ) ) ) )
                 {
-
-                    WeekDefinitionHome.delete( week.getIdWeekDefinition( ) );
+                    WeekDefinitionHome.update( week );
+                }
+            }
+            for ( WeekDefinition week : listWeekOfForm )
+            {
+                if ( week.getIdWeekDefinition( ) == 0 )
+                {
+                    WeekDefinitionHome.create( week );
                 }
-
-                WeekDefinitionHome.create( week );
             }
             TransactionManager.commitTransaction( AppointmentPlugin.getPlugin( ) );
-            // WeekDefinitionManagerListener.notifyListenersListWeekDefinitionChanged( nIdForm, listWeekToEdit );
         }
         catch( Exception e )
         {
@@ -565,4 +638,21 @@ public final class WeekDefinitionService
         }
     }
 
+    /**
+     * Copy a week definition
+     * 
+     * @param weekDefinition
+     *            the week definition
+     * @return the copy of the week definition
+     */
+    private static WeekDefinition copyWeekDefinition( WeekDefinition weekDefinition )
+    {
+        WeekDefinition copyWeekDefinition = new WeekDefinition( );
+        copyWeekDefinition.setIdWeekDefinition( weekDefinition.getIdWeekDefinition( ) );
+        copyWeekDefinition.setIdReservationRule( weekDefinition.getIdReservationRule( ) );
+        copyWeekDefinition.setDateOfApply( weekDefinition.getDateOfApply( ) );
+        copyWeekDefinition.setEndingDateOfApply( weekDefinition.getEndingDateOfApply( ) );
+        return copyWeekDefinition;
+    }
+
 }
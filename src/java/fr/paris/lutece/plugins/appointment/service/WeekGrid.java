@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import fr.paris.lutece.plugins.appointment.business.planning.TimeSlot;
+import fr.paris.lutece.plugins.appointment.business.planning.WorkingDay;
+import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
+
+/**
+ * Virtual week grid of a reservation rule: the time slots of each working day indexed by their starting time, and the bounds of the days that are not worked.
+ * It is computed once from the reservation rule and is not modified afterwards.
+ */
+final class WeekGrid
+{
+    private final int _nIdForm;
+    private final int _nMaxCapacity;
+    private final int _nDurationAppointments;
+    private final LocalTime _minTimeOfWeek;
+    private final LocalTime _maxTimeOfWeek;
+    private final Map<DayOfWeek, DayGrid> _mapDayGrid = new EnumMap<>( DayOfWeek.class );
+
+    /**
+     * Constructor
+     * 
+     * @param reservationRule
+     *            the reservation rule, with its working days and time slots
+     */
+    WeekGrid( ReservationRule reservationRule )
+    {
+        _nIdForm = reservationRule.getIdForm( );
+        _nMaxCapacity = reservationRule.getMaxCapacityPerSlot( );
+        _nDurationAppointments = reservationRule.getDurationAppointments( );
+        _minTimeOfWeek = WorkingDayService.getMinStartingTimeOfAListOfWorkingDay( reservationRule.getListWorkingDay( ) );
+        _maxTimeOfWeek = WorkingDayService.getMaxEndingTimeOfAListOfWorkingDay( reservationRule.getListWorkingDay( ) );
+        for ( DayOfWeek dayOfWeek : DayOfWeek.values( ) )
+        {
+            WorkingDay workingDay = WorkingDayService.getWorkingDayOfDayOfWeek( reservationRule.getListWorkingDay( ), dayOfWeek );
+            if ( workingDay != null )
+            {
+                _mapDayGrid.put( dayOfWeek, new DayGrid( workingDay ) );
+            }
+        }
+    }
+
+    /**
+     * Get the id of the form of the reservation rule
+     * 
+     * @return the id of the form
+     */
+    int getIdForm( )
+    {
+        return _nIdForm;
+    }
+
+    /**
+     * Get the max capacity per slot of the reservation rule
+     * 
+     * @return the max capacity
+     */
+    int getMaxCapacity( )
+    {
+        return _nMaxCapacity;
+    }
+
+    /**
+     * Get the duration of the appointments of the reservation rule
+     * 
+     * @return the duration in minutes
+     */
+    int getDurationAppointments( )
+    {
+        return _nDurationAppointments;
+    }
+
+    /**
+     * Get the min starting time of the working days of the week
+     * 
+     * @return the min starting time, or null if there is no time slot
+     */
+    LocalTime getMinTimeOfWeek( )
+    {
+        return _minTimeOfWeek;
+    }
+
+    /**
+     * Get the max ending time of the working days of the week
+     * 
+     * @return the max ending time, or null if there is no time slot
+     */
+    LocalTime getMaxTimeOfWeek( )
+    {
+        return _maxTimeOfWeek;
+    }
+
+    /**
+     * Get the grid of a day of the week
+     * 
+     * @param dayOfWeek
+     *            the day of week
+     * @return the grid of the day, or null if it is not a working day
+     */
+    DayGrid getDayGrid( DayOfWeek dayOfWeek )
+    {
+        return _mapDayGrid.get( dayOfWeek );
+    }
+
+    /**
+     * Virtual grid of a working day
+     */
+    static final class DayGrid
+    {
+        private final LocalTime _minTime;
+        private final LocalTime _maxTime;
+        private final Map<LocalTime, GridTimeSlot> _mapTimeSlot = new HashMap<>( );
+
+        /**
+         * Constructor
+         * 
+         * @param workingDay
+         *            the working day, with its time slots
+         */
+        DayGrid( WorkingDay workingDay )
+        {
+            _minTime = WorkingDayService.getMinStartingTimeOfAWorkingDay( workingDay );
+            _maxTime = WorkingDayService.getMaxEndingTimeOfAWorkingDay( workingDay );
+            for ( TimeSlot timeSlot : workingDay.getListTimeSlot( ) )
+            {
+                // Keep the first time slot of a starting time, as the search in the list of time slots did
+                _mapTimeSlot.putIfAbsent( timeSlot.getStartingTime( ), new GridTimeSlot( timeSlot ) );
+            }
+        }
+
+        /**
+         * Get the min starting time of the day
+         * 
+         * @return the min starting time
+         */
+        LocalTime getMinTime( )
+        {
+            return _minTime;
+        }
+
+        /**
+         * Get the max ending time of the day
+         * 
+         * @return the max ending time
+         */
+        LocalTime getMaxTime( )
+        {
+            return _maxTime;
+        }
+
+        /**
+         * Get the time slot of the day starting at a given time
+         * 
+         * @param startingTime
+         *            the starting time
+         * @return the time slot, or null if no time slot starts at this time
+         */
+        GridTimeSlot getTimeSlot( LocalTime startingTime )
+        {
+            return _mapTimeSlot.get( startingTime );
+        }
+    }
+
+    /**
+     * Copy of the values of a time slot used to build the virtual slots
+     */
+    static final class GridTimeSlot
+    {
+        private final LocalTime _endingTime;
+        private final boolean _bIsOpen;
+        private final int _nMaxCapacity;
+
+        /**
+         * Constructor
+         * 
+         * @param timeSlot
+         *            the time slot
+         */
+        GridTimeSlot( TimeSlot timeSlot )
+        {
+            _endingTime = timeSlot.getEndingTime( );
+            _bIsOpen = timeSlot.getIsOpen( );
+            _nMaxCapacity = timeSlot.getMaxCapacity( );
+        }
+
+        /**
+         * Get the ending time
+         * 
+         * @return the ending time
+         */
+        LocalTime getEndingTime( )
+        {
+            return _endingTime;
+        }
+
+        /**
+         * Get if the time slot is open
+         * 
+         * @return true if the time slot is open
+         */
+        boolean getIsOpen( )
+        {
+            return _bIsOpen;
+        }
+
+        /**
+         * Get the max capacity
+         * 
+         * @return the max capacity
+         */
+        int getMaxCapacity( )
+        {
+            return _nMaxCapacity;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
+
+/**
+ * Cache of the virtual week grids of the reservation rules, used to build the calendars. A grid is evicted when its reservation rule is modified, and the
+ * grids of a form are evicted when its week definitions change.
+ */
+public final class WeekGridCacheService
+{
+    private static final ConcurrentMap<Integer, WeekGrid> _mapWeekGrid = new ConcurrentHashMap<>( );
+
+    /**
+     * Private constructor - this class does not need to be instantiated
+     */
+    private WeekGridCacheService( )
+    {
+    }
+
+    /**
+     * Get the week grid of a reservation rule, building it if it is not in the cache
+     * 
+     * @param reservationRule
+     *            the reservation rule, with its working days and time slots
+     * @return the week grid
+     */
+    static WeekGrid getWeekGrid( ReservationRule reservationRule )
+    {
+        return _mapWeekGrid.computeIfAbsent( reservationRule.getIdReservationRule( ), id -> new WeekGrid( reservationRule ) );
+    }
+
+    /**
+     * Remove the week grid of a reservation rule from the cache
+     * 
+     * @param nIdReservationRule
+     *            the id of the reservation rule
+     */
+    public static void evict( int nIdReservationRule )
+    {
+        _mapWeekGrid.remove( nIdReservationRule );
+    }
+
+    /**
+     * Remove the week grids of all the reservation rules of a form from the cache
+     * 
+     * @param nIdForm
+     *            the id of the form
+     */
+    public static void evictForm( int nIdForm )
+    {
+        _mapWeekGrid.values( ).removeIf( weekGrid -> weekGrid.getIdForm( ) == nIdForm );
+    }
+}
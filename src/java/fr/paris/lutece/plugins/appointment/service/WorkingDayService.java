@@ -39,8 +39,10 @@ import java.time.DayOfWeek;
 import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
 import fr.paris.lutece.plugins.appointment.business.planning.TimeSlot;
 import fr.paris.lutece.plugins.appointment.business.planning.TimeSlotHome;
@@ -169,13 +171,57 @@ public final class WorkingDayService
     public static List<WorkingDay> findListWorkingDayByWeekDefinitionRule( int nIdWeekDefinitionRule )
     {
         List<WorkingDay> listWorkingDay = WorkingDayHome.findByIdReservationRule( nIdWeekDefinitionRule );
-        for ( WorkingDay workingDay : listWorkingDay )
+        if ( !listWorkingDay.isEmpty( ) )
         {
-            workingDay.setListTimeSlot( TimeSlotService.findListTimeSlotByWorkingDay( workingDay.getIdWorkingDay( ) ) );
+            fillListTimeSlot( listWorkingDay, TimeSlotHome.findByIdReservationRule( nIdWeekDefinitionRule ) );
         }
         return listWorkingDay;
     }
 
+    /**
+     * Find the working days of all the reservation rules of a form, with their time slots. The whole planning of the form is loaded with two queries
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @return the working days of the form, grouped by reservation rule id
+     */
+    public static Map<Integer, List<WorkingDay>> findMapWorkingDayByIdForm( int nIdForm )
+    {
+        Map<Integer, List<WorkingDay>> mapWorkingDay = new HashMap<>( );
+        List<WorkingDay> listWorkingDay = WorkingDayHome.findByIdForm( nIdForm );
+        if ( !listWorkingDay.isEmpty( ) )
+        {
+            fillListTimeSlot( listWorkingDay, TimeSlotHome.findByIdForm( nIdForm ) );
+        }
+        for ( WorkingDay workingDay : listWorkingDay )
+        {
+            mapWorkingDay.computeIfAbsent( workingDay.getIdReservationRule( ), id -> new ArrayList<>( ) ).add( workingDay );
+        }
+        return mapWorkingDay;
+    }
+
+    /**
+     * Dispatch a list of time slots to their working days
+     * 
+     * @param listWorkingDay
+     *            the working days
+     * @param listTimeSlot
+     *            the time slots of these working days
+     */
+    private static void fillListTimeSlot( List<WorkingDay> listWorkingDay, List<TimeSlot> listTimeSlot )
+    {
+        Map<Integer, List<TimeSlot>> mapTimeSlot = new HashMap<>( );
+        for ( TimeSlot timeSlot : listTimeSlot )
+        {
+            mapTimeSlot.computeIfAbsent( timeSlot.getIdWorkingDay( ), id -> new ArrayList<>( ) ).add( timeSlot );
+        }
+        for ( WorkingDay workingDay : listWorkingDay )
+        {
+            List<TimeSlot> listTimeSlotOfDay = mapTimeSlot.get( workingDay.getIdWorkingDay( ) );
+            workingDay.setListTimeSlot( listTimeSlotOfDay != null ? listTimeSlotOfDay : new ArrayList<>( ) );
+        }
+    }
+
     /**
      * Delete a list of working days
      * 
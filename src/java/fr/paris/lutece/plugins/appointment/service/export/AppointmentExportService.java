@@ -50,31 +50,34 @@ import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
-import fr.paris.lutece.plugins.appointment.business.appointment.Appointment;
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentCursor;
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentResponseHome;
 import fr.paris.lutece.plugins.appointment.business.category.Category;
 import fr.paris.lutece.plugins.appointment.business.category.CategoryHome;
 import fr.paris.lutece.plugins.appointment.business.form.Form;
 import fr.paris.lutece.plugins.appointment.business.form.FormHome;
 import fr.paris.lutece.plugins.appointment.service.AppointmentResponseService;
+import fr.paris.lutece.plugins.appointment.service.AppointmentService;
+import fr.paris.lutece.plugins.appointment.service.AppointmentStateService;
 import fr.paris.lutece.plugins.appointment.service.Utilities;
 import fr.paris.lutece.plugins.appointment.service.entrytype.EntryTypeGroup;
+import fr.paris.lutece.plugins.appointment.service.metrics.AppointmentMetrics;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentDTO;
+import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFilterDTO;
 import fr.paris.lutece.plugins.genericattributes.business.Entry;
 import fr.paris.lutece.plugins.genericattributes.business.EntryFilter;
 import fr.paris.lutece.plugins.genericattributes.business.EntryHome;
 import fr.paris.lutece.plugins.genericattributes.business.Field;
 import fr.paris.lutece.plugins.genericattributes.business.FieldHome;
 import fr.paris.lutece.plugins.genericattributes.business.Response;
-import fr.paris.lutece.plugins.genericattributes.business.ResponseHome;
 import fr.paris.lutece.plugins.genericattributes.service.entrytype.EntryTypeServiceManager;
 import fr.paris.lutece.plugins.workflowcore.business.state.State;
-import fr.paris.lutece.plugins.workflowcore.service.state.StateService;
 import fr.paris.lutece.portal.service.i18n.I18nService;
-import fr.paris.lutece.portal.service.spring.SpringContextService;
 import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
 import fr.paris.lutece.portal.service.workflow.WorkflowService;
 import fr.paris.lutece.util.ReferenceList;
 
@@ -99,6 +102,9 @@ public final class AppointmentExportService
 
     private static final String CONSTANT_COMMA = ",";
 
+    private static final int ROW_ACCESS_WINDOW_SIZE = AppPropertiesService.getPropertyInt( "appointment.export.xls.rowAccessWindowSize", 100 );
+    private static final int BATCH_SIZE = AppPropertiesService.getPropertyInt( "appointment.export.xls.batchSize", 500 );
+
     private static final List<String> DEFAULT_COLUMN_LIST = Arrays.asList( KEY_COLUMN_FORM_CATEGORY, KEY_COLUMN_FORM_TITLE, KEY_COLUMN_LAST_NAME,
             KEY_COLUMN_FIRST_NAME, KEY_COLUMN_EMAIL, KEY_COLUMN_DATE_APPOINTMENT, KEY_TIME_START, KEY_TIME_END, KEY_COLUMN_ADMIN, KEY_COLUMN_STATUS,
             KEY_COLUMN_STATE, KEY_COLUMN_NB_BOOKED_SEATS, KEY_DATE_APPOINT_TAKEN, KEY_HOUR_APPOINT_TAKEN );
@@ -108,7 +114,8 @@ public final class AppointmentExportService
     }
 
     /**
-     * Build the excel fil of the list of the appointments found in the manage appointment viw by filter
+     * Build the excel fil of the list of the appointments found in the manage appointment viw by filter. The appointments are read from the database page
+     * by page, the data of the rows is loaded once per page, and the rows are written in a streaming workbook that only keeps a window of rows in memory.
      * 
      * @param excelFile
      *            the excel file to write
@@ -118,75 +125,88 @@ public final class AppointmentExportService
      *            the entries to export
      * @param locale
      *            the local
-     * @param listAppointmentsDTO
-     *            the list of the appointments to input in the excel file
+     * @param filter
+     *            the filter of the appointments to input in the excel file, or null to export no appointment
      */
     public static void buildExcelFileWithAppointments( List<String> defaultColumnList, List<Integer> entryList, Path excelFile, Locale locale,
-            List<AppointmentDTO> listAppointmentsDTO )
+            AppointmentFilterDTO filter )
     {
-        List<List<Object>> linesValues = new ArrayList<>( );
+        long lStartTime = System.nanoTime( );
         EntryFilter entryFilter = new EntryFilter( );
         List<Entry> listEntry = EntryHome.getEntryList( entryFilter ).stream( ).filter( e -> entryList.contains( e.getIdEntry( ) ) ).map( Entry::getIdEntry )
                 .map( EntryHome::findByPrimaryKey ).collect( Collectors.toList( ) );
 
-        linesValues.add( createHeaderContent( defaultColumnList, listEntry, locale ) );
-
-        if ( listAppointmentsDTO != null )
+        try ( SXSSFWorkbook workbook = new SXSSFWorkbook( ROW_ACCESS_WINDOW_SIZE ) ; OutputStream os = Files.newOutputStream( excelFile ) )
         {
-            StateService stateService = null;
-            if ( WorkflowService.getInstance( ).isAvailable( ) )
+            try
             {
-                stateService = SpringContextService.getBean( StateService.BEAN_SERVICE );
+                Sheet sheet = workbook.createSheet( I18nService.getLocalizedString( KEY_RESOURCE_TYPE, locale ) );
+                int nRownum = 0;
+                writeRow( sheet, nRownum++, createHeaderContent( defaultColumnList, listEntry, locale ) );
+
+                if ( filter != null )
+                {
+                    ExportBatch batch = new ExportBatch( defaultColumnList, listEntry, WorkflowService.getInstance( ).isAvailable( ) );
+                    AppointmentCursor cursor = null;
+                    List<AppointmentCursor> listCursor;
+                    do
+                    {
+                        // Each page is sought after the last appointment of the previous one
+                        listCursor = AppointmentService.findPageOfAppointmentsByFilter( filter, cursor, 0, BATCH_SIZE );
+                        if ( !listCursor.isEmpty( ) )
+                        {
+                            cursor = listCursor.get( listCursor.size( ) - 1 );
+                            List<AppointmentDTO> listBatch = AppointmentService.findListAppointmentsDTOByListCursor( filter, listCursor );
+                            batch.load( listBatch );
+                            for ( AppointmentDTO appointmentDTO : listBatch )
+                            {
+                                writeRow( sheet, nRownum++, createLineContent( appointmentDTO, batch, defaultColumnList, listEntry, locale ) );
+                            }
+                        }
+                    }
+                    while ( listCursor.size( ) == BATCH_SIZE );
+                }
+                workbook.write( os );
             }
-            Map<Integer, Form> formMap = new HashMap<>( );
-            for ( AppointmentDTO appointmentDTO : listAppointmentsDTO )
+            finally
             {
-                Form form = formMap.computeIfAbsent( appointmentDTO.getIdForm( ), FormHome::findByPrimaryKey );
-                linesValues.add( createLineContent( appointmentDTO, form, defaultColumnList, listEntry, stateService, locale ) );
+                // Delete the temporary files of the rows flushed out of the window
+                workbook.dispose( );
             }
         }
-        writeWorkbook( linesValues, excelFile, locale );
+        catch( IOException e )
+        {
+            AppLogService.error( e );
+        }
+        AppointmentMetrics.EXPORT.record( System.nanoTime( ) - lStartTime );
     }
 
-    private static final void writeWorkbook( List<List<Object>> linesValues, Path excelFile, Locale locale )
+    private static final void writeRow( Sheet sheet, int nRownum, List<Object> line )
     {
-        int nRownum = 0;
-        try ( XSSFWorkbook workbook = new XSSFWorkbook( ) ; OutputStream os = Files.newOutputStream( excelFile ) )
+        Row row = sheet.createRow( nRownum );
+        int nCellnum = 0;
+        for ( Object cellValue : line )
         {
-            XSSFSheet sheet = workbook.createSheet( I18nService.getLocalizedString( KEY_RESOURCE_TYPE, locale ) );
-            for ( List<Object> line : linesValues )
+            Cell cell = row.createCell( nCellnum++ );
+            if ( cellValue instanceof String )
             {
-                Row row = sheet.createRow( nRownum++ );
-                int nCellnum = 0;
-                for ( Object cellValue : line )
+                cell.setCellValue( (String) cellValue );
+            }
+            else
+                if ( cellValue instanceof Boolean )
                 {
-                    Cell cell = row.createCell( nCellnum++ );
-                    if ( cellValue instanceof String )
+                    cell.setCellValue( (Boolean) cellValue );
+                }
+                else
+                    if ( cellValue instanceof Date )
                     {
-                        cell.setCellValue( (String) cellValue );
+                        cell.setCellValue( (Date) cellValue );
                     }
                     else
-                        if ( cellValue instanceof Boolean )
+                        if ( cellValue instanceof Double )
                         {
-                            cell.setCellValue( (Boolean) cellValue );
+                            cell.setCellValue( (Double) cellValue );
                         }
-                        else
-                            if ( cellValue instanceof Date )
-                            {
-                                cell.setCellValue( (Date) cellValue );
-                            }
-                            else
-                                if ( cellValue instanceof Double )
-                                {
-                                    cell.setCellValue( (Double) cellValue );
-                                }
-                }
-            }
-            workbook.write( os );
-        }
-        catch( IOException e )
-        {
-            AppLogService.error( e );
         }
     }
 
@@ -208,42 +228,31 @@ public final class AppointmentExportService
         return strInfos;
     }
 
-    private static final List<Object> createLineContent( AppointmentDTO appointmentDTO, Form form, List<String> defaultColumnList, List<Entry> listEntry,
-            StateService stateService, Locale locale )
+    private static final List<Object> createLineContent( AppointmentDTO appointmentDTO, ExportBatch batch, List<String> defaultColumnList,
+            List<Entry> listEntry, Locale locale )
     {
-        List<Object> strWriter = new ArrayList<>( );
-        addDefaultColumnValues( appointmentDTO, form, defaultColumnList, strWriter, stateService, locale );
+        List<Object> strWriter = new ArrayList<>( defaultColumnList.size( ) + listEntry.size( ) );
+        Form form = batch.getForm( appointmentDTO.getIdForm( ) );
+        addDefaultColumnValues( appointmentDTO, form, batch, defaultColumnList, strWriter, locale );
 
-        List<Integer> listIdResponse = AppointmentResponseService.findListIdResponse( appointmentDTO.getIdAppointment( ) );
-        List<Response> listResponses = new ArrayList<>( );
-        for ( int nIdResponse : listIdResponse )
+        if ( !listEntry.isEmpty( ) )
         {
-            Response resp = ResponseHome.findByPrimaryKey( nIdResponse );
-            if ( resp != null )
+            Map<Integer, List<Response>> mapResponses = batch.getResponses( appointmentDTO.getIdAppointment( ) );
+            for ( Entry e : listEntry )
             {
-                listResponses.add( resp );
+                String value = getEntryValue( e, mapResponses.get( e.getIdEntry( ) ), batch, locale );
+                strWriter.add( value );
             }
         }
-        for ( Entry e : listEntry )
-        {
-            String value = getEntryValue( e, listResponses, locale );
-            strWriter.add( value );
-        }
         return strWriter;
     }
 
-    private static final void addDefaultColumnValues( AppointmentDTO appointmentDTO, Form form, List<String> defaultColumnList, List<Object> strWriter,
-            StateService stateService, Locale locale )
+    private static final void addDefaultColumnValues( AppointmentDTO appointmentDTO, Form form, ExportBatch batch, List<String> defaultColumnList,
+            List<Object> strWriter, Locale locale )
     {
         if ( defaultColumnList.contains( KEY_COLUMN_FORM_CATEGORY ) )
         {
-            Category category = CategoryHome.findByPrimaryKey( form.getIdCategory( ) );
-            String catStr = "";
-            if ( category != null )
-            {
-                catStr = category.getLabel( );
-            }
-            strWriter.add( catStr );
+            strWriter.add( batch.getCategoryLabel( form.getIdCategory( ) ) );
         }
         if ( defaultColumnList.contains( KEY_COLUMN_FORM_TITLE ) )
         {
@@ -283,7 +292,7 @@ public final class AppointmentExportService
         }
         if ( defaultColumnList.contains( KEY_COLUMN_STATE ) )
         {
-            strWriter.add( getStateValue( appointmentDTO, form.getIdWorkflow( ), stateService ) );
+            strWriter.add( getStateValue( appointmentDTO, batch ) );
         }
         if ( defaultColumnList.contains( KEY_COLUMN_NB_BOOKED_SEATS ) )
         {
@@ -309,36 +318,37 @@ public final class AppointmentExportService
         return status;
     }
 
-    private static String getStateValue( AppointmentDTO appointmentDTO, int idWorkflow, StateService stateService )
+    private static String getStateValue( AppointmentDTO appointmentDTO, ExportBatch batch )
     {
         String strState = StringUtils.EMPTY;
-        if ( stateService != null )
+        State stateAppointment = batch.getState( appointmentDTO.getIdAppointment( ) );
+        if ( stateAppointment != null )
         {
-            State stateAppointment = stateService.findByResource( appointmentDTO.getIdAppointment( ), Appointment.APPOINTMENT_RESOURCE_TYPE, idWorkflow );
-            if ( stateAppointment != null )
-            {
-                appointmentDTO.setState( stateAppointment );
-                strState = stateAppointment.getName( );
-            }
+            appointmentDTO.setState( stateAppointment );
+            strState = stateAppointment.getName( );
         }
         return strState;
     }
 
-    private static final String getEntryValue( Entry e, List<Response> listResponses, Locale locale )
+    private static final String getEntryValue( Entry e, List<Response> listResponsesForEntry, ExportBatch batch, Locale locale )
     {
-        Integer key = e.getIdEntry( );
         StringBuilder strValue = new StringBuilder( );
         String strPrefix = StringUtils.EMPTY;
-
-        List<Response> listResponsesForEntry = listResponses.stream( ).filter( resp -> key.equals( resp.getEntry( ).getIdEntry( ) ) )
-                .filter( resp -> StringUtils.isNotEmpty( resp.getResponseValue( ) ) ).collect( Collectors.toList( ) );
+        if ( listResponsesForEntry == null )
+        {
+            return strValue.toString( );
+        }
 
         for ( Response resp : listResponsesForEntry )
         {
+            if ( StringUtils.isEmpty( resp.getResponseValue( ) ) )
+            {
+                continue;
+            }
             Field f = resp.getField( );
             if ( f != null )
             {
-                resp.setField( FieldHome.findByPrimaryKey( f.getIdField( ) ) );
+                resp.setField( batch.getField( f.getIdField( ) ) );
             }
 
             String valueExport = EntryTypeServiceManager.getEntryTypeService( e ).getResponseValueForExport( e, null, resp, locale );
@@ -377,4 +387,107 @@ public final class AppointmentExportService
         }
         return refList;
     }
+
+    /**
+     * Data needed to write the rows of a batch of appointments, loaded with a few queries per batch. The forms, categories and fields are kept for the
+     * whole export, the responses and the states only for the current batch.
+     */
+    private static final class ExportBatch
+    {
+        private final boolean _bLoadResponses;
+        private final boolean _bLoadStates;
+        private final Map<Integer, Form> _mapForm = new HashMap<>( );
+        private final Map<Integer, String> _mapCategoryLabel = new HashMap<>( );
+        private final Map<Integer, Field> _mapField = new HashMap<>( );
+        private final Map<Integer, List<Response>> _mapResponse = new HashMap<>( );
+        private final Map<Integer, State> _mapState = new HashMap<>( );
+
+        /**
+         * Constructor
+         * 
+         * @param defaultColumnList
+         *            the default columns to export
+         * @param listEntry
+         *            the entries to export
+         * @param bWorkflowAvailable
+         *            true if the workflow service is available
+         */
+        ExportBatch( List<String> defaultColumnList, List<Entry> listEntry, boolean bWorkflowAvailable )
+        {
+            _bLoadResponses = !listEntry.isEmpty( );
+            _bLoadStates = bWorkflowAvailable && defaultColumnList.contains( KEY_COLUMN_STATE );
+        }
+
+        /**
+         * Load the responses and the states of a batch of appointments
+         * 
+         * @param listAppointmentsDTO
+         *            the appointments of the batch
+         */
+        void load( List<AppointmentDTO> listAppointmentsDTO )
+        {
+            _mapResponse.clear( );
+            if ( _bLoadResponses )
+            {
+                List<Integer> listIdAppointment = listAppointmentsDTO.stream( ).map( AppointmentDTO::getIdAppointment ).collect( Collectors.toList( ) );
+                _mapResponse.putAll( AppointmentResponseHome.findListResponseByListIdAppointment( listIdAppointment ) );
+            }
+            _mapState.clear( );
+            if ( _bLoadStates )
+            {
+                Map<Integer, List<AppointmentDTO>> mapAppointmentByWorkflow = new HashMap<>( );
+                for ( AppointmentDTO appointmentDTO : listAppointmentsDTO )
+                {
+                    int nIdWorkflow = getForm( appointmentDTO.getIdForm( ) ).getIdWorkflow( );
+                    if ( nIdWorkflow > 0 )
+                    {
+                        mapAppointmentByWorkflow.computeIfAbsent( nIdWorkflow, id -> new ArrayList<>( ) ).add( appointmentDTO );
+                    }
+                }
+                for ( Map.Entry<Integer, List<AppointmentDTO>> entry : mapAppointmentByWorkflow.entrySet( ) )
+                {
+                    _mapState.putAll( AppointmentStateService.findByListAppointment( entry.getValue( ), entry.getKey( ) ) );
+                }
+            }
+        }
+
+        Form getForm( int nIdForm )
+        {
+            return _mapForm.computeIfAbsent( nIdForm, FormHome::findByPrimaryKey );
+        }
+
+        String getCategoryLabel( Integer nIdCategory )
+        {
+            if ( nIdCategory == null )
+            {
+                return StringUtils.EMPTY;
+            }
+            return _mapCategoryLabel.computeIfAbsent( nIdCategory, id -> {
+                Category category = CategoryHome.findByPrimaryKey( id );
+                return category != null ? category.getLabel( ) : StringUtils.EMPTY;
+            } );
+        }
+
+        Field getField( int nIdField )
+        {
+            return _mapField.computeIfAbsent( nIdField, FieldHome::findByPrimaryKey );
+        }
+
+        State getState( int nIdAppointment )
+        {
+            return _mapState.get( nIdAppointment );
+        }
+
+        /**
+         * Get the responses of an appointment of the batch
+         * 
+         * @param nIdAppointment
+         *            the appointment id
+         * @return the responses of the appointment by entry id
+         */
+        Map<Integer, List<Response>> getResponses( int nIdAppointment )
+        {
+            return AppointmentResponseService.buildMapFromListResponse( _mapResponse.getOrDefault( nIdAppointment, new ArrayList<>( ) ) );
+        }
+    }
 }
@@ -42,7 +42,7 @@ import java.util.Calendar;
 import java.util.List;
 import java.util.Locale;
 
-import fr.paris.lutece.plugins.appointment.web.dto.AppointmentDTO;
+import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFilterDTO;
 import fr.paris.lutece.plugins.filegenerator.service.IFileGenerator;
 import fr.paris.lutece.portal.service.i18n.I18nService;
 import fr.paris.lutece.portal.service.util.AppPropertiesService;
@@ -61,10 +61,23 @@ public class ExcelAppointmentGenerator implements IFileGenerator
     private final String _fileDescription;
     private final List<String> _defaultColumnList;
     private final Locale _locale;
-    private final List<AppointmentDTO> _listAppointmentsDTO;
+    private final AppointmentFilterDTO _filter;
     private final List<Integer> _entryList;
 
-    public ExcelAppointmentGenerator( List<String> defaultColumnList, Locale locale, List<AppointmentDTO> listAppointmentsDTO, List<Integer> entryList )
+    /**
+     * Constructor
+     * 
+     * @param defaultColumnList
+     *            the default columns to export
+     * @param locale
+     *            the locale
+     * @param filter
+     *            the filter of the appointments to export, read page by page when the file is generated, or null to export no appointment. The filter
+     *            must not be shared with the session.
+     * @param entryList
+     *            the entries to export
+     */
+    public ExcelAppointmentGenerator( List<String> defaultColumnList, Locale locale, AppointmentFilterDTO filter, List<Integer> entryList )
     {
         super( );
         _fileName = new SimpleDateFormat( "yyyyMMdd-hhmm" ).format( Calendar.getInstance( locale ).getTime( ) ) + "_"
@@ -72,7 +85,7 @@ public class ExcelAppointmentGenerator implements IFileGenerator
         _fileDescription = I18nService.getLocalizedString( KEY_FILE_DESCRIPTION, locale );
         this._defaultColumnList = new ArrayList<>( defaultColumnList );
         this._locale = locale;
-        this._listAppointmentsDTO = new ArrayList<>( listAppointmentsDTO );
+        this._filter = filter;
         this._entryList = new ArrayList<>( entryList );
     }
 
@@ -80,7 +93,7 @@ public class ExcelAppointmentGenerator implements IFileGenerator
     public Path generateFile( ) throws IOException
     {
         Path excelFile = Paths.get( TMP_DIR, _fileName + EXCEL_FILE_EXTENSION );
-        AppointmentExportService.buildExcelFileWithAppointments( _defaultColumnList, _entryList, excelFile, _locale, _listAppointmentsDTO );
+        AppointmentExportService.buildExcelFileWithAppointments( _defaultColumnList, _entryList, excelFile, _locale, _filter );
         return excelFile;
     }
 
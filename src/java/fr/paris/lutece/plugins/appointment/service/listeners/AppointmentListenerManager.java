@@ -39,9 +39,6 @@ import java.util.Locale;
 
 import org.apache.commons.lang3.StringUtils;
 
-import fr.paris.lutece.plugins.appointment.service.AppointmentExecutorService;
-import fr.paris.lutece.portal.service.spring.SpringContextService;
-
 /**
  * Manager for appointment listeners
  * 
@@ -66,14 +63,37 @@ public final class AppointmentListenerManager
      */
     public static void notifyListenersAppointmentRemoval( int nIdAppointment )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IAppointmentListener appointmentRemovalListener : SpringContextService.getBeansOfType( IAppointmentListener.class ) )
+        ListenerEventBus.publish( ( ) -> {
+            for ( IAppointmentListener appointmentRemovalListener : ListenerEventBus.getListeners( IAppointmentListener.class ) )
             {
                 appointmentRemovalListener.notifyAppointmentRemoval( nIdAppointment );
             }
         } );
     }
 
+    /**
+     * Notify listeners that a list of appointments has been removed. The notifications are sent by a single task.
+     * 
+     * @param listIdAppointment
+     *            The ids of the appointments that have been removed
+     */
+    public static void notifyListenersAppointmentsRemoval( List<Integer> listIdAppointment )
+    {
+        if ( listIdAppointment.isEmpty( ) )
+        {
+            return;
+        }
+        ListenerEventBus.publish( ( ) -> {
+            for ( IAppointmentListener appointmentRemovalListener : ListenerEventBus.getListeners( IAppointmentListener.class ) )
+            {
+                for ( Integer nIdAppointment : listIdAppointment )
+                {
+                    appointmentRemovalListener.notifyAppointmentRemoval( nIdAppointment );
+                }
+            }
+        } );
+    }
+
     /**
      * Notify listeners that an appointment is about to be created
      * 
@@ -82,9 +102,9 @@ public final class AppointmentListenerManager
      */
     public static void notifyListenersAppointmentCreated( int nIdAppointment )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
+        ListenerEventBus.publish( ( ) -> {
 
-            for ( IAppointmentListener appointmentListener : SpringContextService.getBeansOfType( IAppointmentListener.class ) )
+            for ( IAppointmentListener appointmentListener : ListenerEventBus.getListeners( IAppointmentListener.class ) )
             {
                 appointmentListener.notifyAppointmentCreated( nIdAppointment );
             }
@@ -101,8 +121,8 @@ public final class AppointmentListenerManager
      */
     public static void notifyListenersAppointmentUpdated( int nIdAppointment )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IAppointmentListener appointmentListener : SpringContextService.getBeansOfType( IAppointmentListener.class ) )
+        ListenerEventBus.publish( ( ) -> {
+            for ( IAppointmentListener appointmentListener : ListenerEventBus.getListeners( IAppointmentListener.class ) )
             {
                 appointmentListener.notifyAppointmentUpdated( nIdAppointment );
             }
@@ -124,7 +144,7 @@ public final class AppointmentListenerManager
     {
         List<String> listMessages = new ArrayList<>( );
 
-        for ( IAppointmentListener appointmentRemovalListener : SpringContextService.getBeansOfType( IAppointmentListener.class ) )
+        for ( IAppointmentListener appointmentRemovalListener : ListenerEventBus.getListeners( IAppointmentListener.class ) )
         {
             String strMessage = appointmentRemovalListener.appointmentDateChanged( nIdAppointment, listIdSlot, locale );
 
@@ -145,8 +165,8 @@ public final class AppointmentListenerManager
      */
     public static void notifyListenersAppointmentFormRemoval( int nIdAppointmentForm )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IAppointmentFormRemovalListener appointmentRemovalListener : SpringContextService.getBeansOfType( IAppointmentFormRemovalListener.class ) )
+        ListenerEventBus.publish( ( ) -> {
+            for ( IAppointmentFormRemovalListener appointmentRemovalListener : ListenerEventBus.getListeners( IAppointmentFormRemovalListener.class ) )
             {
                 appointmentRemovalListener.notifyAppointmentFormRemoval( nIdAppointmentForm );
             }
@@ -163,8 +183,8 @@ public final class AppointmentListenerManager
      */
     public static void notifyAppointmentWFActionTriggered( int nIdAppointment, int nIdAction )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IAppointmentWorkflowActionListener appointmentListener : SpringContextService.getBeansOfType( IAppointmentWorkflowActionListener.class ) )
+        ListenerEventBus.publish( ( ) -> {
+            for ( IAppointmentWorkflowActionListener appointmentListener : ListenerEventBus.getListeners( IAppointmentWorkflowActionListener.class ) )
             {
                 appointmentListener.notifyAppointmentWFActionTriggered( nIdAppointment, nIdAction );
             }
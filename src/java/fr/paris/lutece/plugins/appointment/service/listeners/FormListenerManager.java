@@ -33,9 +33,6 @@
  */
 package fr.paris.lutece.plugins.appointment.service.listeners;
 
-import fr.paris.lutece.plugins.appointment.service.AppointmentExecutorService;
-import fr.paris.lutece.portal.service.spring.SpringContextService;
-
 public final class FormListenerManager
 {
 
@@ -55,8 +52,8 @@ public final class FormListenerManager
      */
     public static void notifyListenersFormCreation( int nIdForm )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IFormListener formListener : SpringContextService.getBeansOfType( IFormListener.class ) )
+        ListenerEventBus.publish( ( ) -> {
+            for ( IFormListener formListener : ListenerEventBus.getListeners( IFormListener.class ) )
             {
                 formListener.notifyFormCreation( nIdForm );
             }
@@ -71,8 +68,8 @@ public final class FormListenerManager
      */
     public static void notifyListenersFormChange( int nIdForm )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IFormListener formListener : SpringContextService.getBeansOfType( IFormListener.class ) )
+        ListenerEventBus.publish( ( ) -> {
+            for ( IFormListener formListener : ListenerEventBus.getListeners( IFormListener.class ) )
             {
                 formListener.notifyFormChange( nIdForm );
             }
@@ -87,8 +84,8 @@ public final class FormListenerManager
      */
     public static void notifyListenersFormRemoval( int nIdForm )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IFormListener formListener : SpringContextService.getBeansOfType( IFormListener.class ) )
+        ListenerEventBus.publish( ( ) -> {
+            for ( IFormListener formListener : ListenerEventBus.getListeners( IFormListener.class ) )
             {
                 formListener.notifyFormRemoval( nIdForm );
             }
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service.listeners;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import fr.paris.lutece.plugins.appointment.service.AppointmentExecutorService;
+import fr.paris.lutece.portal.service.plugin.PluginService;
+import fr.paris.lutece.portal.service.spring.SpringContextService;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+/**
+ * Bus delivering the events of the appointment plugin to the listeners. The events are put in a bounded queue, and a dispatcher thread hands them over to
+ * the {@link AppointmentExecutorService} by batches. An event published with a coalescing key is dropped while an event with the same key is still waiting
+ * in the queue, so that a burst of changes on the same slot only notifies the listeners once. The dispatcher waits a short window after the first event of a
+ * batch to let such repeated events be coalesced.
+ * 
+ * When the queue is full, the event is handled according to the overflow policy: BLOCK waits for room in the queue, CALLER_RUNS delivers the event in the
+ * calling thread and DISCARD drops the event.
+ * 
+ * The lists of listeners are read once from the Spring context and kept until a plugin is installed or uninstalled.
+ */
+public final class ListenerEventBus
+{
+    /**
+     * Policy applied when an event is published while the queue is full
+     */
+    public enum OverflowPolicy
+    {
+        BLOCK, CALLER_RUNS, DISCARD
+    }
+
+    private static final String PROPERTY_QUEUE_CAPACITY = "appointment.listenerEventBus.queueCapacity";
+    private static final String PROPERTY_BATCH_SIZE = "appointment.listenerEventBus.batchSize";
+    private static final String PROPERTY_COALESCING_WINDOW = "appointment.listenerEventBus.coalescingWindow";
+    private static final String PROPERTY_OVERFLOW_POLICY = "appointment.listenerEventBus.overflowPolicy";
+    private static final int DEFAULT_QUEUE_CAPACITY = 10000;
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final long DEFAULT_COALESCING_WINDOW = 50L;
+
+    private static final ListenerEventQueue _queue = new ListenerEventQueue(
+            AppPropertiesService.getPropertyInt( PROPERTY_QUEUE_CAPACITY, DEFAULT_QUEUE_CAPACITY ),
+            AppPropertiesService.getPropertyInt( PROPERTY_BATCH_SIZE, DEFAULT_BATCH_SIZE ),
+            AppPropertiesService.getPropertyLong( PROPERTY_COALESCING_WINDOW, DEFAULT_COALESCING_WINDOW ), readOverflowPolicy( ) );
+    private static final ConcurrentMap<Class<?>, List<?>> _mapListeners = new ConcurrentHashMap<>( );
+
+    static
+    {
+        PluginService.registerPluginEventListener( event -> _mapListeners.clear( ) );
+    }
+
+    /**
+     * Private constructor - this class does not need to be instantiated
+     */
+    private ListenerEventBus( )
+    {
+    }
+
+    /**
+     * Get the listeners of a type. The list is read from the Spring context on the first call and then kept in memory.
+     * 
+     * @param <T>
+     *            the type of the listeners
+     * @param listenerClass
+     *            the class of the listeners
+     * @return the listeners
+     */
+    @SuppressWarnings( "unchecked" )
+    public static <T> List<T> getListeners( Class<T> listenerClass )
+    {
+        return (List<T>) _mapListeners.computeIfAbsent( listenerClass, key -> new ArrayList<>( SpringContextService.getBeansOfType( listenerClass ) ) );
+    }
+
+    /**
+     * Publish an event
+     * 
+     * @param delivery
+     *            the delivery of the event to the listeners
+     */
+    public static void publish( Runnable delivery )
+    {
+        _queue.publish( null, delivery );
+    }
+
+    /**
+     * Publish an event that can be coalesced with the events of the same key still waiting in the queue
+     * 
+     * @param strCoalescingKey
+     *            the coalescing key, or null if the event must not be coalesced
+     * @param delivery
+     *            the delivery of the event to the listeners
+     */
+    public static void publish( String strCoalescingKey, Runnable delivery )
+    {
+        _queue.publish( strCoalescingKey, delivery );
+    }
+
+    /**
+     * Stop the bus. The events waiting in the queue are still delivered, and the events published after the shutdown are delivered in the calling thread.
+     */
+    public static void shutdown( )
+    {
+        _queue.shutdown( );
+    }
+
+    /**
+     * Read the overflow policy from the properties
+     * 
+     * @return the overflow policy
+     */
+    private static OverflowPolicy readOverflowPolicy( )
+    {
+        String strPolicy = AppPropertiesService.getProperty( PROPERTY_OVERFLOW_POLICY, OverflowPolicy.BLOCK.name( ) );
+        try
+        {
+            return OverflowPolicy.valueOf( strPolicy.trim( ) );
+        }
+        catch( IllegalArgumentException e )
+        {
+            AppLogService.error( "Unknown overflow policy of the listener event bus : " + strPolicy );
+            return OverflowPolicy.BLOCK;
+        }
+    }
+
+    /**
+     * Get the number of events waiting in the queue
+     * 
+     * @return the queue depth
+     */
+    public static int getQueueDepth( )
+    {
+        return _queue.getDepth( );
+    }
+
+    /**
+     * Get the time spent in the queue by the oldest event of the last batch
+     * 
+     * @return the lag in milliseconds
+     */
+    public static long getLastLag( )
+    {
+        return _queue.getLastLag( );
+    }
+
+    /**
+     * Get the longest time spent in the queue by an event
+     * 
+     * @return the lag in milliseconds
+     */
+    public static long getMaxLag( )
+    {
+        return _queue.getMaxLag( );
+    }
+
+    /**
+     * Get the number of events published and not coalesced
+     * 
+     * @return the number of events
+     */
+    public static long getPublishedCount( )
+    {
+        return _queue.getPublishedCount( );
+    }
+
+    /**
+     * Get the number of events coalesced with an event still waiting in the queue
+     * 
+     * @return the number of events
+     */
+    public static long getCoalescedCount( )
+    {
+        return _queue.getCoalescedCount( );
+    }
+
+    /**
+     * Get the number of events discarded because the queue was full
+     * 
+     * @return the number of events
+     */
+    public static long getDiscardedCount( )
+    {
+        return _queue.getDiscardedCount( );
+    }
+
+    /**
+     * Get the number of events delivered to the listeners
+     * 
+     * @return the number of events
+     */
+    public static long getDeliveredCount( )
+    {
+        return _queue.getDeliveredCount( );
+    }
+}
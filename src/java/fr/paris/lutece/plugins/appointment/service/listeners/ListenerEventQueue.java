@@ -0,0 +1,406 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service.listeners;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import fr.paris.lutece.plugins.appointment.service.AppointmentExecutorService;
+import fr.paris.lutece.plugins.appointment.service.listeners.ListenerEventBus.OverflowPolicy;
+import fr.paris.lutece.plugins.appointment.service.metrics.AppointmentMetrics;
+import fr.paris.lutece.portal.service.util.AppLogService;
+
+/**
+ * Bounded queue of the events of the {@link ListenerEventBus}, with the dispatcher thread that hands the events over to the
+ * {@link AppointmentExecutorService} by batches.
+ * 
+ * The events are put in the queue under the read lock of the shutdown, and the shutdown closes the queue under its write lock: once the queue is closed,
+ * no event can be put in it anymore, and the events published afterwards are delivered in the calling thread.
+ */
+final class ListenerEventQueue
+{
+    private static final long SHUTDOWN_TIMEOUT = 30L;
+    private static final String THREAD_NAME = "Lutece-AppointmentListenerEventBus";
+
+    private final BlockingQueue<ListenerEvent> _queue;
+    private final int _nBatchSize;
+    private final long _lCoalescingWindow;
+    private final OverflowPolicy _overflowPolicy;
+
+    private final Set<String> _setPendingKeys = ConcurrentHashMap.newKeySet( );
+    private final ReadWriteLock _lockShutdown = new ReentrantReadWriteLock( );
+    private final CountDownLatch _latchShutdown = new CountDownLatch( 1 );
+
+    private final AtomicLong _lPublished = new AtomicLong( );
+    private final AtomicLong _lCoalesced = new AtomicLong( );
+    private final AtomicLong _lDiscarded = new AtomicLong( );
+    private final AtomicLong _lDelivered = new AtomicLong( );
+    private final AtomicLong _lLastLag = new AtomicLong( );
+    private final AtomicLong _lMaxLag = new AtomicLong( );
+
+    private volatile boolean _bRunning = true;
+    private Thread _dispatcher;
+
+    /**
+     * Constructor
+     * 
+     * @param nCapacity
+     *            the capacity of the queue
+     * @param nBatchSize
+     *            the maximum number of events delivered in one task of the executor
+     * @param lCoalescingWindow
+     *            the time in milliseconds the dispatcher waits after the first event of a batch
+     * @param overflowPolicy
+     *            the policy applied when an event is published while the queue is full
+     */
+    ListenerEventQueue( int nCapacity, int nBatchSize, long lCoalescingWindow, OverflowPolicy overflowPolicy )
+    {
+        _queue = new ArrayBlockingQueue<>( Math.max( nCapacity, 1 ) );
+        _nBatchSize = Math.max( nBatchSize, 1 );
+        _lCoalescingWindow = lCoalescingWindow;
+        _overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Publish an event that can be coalesced with the events of the same key still waiting in the queue
+     * 
+     * @param strCoalescingKey
+     *            the coalescing key, or null if the event must not be coalesced
+     * @param delivery
+     *            the delivery of the event to the listeners
+     */
+    void publish( String strCoalescingKey, Runnable delivery )
+    {
+        if ( strCoalescingKey != null && !_setPendingKeys.add( strCoalescingKey ) )
+        {
+            _lCoalesced.incrementAndGet( );
+            return;
+        }
+        _lPublished.incrementAndGet( );
+        ListenerEvent event = new ListenerEvent( strCoalescingKey, delivery );
+        _lockShutdown.readLock( ).lock( );
+        try
+        {
+            if ( _bRunning )
+            {
+                startDispatcher( );
+                if ( !_queue.offer( event ) && !offerOnOverflow( event ) )
+                {
+                    if ( strCoalescingKey != null )
+                    {
+                        _setPendingKeys.remove( strCoalescingKey );
+                    }
+                    _lDiscarded.incrementAndGet( );
+                    AppLogService.error( "The listener event queue of the appointment plugin is full, an event has been discarded" );
+                }
+                return;
+            }
+        }
+        finally
+        {
+            _lockShutdown.readLock( ).unlock( );
+        }
+        // The queue is closed
+        deliver( event );
+    }
+
+    /**
+     * Handle an event that could not be put in the queue because it is full
+     * 
+     * @param event
+     *            the event
+     * @return false if the event has been discarded
+     */
+    private boolean offerOnOverflow( ListenerEvent event )
+    {
+        switch( _overflowPolicy )
+        {
+            case CALLER_RUNS:
+                deliver( event );
+                return true;
+            case DISCARD:
+                return false;
+            default:
+                try
+                {
+                    _queue.put( event );
+                    return true;
+                }
+                catch( InterruptedException e )
+                {
+                    Thread.currentThread( ).interrupt( );
+                    return false;
+                }
+        }
+    }
+
+    /**
+     * Start the dispatcher thread if it is not started yet
+     */
+    private synchronized void startDispatcher( )
+    {
+        if ( _dispatcher == null )
+        {
+            _dispatcher = new Thread( this::dispatch, THREAD_NAME );
+            _dispatcher.setDaemon( true );
+            _dispatcher.start( );
+        }
+    }
+
+    /**
+     * Loop of the dispatcher thread: take the events from the queue by batches and hand the batches over to the executor. The loop ends once the queue is
+     * closed and empty.
+     */
+    private void dispatch( )
+    {
+        // The flag is read without the lock: the dispatcher must make room for a publisher blocked on a full queue while the shutdown waits for the lock
+        while ( _bRunning || !_queue.isEmpty( ) )
+        {
+            try
+            {
+                ListenerEvent first = _queue.poll( 1, TimeUnit.SECONDS );
+                if ( first == null )
+                {
+                    continue;
+                }
+                if ( _lCoalescingWindow > 0 )
+                {
+                    // Let the repeated events be coalesced before draining the batch, unless the bus is shutting down
+                    _latchShutdown.await( _lCoalescingWindow, TimeUnit.MILLISECONDS );
+                }
+                List<ListenerEvent> listEvent = new ArrayList<>( );
+                listEvent.add( first );
+                _queue.drainTo( listEvent, _nBatchSize - 1 );
+                deliverBatch( listEvent );
+            }
+            catch( InterruptedException e )
+            {
+                Thread.currentThread( ).interrupt( );
+                break;
+            }
+        }
+    }
+
+    /**
+     * Deliver a batch of events in one task of the executor
+     * 
+     * @param listEvent
+     *            the events
+     */
+    private void deliverBatch( List<ListenerEvent> listEvent )
+    {
+        long lLag = TimeUnit.NANOSECONDS.toMillis( System.nanoTime( ) - listEvent.get( 0 )._lPublicationTime );
+        _lLastLag.set( lLag );
+        _lMaxLag.accumulateAndGet( lLag, Math::max );
+        Runnable batch = ( ) -> {
+            for ( ListenerEvent event : listEvent )
+            {
+                deliver( event );
+            }
+        };
+        try
+        {
+            AppointmentExecutorService.INSTANCE.execute( batch );
+        }
+        catch( RejectedExecutionException e )
+        {
+            batch.run( );
+        }
+    }
+
+    /**
+     * Deliver an event to the listeners. An exception thrown by a listener does not prevent the delivery of the other events.
+     * 
+     * @param event
+     *            the event
+     */
+    private void deliver( ListenerEvent event )
+    {
+        // The listeners read the data when they are notified: the events published from now on must not be coalesced with this one anymore
+        if ( event._strCoalescingKey != null )
+        {
+            _setPendingKeys.remove( event._strCoalescingKey );
+        }
+        long lStartTime = System.nanoTime( );
+        try
+        {
+            event._delivery.run( );
+        }
+        catch( RuntimeException e )
+        {
+            AppLogService.error( "Error while notifying the listeners of the appointment plugin", e );
+        }
+        AppointmentMetrics.LISTENER_DISPATCH.record( System.nanoTime( ) - lStartTime );
+        _lDelivered.incrementAndGet( );
+    }
+
+    /**
+     * Close the queue and deliver the events waiting in it. The events published from now on are delivered in the calling thread.
+     */
+    void shutdown( )
+    {
+        // End the coalescing window of the dispatcher, so that a publisher blocked on a full queue gets room before the queue is closed
+        _latchShutdown.countDown( );
+        Thread dispatcher;
+        _lockShutdown.writeLock( ).lock( );
+        try
+        {
+            _bRunning = false;
+            dispatcher = _dispatcher;
+        }
+        finally
+        {
+            _lockShutdown.writeLock( ).unlock( );
+        }
+        if ( dispatcher != null )
+        {
+            try
+            {
+                dispatcher.join( TimeUnit.SECONDS.toMillis( SHUTDOWN_TIMEOUT ) );
+            }
+            catch( InterruptedException e )
+            {
+                Thread.currentThread( ).interrupt( );
+            }
+        }
+        // No event can be put in the closed queue: the events left by the dispatcher are the last ones
+        List<ListenerEvent> listEvent = new ArrayList<>( );
+        _queue.drainTo( listEvent );
+        listEvent.forEach( this::deliver );
+    }
+
+    /**
+     * Get the number of events waiting in the queue
+     * 
+     * @return the queue depth
+     */
+    int getDepth( )
+    {
+        return _queue.size( );
+    }
+
+    /**
+     * Get the time spent in the queue by the oldest event of the last batch
+     * 
+     * @return the lag in milliseconds
+     */
+    long getLastLag( )
+    {
+        return _lLastLag.get( );
+    }
+
+    /**
+     * Get the longest time spent in the queue by an event
+     * 
+     * @return the lag in milliseconds
+     */
+    long getMaxLag( )
+    {
+        return _lMaxLag.get( );
+    }
+
+    /**
+     * Get the number of events published and not coalesced
+     * 
+     * @return the number of events
+     */
+    long getPublishedCount( )
+    {
+        return _lPublished.get( );
+    }
+
+    /**
+     * Get the number of events coalesced with an event still waiting in the queue
+     * 
+     * @return the number of events
+     */
+    long getCoalescedCount( )
+    {
+        return _lCoalesced.get( );
+    }
+
+    /**
+     * Get the number of events discarded because the queue was full
+     * 
+     * @return the number of events
+     */
+    long getDiscardedCount( )
+    {
+        return _lDiscarded.get( );
+    }
+
+    /**
+     * Get the number of events delivered to the listeners
+     * 
+     * @return the number of events
+     */
+    long getDeliveredCount( )
+    {
+        return _lDelivered.get( );
+    }
+
+    /**
+     * Event waiting in the queue
+     */
+    private static final class ListenerEvent
+    {
+        private final String _strCoalescingKey;
+        private final Runnable _delivery;
+        private final long _lPublicationTime = System.nanoTime( );
+
+        /**
+         * Constructor
+         * 
+         * @param strCoalescingKey
+         *            the coalescing key
+         * @param delivery
+         *            the delivery of the event
+         */
+        ListenerEvent( String strCoalescingKey, Runnable delivery )
+        {
+            _strCoalescingKey = strCoalescingKey;
+            _delivery = delivery;
+        }
+    }
+}
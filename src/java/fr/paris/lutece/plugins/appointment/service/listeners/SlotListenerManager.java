@@ -34,10 +34,9 @@
 package fr.paris.lutece.plugins.appointment.service.listeners;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 
 import fr.paris.lutece.plugins.appointment.business.slot.Slot;
-import fr.paris.lutece.plugins.appointment.service.AppointmentExecutorService;
-import fr.paris.lutece.portal.service.spring.SpringContextService;
 
 /**
  * Manager for slot listeners
@@ -47,6 +46,7 @@ import fr.paris.lutece.portal.service.spring.SpringContextService;
  */
 public final class SlotListenerManager
 {
+    private static final String KEY_SLOT_CHANGE = "slotChange_";
 
     /**
      * Private default constructor
@@ -64,8 +64,8 @@ public final class SlotListenerManager
      */
     public static void notifyListenersSlotCreation( int nIdSlot )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( ISlotListener slotListener : SpringContextService.getBeansOfType( ISlotListener.class ) )
+        ListenerEventBus.publish( ( ) -> {
+            for ( ISlotListener slotListener : ListenerEventBus.getListeners( ISlotListener.class ) )
             {
                 slotListener.notifySlotCreation( nIdSlot );
             }
@@ -74,21 +74,58 @@ public final class SlotListenerManager
     }
 
     /**
-     * Notify listeners that a Slot has been changed
+     * Notify listeners that a list of Slots has been created. The creations are notified in one task, not in one task per slot.
+     * 
+     * @param listIdSlot
+     *            The ids of the Slots that have been created
+     */
+    public static void notifyListenersSlotsCreation( Collection<Integer> listIdSlot )
+    {
+        if ( listIdSlot.isEmpty( ) )
+        {
+            return;
+        }
+        ListenerEventBus.publish( ( ) -> {
+            for ( ISlotListener slotListener : ListenerEventBus.getListeners( ISlotListener.class ) )
+            {
+                for ( Integer nIdSlot : listIdSlot )
+                {
+                    slotListener.notifySlotCreation( nIdSlot );
+                }
+            }
+        } );
+    }
+
+    /**
+     * Notify listeners that a Slot has been changed. The change is coalesced with the changes of the same slot not yet notified.
      * 
      * @param nIdSlot
      *            The id of the Slot that has been changed
      */
     public static void notifyListenersSlotChange( int nIdSlot )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( ISlotListener slotListener : SpringContextService.getBeansOfType( ISlotListener.class ) )
+        ListenerEventBus.publish( KEY_SLOT_CHANGE + nIdSlot, ( ) -> {
+            for ( ISlotListener slotListener : ListenerEventBus.getListeners( ISlotListener.class ) )
             {
                 slotListener.notifySlotChange( nIdSlot );
             }
         } );
     }
 
+    /**
+     * Notify listeners that a list of Slots has been changed
+     * 
+     * @param listIdSlot
+     *            The ids of the Slots that have been changed
+     */
+    public static void notifyListenersSlotsChange( Collection<Integer> listIdSlot )
+    {
+        for ( Integer nIdSlot : listIdSlot )
+        {
+            notifyListenersSlotChange( nIdSlot );
+        }
+    }
+
     /**
      * Notify listeners that a Slot is about to be removed
      * 
@@ -97,8 +134,8 @@ public final class SlotListenerManager
      */
     public static void notifyListenersSlotRemoval( Slot slot )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( ISlotListener slotListener : SpringContextService.getBeansOfType( ISlotListener.class ) )
+        ListenerEventBus.publish( ( ) -> {
+            for ( ISlotListener slotListener : ListenerEventBus.getListeners( ISlotListener.class ) )
             {
                 slotListener.notifySlotRemoval( slot );
             }
@@ -115,8 +152,8 @@ public final class SlotListenerManager
      */
     public static void notifySlotEndingTimeHasChanged( int nIdSlot, int nIdForm, LocalDateTime endingDateTime )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( ISlotListener slotListener : SpringContextService.getBeansOfType( ISlotListener.class ) )
+        ListenerEventBus.publish( ( ) -> {
+            for ( ISlotListener slotListener : ListenerEventBus.getListeners( ISlotListener.class ) )
             {
                 slotListener.notifySlotEndingTimeHasChanged( nIdSlot, nIdForm, endingDateTime );
             }
@@ -36,8 +36,6 @@ package fr.paris.lutece.plugins.appointment.service.listeners;
 import java.util.List;
 
 import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
-import fr.paris.lutece.plugins.appointment.service.AppointmentExecutorService;
-import fr.paris.lutece.portal.service.spring.SpringContextService;
 
 public final class WeekDefinitionManagerListener
 {
@@ -58,8 +56,8 @@ public final class WeekDefinitionManagerListener
      */
     public static void notifyListenersWeekDefinitionAssigned( WeekDefinition weekDefinition )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IWeekDefinitionListener weekDefinitionListener : SpringContextService.getBeansOfType( IWeekDefinitionListener.class ) )
+        ListenerEventBus.publish( ( ) -> {
+            for ( IWeekDefinitionListener weekDefinitionListener : ListenerEventBus.getListeners( IWeekDefinitionListener.class ) )
             {
                 weekDefinitionListener.notifyWeekAssigned( weekDefinition );
             }
@@ -76,8 +74,8 @@ public final class WeekDefinitionManagerListener
      */
     public static void notifyListenersListWeekDefinitionChanged( int nIdForm, List<WeekDefinition> listWeek )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IWeekDefinitionListener weekDefinitionListener : SpringContextService.getBeansOfType( IWeekDefinitionListener.class ) )
+        ListenerEventBus.publish( ( ) -> {
+            for ( IWeekDefinitionListener weekDefinitionListener : ListenerEventBus.getListeners( IWeekDefinitionListener.class ) )
             {
                 weekDefinitionListener.notifyListWeeksChanged( nIdForm, listWeek );
             }
@@ -92,8 +90,8 @@ public final class WeekDefinitionManagerListener
      */
     public static void notifyListenersWeekDefinitionUnassigned( WeekDefinition weekDefinition )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IWeekDefinitionListener weekDefinitionListener : SpringContextService.getBeansOfType( IWeekDefinitionListener.class ) )
+        ListenerEventBus.publish( ( ) -> {
+            for ( IWeekDefinitionListener weekDefinitionListener : ListenerEventBus.getListeners( IWeekDefinitionListener.class ) )
             {
                 weekDefinitionListener.notifyWeekUnassigned( weekDefinition );
             }
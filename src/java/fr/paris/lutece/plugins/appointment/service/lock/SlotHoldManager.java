@@ -0,0 +1,451 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service.lock;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import fr.paris.lutece.plugins.appointment.business.slot.SlotHold;
+import fr.paris.lutece.plugins.appointment.business.slot.SlotHoldHome;
+import fr.paris.lutece.plugins.appointment.service.metrics.AppointmentMetrics;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+/**
+ * Manager of the holds of places on the slots, taken while the users are filling the appointment form.
+ * 
+ * The holds are stored in a hashed timing wheel: each hold is put in the bucket of the tick at which it expires, and a single thread expires the holds of a
+ * bucket in a batch at each tick. The holds are also stored in database with the id of the node that owns them, so that a restart only releases the holds of
+ * the node that have expired.
+ */
+public enum SlotHoldManager
+{
+    INSTANCE;
+
+    private static final String PROPERTY_EXPIRED_TIME_EDIT_APPOINTMENT = "appointment.edit.expired.time";
+    private static final String PROPERTY_TICK_DURATION = "appointment.slotHold.tickDuration";
+    private static final String PROPERTY_NODE_ID = "appointment.slotHold.nodeId";
+    private static final String METRIC_FORM_HOLDS = "appointment_slot_holds_form_";
+    private static final int WHEEL_SIZE = 512;
+
+    private final long _lTickDuration = AppPropertiesService.getPropertyLong( PROPERTY_TICK_DURATION, 1000L );
+    private final String _strIdNode = AppPropertiesService.getProperty( PROPERTY_NODE_ID, getHostName( ) );
+    private final List<Set<SlotHold>> _listBucket = new ArrayList<>( WHEEL_SIZE );
+    private final ConcurrentMap<String, SlotHold> _mapSlotHold = new ConcurrentHashMap<>( );
+    private final ConcurrentMap<Integer, AtomicInteger> _mapNbHoldsByForm = new ConcurrentHashMap<>( );
+    private final ScheduledExecutorService _scheduledExecutor = Executors
+            .newSingleThreadScheduledExecutor( r -> new Thread( r, "Lutece-AppointmentSlotHold-thread" ) );
+    private long _lLastTick;
+
+    /**
+     * Constructor
+     */
+    SlotHoldManager( )
+    {
+        for ( int i = 0; i < WHEEL_SIZE; i++ )
+        {
+            _listBucket.add( ConcurrentHashMap.newKeySet( ) );
+        }
+        _lLastTick = getTick( System.currentTimeMillis( ) ) - 1;
+        _scheduledExecutor.scheduleAtFixedRate( this::tick, _lTickDuration, _lTickDuration, TimeUnit.MILLISECONDS );
+    }
+
+    /**
+     * Hold places on a slot for a session. If the session already holds places on this slot, the places are added to the existing hold and its expiration is
+     * postponed.
+     * 
+     * @param strIdSession
+     *            the id of the session
+     * @param nIdSlot
+     *            the id of the slot
+     * @param nIdForm
+     *            the id of the form of the slot
+     * @param nbPlaces
+     *            the number of places to hold
+     * @return the hold
+     */
+    public SlotHold hold( String strIdSession, int nIdSlot, int nIdForm, int nbPlaces )
+    {
+        LocalDateTime expirationDateTime = LocalDateTime.now( ).plusMinutes( AppPropertiesService.getPropertyInt( PROPERTY_EXPIRED_TIME_EDIT_APPOINTMENT, 1 ) );
+        String strKey = getKey( strIdSession, nIdSlot );
+        // The registered holds are never modified: the existing hold is atomically replaced by a new one, so that it can not be expired meanwhile. The map
+        // is only updated in memory, the hold is written in database once it is registered. The calls for a slot are serialized by the lock of the slot.
+        while ( true )
+        {
+            SlotHold previousSlotHold = _mapSlotHold.get( strKey );
+            SlotHold slotHold = new SlotHold( );
+            slotHold.setIdSession( strIdSession );
+            slotHold.setIdSlot( nIdSlot );
+            slotHold.setIdForm( nIdForm );
+            slotHold.setNbPlaces( ( previousSlotHold != null ) ? previousSlotHold.getNbPlaces( ) + nbPlaces : nbPlaces );
+            slotHold.setExpirationDateTime( expirationDateTime );
+            slotHold.setIdNode( _strIdNode );
+            if ( previousSlotHold == null && _mapSlotHold.putIfAbsent( strKey, slotHold ) == null )
+            {
+                incrementNbHolds( nIdForm );
+                addToWheel( slotHold );
+                SlotHoldHome.create( slotHold );
+                deleteIfInactive( slotHold );
+                return slotHold;
+            }
+            if ( previousSlotHold != null && _mapSlotHold.replace( strKey, previousSlotHold, slotHold ) )
+            {
+                removeFromWheel( previousSlotHold );
+                addToWheel( slotHold );
+                SlotHoldHome.update( slotHold );
+                return slotHold;
+            }
+            // The hold has been replaced or expired meanwhile: retry with the current one
+        }
+    }
+
+    /**
+     * Cancel a hold without giving back its places (the places have been booked)
+     * 
+     * @param slotHold
+     *            the hold to cancel
+     */
+    public void cancel( SlotHold slotHold )
+    {
+        if ( _mapSlotHold.remove( getKey( slotHold.getIdSession( ), slotHold.getIdSlot( ) ), slotHold ) )
+        {
+            removeFromWheel( slotHold );
+            decrementNbHolds( slotHold.getIdForm( ) );
+            List<SlotHold> listSlotHold = new ArrayList<>( );
+            listSlotHold.add( slotHold );
+            SlotHoldHome.deleteList( listSlotHold );
+        }
+    }
+
+    /**
+     * Check if a hold is still active (not expired nor cancelled)
+     * 
+     * @param slotHold
+     *            the hold
+     * @return true if the hold is active
+     */
+    public boolean isActive( SlotHold slotHold )
+    {
+        return _mapSlotHold.get( getKey( slotHold.getIdSession( ), slotHold.getIdSlot( ) ) ) == slotHold;
+    }
+
+    /**
+     * Get the number of active holds on the slots of a form
+     * 
+     * @param nIdForm
+     *            the id of the form
+     * @return the number of active holds
+     */
+    public int getNbActiveHolds( int nIdForm )
+    {
+        AtomicInteger nbHolds = _mapNbHoldsByForm.get( nIdForm );
+        return ( nbHolds != null ) ? nbHolds.get( ) : 0;
+    }
+
+    /**
+     * Get the number of active holds on the slots of all the forms
+     * 
+     * @return the number of active holds
+     */
+    public int getNbActiveHolds( )
+    {
+        return _mapSlotHold.size( );
+    }
+
+    /**
+     * Load the holds stored in database by this node: release the holds that have expired and put the others back in the wheel. The holds of the other
+     * nodes are left to them.
+     */
+    public void recover( )
+    {
+        LocalDateTime now = LocalDateTime.now( );
+        List<SlotHold> listExpiredSlotHold = new ArrayList<>( );
+        for ( SlotHold slotHold : SlotHoldHome.findByIdNode( _strIdNode ) )
+        {
+            String strKey = getKey( slotHold.getIdSession( ), slotHold.getIdSlot( ) );
+            if ( slotHold.getExpirationDateTime( ).isAfter( now ) )
+            {
+                if ( _mapSlotHold.putIfAbsent( strKey, slotHold ) == null )
+                {
+                    incrementNbHolds( slotHold.getIdForm( ) );
+                    addToWheel( slotHold );
+                }
+            }
+            else
+                if ( !_mapSlotHold.containsKey( strKey ) )
+                {
+                    listExpiredSlotHold.add( slotHold );
+                }
+        }
+        release( listExpiredSlotHold );
+    }
+
+    /**
+     * Stop the expiration of the holds. The holds that are still active stay in database and will be recovered at the next start.
+     */
+    public void shutdown( )
+    {
+        _scheduledExecutor.shutdown( );
+        try
+        {
+            if ( !_scheduledExecutor.awaitTermination( 60, TimeUnit.SECONDS ) )
+            {
+                _scheduledExecutor.shutdownNow( );
+            }
+        }
+        catch( InterruptedException e )
+        {
+            // (Re-)Cancel if current thread also interrupted
+            AppLogService.error( e.getMessage( ), e );
+            _scheduledExecutor.shutdownNow( );
+            Thread.currentThread( ).interrupt( );
+        }
+    }
+
+    /**
+     * Get the id of the node that owns the holds of this manager
+     * 
+     * @return the id of the node
+     */
+    String getIdNode( )
+    {
+        return _strIdNode;
+    }
+
+    /**
+     * Expire the holds of the buckets of the ticks elapsed since the last run
+     */
+    private void tick( )
+    {
+        tick( System.currentTimeMillis( ) );
+    }
+
+    /**
+     * Expire the holds of the buckets of the ticks elapsed since the last run, up to a given time
+     * 
+     * @param lTime
+     *            the current time in milliseconds
+     */
+    void tick( long lTime )
+    {
+        try
+        {
+            long lCurrentTick = getTick( lTime );
+            List<SlotHold> listExpiredSlotHold = new ArrayList<>( );
+            // Process at most one round of the wheel: a bucket contains the holds of all the rounds
+            long lFirstTick = Math.max( _lLastTick + 1, lCurrentTick - WHEEL_SIZE + 1 );
+            for ( long lTick = lFirstTick; lTick <= lCurrentTick; lTick++ )
+            {
+                Set<SlotHold> bucket = _listBucket.get( (int) ( lTick % WHEEL_SIZE ) );
+                for ( SlotHold slotHold : bucket )
+                {
+                    if ( getExpirationTick( slotHold ) <= lCurrentTick
+                            && _mapSlotHold.remove( getKey( slotHold.getIdSession( ), slotHold.getIdSlot( ) ), slotHold ) )
+                    {
+                        bucket.remove( slotHold );
+                        decrementNbHolds( slotHold.getIdForm( ) );
+                        listExpiredSlotHold.add( slotHold );
+                    }
+                }
+            }
+            _lLastTick = lCurrentTick;
+            release( listExpiredSlotHold );
+        }
+        catch( Exception e )
+        {
+            // The exception must not stop the scheduled ticks
+            AppLogService.error( "Error while expiring the holds on slots " + e.getMessage( ), e );
+        }
+    }
+
+    /**
+     * Give back the places of expired holds to their slots, with one update per slot, and delete the holds from the database
+     * 
+     * @param listSlotHold
+     *            the expired holds
+     */
+    private void release( List<SlotHold> listSlotHold )
+    {
+        if ( listSlotHold.isEmpty( ) )
+        {
+            return;
+        }
+        Map<Integer, Integer> mapNbPlacesBySlot = listSlotHold.stream( )
+                .collect( Collectors.groupingBy( SlotHold::getIdSlot, Collectors.summingInt( SlotHold::getNbPlaces ) ) );
+        for ( Map.Entry<Integer, Integer> entry : mapNbPlacesBySlot.entrySet( ) )
+        {
+            new SlotEditTask( entry.getKey( ), entry.getValue( ) ).call( );
+        }
+        SlotHoldHome.deleteList( listSlotHold );
+    }
+
+    /**
+     * Delete a hold that has just been written in database if it has been expired or cancelled meanwhile. The expiry and the cancellation delete the hold
+     * once it is removed from the map, which may happen before it is written: the hold would otherwise stay in database.
+     * 
+     * @param slotHold
+     *            the hold written in database
+     */
+    private void deleteIfInactive( SlotHold slotHold )
+    {
+        if ( !isActive( slotHold ) )
+        {
+            List<SlotHold> listSlotHold = new ArrayList<>( );
+            listSlotHold.add( slotHold );
+            SlotHoldHome.deleteList( listSlotHold );
+        }
+    }
+
+    /**
+     * Put a hold in the bucket of its expiration tick
+     * 
+     * @param slotHold
+     *            the hold
+     */
+    private void addToWheel( SlotHold slotHold )
+    {
+        _listBucket.get( (int) ( getExpirationTick( slotHold ) % WHEEL_SIZE ) ).add( slotHold );
+    }
+
+    /**
+     * Remove a hold from the wheel
+     * 
+     * @param slotHold
+     *            the hold
+     */
+    private void removeFromWheel( SlotHold slotHold )
+    {
+        _listBucket.get( (int) ( getExpirationTick( slotHold ) % WHEEL_SIZE ) ).remove( slotHold );
+    }
+
+    /**
+     * Increment the number of active holds of a form. The gauge of the form is registered in the metrics with its first hold.
+     * 
+     * @param nIdForm
+     *            the id of the form
+     */
+    private void incrementNbHolds( int nIdForm )
+    {
+        _mapNbHoldsByForm.computeIfAbsent( nIdForm, id -> {
+            AppointmentMetrics.gauge( METRIC_FORM_HOLDS + id, "Number of active holds on the slots of the form " + id, ( ) -> getNbActiveHolds( id ) );
+            return new AtomicInteger( );
+        } ).incrementAndGet( );
+    }
+
+    /**
+     * Decrement the number of active holds of a form
+     * 
+     * @param nIdForm
+     *            the id of the form
+     */
+    private void decrementNbHolds( int nIdForm )
+    {
+        AtomicInteger nbHolds = _mapNbHoldsByForm.get( nIdForm );
+        if ( nbHolds != null )
+        {
+            nbHolds.decrementAndGet( );
+        }
+    }
+
+    /**
+     * Get the tick at which a hold expires
+     * 
+     * @param slotHold
+     *            the hold
+     * @return the expiration tick
+     */
+    private long getExpirationTick( SlotHold slotHold )
+    {
+        long lExpirationTime = slotHold.getExpirationDateTime( ).atZone( ZoneId.systemDefault( ) ).toInstant( ).toEpochMilli( );
+        // Round up, so that a hold never expires before its expiration date
+        return getTick( lExpirationTime + _lTickDuration - 1 );
+    }
+
+    /**
+     * Get the tick of a time
+     * 
+     * @param lTime
+     *            the time in milliseconds
+     * @return the tick
+     */
+    private long getTick( long lTime )
+    {
+        return lTime / _lTickDuration;
+    }
+
+    /**
+     * Get the name of the host, used as the default id of the node
+     * 
+     * @return the name of the host
+     */
+    private static String getHostName( )
+    {
+        try
+        {
+            return InetAddress.getLocalHost( ).getHostName( );
+        }
+        catch( UnknownHostException e )
+        {
+            AppLogService.error( "Unable to get the host name, set the property " + PROPERTY_NODE_ID, e );
+            return "localhost";
+        }
+    }
+
+    /**
+     * Get the key of a hold
+     * 
+     * @param strIdSession
+     *            the id of the session
+     * @param nIdSlot
+     *            the id of the slot
+     * @return the key
+     */
+    private static String getKey( String strIdSession, int nIdSlot )
+    {
+        return strIdSession + "_" + nIdSlot;
+    }
+}
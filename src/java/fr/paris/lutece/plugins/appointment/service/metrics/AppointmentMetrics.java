@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import fr.paris.lutece.plugins.appointment.service.AppointmentExecutorService;
+import fr.paris.lutece.plugins.appointment.service.listeners.ListenerEventBus;
+import fr.paris.lutece.plugins.appointment.service.lock.SlotHoldManager;
+
+/**
+ * Registry of the metrics of the plugin: the durations of the hot paths (booking, locking, calendar building, export, listener dispatch) and the counters of
+ * the rejected and failed bookings, with the state of the listener event bus, of the executor and of the holds of places on the slots. The metrics are updated
+ * without lock and have no dependency, they are read by the admin feature and exported in the Prometheus text format.
+ */
+public final class AppointmentMetrics
+{
+    /**
+     * Type of a metric
+     */
+    public enum Type
+    {
+        COUNTER, GAUGE, HISTOGRAM
+    }
+
+    private static final Map<String, Metric> _mapMetrics = new ConcurrentSkipListMap<>( );
+    private static final ConcurrentMap<String, LatencyHistogram> _mapTimers = new ConcurrentHashMap<>( );
+    private static final ConcurrentMap<String, LongAdder> _mapCounters = new ConcurrentHashMap<>( );
+
+    /**
+     * Duration of the booking of an appointment
+     */
+    public static final LatencyHistogram SAVE_APPOINTMENT = timer( "appointment_save_appointment", "Duration of the booking of an appointment" );
+
+    /**
+     * Time spent waiting for the locks of the slots
+     */
+    public static final LatencyHistogram SLOT_LOCK_WAIT = timer( "appointment_slot_lock_wait", "Time spent waiting for the locks of the slots" );
+
+    /**
+     * Duration of the transaction of the booking of an appointment
+     */
+    public static final LatencyHistogram SAVE_APPOINTMENT_TRANSACTION = timer( "appointment_save_appointment_transaction",
+            "Duration of the transaction of the booking of an appointment" );
+
+    /**
+     * Duration of the workflow actions run when an appointment is booked
+     */
+    public static final LatencyHistogram SAVE_APPOINTMENT_WORKFLOW = timer( "appointment_save_appointment_workflow",
+            "Duration of the workflow actions run when an appointment is booked" );
+
+    /**
+     * Duration of the holding of the places of a slot when a user starts to fill the form
+     */
+    public static final LatencyHistogram PUT_TIMER_IN_SESSION = timer( "appointment_put_timer_in_session",
+            "Duration of the holding of the places of a slot when a user starts to fill the form" );
+
+    /**
+     * Duration of the building of the slots of a calendar
+     */
+    public static final LatencyHistogram CALENDAR_BUILD = timer( "appointment_calendar_build", "Duration of the building of the slots of a calendar" );
+
+    /**
+     * Duration of the export of the appointments
+     */
+    public static final LatencyHistogram EXPORT = timer( "appointment_export", "Duration of the export of the appointments" );
+
+    /**
+     * Duration of the delivery of the events to the listeners
+     */
+    public static final LatencyHistogram LISTENER_DISPATCH = timer( "appointment_listener_dispatch", "Duration of the delivery of the events to the listeners" );
+
+    /**
+     * Number of bookings rejected because a slot is full
+     */
+    public static final LongAdder SLOT_FULL = counter( "appointment_slot_full", "Number of bookings rejected because a slot is full" );
+
+    /**
+     * Number of bookings failed on an unexpected error
+     */
+    public static final LongAdder SAVE_APPOINTMENT_ERROR = counter( "appointment_save_appointment_error", "Number of bookings failed on an unexpected error" );
+
+    static
+    {
+        gauge( "appointment_listener_queue_depth", "Number of listener events waiting to be delivered", ListenerEventBus::getQueueDepth );
+        gauge( "appointment_listener_last_lag_milliseconds", "Lag of the last listener events delivered", ListenerEventBus::getLastLag );
+        gauge( "appointment_listener_max_lag_milliseconds", "Highest lag of the listener events delivered", ListenerEventBus::getMaxLag );
+        counter( "appointment_listener_published", "Number of listener events published", ListenerEventBus::getPublishedCount );
+        counter( "appointment_listener_coalesced", "Number of listener events coalesced with a pending event", ListenerEventBus::getCoalescedCount );
+        counter( "appointment_listener_discarded", "Number of listener events discarded because the queue was full", ListenerEventBus::getDiscardedCount );
+        counter( "appointment_listener_delivered", "Number of listener events delivered", ListenerEventBus::getDeliveredCount );
+        gauge( "appointment_slot_holds", "Number of active holds on the slots, the holds of each form are in appointment_slot_holds_form_<id>",
+                ( ) -> SlotHoldManager.INSTANCE.getNbActiveHolds( ) );
+        gauge( "appointment_executor_active_tasks", "Number of tasks running in the executor", ( ) -> AppointmentExecutorService.INSTANCE.getActiveCount( ) );
+        gauge( "appointment_executor_queued_tasks", "Number of tasks waiting in the executor", ( ) -> AppointmentExecutorService.INSTANCE.getQueuedCount( ) );
+        counter( "appointment_executor_completed_tasks", "Number of tasks completed by the executor",
+                ( ) -> AppointmentExecutorService.INSTANCE.getCompletedCount( ) );
+        counter( "appointment_executor_rejected_tasks", "Number of tasks rejected by the executor and run by the caller",
+                ( ) -> AppointmentExecutorService.INSTANCE.getRejectedCount( ) );
+        timer( "appointment_executor_wait", "Time spent by the tasks waiting in the executor",
+                ( ) -> AppointmentExecutorService.INSTANCE.getWaitTimeHistogram( ) );
+        timer( "appointment_executor_run", "Duration of the tasks run by the executor", ( ) -> AppointmentExecutorService.INSTANCE.getRunTimeHistogram( ) );
+    }
+
+    /**
+     * A metric of the registry
+     */
+    public static final class Metric
+    {
+        private final String _strName;
+        private final String _strHelp;
+        private final Type _type;
+        private final LongSupplier _value;
+        private final Supplier<LatencyHistogram> _histogram;
+
+        /**
+         * Constructor, package-private for the tests, that build metrics outside of the registry
+         * 
+         * @param strName
+         *            the name of the metric
+         * @param strHelp
+         *            the description of the metric
+         * @param type
+         *            the type of the metric
+         * @param value
+         *            the supplier of the value of a counter or of a gauge, null for a histogram
+         * @param histogram
+         *            the supplier of the histogram of a timer, null for a counter or a gauge
+         */
+        Metric( String strName, String strHelp, Type type, LongSupplier value, Supplier<LatencyHistogram> histogram )
+        {
+            _strName = strName;
+            _strHelp = strHelp;
+            _type = type;
+            _value = value;
+            _histogram = histogram;
+        }
+
+        /**
+         * Get the name of the metric
+         * 
+         * @return the name
+         */
+        public String getName( )
+        {
+            return _strName;
+        }
+
+        /**
+         * Get the description of the metric
+         * 
+         * @return the description
+         */
+        public String getHelp( )
+        {
+            return _strHelp;
+        }
+
+        /**
+         * Get the type of the metric
+         * 
+         * @return the type
+         */
+        public Type getType( )
+        {
+            return _type;
+        }
+
+        /**
+         * Get the value of a counter or of a gauge
+         * 
+         * @return the value, 0 for a histogram
+         */
+        public long getValue( )
+        {
+            return _value != null ? _value.getAsLong( ) : 0L;
+        }
+
+        /**
+         * Get the histogram of a timer
+         * 
+         * @return the histogram, null for a counter or a gauge
+         */
+        public LatencyHistogram getHistogram( )
+        {
+            return _histogram != null ? _histogram.get( ) : null;
+        }
+    }
+
+    /**
+     * Private constructor - this class does not need to be instantiated
+     */
+    private AppointmentMetrics( )
+    {
+    }
+
+    /**
+     * Get a timer of the registry, creating it if it does not exist
+     * 
+     * @param strName
+     *            the name of the timer
+     * @param strHelp
+     *            the description of the timer
+     * @return the histogram of the durations recorded by the timer
+     */
+    public static LatencyHistogram timer( String strName, String strHelp )
+    {
+        return _mapTimers.computeIfAbsent( strName, name -> {
+            LatencyHistogram histogram = new LatencyHistogram( );
+            _mapMetrics.put( name, new Metric( name, strHelp, Type.HISTOGRAM, null, ( ) -> histogram ) );
+            return histogram;
+        } );
+    }
+
+    /**
+     * Register a timer whose histogram is held by another component
+     * 
+     * @param strName
+     *            the name of the timer
+     * @param strHelp
+     *            the description of the timer
+     * @param histogram
+     *            the supplier of the histogram
+     */
+    public static void timer( String strName, String strHelp, Supplier<LatencyHistogram> histogram )
+    {
+        _mapMetrics.put( strName, new Metric( strName, strHelp, Type.HISTOGRAM, null, histogram ) );
+    }
+
+    /**
+     * Get a counter of the registry, creating it if it does not exist
+     * 
+     * @param strName
+     *            the name of the counter
+     * @param strHelp
+     *            the description of the counter
+     * @return the counter
+     */
+    public static LongAdder counter( String strName, String strHelp )
+    {
+        return _mapCounters.computeIfAbsent( strName, name -> {
+            LongAdder counter = new LongAdder( );
+            _mapMetrics.put( name, new Metric( name, strHelp, Type.COUNTER, counter::sum, null ) );
+            return counter;
+        } );
+    }
+
+    /**
+     * Register a counter whose value is held by another component
+     * 
+     * @param strName
+     *            the name of the counter
+     * @param strHelp
+     *            the description of the counter
+     * @param value
+     *            the supplier of the value of the counter
+     */
+    public static void counter( String strName, String strHelp, LongSupplier value )
+    {
+        _mapMetrics.put( strName, new Metric( strName, strHelp, Type.COUNTER, value, null ) );
+    }
+
+    /**
+     * Register a gauge
+     * 
+     * @param strName
+     *            the name of the gauge
+     * @param strHelp
+     *            the description of the gauge
+     * @param value
+     *            the supplier of the value of the gauge
+     */
+    public static void gauge( String strName, String strHelp, LongSupplier value )
+    {
+        _mapMetrics.put( strName, new Metric( strName, strHelp, Type.GAUGE, value, null ) );
+    }
+
+    /**
+     * Get the metrics of the registry
+     * 
+     * @return the metrics, sorted by name
+     */
+    public static List<Metric> getMetrics( )
+    {
+        return new ArrayList<>( _mapMetrics.values( ) );
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of durations, with fixed buckets in milliseconds. The durations are recorded without lock, so the histogram can be updated by many threads.
+ */
+public final class LatencyHistogram
+{
+    private static final long [ ] DEFAULT_BUCKET_BOUNDS = {
+            1L, 5L, 10L, 25L, 50L, 100L, 250L, 500L, 1000L, 2500L, 5000L, 10000L
+    };
+
+    private final long [ ] _bucketBounds;
+    private final AtomicLongArray _bucketCounts;
+    private final LongAdder _count = new LongAdder( );
+    private final LongAdder _sumNanos = new LongAdder( );
+
+    /**
+     * Constructor with the default buckets, from 1 ms to 10 s
+     */
+    public LatencyHistogram( )
+    {
+        this( DEFAULT_BUCKET_BOUNDS );
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param bucketBounds
+     *            the upper bounds of the buckets in milliseconds, in ascending order. A last bucket holds the durations above the highest bound.
+     */
+    public LatencyHistogram( long [ ] bucketBounds )
+    {
+        _bucketBounds = bucketBounds.clone( );
+        _bucketCounts = new AtomicLongArray( _bucketBounds.length + 1 );
+    }
+
+    /**
+     * Record a duration
+     * 
+     * @param lDurationNanos
+     *            the duration in nanoseconds
+     */
+    public void record( long lDurationNanos )
+    {
+        long lDurationMillis = TimeUnit.NANOSECONDS.toMillis( lDurationNanos );
+        int nBucket = 0;
+        while ( nBucket < _bucketBounds.length && lDurationMillis > _bucketBounds [nBucket] )
+        {
+            nBucket++;
+        }
+        _bucketCounts.incrementAndGet( nBucket );
+        _count.increment( );
+        _sumNanos.add( lDurationNanos );
+    }
+
+    /**
+     * Get the upper bounds of the buckets
+     * 
+     * @return the bounds in milliseconds
+     */
+    public long [ ] getBucketBounds( )
+    {
+        return _bucketBounds.clone( );
+    }
+
+    /**
+     * Get the number of durations recorded in each bucket. The last value is the number of durations above the highest bound.
+     * 
+     * @return the counts of the buckets
+     */
+    public long [ ] getBucketCounts( )
+    {
+        long [ ] counts = new long [ _bucketCounts.length( )];
+        for ( int i = 0; i < counts.length; i++ )
+        {
+            counts [i] = _bucketCounts.get( i );
+        }
+        return counts;
+    }
+
+    /**
+     * Get an estimate of a quantile of the durations recorded: the upper bound of the bucket holding it
+     * 
+     * @param dQuantile
+     *            the quantile, between 0 and 1
+     * @return the upper bound in milliseconds of the bucket holding the quantile, 0 if no duration was recorded, or -1 if the quantile is above the highest
+     *         bound
+     */
+    public long getQuantileUpperBound( double dQuantile )
+    {
+        return getQuantileUpperBound( _bucketBounds, getBucketCounts( ), dQuantile );
+    }
+
+    /**
+     * Get an estimate of a quantile from the counts of the buckets of a histogram, for example the difference between two reads of the counts
+     * 
+     * @param bucketBounds
+     *            the upper bounds of the buckets in milliseconds
+     * @param counts
+     *            the counts of the buckets, the last value being the number of durations above the highest bound
+     * @param dQuantile
+     *            the quantile, between 0 and 1
+     * @return the upper bound in milliseconds of the bucket holding the quantile, 0 if there is no duration, or -1 if the quantile is above the highest
+     *         bound
+     */
+    public static long getQuantileUpperBound( long [ ] bucketBounds, long [ ] counts, double dQuantile )
+    {
+        long lTotal = 0;
+        for ( long lCount : counts )
+        {
+            lTotal += lCount;
+        }
+        if ( lTotal == 0 )
+        {
+            return 0;
+        }
+        long lRank = (long) Math.ceil( dQuantile * lTotal );
+        long lCumulated = 0;
+        for ( int i = 0; i < bucketBounds.length; i++ )
+        {
+            lCumulated += counts [i];
+            if ( lCumulated >= lRank )
+            {
+                return bucketBounds [i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the number of durations recorded
+     * 
+     * @return the count
+     */
+    public long getCount( )
+    {
+        return _count.sum( );
+    }
+
+    /**
+     * Get the sum of the durations recorded
+     * 
+     * @return the sum in milliseconds
+     */
+    public double getSumMillis( )
+    {
+        return _sumNanos.sum( ) / (double) TimeUnit.MILLISECONDS.toNanos( 1 );
+    }
+}
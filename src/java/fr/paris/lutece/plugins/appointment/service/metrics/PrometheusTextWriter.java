@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service.metrics;
+
+import java.util.List;
+
+/**
+ * Writer of the metrics in the Prometheus text exposition format (version 0.0.4). The timers are written as histograms in seconds, with cumulative buckets.
+ */
+public final class PrometheusTextWriter
+{
+    /**
+     * Content type of the Prometheus text exposition format
+     */
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final String SUFFIX_SECONDS = "_seconds";
+    private static final String SUFFIX_TOTAL = "_total";
+    private static final String SUFFIX_BUCKET = "_bucket";
+    private static final String SUFFIX_SUM = "_sum";
+    private static final String SUFFIX_COUNT = "_count";
+    private static final String LABEL_LE_START = "{le=\"";
+    private static final String LABEL_END = "\"} ";
+    private static final String LABEL_INFINITY = "+Inf";
+    private static final double MILLISECONDS_PER_SECOND = 1000d;
+
+    /**
+     * Private constructor - this class does not need to be instantiated
+     */
+    private PrometheusTextWriter( )
+    {
+    }
+
+    /**
+     * Write metrics in the Prometheus text format
+     * 
+     * @param listMetrics
+     *            the metrics
+     * @return the text of the metrics
+     */
+    public static String write( List<AppointmentMetrics.Metric> listMetrics )
+    {
+        StringBuilder sbText = new StringBuilder( );
+        for ( AppointmentMetrics.Metric metric : listMetrics )
+        {
+            switch( metric.getType( ) )
+            {
+                case COUNTER:
+                    writeHeader( sbText, metric.getName( ) + SUFFIX_TOTAL, metric.getHelp( ), "counter" );
+                    sbText.append( metric.getName( ) ).append( SUFFIX_TOTAL ).append( ' ' ).append( metric.getValue( ) ).append( '\n' );
+                    break;
+                case GAUGE:
+                    writeHeader( sbText, metric.getName( ), metric.getHelp( ), "gauge" );
+                    sbText.append( metric.getName( ) ).append( ' ' ).append( metric.getValue( ) ).append( '\n' );
+                    break;
+                case HISTOGRAM:
+                    writeHistogram( sbText, metric );
+                    break;
+                default:
+                    break;
+            }
+        }
+        return sbText.toString( );
+    }
+
+    /**
+     * Write a timer as a histogram in seconds
+     * 
+     * @param sbText
+     *            the text
+     * @param metric
+     *            the timer
+     */
+    private static void writeHistogram( StringBuilder sbText, AppointmentMetrics.Metric metric )
+    {
+        LatencyHistogram histogram = metric.getHistogram( );
+        if ( histogram == null )
+        {
+            return;
+        }
+        String strName = metric.getName( ) + SUFFIX_SECONDS;
+        writeHeader( sbText, strName, metric.getHelp( ), "histogram" );
+        long [ ] bucketBounds = histogram.getBucketBounds( );
+        long [ ] bucketCounts = histogram.getBucketCounts( );
+        long lCumulated = 0;
+        for ( int i = 0; i < bucketBounds.length; i++ )
+        {
+            lCumulated += bucketCounts [i];
+            sbText.append( strName ).append( SUFFIX_BUCKET ).append( LABEL_LE_START ).append( bucketBounds [i] / MILLISECONDS_PER_SECOND ).append( LABEL_END )
+                    .append( lCumulated ).append( '\n' );
+        }
+        lCumulated += bucketCounts [bucketBounds.length];
+        sbText.append( strName ).append( SUFFIX_BUCKET ).append( LABEL_LE_START ).append( LABEL_INFINITY ).append( LABEL_END ).append( lCumulated ).append( '\n' );
+        sbText.append( strName ).append( SUFFIX_SUM ).append( ' ' ).append( histogram.getSumMillis( ) / MILLISECONDS_PER_SECOND ).append( '\n' );
+        // The count is the one of the buckets, so that it matches the +Inf bucket even if durations are recorded while writing
+        sbText.append( strName ).append( SUFFIX_COUNT ).append( ' ' ).append( lCumulated ).append( '\n' );
+    }
+
+    /**
+     * Write the description and the type of a metric
+     * 
+     * @param sbText
+     *            the text
+     * @param strName
+     *            the name of the metric
+     * @param strHelp
+     *            the description of the metric
+     * @param strType
+     *            the Prometheus type of the metric
+     */
+    private static void writeHeader( StringBuilder sbText, String strName, String strHelp, String strType )
+    {
+        sbText.append( "# HELP " ).append( strName ).append( ' ' ).append( strHelp.replace( "\\", "\\\\" ).replace( "\n", "\\n" ) ).append( '\n' );
+        sbText.append( "# TYPE " ).append( strName ).append( ' ' ).append( strType ).append( '\n' );
+    }
+}
@@ -34,6 +34,7 @@
 package fr.paris.lutece.plugins.appointment.web;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
@@ -215,20 +216,23 @@ public class AppointmentAnnualCalendarJspBean extends AbstractAppointmentFormAnd
 
         }
         ReservationRule reservationRule = ReservationRuleService.findReservationRuleById( newWeek.getIdReservationRule( ) );
-        listSlotsImpacted.addAll( SlotHome.findByIdFormAndDateRange( nIdForm, newWeek.getDateOfApply( ).atStartOfDay( ),
-                newWeek.getEndingDateOfApply( ).atTime( LocalTime.MAX ) ) );
-        List<Slot> listSlotsImpactedWithAppointment = SlotService.findSlotWithAppointmentByDateRange( nIdForm, newWeek.getDateOfApply( ).atStartOfDay( ),
-                newWeek.getEndingDateOfApply( ).atTime( LocalTime.MAX ) );
-
-        if ( CollectionUtils.isNotEmpty( listSlotsImpacted ) )
+        LocalDateTime startingDateTime = newWeek.getDateOfApply( ).atStartOfDay( );
+        LocalDateTime endingDateTime = newWeek.getEndingDateOfApply( ).atTime( LocalTime.MAX );
+        // The slots with appointments are loaded only if there is at least one
+        List<Slot> listSlotsImpactedWithAppointment = new ArrayList<>( );
+        if ( SlotHome.existsSlotWithAppointmentByDateRange( nIdForm, startingDateTime, endingDateTime ) )
         {
+            listSlotsImpactedWithAppointment.addAll( SlotService.findSlotWithAppointmentByDateRange( nIdForm, startingDateTime, endingDateTime ) );
             // if there are appointments impacted
-            if ( CollectionUtils.isNotEmpty( listSlotsImpactedWithAppointment )
-                    && !AppointmentUtilities.checkNoAppointmentsImpacted( listSlotsImpactedWithAppointment, reservationRule.getIdReservationRule( ) ) )
+            if ( !AppointmentUtilities.checkNoAppointmentsImpacted( listSlotsImpactedWithAppointment, reservationRule ) )
             {
                 addError( MESSAGE_ERROR_MODIFY_FORM_HAS_APPOINTMENTS_AFTER_DATE_OF_MODIFICATION, getLocale( ) );
                 return redirect( request, VIEW_MANAGE_ANNUAL_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_START_YEAR, newWeek.getDateOfApply( ).getYear( ) );
             }
+        }
+        listSlotsImpacted.addAll( SlotHome.findByIdFormAndDateRange( nIdForm, startingDateTime, endingDateTime ) );
+        if ( CollectionUtils.isNotEmpty( listSlotsImpacted ) )
+        {
             updateSlotImpacted( listSlotsImpacted, listSlotsImpactedWithAppointment, reservationRule );
         }
         WeekDefinitionService.assignWeekDefinition( nIdForm, newWeek );
@@ -276,19 +280,17 @@ public class AppointmentAnnualCalendarJspBean extends AbstractAppointmentFormAnd
             addError( ERROR_MESSAGE_WEEK_IS_OPEN_FO, getLocale( ) );
             return redirect( request, VIEW_MANAGE_ANNUAL_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_START_YEAR, week.getDateOfApply( ).getYear( ) );
         }
-        listSlotsImpacted.addAll(
-                SlotHome.findByIdFormAndDateRange( nIdForm, week.getDateOfApply( ).atStartOfDay( ), week.getEndingDateOfApply( ).atTime( LocalTime.MAX ) ) );
-        List<Slot> listSlotsImpactedWithAppointment = SlotService.findSlotWithAppointmentByDateRange( nIdForm, week.getDateOfApply( ).atStartOfDay( ),
-                week.getEndingDateOfApply( ).atTime( LocalTime.MAX ) );
-
+        LocalDateTime startingDateTime = week.getDateOfApply( ).atStartOfDay( );
+        LocalDateTime endingDateTime = week.getEndingDateOfApply( ).atTime( LocalTime.MAX );
+        // if there are appointments impacted
+        if ( SlotHome.existsSlotWithAppointmentByDateRange( nIdForm, startingDateTime, endingDateTime ) )
+        {
+            addError( MESSAGE_ERROR_MODIFY_FORM_HAS_APPOINTMENTS_AFTER_DATE_OF_MODIFICATION, getLocale( ) );
+            return redirect( request, VIEW_MANAGE_ANNUAL_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_START_YEAR, week.getDateOfApply( ).getYear( ) );
+        }
+        listSlotsImpacted.addAll( SlotHome.findByIdFormAndDateRange( nIdForm, startingDateTime, endingDateTime ) );
         if ( CollectionUtils.isNotEmpty( listSlotsImpacted ) )
         {
-            // if there are appointments impacted
-            if ( CollectionUtils.isNotEmpty( listSlotsImpactedWithAppointment ) )
-            {
-                addError( MESSAGE_ERROR_MODIFY_FORM_HAS_APPOINTMENTS_AFTER_DATE_OF_MODIFICATION, getLocale( ) );
-                return redirect( request, VIEW_MANAGE_ANNUAL_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_START_YEAR, week.getDateOfApply( ).getYear( ) );
-            }
             SlotService.deleteListSlots( listSlotsImpacted );
         }
 
@@ -348,10 +350,8 @@ public class AppointmentAnnualCalendarJspBean extends AbstractAppointmentFormAnd
             return redirect( request, VIEW_MANAGE_ANNUAL_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_START_YEAR,
                     weekToDelete.getDateOfApply( ).getYear( ) );
         }
-        List<Slot> listSlotsImpactedWithAppointment = SlotHome.findSlotWithAppointmentByDateRange( nIdForm, weekToDelete.getDateOfApply( ).atStartOfDay( ),
-                weekToDelete.getEndingDateOfApply( ).atTime( LocalTime.MAX ) );
-
-        if ( CollectionUtils.isNotEmpty( listSlotsImpactedWithAppointment ) )
+        if ( SlotHome.existsSlotWithAppointmentByDateRange( nIdForm, weekToDelete.getDateOfApply( ).atStartOfDay( ),
+                weekToDelete.getEndingDateOfApply( ).atTime( LocalTime.MAX ) ) )
         {
             addError( MESSAGE_INFO_VALIDATED_APPOINTMENTS_IMPACTED, getLocale( ) );
             return redirect( request, VIEW_MANAGE_ANNUAL_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_START_YEAR,
@@ -55,7 +55,6 @@ import javax.servlet.http.HttpServletRequest;
 
 import fr.paris.lutece.portal.business.file.File;
 import fr.paris.lutece.portal.service.security.SecurityTokenService;
-import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 
@@ -75,7 +74,10 @@ import fr.paris.lutece.plugins.appointment.log.LogUtilities;
 import fr.paris.lutece.plugins.appointment.service.AppointmentResponseService;
 import fr.paris.lutece.plugins.appointment.service.AppointmentService;
 import fr.paris.lutece.plugins.appointment.service.AppointmentUtilities;
+import fr.paris.lutece.plugins.appointment.service.AppointmentWorkflowResolver;
 import fr.paris.lutece.plugins.appointment.service.EntryService;
+import fr.paris.lutece.plugins.appointment.service.FormIconCacheService;
+import fr.paris.lutece.plugins.appointment.service.FormIconCacheService.FormIcon;
 import fr.paris.lutece.plugins.appointment.service.FormMessageService;
 import fr.paris.lutece.plugins.appointment.service.FormService;
 import fr.paris.lutece.plugins.appointment.service.ReservationRuleService;
@@ -245,11 +247,6 @@ public class AppointmentApp extends MVCApplication
     private static final String MARK_BACK_URL = "backUrl";
     private static final String MARK_FROM_URL = "fromUrl";
     private static final String MARK_LIST_RESPONSE_RECAP_DTO = "listResponseRecapDTO";
-    private static final String MARK_DATA = "data";
-    private static final String MARK_BASE_64 = "base64";
-    private static final String MARK_SEMI_COLON = ";";
-    private static final String MARK_COMMA = ",";
-    private static final String MARK_COLON = ":";
     private static final String MARK_ICONS = "icons";
     private static final String MARK_ICON_NULL = "NULL";
     private static final String MARK_ANCHOR = "#";
@@ -295,14 +292,9 @@ public class AppointmentApp extends MVCApplication
 
     // Local variables
     private transient CaptchaSecurityService _captchaSecurityService;
-    private int _nNbPlacesToTake;
-    private String _strNbPlacesToTakeLength;
-    private AppointmentFormDTO _appointmentForm;
-    private AppointmentDTO _notValidatedAppointment;
-    private AppointmentDTO _validatedAppointment;
 
     /**
-     * Get the calendar view
+     * Get the calendar view. The view is not synchronized: it works on local variables and only publishes the state of the booking in the session at the end.
      *
      * @param request
      * @return the Xpage
@@ -310,20 +302,23 @@ public class AppointmentApp extends MVCApplication
      */
     @SuppressWarnings( "unchecked" )
     @View( VIEW_APPOINTMENT_CALENDAR )
-    public synchronized XPage getViewAppointmentCalendar( HttpServletRequest request ) throws AccessDeniedException
+    public XPage getViewAppointmentCalendar( HttpServletRequest request ) throws AccessDeniedException
     {
         Map<String, Object> model = getModel( );
         Locale locale = getLocale( request );
-        _nNbPlacesToTake = 0;
+        int nNbPlacesToTake = 0;
+        AppointmentBookingSession bookingSession = AppointmentBookingSession.get( request );
+        AppointmentDTO validatedAppointment = bookingSession.getValidatedAppointment( );
+        AppointmentDTO appointmentToReport = null;
 
         int nIdForm = Integer.parseInt( request.getParameter( PARAMETER_ID_FORM ) );
         String nbPlacesToTake = request.getParameter( PARAMETER_NB_PLACE_TO_TAKE );
         String refAppointment = request.getParameter( PARAMETER_REF_APPOINTMENT );
 
-        _appointmentForm = FormService.buildAppointmentFormWithoutReservationRule( nIdForm );
-        _strNbPlacesToTakeLength = String.valueOf(_appointmentForm.getNbConsecutiveSlots());
+        AppointmentFormDTO appointmentForm = FormService.buildAppointmentFormWithoutReservationRule( nIdForm );
+        int nMaxNbPlacesToTake = appointmentForm.getNbConsecutiveSlots( );
         boolean bError = false;
-        if ( !_appointmentForm.getIsActive( ) )
+        if ( !appointmentForm.getIsActive( ) )
         {
             addError( ERROR_MESSAGE_FORM_NOT_ACTIVE, locale );
             bError = true;
@@ -339,6 +334,7 @@ public class AppointmentApp extends MVCApplication
             if( appointmentDTO == null )
             {
             	// When the appointment Object doesn't exist, we display an error message to the user
+            	bookingSession.setCalendarState( appointmentForm, nNbPlacesToTake, null );
             	return getXPage( TEMPLATE_ERROR_APPOINTMENT_REFERENCE, locale, model );
             }
             if ( appointmentDTO.getIsCancelled( ) || appointmentDTO.getStartingDateTime( ).isBefore( LocalDateTime.now( ) ) )
@@ -348,30 +344,31 @@ public class AppointmentApp extends MVCApplication
             }
             else
             {
-                _validatedAppointment = appointmentDTO;
-                AppointmentService.addAppointmentResponses( _validatedAppointment );
-                nbPlacesToTake = Integer.toString( _validatedAppointment.getNbBookedSeats( ) );
+                appointmentToReport = appointmentDTO;
+                validatedAppointment = appointmentDTO;
+                AppointmentService.addAppointmentResponses( validatedAppointment );
+                nbPlacesToTake = Integer.toString( validatedAppointment.getNbBookedSeats( ) );
             }
         }
         LocalDate startingDateOfDisplay = LocalDate.now( );
         // Check if the date of display and the endDateOfDisplay are in the
         // validity date range of the form
         LocalDate startingValidityDate = null;
-        if ( _appointmentForm.getDateStartValidity( ) == null )
+        if ( appointmentForm.getDateStartValidity( ) == null )
         {
             addError( ERROR_MESSAGE_NO_STARTING_VALIDITY_DATE, locale );
             bError = true;
         }
         else
         {
-            startingValidityDate = _appointmentForm.getDateStartValidity( ).toLocalDate( );
+            startingValidityDate = appointmentForm.getDateStartValidity( ).toLocalDate( );
         }
         if ( startingValidityDate != null && startingValidityDate.isAfter( startingDateOfDisplay ) )
         {
             startingDateOfDisplay = startingValidityDate;
         }
         // Get the nb weeks to display
-        int nNbWeeksToDisplay = _appointmentForm.getNbWeeksToDisplay( );
+        int nNbWeeksToDisplay = appointmentForm.getNbWeeksToDisplay( );
         // Calculate the ending date of display with the nb weeks to display
         // since today
         // We calculate the number of weeks including the current week, so it
@@ -384,9 +381,9 @@ public class AppointmentApp extends MVCApplication
         // assign the ending date of display with the ending validity date of
         // the form
         LocalDate endingValidityDate = null;
-        if ( _appointmentForm.getDateEndValidity( ) != null )
+        if ( appointmentForm.getDateEndValidity( ) != null )
         {
-            endingValidityDate = _appointmentForm.getDateEndValidity( ).toLocalDate( );
+            endingValidityDate = appointmentForm.getDateEndValidity( ).toLocalDate( );
             if ( endingDateOfDisplay.isAfter( endingValidityDate ) )
             {
                 endingDateOfDisplay = endingValidityDate;
@@ -422,19 +419,19 @@ public class AppointmentApp extends MVCApplication
         if ( !bError )
         {
             boolean isNewNbPlacesToTake = ( nbPlacesToTake != null && StringUtils.isNumeric( nbPlacesToTake ) );
-            if ( _appointmentForm.getIsMultislotAppointment( ) && ( _nNbPlacesToTake != 0 || isNewNbPlacesToTake ) )
+            if ( appointmentForm.getIsMultislotAppointment( ) && ( nNbPlacesToTake != 0 || isNewNbPlacesToTake ) )
             {
-                _nNbPlacesToTake = isNewNbPlacesToTake ? Integer.parseInt( nbPlacesToTake ) : _nNbPlacesToTake;
-                listSlots = SlotService.buildListSlot( nIdForm, mapReservationRule, startingDateOfDisplay, endingDateOfDisplay, _nNbPlacesToTake );
+                nNbPlacesToTake = isNewNbPlacesToTake ? Integer.parseInt( nbPlacesToTake ) : nNbPlacesToTake;
+                listSlots = SlotService.buildListSlot( nIdForm, mapReservationRule, startingDateOfDisplay, endingDateOfDisplay, nNbPlacesToTake );
 
             }
             else
             {
-                _nNbPlacesToTake = 0;
+                nNbPlacesToTake = 0;
                 listSlots = SlotService.buildListSlot( nIdForm, mapReservationRule, startingDateOfDisplay, endingDateOfDisplay );
             }
 
-            if ( _nNbPlacesToTake > Integer.parseInt( _strNbPlacesToTakeLength ) )
+            if ( nNbPlacesToTake > nMaxNbPlacesToTake )
             {
             	addError( ERROR_MESSAGE_NB_PLACE_TO_TAKE_TO_BIG, locale );
             }
@@ -448,11 +445,12 @@ public class AppointmentApp extends MVCApplication
             		);
             if ( accessControlPage != null )
             {
+            	bookingSession.setCalendarState( appointmentForm, nNbPlacesToTake, appointmentToReport );
             	return accessControlPage;
             }
 
             // Get the min time from now before a user can take an appointment (in hours)
-            int minTimeBeforeAppointment = _appointmentForm.getMinTimeBeforeAppointment( );
+            int minTimeBeforeAppointment = appointmentForm.getMinTimeBeforeAppointment( );
             LocalDateTime dateTimeBeforeAppointment = LocalDateTime.now( ).plusHours( minTimeBeforeAppointment );
             // Filter the list of slots
             if ( CollectionUtils.isNotEmpty( listSlots ) )
@@ -463,9 +461,9 @@ public class AppointmentApp extends MVCApplication
             // If we change the date of an appointment
             // filter the list of slot with only the ones that have enough places at
             // the moment of the edition
-            if ( _validatedAppointment != null )
+            if ( validatedAppointment != null )
             {
-                int nbBookedSeats = _validatedAppointment.getNbBookedSeats( );
+                int nbBookedSeats = validatedAppointment.getNbBookedSeats( );
                 listSlots = listSlots.stream( ).filter( s -> s.getNbPotentialRemainingPlaces( ) >= nbBookedSeats && s.getIsOpen( ) )
                         .collect( Collectors.toList( ) );
                 model.put( MARK_MODIFICATION_DATE_APPOINTMENT, true );
@@ -518,7 +516,7 @@ public class AppointmentApp extends MVCApplication
             listInfos.add( message );
         }
 
-        CalendarTemplate calendarTemplate = CalendarTemplateHome.findByPrimaryKey( _appointmentForm.getCalendarTemplateId( ) );
+        CalendarTemplate calendarTemplate = CalendarTemplateHome.findByPrimaryKey( appointmentForm.getCalendarTemplateId( ) );
         List<String> listHiddenDays = Stream.of( "0", "1", "2", "3", "4", "5", "6" ).collect( Collectors.toList( ) );
 
         /**
@@ -570,7 +568,7 @@ public class AppointmentApp extends MVCApplication
         model.put( PARAMETER_MAX_DATE_OF_OPEN_DAY,
                 endingDateOfDisplay.with( DayOfWeek.of( setOpenDays.stream( ).max( Comparator.naturalOrder( ) ).orElse( 1 ) ) ) );
 
-        model.put( MARK_FORM, _appointmentForm );
+        model.put( MARK_FORM, appointmentForm );
         model.put( PARAMETER_ID_FORM, nIdForm );
         model.put( MARK_FORM_MESSAGES, formMessages );
         model.put( PARAMETER_ENDING_DATE_OF_DISPLAY, endingDateOfDisplay );
@@ -580,18 +578,47 @@ public class AppointmentApp extends MVCApplication
         model.put( PARAMETER_MIN_TIME, AppointmentUtilities.getMinTimeToDisplay( minStartingTime ) );
         model.put( PARAMETER_MAX_TIME, AppointmentUtilities.getMaxTimeToDisplay( maxEndingTime ) );
         model.put( PARAMETER_MIN_DURATION, LocalTime.MIN.plusMinutes( AppointmentUtilities.THIRTY_MINUTES ) );
-        model.put( MARK_NBPLACESTOTAKE, _nNbPlacesToTake );
+        model.put( MARK_NBPLACESTOTAKE, nNbPlacesToTake );
         model.put( PARAMETER_EVENTS, listSlots );
         model.put( PARAMETER_HIDDEN_DAYS, listHiddenDays );
         model.put( PARAMETER_DAY_VIEW, dayView );
         model.put( PARAMETER_WEEK_VIEW, weekView );
-        model.put( MARK_MAX_NBPLACESTOTAKE, Integer.valueOf( _strNbPlacesToTakeLength ) );
+        model.put( MARK_MAX_NBPLACESTOTAKE, nMaxNbPlacesToTake );
         HtmlTemplate templateNbPlacesToTakeForm = AppTemplateService.getTemplate( TEMPLATE_HTML_CODE_NB_PLACES_TO_TAKE_FORM, locale, model );
         model.put( MARK_FORM_NB_PLACES_TO_TAKE_HTML, templateNbPlacesToTakeForm.getHtml( ) );
 
+        bookingSession.setCalendarState( appointmentForm, nNbPlacesToTake, appointmentToReport );
+
         return getXPage( calendarTemplate.getTemplatePath( ), locale, model );
     }
 
+    /**
+     * {@inheritDoc} Synchronized, since the calendar view can run concurrently with the other views of the session
+     */
+    @Override
+    protected synchronized Map<String, Object> getModel( )
+    {
+        return super.getModel( );
+    }
+
+    /**
+     * {@inheritDoc} Synchronized, since the calendar view can run concurrently with the other views of the session
+     */
+    @Override
+    protected synchronized void addError( String strMessage )
+    {
+        super.addError( strMessage );
+    }
+
+    /**
+     * {@inheritDoc} Synchronized, since the calendar view can run concurrently with the other views of the session
+     */
+    @Override
+    protected synchronized void addError( String strMessageKey, Locale locale )
+    {
+        super.addError( strMessageKey, locale );
+    }
+
     /**
      * Get the form appointment view (front office)
      *
@@ -606,32 +633,39 @@ public class AppointmentApp extends MVCApplication
         String strIdForm = request.getParameter( PARAMETER_ID_FORM );
         String strNbPlacesToTake = request.getParameter( PARAMETER_NB_PLACE_TO_TAKE );
         String strModifDateAppointment = request.getParameter( PARAMETER_MODIF_DATE );
+        AppointmentBookingSession bookingSession = AppointmentBookingSession.get( request );
+        AppointmentDTO validatedAppointment = bookingSession.getValidatedAppointment( );
 
-        if ( strModifDateAppointment != null && Boolean.parseBoolean( strModifDateAppointment ) && _validatedAppointment != null
-                && _validatedAppointment.getIdAppointment( ) != 0 )
+        if ( strModifDateAppointment != null && Boolean.parseBoolean( strModifDateAppointment ) && validatedAppointment != null
+                && validatedAppointment.getIdAppointment( ) != 0 )
         {
             return getViewChangeDateAppointment( request );
         }
+        int nNbPlacesToTake = bookingSession.getNbPlacesToTake( );
         if ( strNbPlacesToTake != null )
         {
-            _nNbPlacesToTake = Integer.parseInt( strNbPlacesToTake );
+            nNbPlacesToTake = Integer.parseInt( strNbPlacesToTake );
         }
 
         int nIdForm = Integer.parseInt( strIdForm );
-        if ( _appointmentForm == null || _appointmentForm.getIdForm( ) != nIdForm )
+        AppointmentFormDTO appointmentForm = bookingSession.getAppointmentForm( );
+        if ( appointmentForm == null || appointmentForm.getIdForm( ) != nIdForm )
         {
-            _appointmentForm = FormService.buildAppointmentFormWithoutReservationRule( nIdForm );
+            appointmentForm = FormService.buildAppointmentFormWithoutReservationRule( nIdForm );
+            bookingSession.setAppointmentForm( appointmentForm );
         }
-        if ( !_appointmentForm.getIsActive( ) )
+        if ( !appointmentForm.getIsActive( ) )
         {
+            bookingSession.setNbPlacesToTake( nNbPlacesToTake );
             addError( ERROR_MESSAGE_FORM_NOT_ACTIVE, getLocale( request ) );
-            return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, _nNbPlacesToTake );
+            return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, nNbPlacesToTake );
         }
-        if(!_appointmentForm.getIsMultislotAppointment())
+        if(!appointmentForm.getIsMultislotAppointment())
         {
-            _nNbPlacesToTake = 0;
+            nNbPlacesToTake = 0;
         }
-        checkMyLuteceAuthentication( _appointmentForm, request );
+        bookingSession.setNbPlacesToTake( nNbPlacesToTake );
+        checkMyLuteceAuthentication( appointmentForm, request );
         // Patch needed for authentication after being on the form
         String secondAttempt = request.getParameter( "secondAttempt" );
         boolean bTestSecondAttempt = Boolean.FALSE;
@@ -646,7 +680,7 @@ public class AppointmentApp extends MVCApplication
             LinkedHashMap<String, String> additionalParameters = new LinkedHashMap<>( );
             additionalParameters.put( PARAMETER_ID_FORM, strIdForm );
             additionalParameters.put( PARAMETER_STARTING_DATE_TIME, request.getParameter( PARAMETER_STARTING_DATE_TIME ) );
-            additionalParameters.put( PARAMETER_NB_PLACE_TO_TAKE, Integer.toString( _nNbPlacesToTake ) );
+            additionalParameters.put( PARAMETER_NB_PLACE_TO_TAKE, Integer.toString( nNbPlacesToTake ) );
             additionalParameters.put( PARAMETER_ANCHOR, MARK_ANCHOR + anchor );
             return redirect( request, VIEW_APPOINTMENT_FORM, additionalParameters );
 
@@ -664,13 +698,13 @@ public class AppointmentApp extends MVCApplication
         else
         {
 
-            int nNbConsecutiveSlot = ( _nNbPlacesToTake == 0 ) ? 1 : _nNbPlacesToTake;
+            int nNbConsecutiveSlot = ( nNbPlacesToTake == 0 ) ? 1 : nNbPlacesToTake;
             LocalDateTime startingDateTime = LocalDateTime.parse( request.getParameter( PARAMETER_STARTING_DATE_TIME ) );
-            if ( !isAuthorizedDate( startingDateTime, getLocale( request ) ) )
+            if ( !isAuthorizedDate( appointmentForm, startingDateTime, getLocale( request ) ) )
             {
 
                 addError( ERROR_MESSAGE_SLOT_FULL, getLocale( request ) );
-                return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, _nNbPlacesToTake );
+                return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, nNbPlacesToTake );
             }
             // Get all the week definitions
             List<WeekDefinition> listWeekDefinition = WeekDefinitionService.findListWeekDefinition( nIdForm );
@@ -682,38 +716,40 @@ public class AppointmentApp extends MVCApplication
                     .limit( nNbConsecutiveSlot ).collect( Collectors.toList( ) );
 
             if ( listSlot == null || listSlot.stream( ).noneMatch( slot -> slot.getStartingDateTime( ).isEqual( startingDateTime ) )
-                    || ( _nNbPlacesToTake > 0 && listSlot.size( ) != _nNbPlacesToTake ) || !AppointmentUtilities.isConsecutiveSlots( listSlot ) )
+                    || ( nNbPlacesToTake > 0 && listSlot.size( ) != nNbPlacesToTake ) || !AppointmentUtilities.isConsecutiveSlots( listSlot ) )
             {
                 addError( ERROR_MESSAGE_SLOT_FULL, getLocale( request ) );
-                return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, _nNbPlacesToTake );
+                return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, nNbPlacesToTake );
             }
 
         }
 
-        if ( _notValidatedAppointment == null || _notValidatedAppointment.getIdForm( ) != _appointmentForm.getIdForm( ) )
+        AppointmentDTO notValidatedAppointment = bookingSession.getNotValidatedAppointment( );
+        if ( notValidatedAppointment == null || notValidatedAppointment.getIdForm( ) != appointmentForm.getIdForm( ) )
         {
-            if ( _validatedAppointment != null && _validatedAppointment.getIdForm( ) == _appointmentForm.getIdForm( ) )
+            if ( validatedAppointment != null && validatedAppointment.getIdForm( ) == appointmentForm.getIdForm( ) )
             {
 
                 // Try to get the validated appointment in session
                 // (in case the user click on back button in the recap view (or
                 // modification)
-                _notValidatedAppointment = _validatedAppointment;
-                _validatedAppointment = null;
+                notValidatedAppointment = validatedAppointment;
+                bookingSession.setValidatedAppointment( null );
             }
             else
             {
                 // Need to get back the informations the user has entered
-                _notValidatedAppointment = new AppointmentDTO( );
+                notValidatedAppointment = new AppointmentDTO( );
             }
+            bookingSession.setNotValidatedAppointment( notValidatedAppointment );
         }
         if ( !bModificationForm )
         {
 
             boolean bool = true;
-            _notValidatedAppointment.setIdForm( nIdForm );
-            _notValidatedAppointment.setSlot( null );
-            _notValidatedAppointment.setNbMaxPotentialBookedSeats( 0 );
+            notValidatedAppointment.setIdForm( nIdForm );
+            notValidatedAppointment.setSlot( null );
+            notValidatedAppointment.setNbMaxPotentialBookedSeats( 0 );
             for ( Slot slot : listSlot )
             {
 
@@ -731,30 +767,30 @@ public class AppointmentApp extends MVCApplication
                 // May be the slot is already taken at the same time
                 if ( !bTestSecondAttempt && slot.getNbPotentialRemainingPlaces( ) == 0 )
                 {
-                    _notValidatedAppointment = null;
+                    bookingSession.setNotValidatedAppointment( null );
                     addError( ERROR_MESSAGE_SLOT_FULL, getLocale( request ) );
-                    return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, _nNbPlacesToTake );
+                    return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, nNbPlacesToTake );
                 }
 
-                _notValidatedAppointment.addSlot( slot );
+                notValidatedAppointment.addSlot( slot );
 
                 if ( bool )
                 {
-                    _notValidatedAppointment.setDateOfTheAppointment( slot.getDate( ).format( Utilities.getFormatter( ) ) );
+                    notValidatedAppointment.setDateOfTheAppointment( slot.getDate( ).format( Utilities.getFormatter( ) ) );
                     if ( SecurityService.getInstance( ).getRegisteredUser( request ) != null )
                     {
-                        setUserInfo( request, _notValidatedAppointment );
+                        setUserInfo( request, notValidatedAppointment );
                     }
-                    FormService.fillAppointmentFormWithReservationRulePart( _appointmentForm,
+                    FormService.fillAppointmentFormWithReservationRulePart( appointmentForm,
                             ReservationRuleService.findReservationRuleByIdFormAndClosestToDateOfApply( nIdForm, slot.getDate( ) ) );
                     bool = false;
                 }
-                AppointmentUtilities.putTimerInSession( request, slot.getIdSlot( ), _notValidatedAppointment, _appointmentForm.getMaxPeoplePerAppointment( ) );
+                AppointmentUtilities.putTimerInSession( request, slot.getIdSlot( ), notValidatedAppointment, appointmentForm.getMaxPeoplePerAppointment( ) );
             }
-            if ( _notValidatedAppointment.getNbMaxPotentialBookedSeats( ) == 0 )
+            if ( notValidatedAppointment.getNbMaxPotentialBookedSeats( ) == 0 )
             {
                 addError( ERROR_MESSAGE_SLOT_FULL, getLocale( request ) );
-                return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, _nNbPlacesToTake );
+                return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, nNbPlacesToTake );
             }
         }
         else
@@ -773,26 +809,26 @@ public class AppointmentApp extends MVCApplication
         Map<String, Object> model = getModel( );
         Locale locale = getLocale( request );
         StringBuilder strBuffer = new StringBuilder( );
-        List<Entry> listEntryFirstLevel = EntryService.getFilter( _appointmentForm.getIdForm( ), true );
+        List<Entry> listEntryFirstLevel = EntryService.getFilter( appointmentForm.getIdForm( ), true );
         for ( Entry entry : listEntryFirstLevel )
         {
-            EntryService.getHtmlEntry( model, entry.getIdEntry( ), strBuffer, locale, true, _notValidatedAppointment );
+            EntryService.getHtmlEntry( model, entry.getIdEntry( ), strBuffer, locale, true, notValidatedAppointment );
         }
         FormMessage formMessages = FormMessageService.findFormMessageByIdForm( nIdForm );
 
-        if ( _nNbPlacesToTake != 0 )
+        if ( nNbPlacesToTake != 0 )
         {
 
-            _notValidatedAppointment.setNbBookedSeats( _nNbPlacesToTake );
+            notValidatedAppointment.setNbBookedSeats( nNbPlacesToTake );
         }
-        model.put( MARK_APPOINTMENT, _notValidatedAppointment );
-        model.put( MARK_NBPLACESTOTAKE, _nNbPlacesToTake );
-        model.put( PARAMETER_DATE_OF_DISPLAY, _notValidatedAppointment.getSlot( ).get( 0 ).getDate( ) );
-        model.put( MARK_FORM, _appointmentForm );
+        model.put( MARK_APPOINTMENT, notValidatedAppointment );
+        model.put( MARK_NBPLACESTOTAKE, nNbPlacesToTake );
+        model.put( PARAMETER_DATE_OF_DISPLAY, notValidatedAppointment.getSlot( ).get( 0 ).getDate( ) );
+        model.put( MARK_FORM, appointmentForm );
         model.put( MARK_FORM_MESSAGES, formMessages );
         model.put( MARK_STR_ENTRY, strBuffer.toString( ) );
         model.put( MARK_LOCALE, locale );
-        model.put( MARK_PLACES, _notValidatedAppointment.getNbMaxPotentialBookedSeats( ) );
+        model.put( MARK_PLACES, notValidatedAppointment.getNbMaxPotentialBookedSeats( ) );
         model.put( MARK_LIST_ERRORS, AppointmentDTO.getAllErrors( locale ) );
         LuteceUser user = SecurityService.getInstance( ).getRegisteredUser( request );
         if( user != null )
@@ -822,9 +858,9 @@ public class AppointmentApp extends MVCApplication
         model.put( MARK_FORM_HTML, templateForm.getHtml( ) );
         XPage xPage = getXPage( TEMPLATE_APPOINTMENT_FORM, locale, model );
 
-        if ( _appointmentForm.getDisplayTitleFo( ) )
+        if ( appointmentForm.getDisplayTitleFo( ) )
         {
-            xPage.setTitle( _appointmentForm.getTitle( ) );
+            xPage.setTitle( appointmentForm.getTitle( ) );
         }
         return xPage;
     }
@@ -847,14 +883,17 @@ public class AppointmentApp extends MVCApplication
         {
             throw new AccessDeniedException( MESSAGE_ERROR_TOKEN );
         }
-        checkMyLuteceAuthentication( _appointmentForm, request );
+        AppointmentBookingSession bookingSession = AppointmentBookingSession.get( request );
+        AppointmentFormDTO appointmentForm = bookingSession.getAppointmentForm( );
+        AppointmentDTO notValidatedAppointment = bookingSession.getNotValidatedAppointment( );
+        checkMyLuteceAuthentication( appointmentForm, request );
         String strIdForm = request.getParameter( PARAMETER_ID_FORM );
-        if ( _notValidatedAppointment == null || _appointmentForm == null || _notValidatedAppointment.getIdForm( ) != _appointmentForm.getIdForm( ) )
+        if ( notValidatedAppointment == null || appointmentForm == null || notValidatedAppointment.getIdForm( ) != appointmentForm.getIdForm( ) )
         {
 
             addError( ERROR_MESSAGE_FORM_NO_MORE_VALID, getLocale( request ) );
-            _notValidatedAppointment = null;
-            _validatedAppointment = null;
+            bookingSession.setNotValidatedAppointment( null );
+            bookingSession.setValidatedAppointment( null );
             return redirectView( request, VIEW_APPOINTMENT_FORM_LIST );
         }
         List<GenericAttributeError> listFormErrors = new ArrayList<>( );
@@ -863,38 +902,38 @@ public class AppointmentApp extends MVCApplication
         String strEmailConfirm = request.getParameter( PARAMETER_EMAIL_CONFIRMATION );
         String strFirstName = request.getParameter( PARAMETER_FIRST_NAME );
         String strLastName = request.getParameter( PARAMETER_LAST_NAME );
-        AppointmentUtilities.checkDateOfTheAppointmentIsNotBeforeNow( _notValidatedAppointment, locale, listFormErrors );
-        AppointmentUtilities.checkEmail( strEmail, strEmailConfirm, _appointmentForm, locale, listFormErrors );
-        int nbBookedSeats = _nNbPlacesToTake;
-        if ( _nNbPlacesToTake == 0 )
+        AppointmentUtilities.checkDateOfTheAppointmentIsNotBeforeNow( notValidatedAppointment, locale, listFormErrors );
+        AppointmentUtilities.checkEmail( strEmail, strEmailConfirm, appointmentForm, locale, listFormErrors );
+        int nbBookedSeats = bookingSession.getNbPlacesToTake( );
+        if ( nbBookedSeats == 0 )
         {
 
-            nbBookedSeats = AppointmentUtilities.checkAndReturnNbBookedSeats( request.getParameter( PARAMETER_NUMBER_OF_BOOKED_SEATS ), _appointmentForm,
-                    _notValidatedAppointment, locale, listFormErrors );
+            nbBookedSeats = AppointmentUtilities.checkAndReturnNbBookedSeats( request.getParameter( PARAMETER_NUMBER_OF_BOOKED_SEATS ), appointmentForm,
+                    notValidatedAppointment, locale, listFormErrors );
 
         }
-        AppointmentUtilities.fillAppointmentDTO( _notValidatedAppointment, nbBookedSeats, strEmail, strEmailConfirm, strFirstName, strLastName );
-        AppointmentUtilities.validateFormAndEntries( _notValidatedAppointment, request, listFormErrors, false );
-        AppointmentUtilities.fillInListResponseWithMapResponse( _notValidatedAppointment );
-        AppointmentUtilities.setAppointmentPhoneNumberValuesFromResponse( _notValidatedAppointment );
+        AppointmentUtilities.fillAppointmentDTO( notValidatedAppointment, nbBookedSeats, strEmail, strEmailConfirm, strFirstName, strLastName );
+        AppointmentUtilities.validateFormAndEntries( notValidatedAppointment, request, listFormErrors, false );
+        AppointmentUtilities.fillInListResponseWithMapResponse( notValidatedAppointment );
+        AppointmentUtilities.setAppointmentPhoneNumberValuesFromResponse( notValidatedAppointment );
 
         boolean bErrors = false;
-        if ( _appointmentForm.getEnableMandatoryEmail( )
-                && !AppointmentUtilities.checkNbDaysBetweenTwoAppointmentsTaken( _notValidatedAppointment, strEmail, _appointmentForm ) )
+        if ( appointmentForm.getEnableMandatoryEmail( )
+                && !AppointmentUtilities.checkNbDaysBetweenTwoAppointmentsTaken( notValidatedAppointment, strEmail, appointmentForm ) )
         {
             addError( ERROR_MESSAGE_NB_MIN_DAYS_BETWEEN_TWO_APPOINTMENTS, locale );
             bErrors = true;
         }
-        if ( _appointmentForm.getEnableMandatoryEmail( )
-                && !AppointmentUtilities.checkNbMaxAppointmentsOnAGivenPeriod( _notValidatedAppointment, strEmail, _appointmentForm ) )
+        if ( appointmentForm.getEnableMandatoryEmail( )
+                && !AppointmentUtilities.checkNbMaxAppointmentsOnAGivenPeriod( notValidatedAppointment, strEmail, appointmentForm ) )
         {
             addError( ERROR_MESSAGE_NB_MAX_APPOINTMENTS_ON_A_PERIOD, locale );
             bErrors = true;
         }
 
         List<AppointmentDTO> listAppointments = new ArrayList<>( );
-        if ( _appointmentForm.getEnableMandatoryEmail( )
-                && !AppointmentUtilities.checkNbMaxAppointmentsDefinedOnCategory( _notValidatedAppointment, strEmail, _appointmentForm, listAppointments ) )
+        if ( appointmentForm.getEnableMandatoryEmail( )
+                && !AppointmentUtilities.checkNbMaxAppointmentsDefinedOnCategory( notValidatedAppointment, strEmail, appointmentForm, listAppointments ) )
         {
             StringJoiner builder = new StringJoiner( StringUtils.SPACE );
             String lf = System.getProperty( "line.separator" );
@@ -933,8 +972,8 @@ public class AppointmentApp extends MVCApplication
             additionalParameters.put( PARAMETER_ANCHOR, MARK_ANCHOR + STEP_3 );
             return redirect( request, VIEW_APPOINTMENT_FORM, additionalParameters );
         }
-        _validatedAppointment = _notValidatedAppointment;
-        _notValidatedAppointment = null;
+        bookingSession.setValidatedAppointment( notValidatedAppointment );
+        bookingSession.setNotValidatedAppointment( null );
         String anchor = request.getParameter( PARAMETER_ANCHOR );
         if ( StringUtils.isNotEmpty( anchor ) )
         {
@@ -961,7 +1000,10 @@ public class AppointmentApp extends MVCApplication
     @View( VIEW_DISPLAY_RECAP_APPOINTMENT )
     public synchronized XPage displayRecapAppointment( HttpServletRequest request ) throws UserNotSignedException, AccessDeniedException
     {
-        checkMyLuteceAuthentication( _appointmentForm, request );
+        AppointmentBookingSession bookingSession = AppointmentBookingSession.get( request );
+        AppointmentFormDTO appointmentForm = bookingSession.getAppointmentForm( );
+        AppointmentDTO validatedAppointment = bookingSession.getValidatedAppointment( );
+        checkMyLuteceAuthentication( appointmentForm, request );
         String anchor = request.getParameter( PARAMETER_ANCHOR );
         String strModifDateAppointment = request.getParameter( PARAMETER_MODIF_DATE );
 
@@ -972,15 +1014,15 @@ public class AppointmentApp extends MVCApplication
             return redirect( request, VIEW_DISPLAY_RECAP_APPOINTMENT, additionalParameters );
         }
 
-        if ( _validatedAppointment == null || _appointmentForm == null || _validatedAppointment.getIdForm( ) != _appointmentForm.getIdForm( ) )
+        if ( validatedAppointment == null || appointmentForm == null || validatedAppointment.getIdForm( ) != appointmentForm.getIdForm( ) )
         {
             addError( ERROR_MESSAGE_FORM_NO_MORE_VALID, getLocale( request ) );
-            _notValidatedAppointment = null;
-            _validatedAppointment = null;
+            bookingSession.setNotValidatedAppointment( null );
+            bookingSession.setValidatedAppointment( null );
             return redirectView( request, VIEW_APPOINTMENT_FORM_LIST );
         }
         Map<String, Object> model = new HashMap<>( );
-        if ( _appointmentForm.getEnableCaptcha( ) && getCaptchaService( ).isAvailable( ) )
+        if ( appointmentForm.getEnableCaptcha( ) && getCaptchaService( ).isAvailable( ) )
         {
             model.put( MARK_CAPTCHA, getCaptchaService( ).getHtmlCode( ) );
         }
@@ -995,14 +1037,14 @@ public class AppointmentApp extends MVCApplication
             model.put( MARK_MODIFICATION_DATE_APPOINTMENT, Boolean.FALSE );
 
         }
-        model.put( MARK_FORM_MESSAGES, FormMessageService.findFormMessageByIdForm( _validatedAppointment.getIdForm( ) ) );
+        model.put( MARK_FORM_MESSAGES, FormMessageService.findFormMessageByIdForm( validatedAppointment.getIdForm( ) ) );
         fillCommons( model );
-        model.put( MARK_APPOINTMENT, _validatedAppointment );
+        model.put( MARK_APPOINTMENT, validatedAppointment );
         Locale locale = getLocale( request );
-        model.put( MARK_LIST_RESPONSE_RECAP_DTO, AppointmentUtilities.buildListResponse( _validatedAppointment, request, locale ) );
-        model.put( MARK_FORM, _appointmentForm );
-        model.put( MARK_NBPLACESTOTAKE, _nNbPlacesToTake );
-        model.put( PARAMETER_DATE_OF_DISPLAY, _validatedAppointment.getSlot( ).get( 0 ).getDate( ) );
+        model.put( MARK_LIST_RESPONSE_RECAP_DTO, AppointmentUtilities.buildListResponse( validatedAppointment, request, locale ) );
+        model.put( MARK_FORM, appointmentForm );
+        model.put( MARK_NBPLACESTOTAKE, bookingSession.getNbPlacesToTake( ) );
+        model.put( PARAMETER_DATE_OF_DISPLAY, validatedAppointment.getSlot( ).get( 0 ).getDate( ) );
         model.put( SecurityTokenService.MARK_TOKEN, SecurityTokenService.getInstance( ).getToken( request, ACTION_DO_MAKE_APPOINTMENT ) );
 
         return getXPage( TEMPLATE_APPOINTMENT_FORM_RECAP, locale, model );
@@ -1020,70 +1062,81 @@ public class AppointmentApp extends MVCApplication
     @Action( ACTION_DO_MAKE_APPOINTMENT )
     public synchronized XPage doMakeAppointment( HttpServletRequest request ) throws UserNotSignedException, AccessDeniedException
     {
-        checkMyLuteceAuthentication( _appointmentForm, request );
+        AppointmentBookingSession bookingSession = AppointmentBookingSession.get( request );
+        AppointmentFormDTO appointmentForm = bookingSession.getAppointmentForm( );
+        AppointmentDTO validatedAppointment = bookingSession.getValidatedAppointment( );
+        int nNbPlacesToTake = bookingSession.getNbPlacesToTake( );
+        checkMyLuteceAuthentication( appointmentForm, request );
         // CSRF Token control
         if ( !SecurityTokenService.getInstance( ).validate( request, ACTION_DO_MAKE_APPOINTMENT ) )
         {
             throw new AccessDeniedException( MESSAGE_ERROR_TOKEN );
         }
-        if ( _validatedAppointment == null || _appointmentForm == null || _validatedAppointment.getIdForm( ) != _appointmentForm.getIdForm( ) )
+        if ( validatedAppointment == null || appointmentForm == null || validatedAppointment.getIdForm( ) != appointmentForm.getIdForm( ) )
         {
             addError( ERROR_MESSAGE_FORM_NO_MORE_VALID, getLocale( request ) );
-            _notValidatedAppointment = null;
-            _validatedAppointment = null;
+            bookingSession.setNotValidatedAppointment( null );
+            bookingSession.setValidatedAppointment( null );
             return redirectView( request, VIEW_APPOINTMENT_FORM_LIST );
         }
-        if ( !_appointmentForm.getIsActive( ) )
+        if ( !appointmentForm.getIsActive( ) )
         {
             addError( ERROR_MESSAGE_FORM_NOT_ACTIVE, getLocale( request ) );
-            return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, _appointmentForm.getIdForm( ), PARAMETER_NB_PLACE_TO_TAKE,
-                    _nNbPlacesToTake );
+            return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, appointmentForm.getIdForm( ), PARAMETER_NB_PLACE_TO_TAKE,
+                    nNbPlacesToTake );
         }
 
         if ( StringUtils.isNotEmpty( request.getParameter( PARAMETER_BACK ) ) )
         {
             LinkedHashMap<String, String> parameters = new LinkedHashMap<>( );
-            parameters.put( PARAMETER_ID_FORM, String.valueOf( _validatedAppointment.getIdForm( ) ) );
+            parameters.put( PARAMETER_ID_FORM, String.valueOf( validatedAppointment.getIdForm( ) ) );
             parameters.put( PARAMETER_IS_MODIFICATION, String.valueOf( Boolean.TRUE ) );
 
             return redirect( request, VIEW_APPOINTMENT_FORM, parameters );
         }
-        if ( _appointmentForm.getEnableCaptcha( ) && getCaptchaService( ).isAvailable( ) && !getCaptchaService( ).validate( request ) )
+        if ( appointmentForm.getEnableCaptcha( ) && getCaptchaService( ).isAvailable( ) && !getCaptchaService( ).validate( request ) )
         {
             addError( ERROR_MESSAGE_CAPTCHA, getLocale( request ) );
-            return redirect( request, VIEW_DISPLAY_RECAP_APPOINTMENT, PARAMETER_ID_FORM, _validatedAppointment.getIdForm( ) );
+            return redirect( request, VIEW_DISPLAY_RECAP_APPOINTMENT, PARAMETER_ID_FORM, validatedAppointment.getIdForm( ) );
         }
 
         int nIdAppointment;
+        // The check that the appointment is not saved yet and its save are atomic for the session: a double submit waits for the first save, then finds
+        // the appointment saved
+        bookingSession.lockSave( );
         try
         {
 
-            nIdAppointment = SlotSafeService.saveAppointment( _validatedAppointment, request );
+            nIdAppointment = SlotSafeService.saveAppointment( validatedAppointment, request );
 
         }
         catch( SlotFullException e )
         {
 
             addError( ERROR_MESSAGE_SLOT_FULL, getLocale( request ) );
-            return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, _validatedAppointment.getIdForm( ), PARAMETER_NB_PLACE_TO_TAKE,
-                    _nNbPlacesToTake );
+            return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, validatedAppointment.getIdForm( ), PARAMETER_NB_PLACE_TO_TAKE,
+                    nNbPlacesToTake );
         }
         catch( SlotEditTaskExpiredTimeException e )
         {
             addError( ERROR_MESSAGE_SLOT_EDIT_TASK_EXPIRED_TIME, getLocale( request ) );
-            return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, _validatedAppointment.getIdForm( ), PARAMETER_NB_PLACE_TO_TAKE,
-                    _nNbPlacesToTake );
+            return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, validatedAppointment.getIdForm( ), PARAMETER_NB_PLACE_TO_TAKE,
+                    nNbPlacesToTake );
         }
         catch( AppointmentSavedException e )
         {
-            nIdAppointment = _validatedAppointment.getIdAppointment( );
+            nIdAppointment = validatedAppointment.getIdAppointment( );
             AppLogService.error( "Error Save appointment: " + e.getMessage( ), e );
         }
+        finally
+        {
+            bookingSession.unlockSave( );
+        }
         AppLogService.info( LogUtilities.buildLog( ACTION_DO_MAKE_APPOINTMENT, Integer.toString( nIdAppointment ), null ) );
         AppointmentAsynchronousUploadHandler.getHandler( ).removeSessionFiles( request.getSession( ) );
-        _nNbPlacesToTake = 0;
-        int nIdForm = _validatedAppointment.getIdForm( );
-       // _validatedAppointment = null;
+        bookingSession.setNbPlacesToTake( 0 );
+        int nIdForm = validatedAppointment.getIdForm( );
+       // bookingSession.setValidatedAppointment( null );
 
         // Remove the session data of this form
         AccessControlService.getInstance( ).cleanSessionData( request, nIdForm, Form.RESOURCE_TYPE );
@@ -1112,35 +1165,37 @@ public class AppointmentApp extends MVCApplication
     @View( VIEW_GET_APPOINTMENT_CREATED )
     public synchronized XPage getAppointmentCreated( HttpServletRequest request )
     {
-    	if( _validatedAppointment == null )
+        AppointmentBookingSession bookingSession = AppointmentBookingSession.get( request );
+        AppointmentDTO validatedAppointment = bookingSession.getValidatedAppointment( );
+    	if( validatedAppointment == null )
     	{
     		return redirectView( request, VIEW_APPOINTMENT_FORM_LIST );
     	}
         int nIdForm = Integer.parseInt( request.getParameter( PARAMETER_ID_FORM ) );
         FormMessage formMessages = FormMessageService.findFormMessageByIdForm( nIdForm );
         AppointmentFormDTO form = FormService.buildAppointmentForm( nIdForm, 0 );
-        Slot firstSlot = _validatedAppointment.getSlot().get(0);
+        Slot firstSlot = validatedAppointment.getSlot().get(0);
         Slot lastSlot = firstSlot;
-        if (  _validatedAppointment.getSlot().size( ) > 1 )
+        if (  validatedAppointment.getSlot().size( ) > 1 )
         {
-                    lastSlot = _validatedAppointment.getSlot().get(_validatedAppointment.getSlot().size( ) -1 );
+                    lastSlot = validatedAppointment.getSlot().get(validatedAppointment.getSlot().size( ) -1 );
         }
         String strTimeBegin = firstSlot.getStartingDateTime( ).toLocalTime( ).toString( );
         String strTimeEnd = lastSlot.getEndingDateTime( ).toLocalTime( ).toString( );
-        formMessages.setTextAppointmentCreated( formMessages.getTextAppointmentCreated( ).replace( MARK_REF, _validatedAppointment.getReference( ) )
+        formMessages.setTextAppointmentCreated( formMessages.getTextAppointmentCreated( ).replace( MARK_REF, validatedAppointment.getReference( ) )
                 .replace( MARK_DATE_APP, firstSlot.getStartingDateTime().format( Utilities.getFormatter( ) ) )
                 .replace( MARK_TIME_BEGIN, strTimeBegin ).replace( MARK_TIME_END, strTimeEnd) );
         Map<String, Object> model = new HashMap<>( );
-        model.put( MARK_LIST_RESPONSE_RECAP_DTO, AppointmentUtilities.buildListResponse( _validatedAppointment, request, getLocale( request ) ) );
+        model.put( MARK_LIST_RESPONSE_RECAP_DTO, AppointmentUtilities.buildListResponse( validatedAppointment, request, getLocale( request ) ) );
         model.put( MARK_DATE_APPOINTMENT, firstSlot.getDate().format( Utilities.getFormatter( ) ) );
         model.put( MARK_STARTING_TIME_APPOINTMENT, firstSlot.getStartingTime( ) );
         model.put( MARK_ENDING_TIME_APPOINTMENT, lastSlot.getEndingTime( ) );
-        model.put( MARK_USER,  _validatedAppointment.getUser( ) );
-        model.put( MARK_PLACES, _validatedAppointment.getNbPlaces( ) );
+        model.put( MARK_USER,  validatedAppointment.getUser( ) );
+        model.put( MARK_PLACES, validatedAppointment.getNbPlaces( ) );
         model.put( MARK_FORM, form );
         model.put( MARK_FORM_MESSAGES, formMessages );
-        _appointmentForm = null;
-        _validatedAppointment = null;
+        bookingSession.setAppointmentForm( null );
+        bookingSession.setValidatedAppointment( null );
         return getXPage( TEMPLATE_APPOINTMENT_CREATED, getLocale( request ), model );
     }
 
@@ -1162,15 +1217,19 @@ public class AppointmentApp extends MVCApplication
         Locale locale = getLocale( request );
         int nIdForm = Integer.parseInt( strIdForm );
         Form form = FormService.findFormLightByPrimaryKey( nIdForm );
+        AppointmentBookingSession bookingSession = AppointmentBookingSession.get( request );
+        AppointmentDTO validatedAppointment = bookingSession.getValidatedAppointment( );
+        int nNbPlacesToTake = bookingSession.getNbPlacesToTake( );
+        AppointmentFormDTO appointmentForm = bookingSession.getAppointmentForm( );
 
-        if ( !form.getIsActive( ) || _validatedAppointment.getStartingDateTime( ).isBefore( LocalDateTime.now( ) )
-                || !isAuthorizedDate( startingDateTime, locale ) )
+        if ( !form.getIsActive( ) || validatedAppointment.getStartingDateTime( ).isBefore( LocalDateTime.now( ) )
+                || !isAuthorizedDate( appointmentForm, startingDateTime, locale ) )
         {
-            _validatedAppointment = null;
+            bookingSession.setValidatedAppointment( null );
             addError( ERROR_MESSAGE_FORM_NOT_ACTIVE, getLocale( request ) );
-            return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, form.getIdForm( ), PARAMETER_NB_PLACE_TO_TAKE, _nNbPlacesToTake );
+            return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, form.getIdForm( ), PARAMETER_NB_PLACE_TO_TAKE, nNbPlacesToTake );
         }
-        int nNbConsecutiveSlot = ( _nNbPlacesToTake == 0 ) ? 1 : _nNbPlacesToTake;
+        int nNbConsecutiveSlot = ( nNbPlacesToTake == 0 ) ? 1 : nNbPlacesToTake;
         List<WeekDefinition> listWeekDefinition = WeekDefinitionService.findListWeekDefinition( nIdForm );
         Map<WeekDefinition, ReservationRule> mapReservationRule = ReservationRuleService.findAllReservationRule( nIdForm, listWeekDefinition );
         List<Slot> listSlot = SlotService.buildListSlot( nIdForm, mapReservationRule, startingDateTime.toLocalDate( ), startingDateTime.toLocalDate( ) );
@@ -1178,15 +1237,15 @@ public class AppointmentApp extends MVCApplication
                 .filter( s -> ( ( startingDateTime.compareTo( s.getStartingDateTime( ) ) <= 0 ) && ( s.getNbRemainingPlaces( ) > 0 ) && ( s.getIsOpen( ) ) ) )
                 .limit( nNbConsecutiveSlot ).collect( Collectors.toList( ) );
 
-        if ( listSlot == null || ( _nNbPlacesToTake > 0 && listSlot.size( ) != _nNbPlacesToTake ) || !AppointmentUtilities.isConsecutiveSlots( listSlot ) )
+        if ( listSlot == null || ( nNbPlacesToTake > 0 && listSlot.size( ) != nNbPlacesToTake ) || !AppointmentUtilities.isConsecutiveSlots( listSlot ) )
         {
             addError( ERROR_MESSAGE_SLOT_FULL, getLocale( request ) );
-            return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, _nNbPlacesToTake );
+            return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, nNbPlacesToTake );
         }
 
         boolean bool = true;
-        _validatedAppointment.setSlot( null );
-        _validatedAppointment.setNbMaxPotentialBookedSeats( 0 );
+        validatedAppointment.setSlot( null );
+        validatedAppointment.setNbMaxPotentialBookedSeats( 0 );
         for ( Slot slot : listSlot )
         {
 
@@ -1207,28 +1266,29 @@ public class AppointmentApp extends MVCApplication
             if ( slot.getNbPotentialRemainingPlaces( ) <= 0 )
             {
                 addError( ERROR_MESSAGE_SLOT_FULL, locale );
-                return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, _nNbPlacesToTake );
+                return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, nNbPlacesToTake );
             }
 
-            _validatedAppointment.addSlot( slot );
+            validatedAppointment.addSlot( slot );
 
             if ( bool )
             {
-                _validatedAppointment.setDateOfTheAppointment( slot.getDate( ).format( Utilities.getFormatter( ) ) );
+                validatedAppointment.setDateOfTheAppointment( slot.getDate( ).format( Utilities.getFormatter( ) ) );
                 ReservationRule reservationRule = ReservationRuleService.findReservationRuleByIdFormAndClosestToDateOfApply( nIdForm, slot.getDate( ) );
-                _appointmentForm = FormService.buildAppointmentForm( nIdForm, reservationRule );
+                appointmentForm = FormService.buildAppointmentForm( nIdForm, reservationRule );
+                bookingSession.setAppointmentForm( appointmentForm );
                 bool = false;
             }
-            AppointmentUtilities.putTimerInSession( request, slot.getIdSlot( ), _validatedAppointment, _appointmentForm.getMaxPeoplePerAppointment( ) );
+            AppointmentUtilities.putTimerInSession( request, slot.getIdSlot( ), validatedAppointment, appointmentForm.getMaxPeoplePerAppointment( ) );
         }
 
-        if ( _validatedAppointment.getNbMaxPotentialBookedSeats( ) == 0 )
+        if ( validatedAppointment.getNbMaxPotentialBookedSeats( ) == 0 )
         {
             addError( ERROR_MESSAGE_SLOT_FULL, locale );
-            return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, _nNbPlacesToTake );
+            return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, nNbPlacesToTake );
         }
 
-        for ( Response response : _validatedAppointment.getListResponse( ) )
+        for ( Response response : validatedAppointment.getListResponse( ) )
         {
             if ( response.getFile( ) != null )
             {
@@ -1256,8 +1316,9 @@ public class AppointmentApp extends MVCApplication
     public synchronized XPage getFormList( HttpServletRequest request )
     {
         Locale locale = getLocale( request );
-        _appointmentForm = null;
-        _validatedAppointment = null;
+        AppointmentBookingSession bookingSession = AppointmentBookingSession.get( request );
+        bookingSession.setAppointmentForm( null );
+        bookingSession.setValidatedAppointment( null );
         String strHtmlContent = getFormListHtml( locale, getModel( ) );
 
         XPage xPage = getXPage( );
@@ -1459,17 +1520,7 @@ public class AppointmentApp extends MVCApplication
         AppointmentFilterDTO appointmentFilter = new AppointmentFilterDTO( );
         appointmentFilter.setGuid( luteceUser.getName( ) );
         List<AppointmentDTO> listAppointmentDTO = AppointmentService.findListAppointmentsDTOByFilter( appointmentFilter );
-        for ( AppointmentDTO apptDto : listAppointmentDTO )
-        {
-            Form form = FormService.findFormLightByPrimaryKey( apptDto.getIdForm( ) );
-            if ( form.getIdWorkflow( ) > 0 && WorkflowService.getInstance( ).isAvailable( ) )
-            {
-
-                apptDto.setListWorkflowActions( WorkflowService.getInstance( ).getActions( apptDto.getIdAppointment( ), Appointment.APPOINTMENT_RESOURCE_TYPE,
-                        form.getIdWorkflow( ), luteceUser ) );
-
-            }
-        }
+        fillWorkflowActions( listAppointmentDTO, luteceUser );
 
         model = ( model == null ) ? new HashMap<>( ) : model;
         model.put( MARK_LIST_APPOINTMENTS, listAppointmentDTO );
@@ -1504,15 +1555,7 @@ public class AppointmentApp extends MVCApplication
         AppointmentFilterDTO appointmentFilter = new AppointmentFilterDTO( );
         appointmentFilter.setGuid( luteceUser.getName( ) );
         List<AppointmentDTO> listAppointmentDTO = AppointmentService.findListAppointmentsDTOByFilter( appointmentFilter );
-        for ( AppointmentDTO apptDto : listAppointmentDTO )
-        {
-            Form form = FormService.findFormLightByPrimaryKey( apptDto.getIdForm( ) );
-            if ( form.getIdWorkflow( ) > 0 && WorkflowService.getInstance( ).isAvailable( ) )
-            {
-                apptDto.setListWorkflowActions( WorkflowService.getInstance( ).getActions( apptDto.getIdAppointment( ), Appointment.APPOINTMENT_RESOURCE_TYPE,
-                        form.getIdWorkflow( ), luteceUser ) );
-            }
-        }
+        fillWorkflowActions( listAppointmentDTO, luteceUser );
 
         model = ( model == null ) ? new HashMap<>( ) : model;
         model.put( MARK_LIST_APPOINTMENTS, listAppointmentDTO );
@@ -1522,6 +1565,36 @@ public class AppointmentApp extends MVCApplication
         return template.getHtml( );
     }
 
+    /**
+     * Set the workflow actions of the appointments of a user. The appointments are grouped by workflow, so that the states are read with one query per
+     * workflow and the actions once per state.
+     *
+     * @param listAppointmentDTO
+     *            the appointments of the user
+     * @param luteceUser
+     *            the user
+     */
+    private static void fillWorkflowActions( List<AppointmentDTO> listAppointmentDTO, LuteceUser luteceUser )
+    {
+        if ( !WorkflowService.getInstance( ).isAvailable( ) )
+        {
+            return;
+        }
+        Map<Integer, Integer> mapIdWorkflowByIdForm = new HashMap<>( );
+        Map<Integer, List<AppointmentDTO>> mapAppointmentByIdWorkflow = new HashMap<>( );
+        for ( AppointmentDTO apptDto : listAppointmentDTO )
+        {
+            int nIdWorkflow = mapIdWorkflowByIdForm.computeIfAbsent( apptDto.getIdForm( ),
+                    nIdForm -> FormService.findFormLightByPrimaryKey( nIdForm ).getIdWorkflow( ) );
+            if ( nIdWorkflow > 0 )
+            {
+                mapAppointmentByIdWorkflow.computeIfAbsent( nIdWorkflow, key -> new ArrayList<>( ) ).add( apptDto );
+            }
+        }
+        AppointmentWorkflowResolver resolver = new AppointmentWorkflowResolver( luteceUser );
+        mapAppointmentByIdWorkflow.forEach( ( nIdWorkflow, listAppointmentOfWorkflow ) -> resolver.resolve( listAppointmentOfWorkflow, nIdWorkflow ) );
+    }
+
     /**
      * Get the html content of the list of forms
      *
@@ -1547,18 +1620,20 @@ public class AppointmentApp extends MVCApplication
         for ( AppointmentFormDTO form : listAppointmentForm )
         {
             ImageResource img = form.getIcon( );
-            if ( img == null || img.getImage( ) == null || StringUtils.isEmpty( img.getMimeType( ) )
-                    || StringUtils.equals( img.getMimeType( ), MARK_ICON_NULL ) )
+            FormIcon formIcon = null;
+            if ( img != null && img.getImage( ) != null && StringUtils.isNotEmpty( img.getMimeType( ) )
+                    && !StringUtils.equals( img.getMimeType( ), MARK_ICON_NULL ) )
+            {
+                formIcon = FormIconCacheService.getIcon( form.getIdForm( ), img );
+            }
+            if ( formIcon == null || !formIcon.hasImage( ) )
             {
                 icons.add( MARK_ICON_NULL );
             }
             else
             {
-                byte [ ] imgBytesAsBase64 = Base64.encodeBase64( img.getImage( ) );
-                String imgDataAsBase64 = new String( imgBytesAsBase64 );
-                String strMimeType = img.getMimeType( );
-                String imgAsBase64 = MARK_DATA + MARK_COLON + strMimeType + MARK_SEMI_COLON + MARK_BASE_64 + MARK_COMMA + imgDataAsBase64;
-                icons.add( imgAsBase64 );
+                // Reference the icon served from the cache instead of inlining it, so that the browsers can cache it
+                icons.add( AppointmentFormIconServlet.getUrl( formIcon ) );
             }
         }
         model.put( MARK_ICONS, icons );
@@ -1867,18 +1942,20 @@ public class AppointmentApp extends MVCApplication
     /**
      * Check if the date are in the validity date display range of the form
      *
+     * @param appointmentForm
+     *            the form
      * @param date
      *            the starting date of slot
      * @param locale
      *            the locale
      * @return true if the starting date of slot is displayed on FO
      */
-    private boolean isAuthorizedDate( LocalDateTime date, Locale locale )
+    private static boolean isAuthorizedDate( AppointmentFormDTO appointmentForm, LocalDateTime date, Locale locale )
     {
         // Get the min time from now before a user can take an appointment (in hours)
-        LocalDateTime startingDateOfDisplay = LocalDateTime.now( ).plusHours( _appointmentForm.getMinTimeBeforeAppointment( ) );
+        LocalDateTime startingDateOfDisplay = LocalDateTime.now( ).plusHours( appointmentForm.getMinTimeBeforeAppointment( ) );
         // validity date range of the form
-        LocalDateTime startingValidityDate = _appointmentForm.getDateStartValidity( ).toLocalDate( ).atStartOfDay( );
+        LocalDateTime startingValidityDate = appointmentForm.getDateStartValidity( ).toLocalDate( ).atStartOfDay( );
         if ( startingValidityDate.isAfter( startingDateOfDisplay ) )
         {
             startingDateOfDisplay = startingValidityDate;
@@ -1886,7 +1963,7 @@ public class AppointmentApp extends MVCApplication
         // Calculate the ending date of display with the nb weeks to display since today
         // We calculate the number of weeks including the current week, so it and will end to the (n) next sunday
         LocalDate endingDateOfDisplay = startingDateOfDisplay.toLocalDate( ).with( WeekFields.of( locale ).dayOfWeek( ), DayOfWeek.SUNDAY.getValue( ) )
-                .plusWeeks( (long) _appointmentForm.getNbWeeksToDisplay( ) - 1 );
+                .plusWeeks( (long) appointmentForm.getNbWeeksToDisplay( ) - 1 );
         return !( date.toLocalDate( ).isAfter( endingDateOfDisplay ) || date.isBefore( startingDateOfDisplay ) );
 
     }
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.web;
+
+import java.io.Serializable;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+import fr.paris.lutece.plugins.appointment.web.dto.AppointmentDTO;
+import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFormDTO;
+
+/**
+ * State of the booking of an appointment in the front office, kept in the HTTP session between the steps of the booking (calendar, form, recap, save)
+ * instead of in the fields of the XPage, so that the calendar view, which is not synchronized, does not share them with the other views. The save of the
+ * appointment is guarded by a lock of the session, so that a double submit can not book the appointment twice
+ */
+final class AppointmentBookingSession implements Serializable
+{
+    private static final long serialVersionUID = -6171467463470851265L;
+
+    // Session attribute
+    private static final String SESSION_APPOINTMENT_BOOKING = "appointment.booking";
+
+    // Variables declarations
+    private volatile int _nNbPlacesToTake;
+    private volatile AppointmentFormDTO _appointmentForm;
+    private volatile AppointmentDTO _notValidatedAppointment;
+    private volatile AppointmentDTO _validatedAppointment;
+    private final ReentrantLock _saveLock = new ReentrantLock( );
+
+    /**
+     * Get the state of the booking of the session of a request, created if the session has none
+     * 
+     * @param request
+     *            the request
+     * @return the state of the booking
+     */
+    static AppointmentBookingSession get( HttpServletRequest request )
+    {
+        HttpSession session = request.getSession( );
+        AppointmentBookingSession bookingSession = (AppointmentBookingSession) session.getAttribute( SESSION_APPOINTMENT_BOOKING );
+        if ( bookingSession == null )
+        {
+            // The calendar view can run concurrently with the other views of the session: only one state is created
+            synchronized( AppointmentBookingSession.class )
+            {
+                bookingSession = (AppointmentBookingSession) session.getAttribute( SESSION_APPOINTMENT_BOOKING );
+                if ( bookingSession == null )
+                {
+                    bookingSession = new AppointmentBookingSession( );
+                    session.setAttribute( SESSION_APPOINTMENT_BOOKING, bookingSession );
+                }
+            }
+        }
+        return bookingSession;
+    }
+
+    /**
+     * Publish the state computed by the calendar view, for the next steps of the booking
+     * 
+     * @param appointmentForm
+     *            the form displayed
+     * @param nNbPlacesToTake
+     *            the number of places to take
+     * @param appointmentToReport
+     *            the appointment whose date is being changed, or null
+     */
+    void setCalendarState( AppointmentFormDTO appointmentForm, int nNbPlacesToTake, AppointmentDTO appointmentToReport )
+    {
+        _appointmentForm = appointmentForm;
+        _nNbPlacesToTake = nNbPlacesToTake;
+        if ( appointmentToReport != null )
+        {
+            _validatedAppointment = appointmentToReport;
+        }
+    }
+
+    /**
+     * Get the number of places to take
+     * 
+     * @return the number of places to take, 0 if the user chooses it in the form
+     */
+    int getNbPlacesToTake( )
+    {
+        return _nNbPlacesToTake;
+    }
+
+    /**
+     * Set the number of places to take
+     * 
+     * @param nNbPlacesToTake
+     *            the number of places to take
+     */
+    void setNbPlacesToTake( int nNbPlacesToTake )
+    {
+        _nNbPlacesToTake = nNbPlacesToTake;
+    }
+
+    /**
+     * Get the form of the booking
+     * 
+     * @return the form
+     */
+    AppointmentFormDTO getAppointmentForm( )
+    {
+        return _appointmentForm;
+    }
+
+    /**
+     * Set the form of the booking
+     * 
+     * @param appointmentForm
+     *            the form
+     */
+    void setAppointmentForm( AppointmentFormDTO appointmentForm )
+    {
+        _appointmentForm = appointmentForm;
+    }
+
+    /**
+     * Get the appointment being filled in by the user
+     * 
+     * @return the appointment not validated yet
+     */
+    AppointmentDTO getNotValidatedAppointment( )
+    {
+        return _notValidatedAppointment;
+    }
+
+    /**
+     * Set the appointment being filled in by the user
+     * 
+     * @param notValidatedAppointment
+     *            the appointment not validated yet
+     */
+    void setNotValidatedAppointment( AppointmentDTO notValidatedAppointment )
+    {
+        _notValidatedAppointment = notValidatedAppointment;
+    }
+
+    /**
+     * Get the appointment validated by the user, or being rescheduled
+     * 
+     * @return the validated appointment
+     */
+    AppointmentDTO getValidatedAppointment( )
+    {
+        return _validatedAppointment;
+    }
+
+    /**
+     * Set the appointment validated by the user, or being rescheduled
+     * 
+     * @param validatedAppointment
+     *            the validated appointment
+     */
+    void setValidatedAppointment( AppointmentDTO validatedAppointment )
+    {
+        _validatedAppointment = validatedAppointment;
+    }
+
+    /**
+     * Lock the save of the appointment of the session, waiting for the save in progress if any
+     */
+    void lockSave( )
+    {
+        _saveLock.lock( );
+    }
+
+    /**
+     * Unlock the save of the appointment of the session
+     */
+    void unlockSave( )
+    {
+        _saveLock.unlock( );
+    }
+}
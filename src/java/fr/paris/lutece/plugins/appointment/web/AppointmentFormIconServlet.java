@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.web;
+
+import java.io.IOException;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang3.StringUtils;
+
+import fr.paris.lutece.plugins.appointment.service.FormIconCacheService;
+import fr.paris.lutece.plugins.appointment.service.FormIconCacheService.FormIcon;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+/**
+ * Servlet serving the icons of the forms from the icon cache, with the headers letting the browsers and the proxies cache them. The URL of an icon holds the
+ * hash of its content, so a new icon is downloaded as soon as it is modified.
+ */
+public class AppointmentFormIconServlet extends HttpServlet
+{
+    /**
+     * The path of the servlet, relative to the base URL of the webapp
+     */
+    public static final String SERVLET_PATH = "servlet/plugins/appointment/icon";
+    public static final String PARAMETER_ID_FORM = "id_form";
+    public static final String PARAMETER_VERSION = "v";
+
+    /**
+     * Serial version UID
+     */
+    private static final long serialVersionUID = 2638940570528342177L;
+
+    private static final String PROPERTY_ICON_MAX_AGE = "appointment.icon.maxAge";
+    private static final int DEFAULT_ICON_MAX_AGE = 86400;
+    private static final String HEADER_CACHE_CONTROL = "Cache-Control";
+    private static final String HEADER_ETAG = "ETag";
+    private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+    private static final String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
+    private static final String HEADER_LAST_MODIFIED = "Last-Modified";
+
+    /**
+     * Build the URL of the icon of a form
+     * 
+     * @param formIcon
+     *            the icon of the form
+     * @return the URL of the icon, relative to the base URL of the webapp
+     */
+    public static String getUrl( FormIcon formIcon )
+    {
+        return SERVLET_PATH + "?" + PARAMETER_ID_FORM + "=" + formIcon.getIdForm( ) + "&" + PARAMETER_VERSION + "=" + formIcon.getHash( );
+    }
+
+    @Override
+    protected void doGet( HttpServletRequest request, HttpServletResponse response ) throws IOException
+    {
+        String strIdForm = request.getParameter( PARAMETER_ID_FORM );
+        if ( !StringUtils.isNumeric( strIdForm ) || strIdForm.length( ) > 9 )
+        {
+            response.sendError( HttpServletResponse.SC_BAD_REQUEST );
+            return;
+        }
+        FormIcon formIcon = FormIconCacheService.getIcon( Integer.parseInt( strIdForm ) );
+        if ( !formIcon.hasImage( ) )
+        {
+            response.sendError( HttpServletResponse.SC_NOT_FOUND );
+            return;
+        }
+        String strETag = "\"" + formIcon.getHash( ) + "\"";
+        response.setHeader( HEADER_ETAG, strETag );
+        response.setDateHeader( HEADER_LAST_MODIFIED, formIcon.getLastModified( ) );
+        response.setHeader( HEADER_CACHE_CONTROL, "public, max-age=" + AppPropertiesService.getPropertyInt( PROPERTY_ICON_MAX_AGE, DEFAULT_ICON_MAX_AGE ) );
+        if ( isNotModified( request, strETag, formIcon.getLastModified( ) ) )
+        {
+            response.setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+            return;
+        }
+        response.setContentType( formIcon.getMimeType( ) );
+        response.setContentLength( formIcon.getImage( ).length );
+        response.getOutputStream( ).write( formIcon.getImage( ) );
+    }
+
+    /**
+     * Tell if the icon the client has is still valid, from its ETag or else from its date
+     * 
+     * @param request
+     *            the request
+     * @param strETag
+     *            the ETag of the icon
+     * @param lLastModified
+     *            the date of the icon
+     * @return true if the client can use its copy of the icon
+     */
+    private static boolean isNotModified( HttpServletRequest request, String strETag, long lLastModified )
+    {
+        String strIfNoneMatch = request.getHeader( HEADER_IF_NONE_MATCH );
+        if ( strIfNoneMatch != null )
+        {
+            for ( String strTag : strIfNoneMatch.split( "," ) )
+            {
+                String strTagTrimmed = StringUtils.removeStart( strTag.trim( ), "W/" );
+                if ( strTagTrimmed.equals( strETag ) || strTagTrimmed.equals( "*" ) )
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+        try
+        {
+            long lIfModifiedSince = request.getDateHeader( HEADER_IF_MODIFIED_SINCE );
+            return lIfModifiedSince != -1 && lIfModifiedSince >= lLastModified;
+        }
+        catch( IllegalArgumentException e )
+        {
+            return false;
+        }
+    }
+}
@@ -42,7 +42,6 @@ import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -50,7 +49,6 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.StringJoiner;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -58,10 +56,12 @@ import javax.servlet.http.HttpSession;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.SerializationUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import fr.paris.lutece.api.user.User;
 import fr.paris.lutece.plugins.appointment.business.appointment.Appointment;
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentCursor;
 import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentSlot;
 import fr.paris.lutece.plugins.appointment.business.form.Form;
 import fr.paris.lutece.plugins.appointment.business.message.FormMessage;
@@ -75,7 +75,9 @@ import fr.paris.lutece.plugins.appointment.exception.SlotFullException;
 import fr.paris.lutece.plugins.appointment.log.LogUtilities;
 import fr.paris.lutece.plugins.appointment.service.AppointmentResourceIdService;
 import fr.paris.lutece.plugins.appointment.service.AppointmentResponseService;
+import fr.paris.lutece.plugins.appointment.service.AppointmentBulkDeleteService;
 import fr.paris.lutece.plugins.appointment.service.AppointmentService;
+import fr.paris.lutece.plugins.appointment.service.AppointmentWorkflowResolver;
 import fr.paris.lutece.plugins.appointment.service.AppointmentUtilities;
 import fr.paris.lutece.plugins.appointment.service.CommentService;
 import fr.paris.lutece.plugins.appointment.service.EntryService;
@@ -301,14 +303,7 @@ public class AppointmentJspBean extends MVCAdminJspBean
     private static final String DEFAULT_CURRENT_PAGE = "1";
     public static final String ACTIVATEWORKFLOW = AppPropertiesService.getProperty( "appointment.activate.workflow" );
     public static final String PREVIOUS_FORM = "calendar";
-    private static final String LAST_NAME = "last_name";
-    private static final String FIRST_NAME = "first_name";
-    private static final String EMAIL = "email";
-    private static final String PHONE_NUMBER = "phone_number";
-    private static final String NB_BOOKED_SEATS = "nbBookedSeats";
     private static final String DATE_APPOINTMENT = "date_appointment";
-    private static final String ADMIN = "admin";
-    private static final String STATUS = "status";
     // services
 
     // Session variable to store working values
@@ -320,7 +315,9 @@ public class AppointmentJspBean extends MVCAdminJspBean
     private AppointmentFormDTO _appointmentForm;
     private AppointmentDTO _notValidatedAppointment;
     private AppointmentDTO _validatedAppointment;
-    private List<Integer> _listAppointmentsIds;
+    private int _nAppointmentsCount;
+    private Map<Integer, AppointmentCursor> _mapPageCursor = new HashMap<>( );
+    private String _strPageCursorKey;
     List<GenericAttributeError> listFormErrors = new ArrayList<>( );
     Plugin _moduleAppointmentDesk = PluginService.getPlugin( AppPropertiesService.getProperty( PROPERTY_MODULE_APPOINTMENT_DESK_NAME ) );
 
@@ -577,14 +574,19 @@ public class AppointmentJspBean extends MVCAdminJspBean
         {
             _strCurrentPageIndex = DEFAULT_CURRENT_PAGE;
         }
+        _nItemsPerPage = AbstractPaginator.getItemsPerPage( request, AbstractPaginator.PARAMETER_ITEMS_PER_PAGE, _nItemsPerPage, _nDefaultItemsPerPage );
+        // The cursors of the pages are only valid for the search, the order and the number of items per page they were read with
+        String strPageCursorKey = strOrderBy + bAsc + _nItemsPerPage;
+        if ( DEFAULT_CURRENT_PAGE.equals( _strCurrentPageIndex ) || !strPageCursorKey.equals( _strPageCursorKey ) )
+        {
+            _mapPageCursor.clear( );
+            _strPageCursorKey = strPageCursorKey;
+        }
         if ( DEFAULT_CURRENT_PAGE.equals( _strCurrentPageIndex ) )
         {
-            _listAppointmentsIds = AppointmentService.findListAppointmentsIdsByFilter( _filter );
+            _nAppointmentsCount = AppointmentService.countAppointmentsByFilter( _filter );
         }
-        _nItemsPerPage = AbstractPaginator.getItemsPerPage( request, AbstractPaginator.PARAMETER_ITEMS_PER_PAGE, _nItemsPerPage, _nDefaultItemsPerPage );
         List<AppointmentDTO> listAppointmentsDTO = findListAppointmentsDTOByFilterByPage( );
-        // If it is an order by
-        listAppointmentsDTO = orderList( listAppointmentsDTO );
         if ( StringUtils.isNotEmpty( request.getParameter( PARAMETER_DELETE_AND_BACK ) ) )
         {
             String [ ] tabIdAppointmentToDelete = request.getParameterValues( PARAMETER_ID_APPOINTMENT_DELETE );
@@ -599,8 +601,9 @@ public class AppointmentJspBean extends MVCAdminJspBean
         url.addParameter( MVCUtils.PARAMETER_VIEW, VIEW_MANAGE_APPOINTMENTS );
         url.addParameter( PARAMETER_ID_FORM, strIdForm );
         String strUrl = url.getUrl( );
-        LocalizedPaginator<Integer> paginator = new LocalizedPaginator<>(_listAppointmentsIds, _nItemsPerPage, strUrl, PARAMETER_PAGE_INDEX,
-                _strCurrentPageIndex, getLocale( ) );
+        // The paginator only needs the number of appointments, the items of the page are read from the database
+        LocalizedPaginator<Integer> paginator = new LocalizedPaginator<>( Collections.nCopies( _nAppointmentsCount, 0 ), _nItemsPerPage, strUrl,
+                PARAMETER_PAGE_INDEX, _strCurrentPageIndex, getLocale( ) );
         AppointmentFormDTO form = FormService.buildAppointmentFormLight( nIdForm );
         Map<String, Object> model = getModel( );
         model.put( MARK_FORM, form );
@@ -611,20 +614,7 @@ public class AppointmentJspBean extends MVCAdminJspBean
         model.put( MARK_ACTIVATE_WORKFLOW, ACTIVATEWORKFLOW );
         if ( ( form.getIdWorkflow( ) > 0 ) && WorkflowService.getInstance( ).isAvailable( ) )
         {
-            StateService stateService = SpringContextService.getBean( StateService.BEAN_SERVICE );
-            int nIdWorkflow = form.getIdWorkflow( );
-            StateFilter stateFilter = new StateFilter( );
-            stateFilter.setIdWorkflow( nIdWorkflow );
-            for ( AppointmentDTO appointment : listAppointmentsDTO )
-            {
-                State stateAppointment = stateService.findByResource( appointment.getIdAppointment( ), Appointment.APPOINTMENT_RESOURCE_TYPE, nIdWorkflow );
-                if ( stateAppointment != null )
-                {
-                    appointment.setState( stateAppointment );
-                }
-                appointment.setListWorkflowActions( WorkflowService.getInstance( ).getActions( appointment.getIdAppointment( ),
-                        Appointment.APPOINTMENT_RESOURCE_TYPE, form.getIdWorkflow( ), (User) getUser( ) ) );
-            }
+            new AppointmentWorkflowResolver( (User) getUser( ) ).resolve( listAppointmentsDTO, form.getIdWorkflow( ) );
         }
         User user = getUser( );
         model.put( MARK_APPOINTMENT_LIST, listAppointmentsDTO );
@@ -729,9 +719,10 @@ public class AppointmentJspBean extends MVCAdminJspBean
         }
         if ( tabIdAppointmentToDelete != null )
         {
+            List<Integer> listIdAppointmentToDelete = Arrays.stream( tabIdAppointmentToDelete ).map( Integer::valueOf ).collect( Collectors.toList( ) );
+            AppointmentBulkDeleteService.deleteAppointments( listIdAppointmentToDelete );
             for ( String strIdAppointment : tabIdAppointmentToDelete )
             {
-                AppointmentService.deleteAppointment( Integer.valueOf( strIdAppointment ) );
                 AppLogService.info( LogUtilities.buildLog( ACTION_REMOVE_APPOINTMENT, strIdAppointment, getUser( ) ) );
             }
             addInfo( INFO_APPOINTMENT_MASSREMOVED, getLocale( ) );
@@ -842,7 +833,7 @@ public class AppointmentJspBean extends MVCAdminJspBean
      *             If the user is not authorized to access this feature
      */
     @Action( ACTION_EXPORT_APPOINTMENTS )
-    public synchronized String doExportAppointments( HttpServletRequest request ) throws AccessDeniedException
+    public String doExportAppointments( HttpServletRequest request ) throws AccessDeniedException
     {
         String strIdForm = request.getParameter( PARAMETER_ID_FORM );
         if ( StringUtils.isEmpty( strIdForm ) || !StringUtils.isNumeric( strIdForm ) )
@@ -855,11 +846,14 @@ public class AppointmentJspBean extends MVCAdminJspBean
             throw new AccessDeniedException( AppointmentResourceIdService.PERMISSION_VIEW_APPOINTMENT );
         }
         Locale locale = getLocale( );
-        List<AppointmentDTO> listAppointmentsDTO = new ArrayList<>( );
-        if ( _filter != null && _filter.getIdForm( ) == Integer.parseInt( strIdForm ) )
+        // The appointments are read page by page while the file is generated, with a copy of the filter taken under the lock of the session
+        AppointmentFilterDTO filter = null;
+        synchronized( this )
         {
-
-            listAppointmentsDTO = AppointmentService.findListAppointmentsDTOByFilter( _filter );
+            if ( _filter != null && _filter.getIdForm( ) == Integer.parseInt( strIdForm ) )
+            {
+                filter = SerializationUtils.clone( _filter );
+            }
         }
 
         List<String> defaultColumnList = new ArrayList<>( );
@@ -874,10 +868,13 @@ public class AppointmentJspBean extends MVCAdminJspBean
                     .collect( Collectors.toList( ) );
         }
 
-        ExcelAppointmentGenerator generator = new ExcelAppointmentGenerator( defaultColumnList, locale, listAppointmentsDTO, customColumnList );
+        ExcelAppointmentGenerator generator = new ExcelAppointmentGenerator( defaultColumnList, locale, filter, customColumnList );
 
         TemporaryFileGeneratorService.getInstance( ).generateFile( generator, getUser( ) );
-        addInfo( "appointment.export.async.message", getLocale( ) );
+        synchronized( this )
+        {
+            addInfo( "appointment.export.async.message", getLocale( ) );
+        }
 
         return getManageAppointments( request );
     }
@@ -1500,59 +1497,6 @@ public class AppointmentJspBean extends MVCAdminJspBean
         }
     }
 
-    /**
-     * Order the list of the appointment in the result tab with the order by and order asc given
-     *
-     * @param listAppointmentsDTO
-     *            the llist of appointments
-     */
-    private List<AppointmentDTO> orderList( List<AppointmentDTO> listAppointmentsDTO )
-    {
-        List<AppointmentDTO> sortedList = new ArrayList<>( );
-        if ( CollectionUtils.isNotEmpty( listAppointmentsDTO ) )
-        {
-            sortedList.addAll( listAppointmentsDTO );
-        }
-
-        Stream<AppointmentDTO> stream = null;
-        switch( _filter.getOrderBy( ) )
-        {
-            case LAST_NAME:
-                stream = sortedList.stream( ).sorted( ( a1, a2 ) -> a1.getLastName( ).compareTo( a2.getLastName( ) ) );
-                break;
-            case FIRST_NAME:
-                stream = sortedList.stream( ).sorted( ( a1, a2 ) -> a1.getFirstName( ).compareTo( a2.getFirstName( ) ) );
-                break;
-            case EMAIL:
-                stream = sortedList.stream( ).sorted( ( a1, a2 ) -> a1.getEmail( ).compareTo( a2.getEmail( ) ) );
-                break;
-            case PHONE_NUMBER:
-            	// Added 'Comparator.nullsLast' to avoid NullPointerException when comparing null values (a user's phone number might be NULL in the database)
-            	stream = sortedList.stream( ).sorted( Comparator.comparing( AppointmentDTO::getPhoneNumber, Comparator.nullsLast( Comparator.naturalOrder() ) ) );
-                break;
-            case NB_BOOKED_SEATS:
-                stream = sortedList.stream( ).sorted( ( a1, a2 ) -> Integer.compare( a1.getNbBookedSeats( ), a2.getNbBookedSeats( ) ) );
-                break;
-            case DATE_APPOINTMENT:
-                stream = sortedList.stream( ).sorted( ( a1, a2 ) -> a1.getStartingDateTime( ).compareTo( a2.getStartingDateTime( ) ) );
-                break;
-            case ADMIN:
-                stream = sortedList.stream( ).sorted( ( a1, a2 ) -> a1.getAdminUser( ).compareTo( a2.getAdminUser( ) ) );
-                break;
-            case STATUS:
-                stream = sortedList.stream( ).sorted( ( a1, a2 ) -> Boolean.compare( a1.getIsCancelled( ), a2.getIsCancelled( ) ) );
-                break;
-            default:
-                stream = sortedList.stream( ).sorted( ( a1, a2 ) -> a1.getStartingDateTime( ).compareTo( a2.getStartingDateTime( ) ) );
-        }
-        sortedList = stream.collect( Collectors.toList( ) );
-        if ( !_filter.isOrderAsc( ) )
-        {
-            Collections.reverse( sortedList );
-        }
-        return sortedList;
-    }
-
     /**
      * Get the URL to display the form of a workflow action. If the action has no form, then the user is redirected to the page to execute the workflow action
      *
@@ -1778,17 +1722,17 @@ public class AppointmentJspBean extends MVCAdminJspBean
             currentPage = 1;
         }
 
-        int skip = ( currentPage - 1 ) * _nItemsPerPage;
-
-        List<Integer> listIdAppointment = _filter.getListIdAppointment( );
-
-        _filter.setListIdAppointment( _listAppointmentsIds.stream( ).skip( skip ).limit( _nItemsPerPage ).collect( Collectors.toList( ) ) );
-
-        List<AppointmentDTO> listAppointmentsDTO = AppointmentService.findListAppointmentsDTOByFilter( _filter );
-
-        _filter.setListIdAppointment( listIdAppointment );
+        // Seek the page after the last appointment of the previous page when it is known, otherwise skip the previous appointments
+        AppointmentCursor cursor = _mapPageCursor.get( currentPage );
+        int nOffset = ( cursor == null ) ? ( currentPage - 1 ) * _nItemsPerPage : 0;
+        List<AppointmentCursor> listCursor = AppointmentService.findPageOfAppointmentsByFilter( _filter, cursor, nOffset, _nItemsPerPage );
+        if ( listCursor.isEmpty( ) )
+        {
+            return new ArrayList<>( );
+        }
+        _mapPageCursor.put( currentPage + 1, listCursor.get( listCursor.size( ) - 1 ) );
 
-        return listAppointmentsDTO;
+        return AppointmentService.findListAppointmentsDTOByListCursor( _filter, listCursor );
     }
 
 }
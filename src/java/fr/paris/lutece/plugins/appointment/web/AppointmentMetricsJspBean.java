@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.web;
+
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
+import fr.paris.lutece.plugins.appointment.service.metrics.AppointmentMetrics;
+import fr.paris.lutece.portal.util.mvc.admin.MVCAdminJspBean;
+import fr.paris.lutece.portal.util.mvc.admin.annotations.Controller;
+import fr.paris.lutece.portal.util.mvc.commons.annotations.View;
+
+/**
+ * This class provides the user interface to display the metrics of the plugin
+ */
+@Controller( controllerJsp = AppointmentMetricsJspBean.CONTROLLER_JSP, controllerPath = AppointmentMetricsJspBean.CONTROLLER_PATH, right = AppointmentMetricsJspBean.RIGHT_MANAGE_METRICS )
+public class AppointmentMetricsJspBean extends MVCAdminJspBean
+{
+    /**
+     * Right to display the metrics of the plugin
+     */
+    public static final String RIGHT_MANAGE_METRICS = "APPOINTMENT_METRICS";
+
+    /**
+     * Folder of the JSP of this controller
+     */
+    public static final String CONTROLLER_PATH = "jsp/admin/plugins/appointment/";
+
+    /**
+     * Name of the JSP of this controller
+     */
+    public static final String CONTROLLER_JSP = "ManageAppointmentMetrics.jsp";
+
+    /**
+     * Serial version UID
+     */
+    private static final long serialVersionUID = 5238017422164960893L;
+
+    // Templates
+    private static final String TEMPLATE_MANAGE_METRICS = "/admin/plugins/appointment/metrics/manage_metrics.html";
+
+    // Marks
+    private static final String MARK_LIST_METRICS = "listMetrics";
+
+    // Messages
+    private static final String MESSAGE_DEFAULT_PAGE_TITLE = "appointment.adminFeature.manageMetrics.name";
+
+    // Views
+    private static final String VIEW_MANAGE_METRICS = "viewManageMetrics";
+
+    /**
+     * Get the page displaying the metrics of the plugin
+     * 
+     * @param request
+     *            The request
+     * @return The HTML code to display
+     */
+    @View( value = VIEW_MANAGE_METRICS, defaultView = true )
+    public String getManageMetrics( HttpServletRequest request )
+    {
+        Map<String, Object> model = getModel( );
+        model.put( MARK_LIST_METRICS, AppointmentMetrics.getMetrics( ) );
+        return getPage( MESSAGE_DEFAULT_PAGE_TITLE, TEMPLATE_MANAGE_METRICS, model );
+    }
+}
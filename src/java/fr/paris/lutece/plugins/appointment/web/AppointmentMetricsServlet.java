@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.web;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang3.StringUtils;
+
+import fr.paris.lutece.plugins.appointment.service.metrics.AppointmentMetrics;
+import fr.paris.lutece.plugins.appointment.service.metrics.PrometheusTextWriter;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+/**
+ * Servlet exporting the metrics of the plugin in the Prometheus text format. The servlet is disabled unless a token is configured, and the scraper must send
+ * it as a bearer token.
+ */
+public class AppointmentMetricsServlet extends HttpServlet
+{
+    /**
+     * Serial version UID
+     */
+    private static final long serialVersionUID = -4310846529186011452L;
+
+    private static final String PROPERTY_METRICS_TOKEN = "appointment.metrics.token";
+    private static final String HEADER_AUTHORIZATION = "Authorization";
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    @Override
+    protected void doGet( HttpServletRequest request, HttpServletResponse response ) throws IOException
+    {
+        String strToken = AppPropertiesService.getProperty( PROPERTY_METRICS_TOKEN );
+        if ( StringUtils.isBlank( strToken ) )
+        {
+            response.sendError( HttpServletResponse.SC_NOT_FOUND );
+            return;
+        }
+        String strAuthorization = request.getHeader( HEADER_AUTHORIZATION );
+        if ( strAuthorization == null || !strAuthorization.startsWith( BEARER_PREFIX ) || !MessageDigest.isEqual(
+                strToken.getBytes( StandardCharsets.UTF_8 ), strAuthorization.substring( BEARER_PREFIX.length( ) ).getBytes( StandardCharsets.UTF_8 ) ) )
+        {
+            response.sendError( HttpServletResponse.SC_UNAUTHORIZED );
+            return;
+        }
+        response.setContentType( PrometheusTextWriter.CONTENT_TYPE );
+        response.getOutputStream( ).write( PrometheusTextWriter.write( AppointmentMetrics.getMetrics( ) ).getBytes( StandardCharsets.UTF_8 ) );
+    }
+}
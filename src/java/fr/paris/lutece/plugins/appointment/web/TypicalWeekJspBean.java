@@ -70,6 +70,7 @@ import fr.paris.lutece.plugins.appointment.service.SlotSafeService;
 import fr.paris.lutece.plugins.appointment.service.SlotService;
 import fr.paris.lutece.plugins.appointment.service.TimeSlotService;
 import fr.paris.lutece.plugins.appointment.service.WeekDefinitionService;
+import fr.paris.lutece.plugins.appointment.service.WeekGridCacheService;
 import fr.paris.lutece.plugins.appointment.service.WorkingDayService;
 import fr.paris.lutece.plugins.appointment.service.listeners.WeekDefinitionManagerListener;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFormDTO;
@@ -395,6 +396,7 @@ public class TypicalWeekJspBean extends AbstractAppointmentFormAndSlotJspBean
         }
 
         ReservationRuleHome.update( reservationRule );
+        WeekGridCacheService.evict( reservationRule.getIdReservationRule( ) );
         addInfo( INFO_GLOBAL_PARAMETERS_UPDATED, getLocale( ) );
         return redirect( request, VIEW_MANAGE_TYPICAL_WEEK, PARAMETER_ID_FORM, _appointmentForm.getIdForm( ), PARAMETER_ID_RULE,
                 _appointmentForm.getIdReservationRule( ) );
@@ -809,6 +811,7 @@ public class TypicalWeekJspBean extends AbstractAppointmentFormAndSlotJspBean
         }
 
         TimeSlotService.updateListTimeSlot( listTimeSlot );
+        WeekGridCacheService.evict( nIdReservationRule );
         if ( CollectionUtils.isNotEmpty( listTimeSlot ) && CollectionUtils.isNotEmpty( listWeekDefinition ) )
         {
 
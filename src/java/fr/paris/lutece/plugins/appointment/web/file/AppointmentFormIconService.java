@@ -33,8 +33,8 @@
  */
 package fr.paris.lutece.plugins.appointment.web.file;
 
-import fr.paris.lutece.plugins.appointment.business.display.Display;
-import fr.paris.lutece.plugins.appointment.service.DisplayService;
+import fr.paris.lutece.plugins.appointment.service.FormIconCacheService;
+import fr.paris.lutece.plugins.appointment.service.FormIconCacheService.FormIcon;
 import fr.paris.lutece.portal.service.image.ImageResource;
 import fr.paris.lutece.portal.service.image.ImageResourceManager;
 import fr.paris.lutece.portal.service.image.ImageResourceProvider;
@@ -95,11 +95,14 @@ public class AppointmentFormIconService implements ImageResourceProvider
     @Override
     public ImageResource getImageResource( int nIdResource )
     {
-        Display display = DisplayService.findDisplayWithFormId( nIdResource );
+        FormIcon formIcon = FormIconCacheService.getIcon( nIdResource );
 
-        if ( display != null )
+        if ( formIcon.hasImage( ) )
         {
-            return display.getIcon( );
+            ImageResource imageResource = new ImageResource( );
+            imageResource.setImage( formIcon.getImage( ) );
+            imageResource.setMimeType( formIcon.getMimeType( ) );
+            return imageResource;
         }
         return null;
     }
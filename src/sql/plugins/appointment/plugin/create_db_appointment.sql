@@ -12,6 +12,7 @@ DROP TABLE IF EXISTS appointment_localization ;
 DROP TABLE IF EXISTS appointment_calendar_template ;
 DROP TABLE IF EXISTS appointment_appointment ;
 DROP TABLE IF EXISTS appointment_user ;
+DROP TABLE IF EXISTS appointment_slot_hold ;
 DROP TABLE IF EXISTS appointment_slot ;
 DROP TABLE IF EXISTS appointment_form ;
 DROP TABLE IF EXISTS appointment_category ;
@@ -104,6 +105,23 @@ CREATE INDEX ending_date_time_idx ON appointment_slot (ending_date_time ASC);
 CREATE UNIQUE INDEX appointment_slot_unique_starting ON appointment_slot (id_form,starting_date_time);
 CREATE UNIQUE INDEX appointment_slot_unique_ending ON appointment_slot (id_form,ending_date_time);
 
+-- -----------------------------------------------------
+-- Table appointment_slot_hold
+-- -----------------------------------------------------
+
+CREATE TABLE IF NOT EXISTS appointment_slot_hold (
+  id_session VARCHAR(255) NOT NULL,
+  id_slot INT NOT NULL,
+  id_form INT NOT NULL,
+  nb_places INT DEFAULT 0 NOT NULL,
+  expiration_date TIMESTAMP NULL,
+  id_node VARCHAR(255) NOT NULL,
+  PRIMARY KEY (id_session, id_slot)
+  );
+
+CREATE INDEX appointment_slot_hold_expiration_idx ON appointment_slot_hold (expiration_date ASC);
+CREATE INDEX appointment_slot_hold_node_idx ON appointment_slot_hold (id_node ASC);
+
 -- -----------------------------------------------------
 -- Table appointment_appointment
 -- -----------------------------------------------------
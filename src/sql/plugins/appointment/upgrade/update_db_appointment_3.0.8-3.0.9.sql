@@ -0,0 +1,13 @@
+-- Places of the slots held by the users while they fill the appointment form
+CREATE TABLE IF NOT EXISTS appointment_slot_hold (
+  id_session VARCHAR(255) NOT NULL,
+  id_slot INT NOT NULL,
+  id_form INT NOT NULL,
+  nb_places INT DEFAULT 0 NOT NULL,
+  expiration_date TIMESTAMP NULL,
+  id_node VARCHAR(255) NOT NULL,
+  PRIMARY KEY (id_session, id_slot)
+  );
+
+CREATE INDEX appointment_slot_hold_expiration_idx ON appointment_slot_hold (expiration_date ASC);
+CREATE INDEX appointment_slot_hold_node_idx ON appointment_slot_hold (id_node ASC);
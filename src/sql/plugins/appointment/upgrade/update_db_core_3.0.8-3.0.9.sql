@@ -0,0 +1,8 @@
+--
+-- Admin feature displaying the metrics of the plugin
+--
+DELETE FROM core_admin_right WHERE id_right = 'APPOINTMENT_METRICS';
+INSERT INTO core_admin_right (id_right,name,level_right,admin_url,description,is_updatable,plugin_name,id_feature_group,icon_url,documentation_url, id_order ) VALUES 
+('APPOINTMENT_METRICS','appointment.adminFeature.manageMetrics.name',0,'jsp/admin/plugins/appointment/ManageAppointmentMetrics.jsp','appointment.adminFeature.manageMetrics.description',0,'appointment','SYSTEM',NULL,NULL,6);
+DELETE FROM core_user_right WHERE id_right = 'APPOINTMENT_METRICS';
+INSERT INTO core_user_right (id_right,id_user) VALUES ('APPOINTMENT_METRICS',1);
@@ -34,12 +34,18 @@
 package fr.paris.lutece.plugins.appointment.business;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
+import fr.paris.lutece.plugins.appointment.business.appointment.Appointment;
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentHome;
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentSlot;
 import fr.paris.lutece.plugins.appointment.business.form.Form;
 import fr.paris.lutece.plugins.appointment.business.form.FormHome;
 import fr.paris.lutece.plugins.appointment.business.slot.Slot;
 import fr.paris.lutece.plugins.appointment.business.slot.SlotHome;
+import fr.paris.lutece.plugins.appointment.business.user.User;
+import fr.paris.lutece.plugins.appointment.business.user.UserHome;
 import fr.paris.lutece.test.LuteceTestCase;
 
 /**
@@ -189,6 +195,135 @@ public final class SlotTest extends LuteceTestCase
 
     }
 
+    /**
+     * Test of takePlaces
+     */
+    public void testTakePlaces( )
+    {
+        Form form = FormTest.buildForm1( );
+        FormHome.create( form );
+
+        // Initialize a Slot in the future with one remaining place
+        LocalDateTime startingDateTime = LocalDateTime.now( ).plusDays( 1 ).withSecond( 0 ).withNano( 0 );
+        Slot slot = buildSlot( form.getIdForm( ), startingDateTime, startingDateTime.plusMinutes( 30 ), Constants.NB_REMAINING_PLACES_1,
+                Constants.NB_REMAINING_PLACES_1, 0, Constants.NB_REMAINING_PLACES_1, Boolean.TRUE, Boolean.TRUE );
+        SlotHome.create( slot );
+        // Initialize a Slot that is over
+        Slot slotOver = buildSlot( form.getIdForm( ), Constants.STARTING_DATE_1, Constants.ENDING_DATE_1, Constants.NB_REMAINING_PLACES_1,
+                Constants.NB_REMAINING_PLACES_1, 0, Constants.NB_REMAINING_PLACES_1, Boolean.TRUE, Boolean.TRUE );
+        SlotHome.create( slotOver );
+
+        // The first booking takes the last place
+        assertTrue( SlotHome.takePlaces( slot.getIdSlot( ), 1, 1 ) );
+        Slot slotStored = SlotHome.findByPrimaryKey( slot.getIdSlot( ) );
+        assertEquals( 0, slotStored.getNbRemainingPlaces( ) );
+        assertEquals( 0, slotStored.getNbPotentialRemainingPlaces( ) );
+        assertEquals( 1, slotStored.getNbPlacesTaken( ) );
+        // The slot is full
+        assertFalse( SlotHome.takePlaces( slot.getIdSlot( ), 1, 1 ) );
+        // The slot is over
+        assertFalse( SlotHome.takePlaces( slotOver.getIdSlot( ), 1, 1 ) );
+
+        // Clean
+        SlotHome.delete( slot.getIdSlot( ) );
+        SlotHome.delete( slotOver.getIdSlot( ) );
+        FormHome.delete( form.getIdForm( ) );
+    }
+
+    /**
+     * Test of createList and updateList (batch insert and update)
+     */
+    public void testSlotBatch( )
+    {
+        Form form = FormTest.buildForm1( );
+        FormHome.create( form );
+
+        // Initialize the Slots
+        List<Slot> listSlot = new ArrayList<>( );
+        listSlot.add( buildSlot( form.getIdForm( ), Constants.STARTING_DATE_1, Constants.ENDING_DATE_1, Constants.NB_REMAINING_PLACES_1,
+                Constants.NB_REMAINING_PLACES_1, 0, Constants.NB_REMAINING_PLACES_1, Boolean.TRUE, Boolean.TRUE ) );
+        listSlot.add( buildSlot( form.getIdForm( ), Constants.STARTING_DATE_2, Constants.ENDING_DATE_2, Constants.NB_REMAINING_PLACES_2,
+                Constants.NB_REMAINING_PLACES_2, 0, Constants.NB_REMAINING_PLACES_2, Boolean.TRUE, Boolean.TRUE ) );
+        listSlot.add( buildSlot( form.getIdForm( ), Constants.STARTING_DATE_3, Constants.ENDING_DATE_3, Constants.NB_REMAINING_PLACES_3,
+                Constants.NB_REMAINING_PLACES_3, 0, Constants.NB_REMAINING_PLACES_3, Boolean.FALSE, Boolean.TRUE ) );
+        // Create the Slots in database, each slot gets its own generated key
+        SlotHome.createList( listSlot );
+        for ( Slot slot : listSlot )
+        {
+            assertTrue( slot.getIdSlot( ) != 0 );
+            checkAsserts( SlotHome.findByPrimaryKey( slot.getIdSlot( ) ), slot );
+        }
+
+        // Update the Slots in database
+        for ( Slot slot : listSlot )
+        {
+            slot.setIsOpen( !slot.getIsOpen( ) );
+            slot.setNbRemainingPlaces( slot.getNbRemainingPlaces( ) + 1 );
+        }
+        SlotHome.updateList( listSlot );
+        for ( Slot slot : listSlot )
+        {
+            checkAsserts( SlotHome.findByPrimaryKey( slot.getIdSlot( ) ), slot );
+        }
+
+        // Clean
+        for ( Slot slot : listSlot )
+        {
+            SlotHome.delete( slot.getIdSlot( ) );
+        }
+        FormHome.delete( form.getIdForm( ) );
+    }
+
+    /**
+     * Test of existsSlotWithAppointmentByDateRange
+     */
+    public void testExistsSlotWithAppointmentByDateRange( )
+    {
+        Form form = FormTest.buildForm1( );
+        FormHome.create( form );
+
+        // Initialize a Slot without appointment
+        Slot slot = buildSlot( form.getIdForm( ), Constants.STARTING_DATE_1, Constants.ENDING_DATE_1, Constants.NB_REMAINING_PLACES_1,
+                Constants.NB_REMAINING_PLACES_1, 0, Constants.NB_REMAINING_PLACES_1, Boolean.TRUE, Boolean.TRUE );
+        // Create the Slot in database
+        SlotHome.create( slot );
+
+        assertFalse( SlotHome.existsSlotWithAppointmentByDateRange( form.getIdForm( ), Constants.STARTING_DATE_1, Constants.ENDING_DATE_1 ) );
+
+        // Book an appointment on the slot
+        User user = UserTest.buildUser( Constants.GUID_1, Constants.FIRST_NAME_1, Constants.LAST_NAME_1, Constants.EMAIL_1, Constants.PHONE_NUMBER_1 );
+        UserHome.create( user );
+        AppointmentSlot appointmentSlot = new AppointmentSlot( );
+        appointmentSlot.setIdSlot( slot.getIdSlot( ) );
+        appointmentSlot.setNbPlaces( 1 );
+        Appointment appointment = new Appointment( );
+        appointment.setIdUser( user.getIdUser( ) );
+        appointment.addSlot( slot );
+        appointment.setListAppointmentSlot( new ArrayList<>( ) );
+        appointment.getListAppointmentSlot( ).add( appointmentSlot );
+        AppointmentHome.create( appointment );
+
+        // The slot is in the range
+        assertTrue( SlotHome.existsSlotWithAppointmentByDateRange( form.getIdForm( ), Constants.STARTING_DATE_1, Constants.ENDING_DATE_1 ) );
+        assertTrue( SlotHome.existsSlotWithAppointmentByDateRange( form.getIdForm( ), Constants.STARTING_DATE_1.toLocalDate( ).atStartOfDay( ),
+                Constants.ENDING_DATE_1.toLocalDate( ).plusDays( 1 ).atStartOfDay( ) ) );
+        // The slot is out of the range, or only partly in the range
+        assertFalse( SlotHome.existsSlotWithAppointmentByDateRange( form.getIdForm( ), Constants.STARTING_DATE_1.plusDays( 1 ),
+                Constants.ENDING_DATE_1.plusDays( 1 ) ) );
+        assertFalse( SlotHome.existsSlotWithAppointmentByDateRange( form.getIdForm( ), Constants.STARTING_DATE_1.minusDays( 1 ),
+                Constants.ENDING_DATE_1.minusMinutes( 1 ) ) );
+        assertFalse( SlotHome.existsSlotWithAppointmentByDateRange( form.getIdForm( ), Constants.STARTING_DATE_1.plusMinutes( 1 ),
+                Constants.ENDING_DATE_1.plusDays( 1 ) ) );
+        // The appointment of another form is not seen
+        assertFalse( SlotHome.existsSlotWithAppointmentByDateRange( form.getIdForm( ) + 1, Constants.STARTING_DATE_1, Constants.ENDING_DATE_1 ) );
+
+        // Clean
+        AppointmentHome.delete( appointment.getIdAppointment( ) );
+        UserHome.delete( user.getIdUser( ) );
+        SlotHome.delete( slot.getIdSlot( ) );
+        FormHome.delete( form.getIdForm( ) );
+    }
+
     /**
      * Build a SLot Business Object
      * 
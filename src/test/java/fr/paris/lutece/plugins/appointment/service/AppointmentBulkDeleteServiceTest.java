@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import fr.paris.lutece.plugins.appointment.business.AppointmentTest;
+import fr.paris.lutece.plugins.appointment.business.SlotTest;
+import fr.paris.lutece.plugins.appointment.business.appointment.Appointment;
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentHome;
+import fr.paris.lutece.plugins.appointment.business.slot.Slot;
+import fr.paris.lutece.plugins.appointment.web.dto.AppointmentDTO;
+import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFormDTO;
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * Test Class for the bulk deletion of the appointments
+ */
+public class AppointmentBulkDeleteServiceTest extends LuteceTestCase
+{
+    private LocalTime _timeStart = LocalTime.of( 10, 0 );
+    private LocalTime _timeEnd = LocalTime.of( 10, 30 );
+    private LocalDateTime _slotStart = LocalDate.now( ).plusDays( 1 ).atTime( _timeStart );
+    private LocalDateTime _slotEnd = LocalDate.now( ).plusDays( 1 ).atTime( _timeEnd );
+
+    public void testDeleteAppointments( ) throws Exception
+    {
+        AppointmentFormDTO app = FormServiceTest.buildAppointmentForm( );
+        int nIdForm = FormService.createAppointmentForm( app );
+        Slot slot = SlotService.saveSlot( SlotTest.buildSlot( nIdForm, _slotStart, _slotEnd, 3, 3, 0, 3, Boolean.TRUE, Boolean.TRUE ) );
+
+        AppointmentDTO appointmentDTO1 = AppointmentTest.buildAppointmentDTO( nIdForm, slot, "jean.dupont@mdp.fr", "Jean", "Dupont", _timeStart, _timeEnd, 1 );
+        int nIdAppointment1 = AppointmentService.saveAppointment( appointmentDTO1 );
+        slot = SlotService.findSlotById( slot.getIdSlot( ) );
+        AppointmentDTO appointmentDTO2 = AppointmentTest.buildAppointmentDTO( nIdForm, slot, "gerard.durand@mdp.fr", "Gérard", "Durand", _timeStart, _timeEnd,
+                2 );
+        int nIdAppointment2 = AppointmentService.saveAppointment( appointmentDTO2 );
+        assertEquals( 0, SlotService.findSlotById( slot.getIdSlot( ) ).getNbRemainingPlaces( ) );
+
+        AppointmentBulkDeleteService.deleteAppointments( Arrays.asList( nIdAppointment1, nIdAppointment2, nIdAppointment1 ) );
+
+        assertNull( AppointmentService.findAppointmentById( nIdAppointment1 ) );
+        assertNull( AppointmentService.findAppointmentById( nIdAppointment2 ) );
+        Slot slotStored = SlotService.findSlotById( slot.getIdSlot( ) );
+        assertEquals( 3, slotStored.getNbRemainingPlaces( ) );
+        assertEquals( 0, slotStored.getNbPlacesTaken( ) );
+
+        FormServiceTest.cleanForm( nIdForm );
+    }
+
+    public void testGetListIdAppointmentByForm( ) throws Exception
+    {
+        AppointmentFormDTO app1 = FormServiceTest.buildAppointmentForm( );
+        int nIdForm1 = FormService.createAppointmentForm( app1 );
+        AppointmentFormDTO app2 = FormServiceTest.buildAppointmentForm( );
+        int nIdForm2 = FormService.createAppointmentForm( app2 );
+        Slot slot1 = SlotService.saveSlot( SlotTest.buildSlot( nIdForm1, _slotStart, _slotEnd, 1, 1, 0, 1, Boolean.TRUE, Boolean.TRUE ) );
+        Slot slot2 = SlotService.saveSlot( SlotTest.buildSlot( nIdForm2, _slotStart, _slotEnd, 1, 1, 0, 1, Boolean.TRUE, Boolean.TRUE ) );
+
+        int nIdAppointment1 = AppointmentService
+                .saveAppointment( AppointmentTest.buildAppointmentDTO( nIdForm1, slot1, "jean.dupont@mdp.fr", "Jean", "Dupont", _timeStart, _timeEnd, 1 ) );
+        int nIdAppointment2 = AppointmentService.saveAppointment(
+                AppointmentTest.buildAppointmentDTO( nIdForm2, slot2, "gerard.durand@mdp.fr", "Gérard", "Durand", _timeStart, _timeEnd, 1 ) );
+
+        // The workflow resources of the appointments are removed with their form as external parent
+        List<Appointment> listAppointment = AppointmentHome.findByListId( Arrays.asList( nIdAppointment1, nIdAppointment2 ) );
+        Map<Integer, List<Integer>> mapIdAppointmentByForm = AppointmentBulkDeleteService.getListIdAppointmentByForm( listAppointment );
+        assertEquals( 2, mapIdAppointmentByForm.size( ) );
+        assertEquals( Collections.singletonList( nIdAppointment1 ), mapIdAppointmentByForm.get( nIdForm1 ) );
+        assertEquals( Collections.singletonList( nIdAppointment2 ), mapIdAppointmentByForm.get( nIdForm2 ) );
+
+        AppointmentBulkDeleteService.deleteAppointments( Arrays.asList( nIdAppointment1, nIdAppointment2 ) );
+        assertTrue( AppointmentHome.findByListId( Arrays.asList( nIdAppointment1, nIdAppointment2 ) ).isEmpty( ) );
+
+        FormServiceTest.cleanForm( nIdForm1 );
+        FormServiceTest.cleanForm( nIdForm2 );
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import fr.paris.lutece.plugins.appointment.service.AppointmentExecutorService.Mode;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * Test Class for the executor of the asynchronous tasks
+ */
+public class AppointmentExecutorServiceTest extends LuteceTestCase
+{
+    private static final long TIMEOUT = 10L;
+
+    public void testCallerRunsOnRejection( ) throws InterruptedException
+    {
+        AppointmentExecutorService executor = AppointmentExecutorService.INSTANCE;
+        if ( executor.getMode( ) != Mode.PLATFORM )
+        {
+            // The executor of virtual threads never rejects a task
+            return;
+        }
+        int nPoolSize = Math.max(
+                AppPropertiesService.getPropertyInt( "appointment.executor.thread.pool.max.size", Runtime.getRuntime( ).availableProcessors( ) ), 1 );
+        int nQueueCapacity = Math.max( AppPropertiesService.getPropertyInt( "appointment.executor.queue.capacity", 1000 ), 1 );
+        CountDownLatch latchStarted = new CountDownLatch( nPoolSize );
+        CountDownLatch latchRelease = new CountDownLatch( 1 );
+        CountDownLatch latchCompleted = new CountDownLatch( nPoolSize + nQueueCapacity );
+        long lRejectedCount = executor.getRejectedCount( );
+        try
+        {
+            // Keep all the threads of the pool busy, then fill the queue (a task of another test can only make it full sooner)
+            for ( int i = 0; i < nPoolSize; i++ )
+            {
+                executor.execute( ( ) -> {
+                    latchStarted.countDown( );
+                    awaitQuietly( latchRelease );
+                    latchCompleted.countDown( );
+                } );
+            }
+            assertTrue( latchStarted.await( TIMEOUT, TimeUnit.SECONDS ) );
+            for ( int i = 0; i < nQueueCapacity; i++ )
+            {
+                executor.execute( latchCompleted::countDown );
+            }
+
+            // The task that the executor can not accept is run by the calling thread
+            AtomicReference<Thread> taskThread = new AtomicReference<>( );
+            executor.execute( ( ) -> taskThread.set( Thread.currentThread( ) ) );
+            assertSame( Thread.currentThread( ), taskThread.get( ) );
+            assertTrue( executor.getRejectedCount( ) > lRejectedCount );
+        }
+        finally
+        {
+            latchRelease.countDown( );
+        }
+        // The tasks accepted are all run
+        assertTrue( latchCompleted.await( TIMEOUT, TimeUnit.SECONDS ) );
+    }
+
+    /**
+     * Wait for a latch, keeping the interrupt status of the thread
+     * 
+     * @param latch
+     *            the latch
+     */
+    private static void awaitQuietly( CountDownLatch latch )
+    {
+        try
+        {
+            latch.await( TIMEOUT, TimeUnit.SECONDS );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+        }
+    }
+}
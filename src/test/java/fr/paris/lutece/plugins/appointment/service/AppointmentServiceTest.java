@@ -36,17 +36,24 @@ package fr.paris.lutece.plugins.appointment.service;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import fr.paris.lutece.plugins.appointment.business.AppointmentTest;
 import fr.paris.lutece.plugins.appointment.business.SlotTest;
 import fr.paris.lutece.plugins.appointment.business.appointment.Appointment;
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentCursor;
 import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentHome;
 import fr.paris.lutece.plugins.appointment.business.slot.Slot;
 import fr.paris.lutece.plugins.appointment.business.user.User;
 import fr.paris.lutece.plugins.appointment.business.user.UserHome;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentDTO;
+import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFilterDTO;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFormDTO;
 import fr.paris.lutece.test.LuteceTestCase;
 
@@ -727,6 +734,85 @@ public class AppointmentServiceTest extends LuteceTestCase
 
     }
 
+    /**
+     * Page the appointments of a form sorted by date, with the cursor of the previous page and with an offset
+     */
+    public void testFindPageOfAppointmentsByFilter( )
+    {
+        AppointmentFormDTO app = FormServiceTest.buildAppointmentForm( );
+        app.setName( "appointment_form" );
+        int nIdForm = FormService.createAppointmentForm( app );
+
+        Slot slot1 = SlotService.saveSlot( SlotTest.buildSlot( nIdForm, _slotStart, _slotEnd, 3, 3, 0, 3, Boolean.TRUE, Boolean.TRUE ) );
+        Slot slot2 = SlotService
+                .saveSlot( SlotTest.buildSlot( nIdForm, _slotStart.plusHours( 1 ), _slotEnd.plusHours( 1 ), 3, 3, 0, 3, Boolean.TRUE, Boolean.TRUE ) );
+        Slot slot3 = SlotService
+                .saveSlot( SlotTest.buildSlot( nIdForm, _slotStart.plusDays( 1 ), _slotEnd.plusDays( 1 ), 3, 3, 0, 3, Boolean.TRUE, Boolean.TRUE ) );
+
+        // The appointments are not created in the order of their dates, and two appointments share each of the first slots
+        AppointmentDTO appointmentDTO1 = AppointmentTest.buildAppointmentDTO( nIdForm, slot2, "page1@mdp.fr", "Jean", "Dupont", _timeStart.plusHours( 1 ),
+                _timeEnd.plusHours( 1 ), 1 );
+        AppointmentDTO appointmentDTO2 = AppointmentTest.buildAppointmentDTO( nIdForm, slot1, "page2@mdp.fr", "Jean", "Dupont", _timeStart, _timeEnd, 1 );
+        AppointmentDTO appointmentDTO3 = AppointmentTest.buildAppointmentDTO( nIdForm, slot3, "page3@mdp.fr", "Jean", "Dupont", _timeStart, _timeEnd, 1 );
+        AppointmentDTO appointmentDTO4 = AppointmentTest.buildAppointmentDTO( nIdForm, slot1, "page4@mdp.fr", "Jean", "Dupont", _timeStart, _timeEnd, 1 );
+        AppointmentDTO appointmentDTO5 = AppointmentTest.buildAppointmentDTO( nIdForm, slot2, "page5@mdp.fr", "Jean", "Dupont", _timeStart.plusHours( 1 ),
+                _timeEnd.plusHours( 1 ), 1 );
+        try
+        {
+            for ( AppointmentDTO appointmentDTO : Arrays.asList( appointmentDTO1, appointmentDTO2, appointmentDTO3, appointmentDTO4, appointmentDTO5 ) )
+            {
+                AppointmentService.saveAppointment( appointmentDTO );
+            }
+
+            AppointmentFilterDTO filter = new AppointmentFilterDTO( );
+            filter.setIdForm( nIdForm );
+            assertEquals( 5, AppointmentHome.countByFilter( filter ) );
+
+            // Sorted by date, then by id
+            List<Integer> listIdAppointment = getListIdAppointment( AppointmentService.findPageOfAppointmentsByFilter( filter, null, 0, 10 ) );
+            assertEquals( Arrays.asList( appointmentDTO2.getIdAppointment( ), appointmentDTO4.getIdAppointment( ), appointmentDTO1.getIdAppointment( ),
+                    appointmentDTO5.getIdAppointment( ), appointmentDTO3.getIdAppointment( ) ), listIdAppointment );
+
+            // Each page is sought after the last appointment of the previous one
+            List<Integer> listIdAppointmentPaged = new ArrayList<>( );
+            AppointmentCursor cursor = null;
+            List<AppointmentCursor> listCursor = AppointmentService.findPageOfAppointmentsByFilter( filter, cursor, 0, 2 );
+            while ( !listCursor.isEmpty( ) )
+            {
+                assertTrue( listCursor.size( ) <= 2 );
+                listIdAppointmentPaged.addAll( getListIdAppointment( listCursor ) );
+                cursor = listCursor.get( listCursor.size( ) - 1 );
+                listCursor = AppointmentService.findPageOfAppointmentsByFilter( filter, cursor, 0, 2 );
+            }
+            assertEquals( listIdAppointment, listIdAppointmentPaged );
+
+            // A page reached without cursor is read with an offset
+            assertEquals( listIdAppointment.subList( 2, 4 ), getListIdAppointment( AppointmentService.findPageOfAppointmentsByFilter( filter, null, 2, 2 ) ) );
+
+            // The descending order is the reverse order
+            filter.setOrderAsc( false );
+            List<Integer> listIdAppointmentDesc = getListIdAppointment( AppointmentService.findPageOfAppointmentsByFilter( filter, null, 0, 10 ) );
+            Collections.reverse( listIdAppointmentDesc );
+            assertEquals( listIdAppointment, listIdAppointmentDesc );
+        }
+        finally
+        {
+            cleanUp( nIdForm, app, appointmentDTO1, appointmentDTO2, appointmentDTO3, appointmentDTO4, appointmentDTO5 );
+        }
+    }
+
+    /**
+     * Get the ids of the appointments of a page
+     * 
+     * @param listCursor
+     *            the cursors of the appointments of the page
+     * @return the ids of the appointments
+     */
+    private static List<Integer> getListIdAppointment( List<AppointmentCursor> listCursor )
+    {
+        return listCursor.stream( ).map( AppointmentCursor::getIdAppointment ).collect( Collectors.toList( ) );
+    }
+
     private void cleanUp( int nIdForm, AppointmentFormDTO formDto, AppointmentDTO... appDtoArray )
     {
         Set<Integer> userToDelete = new HashSet<>( );
@@ -64,6 +64,7 @@ import fr.paris.lutece.plugins.genericattributes.business.Entry;
 import fr.paris.lutece.plugins.genericattributes.business.EntryType;
 import fr.paris.lutece.plugins.genericattributes.business.GenericAttributeError;
 import fr.paris.lutece.plugins.genericattributes.business.Response;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
 import fr.paris.lutece.test.LuteceTestCase;
 
 public class AppointmentUtilitiesTest extends LuteceTestCase
@@ -365,6 +366,47 @@ public class AppointmentUtilitiesTest extends LuteceTestCase
         cleanUp( nIdForm, appointmentForm, appointmentDTO1, appointmentDTO2, appointmentDTO3 );
     }
 
+    /**
+     * Check that the maximum number of appointments is enforced right after a booking, with the cache of the summaries of the users enabled
+     */
+    public void testCheckNbMaxAppointmentsOnAGivenPeriodAfterBooking( )
+    {
+        String strCacheTtl = AppPropertiesService.getProperty( "appointment.quota.cache.ttl", "0" );
+        AppPropertiesService.putProperty( "appointment.quota.cache.ttl", "10" );
+        AppointmentFormDTO appointmentForm = FormServiceTest.buildAppointmentForm( );
+        appointmentForm.setDateStartValidity( Date.valueOf( _formStart ) );
+        appointmentForm.setDateEndValidity( Date.valueOf( _formEnd ) );
+        appointmentForm.setNbMaxAppointmentsPerUser( 1 );
+        appointmentForm.setNbDaysForMaxAppointmentsPerUser( 7 );
+        // Build the form
+        int nIdForm = FormService.createAppointmentForm( appointmentForm );
+        appointmentForm.setIdForm( nIdForm );
+
+        Slot slot1 = SlotTest.buildSlot( nIdForm, _formStart.atTime( _timeStart ), _formStart.atTime( _timeEnd ), 3, 3, 0, 3, Boolean.TRUE, Boolean.TRUE );
+        slot1 = SlotService.saveSlot( slot1 );
+        Slot slot2 = SlotTest.buildSlot( nIdForm, _formStartPlus1.atTime( _timeStart ), _formStartPlus1.atTime( _timeEnd ), 3, 3, 0, 3, Boolean.TRUE,
+                Boolean.TRUE );
+        slot2 = SlotService.saveSlot( slot2 );
+
+        AppointmentDTO appointmentDTO1 = AppointmentTest.buildAppointmentDTO( nIdForm, slot1, "jean.dupont@mdp.fr", "Jean", "Dupont", _timeStart, _timeEnd, 2 );
+        AppointmentDTO appointmentDTO2 = AppointmentTest.buildAppointmentDTO( nIdForm, slot2, "jean.dupont@mdp.fr", "Jean", "Dupont", _timeStart, _timeEnd, 2 );
+        try
+        {
+            // The summary of the user, without appointment, is put in the cache by the check
+            assertTrue( AppointmentUtilities.checkNbMaxAppointmentsOnAGivenPeriod( appointmentDTO1, "jean.dupont@mdp.fr", appointmentForm ) );
+            AppointmentService.saveAppointment( appointmentDTO1 );
+
+            // The booking evicts the summary: the second appointment is refused at once
+            assertFalse( AppointmentUtilities.checkNbMaxAppointmentsOnAGivenPeriod( appointmentDTO2, "jean.dupont@mdp.fr", appointmentForm ) );
+        }
+        finally
+        {
+            AppPropertiesService.putProperty( "appointment.quota.cache.ttl", strCacheTtl );
+            AppointmentQuotaService.evictAll( );
+            cleanUp( nIdForm, appointmentForm, appointmentDTO1, appointmentDTO2 );
+        }
+    }
+
     /**
      * Check that the user can take another appointment
      */
@@ -784,6 +826,25 @@ public class AppointmentUtilitiesTest extends LuteceTestCase
         assertEquals( "value1, value04", appointment.getPhoneNumber() );
     }
 
+    public void testIsEachSlotInListSlotBuilded( )
+    {
+        LocalDateTime startingDateTime = LocalDateTime.of( 2025, 3, 3, 9, 0 );
+        List<Slot> listSlotBuilded = new ArrayList<>( );
+        for ( int i = 0; i < 4; i++ )
+        {
+            Slot slot = new Slot( );
+            slot.setStartingDateTime( startingDateTime.plusMinutes( 30L * i ) );
+            slot.setEndingDateTime( startingDateTime.plusMinutes( 30L * ( i + 1 ) ) );
+            listSlotBuilded.add( slot );
+        }
+        Slot slotShifted = new Slot( );
+        slotShifted.setStartingDateTime( startingDateTime.plusMinutes( 30 ) );
+        slotShifted.setEndingDateTime( startingDateTime.plusMinutes( 45 ) );
+
+        assertTrue( AppointmentUtilities.isEachSlotInListSlotBuilded( listSlotBuilded.subList( 1, 3 ), listSlotBuilded ) );
+        assertFalse( AppointmentUtilities.isEachSlotInListSlotBuilded( Arrays.asList( listSlotBuilded.get( 0 ), slotShifted ), listSlotBuilded ) );
+    }
+
     private void cleanUp( int nIdForm, AppointmentFormDTO formDto, AppointmentDTO... appDtoArray )
     {
         Set<Integer> userDelete = new HashSet<>( );
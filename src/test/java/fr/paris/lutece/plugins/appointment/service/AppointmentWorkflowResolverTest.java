@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import fr.paris.lutece.plugins.workflowcore.business.action.Action;
+import fr.paris.lutece.plugins.workflowcore.business.state.State;
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * Test Class for the resolver of the workflow actions of the appointments
+ */
+public class AppointmentWorkflowResolverTest extends LuteceTestCase
+{
+    private static final int ID_WORKFLOW = 1;
+
+    public void testGetActionsOfAppointmentsInTheSameState( )
+    {
+        List<Integer> listIdAppointmentLoaded = new ArrayList<>( );
+        AppointmentWorkflowResolver resolver = new AppointmentWorkflowResolver( ( nIdAppointment, nIdWorkflow ) -> {
+            listIdAppointmentLoaded.add( nIdAppointment );
+            return new ArrayList<>( );
+        } );
+        State state1 = buildState( 1 );
+        State state2 = buildState( 2 );
+
+        // The actions of the second appointment in the same state are not loaded again
+        Collection<Action> listAction = resolver.getActions( 10, state1, ID_WORKFLOW );
+        assertSame( listAction, resolver.getActions( 11, buildState( 1 ), ID_WORKFLOW ) );
+        assertEquals( 1, listIdAppointmentLoaded.size( ) );
+
+        // The actions of another state, of an appointment without state or of another workflow are loaded
+        assertNotSame( listAction, resolver.getActions( 12, state2, ID_WORKFLOW ) );
+        resolver.getActions( 13, null, ID_WORKFLOW );
+        resolver.getActions( 14, null, ID_WORKFLOW );
+        resolver.getActions( 15, state1, ID_WORKFLOW + 1 );
+        assertEquals( 4, listIdAppointmentLoaded.size( ) );
+        assertFalse( listIdAppointmentLoaded.contains( 11 ) );
+        assertFalse( listIdAppointmentLoaded.contains( 14 ) );
+    }
+
+    public void testGetActionsWithoutWorkflowService( )
+    {
+        List<Integer> listIdAppointmentLoaded = new ArrayList<>( );
+        AppointmentWorkflowResolver resolver = new AppointmentWorkflowResolver( ( nIdAppointment, nIdWorkflow ) -> {
+            listIdAppointmentLoaded.add( nIdAppointment );
+            return null;
+        } );
+
+        // The workflow service is not asked again when it has no action
+        assertNull( resolver.getActions( 10, buildState( 1 ), ID_WORKFLOW ) );
+        assertNull( resolver.getActions( 11, buildState( 1 ), ID_WORKFLOW ) );
+        assertEquals( 1, listIdAppointmentLoaded.size( ) );
+    }
+
+    /**
+     * Build a workflow state
+     * 
+     * @param nIdState
+     *            the id of the state
+     * @return the state
+     */
+    private static State buildState( int nIdState )
+    {
+        State state = new State( );
+        state.setId( nIdState );
+        return state;
+    }
+}
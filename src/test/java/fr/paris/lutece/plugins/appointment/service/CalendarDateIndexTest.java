@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
+import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * Test Class for the date index of the calendars
+ */
+public class CalendarDateIndexTest extends LuteceTestCase
+{
+    public void testGetReservationRule( )
+    {
+        Map<WeekDefinition, ReservationRule> mapReservationRule = new HashMap<>( );
+        ReservationRule rule1 = buildRule( mapReservationRule, 1, "2024-01-01", "2024-01-31" );
+        ReservationRule rule2 = buildRule( mapReservationRule, 2, "2024-02-05", "2024-03-31" );
+        CalendarDateIndex dateIndex = new CalendarDateIndex( mapReservationRule, Collections.emptyList( ) );
+
+        assertNull( dateIndex.getReservationRule( LocalDate.parse( "2023-12-31" ) ) );
+        assertSame( rule1, dateIndex.getReservationRule( LocalDate.parse( "2024-01-01" ) ) );
+        assertSame( rule1, dateIndex.getReservationRule( LocalDate.parse( "2024-01-31" ) ) );
+        assertNull( dateIndex.getReservationRule( LocalDate.parse( "2024-02-01" ) ) );
+        assertSame( rule2, dateIndex.getReservationRule( LocalDate.parse( "2024-02-05" ) ) );
+        assertSame( rule2, dateIndex.getReservationRule( LocalDate.parse( "2024-03-31" ) ) );
+        assertNull( dateIndex.getReservationRule( LocalDate.parse( "2024-04-01" ) ) );
+    }
+
+    public void testGetReservationRuleWithOverlappingWeeks( )
+    {
+        Map<WeekDefinition, ReservationRule> mapReservationRule = new HashMap<>( );
+        ReservationRule rule1 = buildRule( mapReservationRule, 1, "2024-01-01", "2024-12-31" );
+        buildRule( mapReservationRule, 2, "2024-03-01", "2024-03-07" );
+        CalendarDateIndex dateIndex = new CalendarDateIndex( mapReservationRule, Collections.emptyList( ) );
+
+        // The floor entry of this date is the second week, which does not contain it
+        assertSame( rule1, dateIndex.getReservationRule( LocalDate.parse( "2024-06-01" ) ) );
+        assertNotNull( dateIndex.getReservationRule( LocalDate.parse( "2024-03-03" ) ) );
+    }
+
+    public void testIsClosingDay( )
+    {
+        CalendarDateIndex dateIndex = new CalendarDateIndex( new HashMap<>( ),
+                Arrays.asList( LocalDate.parse( "2024-05-01" ), LocalDate.parse( "2024-05-08" ) ) );
+
+        assertTrue( dateIndex.isClosingDay( LocalDate.parse( "2024-05-01" ) ) );
+        assertFalse( dateIndex.isClosingDay( LocalDate.parse( "2024-05-02" ) ) );
+        assertNull( dateIndex.getReservationRule( LocalDate.parse( "2024-05-02" ) ) );
+    }
+
+    /**
+     * Build a reservation rule and its week definition
+     * 
+     * @param mapReservationRule
+     *            the map to fill
+     * @param nIdReservationRule
+     *            the reservation rule id
+     * @param strDateOfApply
+     *            the date of apply of the week
+     * @param strEndingDateOfApply
+     *            the ending date of apply of the week
+     * @return the reservation rule
+     */
+    private static ReservationRule buildRule( Map<WeekDefinition, ReservationRule> mapReservationRule, int nIdReservationRule, String strDateOfApply,
+            String strEndingDateOfApply )
+    {
+        ReservationRule reservationRule = new ReservationRule( );
+        reservationRule.setIdReservationRule( nIdReservationRule );
+        WeekDefinition weekDefinition = new WeekDefinition( );
+        weekDefinition.setIdReservationRule( nIdReservationRule );
+        weekDefinition.setDateOfApply( LocalDate.parse( strDateOfApply ) );
+        weekDefinition.setEndingDateOfApply( LocalDate.parse( strEndingDateOfApply ) );
+        mapReservationRule.put( weekDefinition, reservationRule );
+        return reservationRule;
+    }
+}
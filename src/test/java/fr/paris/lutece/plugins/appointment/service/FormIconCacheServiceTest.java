@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import fr.paris.lutece.plugins.appointment.service.FormIconCacheService.FormIcon;
+import fr.paris.lutece.portal.service.image.ImageResource;
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * Test Class for the cache of the icons of the forms
+ */
+public class FormIconCacheServiceTest extends LuteceTestCase
+{
+    private static final int ID_FORM = -42;
+
+    public void testGetIconAndEvict( )
+    {
+        FormIconCacheService.evict( ID_FORM );
+        FormIcon formIcon = FormIconCacheService.getIcon( ID_FORM, buildIcon( "BlaBlaBla" ) );
+        assertTrue( formIcon.hasImage( ) );
+        assertEquals( "image/png", formIcon.getMimeType( ) );
+        assertNotNull( formIcon.getHash( ) );
+
+        // The icon in the cache is kept until it is evicted
+        assertSame( formIcon, FormIconCacheService.getIcon( ID_FORM, buildIcon( "BloBloBlo" ) ) );
+
+        FormIconCacheService.evict( ID_FORM );
+        FormIcon formIconModified = FormIconCacheService.getIcon( ID_FORM, buildIcon( "BloBloBlo" ) );
+        assertFalse( formIcon.getHash( ).equals( formIconModified.getHash( ) ) );
+        assertEquals( formIconModified.getHash( ), FormIconCacheService.getIcon( ID_FORM + 1, buildIcon( "BloBloBlo" ) ).getHash( ) );
+
+        FormIconCacheService.evict( ID_FORM );
+        FormIconCacheService.evict( ID_FORM + 1 );
+        assertFalse( FormIconCacheService.getIcon( ID_FORM, null ).hasImage( ) );
+        FormIconCacheService.evict( ID_FORM );
+    }
+
+    public void testGetIconOfUnknownForm( )
+    {
+        FormIconCacheService.evict( ID_FORM );
+        FormIcon formIcon = FormIconCacheService.getIcon( ID_FORM );
+        assertFalse( formIcon.hasImage( ) );
+        // The icon of a form that does not exist is not kept in the cache
+        assertNotSame( formIcon, FormIconCacheService.getIcon( ID_FORM ) );
+    }
+
+    /**
+     * Build an icon
+     * 
+     * @param strContent
+     *            the content of the icon
+     * @return the icon
+     */
+    private static ImageResource buildIcon( String strContent )
+    {
+        ImageResource icon = new ImageResource( );
+        icon.setImage( strContent.getBytes( ) );
+        icon.setMimeType( "image/png" );
+        return icon;
+    }
+}
@@ -177,6 +177,8 @@ public class FormServiceTest extends LuteceTestCase
         AppointmentFormDTO copyAppointmentForm = FormService.buildAppointmentForm( nIdCopyForm, 0 );
         assertEquals( WeekDefinitionService.findListWeekDefinition( nIdForm ).size( ), WeekDefinitionService.findListWeekDefinition( nIdCopyForm ).size( ) );
         assertEquals( WorkingDayService.getOpenDays( appointmentForm ), WorkingDayService.getOpenDays( copyAppointmentForm ) );
+        assertEquals( WorkingDayHome.findByIdForm( nIdForm ).size( ), WorkingDayHome.findByIdForm( nIdCopyForm ).size( ) );
+        assertEquals( TimeSlotHome.findByIdForm( nIdForm ).size( ), TimeSlotHome.findByIdForm( nIdCopyForm ).size( ) );
         assertEquals( "Copie", copyAppointmentForm.getTitle( ) );
 
         cleanForm( nIdCopyForm );
@@ -184,6 +186,23 @@ public class FormServiceTest extends LuteceTestCase
         cleanForm( nIdForm );
     }
 
+    /**
+     * Remove a form with all its planning
+     */
+    public void testRemoveForm( )
+    {
+        AppointmentFormDTO appointmentForm = FormServiceTest.buildAppointmentForm( );
+        int nIdForm = FormService.createAppointmentForm( appointmentForm );
+        assertFalse( TimeSlotHome.findByIdForm( nIdForm ).isEmpty( ) );
+
+        FormService.removeForm( nIdForm );
+        assertTrue( TimeSlotHome.findByIdForm( nIdForm ).isEmpty( ) );
+        assertTrue( WorkingDayHome.findByIdForm( nIdForm ).isEmpty( ) );
+        assertTrue( WeekDefinitionHome.findByIdForm( nIdForm ).isEmpty( ) );
+        assertTrue( ReservationRuleHome.findByIdForm( nIdForm ).isEmpty( ) );
+        assertNull( FormService.findFormLightByPrimaryKey( nIdForm ) );
+    }
+
     public static void cleanForm( int nIdForm )
     {
         if ( nIdForm != -1 )
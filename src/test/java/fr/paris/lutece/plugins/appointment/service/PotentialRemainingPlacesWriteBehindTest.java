@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+
+import fr.paris.lutece.plugins.appointment.business.SlotTest;
+import fr.paris.lutece.plugins.appointment.business.slot.Slot;
+import fr.paris.lutece.plugins.appointment.business.slot.SlotHome;
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * Test Class for the write-behind of the potential remaining places of the slots
+ */
+public class PotentialRemainingPlacesWriteBehindTest extends LuteceTestCase
+{
+    public void testCoalesceAndFlush( )
+    {
+        int nIdForm = FormService.createAppointmentForm( FormServiceTest.buildAppointmentForm( ) );
+        LocalDate date = LocalDate.now( ).plusDays( 1 );
+        Slot slot = SlotService.saveSlot( SlotTest.buildSlot( nIdForm, date.atTime( LocalTime.of( 10, 0 ) ), date.atTime( LocalTime.of( 10, 30 ) ), 3, 3, 0,
+                3, Boolean.TRUE, Boolean.TRUE ) );
+        int nIdSlot = slot.getIdSlot( );
+        try
+        {
+            // The places taken and given back are summed in memory
+            PotentialRemainingPlacesWriteBehind.addPotentialRemainingPlaces( nIdSlot, -2 );
+            PotentialRemainingPlacesWriteBehind.addPotentialRemainingPlaces( nIdSlot, -1 );
+            PotentialRemainingPlacesWriteBehind.addPotentialRemainingPlaces( nIdSlot, 1 );
+            assertEquals( -2, PotentialRemainingPlacesWriteBehind.getPendingPotentialRemainingPlaces( nIdSlot ) );
+            assertEquals( 3, SlotHome.findByPrimaryKey( nIdSlot ).getNbPotentialRemainingPlaces( ) );
+
+            // They are written in one update
+            PotentialRemainingPlacesWriteBehind.flush( Arrays.asList( nIdSlot, nIdSlot ) );
+            assertEquals( 0, PotentialRemainingPlacesWriteBehind.getPendingPotentialRemainingPlaces( nIdSlot ) );
+            assertEquals( 1, SlotHome.findByPrimaryKey( nIdSlot ).getNbPotentialRemainingPlaces( ) );
+
+            // The places that cancel each other out are not written
+            PotentialRemainingPlacesWriteBehind.addPotentialRemainingPlaces( nIdSlot, 1 );
+            PotentialRemainingPlacesWriteBehind.addPotentialRemainingPlaces( nIdSlot, -1 );
+            assertEquals( 0, PotentialRemainingPlacesWriteBehind.getPendingPotentialRemainingPlaces( nIdSlot ) );
+            PotentialRemainingPlacesWriteBehind.flush( Arrays.asList( nIdSlot ) );
+            assertEquals( 1, SlotHome.findByPrimaryKey( nIdSlot ).getNbPotentialRemainingPlaces( ) );
+
+            // The places given back can not go above the remaining places
+            PotentialRemainingPlacesWriteBehind.addPotentialRemainingPlaces( nIdSlot, 5 );
+            PotentialRemainingPlacesWriteBehind.flush( );
+            assertEquals( 3, SlotHome.findByPrimaryKey( nIdSlot ).getNbPotentialRemainingPlaces( ) );
+        }
+        finally
+        {
+            PotentialRemainingPlacesWriteBehind.flush( Arrays.asList( nIdSlot ) );
+            FormServiceTest.cleanForm( nIdForm );
+        }
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import fr.paris.lutece.plugins.appointment.business.AppointmentTest;
+import fr.paris.lutece.plugins.appointment.business.SlotTest;
+import fr.paris.lutece.plugins.appointment.business.appointment.Appointment;
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentHome;
+import fr.paris.lutece.plugins.appointment.business.slot.Slot;
+import fr.paris.lutece.plugins.appointment.business.user.User;
+import fr.paris.lutece.plugins.appointment.business.user.UserHome;
+import fr.paris.lutece.plugins.appointment.exception.SlotFullException;
+import fr.paris.lutece.plugins.appointment.service.metrics.AppointmentMetrics;
+import fr.paris.lutece.plugins.appointment.service.metrics.LatencyHistogram;
+import fr.paris.lutece.plugins.appointment.web.dto.AppointmentDTO;
+import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFormDTO;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * Stress test of the booking: concurrent users take, move and cancel appointments on a few slots, and the places of the slots must stay consistent. The
+ * size of the run can be changed with the system properties appointment.stress.threads and appointment.stress.operations (per thread), for example to
+ * compare the throughput of two versions of the locking.
+ */
+public class SlotSafeServiceStressTest extends LuteceTestCase
+{
+    private static final int NB_THREADS = Integer.getInteger( "appointment.stress.threads", 8 );
+    private static final int NB_OPERATIONS_PER_THREAD = Integer.getInteger( "appointment.stress.operations", 40 );
+    private static final int NB_HOT_SLOTS = 4;
+    private static final int MAX_CAPACITY = 2;
+    private static final int DURATION_SLOT = 30;
+    private static final long TIMEOUT_MINUTES = 10;
+    private static final double [ ] QUANTILES = {
+            0.5, 0.95, 0.99
+    };
+
+    /**
+     * Operations of the users
+     */
+    private enum Operation
+    {
+        SINGLE_SLOT,
+        MULTI_SLOT,
+        CHANGE_DATE,
+        CANCEL
+    }
+
+    private final AtomicInteger _nbSaved = new AtomicInteger( );
+    private final AtomicInteger _nbRejected = new AtomicInteger( );
+    private final Queue<Integer> _listIdAppointment = new ConcurrentLinkedQueue<>( );
+    private final Queue<Throwable> _listError = new ConcurrentLinkedQueue<>( );
+
+    public void testConcurrentBookingDoesNotOversell( ) throws InterruptedException
+    {
+        AppointmentFormDTO appointmentForm = FormServiceTest.buildAppointmentForm( );
+        int nIdForm = FormService.createAppointmentForm( appointmentForm );
+        List<Slot> listSlot = new ArrayList<>( );
+        LocalDateTime startingDateTime = LocalDate.now( ).plusDays( 1 ).atTime( 10, 0 );
+        for ( int i = 0; i < NB_HOT_SLOTS; i++ )
+        {
+            LocalDateTime slotStart = startingDateTime.plusMinutes( (long) DURATION_SLOT * i );
+            Slot slot = SlotTest.buildSlot( nIdForm, slotStart, slotStart.plusMinutes( DURATION_SLOT ), MAX_CAPACITY, MAX_CAPACITY, 0, MAX_CAPACITY,
+                    Boolean.TRUE, Boolean.FALSE );
+            listSlot.add( SlotService.saveSlot( slot ) );
+        }
+
+        long [ ] lockWaitCountsBefore = AppointmentMetrics.SLOT_LOCK_WAIT.getBucketCounts( );
+        ExecutorService executor = Executors.newFixedThreadPool( NB_THREADS );
+        CountDownLatch startSignal = new CountDownLatch( 1 );
+        for ( int nThread = 0; nThread < NB_THREADS; nThread++ )
+        {
+            int nUser = nThread;
+            executor.execute( ( ) -> runUser( nIdForm, listSlot, nUser, startSignal ) );
+        }
+        long lStartTime = System.nanoTime( );
+        startSignal.countDown( );
+        executor.shutdown( );
+        assertTrue( "The users did not finish in time, the booking may be deadlocked", executor.awaitTermination( TIMEOUT_MINUTES, TimeUnit.MINUTES ) );
+        long lDurationNanos = System.nanoTime( ) - lStartTime;
+
+        report( lDurationNanos, lockWaitCountsBefore, AppointmentMetrics.SLOT_LOCK_WAIT.getBucketCounts( ) );
+        try
+        {
+            assertTrue( "Unexpected errors while booking: " + _listError, _listError.isEmpty( ) );
+            assertTrue( "No appointment was saved", _nbSaved.get( ) > 0 );
+            for ( Slot slot : listSlot )
+            {
+                Slot slotStored = SlotService.findSlotById( slot.getIdSlot( ) );
+                assertEquals( "Places of the slot " + slotStored.getIdSlot( ), slotStored.getMaxCapacity( ),
+                        slotStored.getNbPlacesTaken( ) + slotStored.getNbRemainingPlaces( ) );
+                assertTrue( "Slot " + slotStored.getIdSlot( ) + " is oversold", slotStored.getNbRemainingPlaces( ) >= 0 );
+            }
+        }
+        finally
+        {
+            cleanUp( nIdForm );
+        }
+    }
+
+    /**
+     * Run the operations of a user on the hot slots
+     * 
+     * @param nIdForm
+     *            the id of the form
+     * @param listSlot
+     *            the hot slots
+     * @param nUser
+     *            the number of the user
+     * @param startSignal
+     *            the signal to start, so that all the users book at the same time
+     */
+    private void runUser( int nIdForm, List<Slot> listSlot, int nUser, CountDownLatch startSignal )
+    {
+        Random random = new Random( nUser );
+        List<Integer> listIdAppointmentOfUser = new ArrayList<>( );
+        String strEmail = "stress" + nUser + "@appointment.test";
+        try
+        {
+            startSignal.await( );
+            for ( int i = 0; i < NB_OPERATIONS_PER_THREAD; i++ )
+            {
+                Operation operation = Operation.values( ) [random.nextInt( Operation.values( ).length )];
+                if ( listIdAppointmentOfUser.isEmpty( ) && ( operation == Operation.CHANGE_DATE || operation == Operation.CANCEL ) )
+                {
+                    operation = Operation.SINGLE_SLOT;
+                }
+                try
+                {
+                    switch( operation )
+                    {
+                        case SINGLE_SLOT:
+                            book( nIdForm, Collections.singletonList( listSlot.get( random.nextInt( NB_HOT_SLOTS ) ) ), strEmail, nUser,
+                                    listIdAppointmentOfUser );
+                            break;
+                        case MULTI_SLOT:
+                            int nFirstSlot = random.nextInt( NB_HOT_SLOTS - 1 );
+                            book( nIdForm, new ArrayList<>( listSlot.subList( nFirstSlot, nFirstSlot + 2 ) ), strEmail, nUser, listIdAppointmentOfUser );
+                            break;
+                        case CHANGE_DATE:
+                            changeDate( listIdAppointmentOfUser.get( random.nextInt( listIdAppointmentOfUser.size( ) ) ),
+                                    listSlot.get( random.nextInt( NB_HOT_SLOTS ) ) );
+                            break;
+                        default:
+                            cancel( listIdAppointmentOfUser.remove( random.nextInt( listIdAppointmentOfUser.size( ) ) ) );
+                            break;
+                    }
+                }
+                catch( SlotFullException e )
+                {
+                    _nbRejected.incrementAndGet( );
+                }
+            }
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+            _listError.add( e );
+        }
+        catch( RuntimeException e )
+        {
+            _listError.add( e );
+        }
+    }
+
+    /**
+     * Book a new appointment on consecutive slots
+     * 
+     * @param nIdForm
+     *            the id of the form
+     * @param listSlot
+     *            the slots of the appointment
+     * @param strEmail
+     *            the email of the user
+     * @param nUser
+     *            the number of the user
+     * @param listIdAppointmentOfUser
+     *            the appointments of the user, in which the new appointment is added
+     */
+    private void book( int nIdForm, List<Slot> listSlot, String strEmail, int nUser, List<Integer> listIdAppointmentOfUser )
+    {
+        AppointmentDTO appointmentDTO = AppointmentTest.buildAppointmentDTO( nIdForm, listSlot.get( 0 ), strEmail, "Stress", "User" + nUser,
+                listSlot.get( 0 ).getStartingDateTime( ).toLocalTime( ), listSlot.get( listSlot.size( ) - 1 ).getEndingDateTime( ).toLocalTime( ), 1 );
+        for ( Slot slot : listSlot.subList( 1, listSlot.size( ) ) )
+        {
+            appointmentDTO.addSlot( slot );
+        }
+        int nIdAppointment = AppointmentService.saveAppointment( appointmentDTO );
+        _listIdAppointment.add( nIdAppointment );
+        listIdAppointmentOfUser.add( nIdAppointment );
+        _nbSaved.incrementAndGet( );
+    }
+
+    /**
+     * Move an appointment on another slot
+     * 
+     * @param nIdAppointment
+     *            the id of the appointment
+     * @param slot
+     *            the new slot of the appointment
+     */
+    private void changeDate( int nIdAppointment, Slot slot )
+    {
+        AppointmentDTO appointmentDTO = AppointmentService.buildAppointmentDTOFromIdAppointment( nIdAppointment );
+        List<Slot> listSlot = new ArrayList<>( );
+        listSlot.add( slot );
+        appointmentDTO.setSlot( listSlot );
+        appointmentDTO.setNbBookedSeats( 1 );
+        AppointmentService.saveAppointment( appointmentDTO );
+        _nbSaved.incrementAndGet( );
+    }
+
+    /**
+     * Cancel an appointment
+     * 
+     * @param nIdAppointment
+     *            the id of the appointment
+     */
+    private void cancel( int nIdAppointment )
+    {
+        Appointment appointment = AppointmentService.findAppointmentById( nIdAppointment );
+        appointment.setIsCancelled( Boolean.TRUE );
+        AppointmentService.updateAppointment( appointment );
+    }
+
+    /**
+     * Log the throughput of the booking and the percentiles of the wait for the locks of the slots during the run
+     * 
+     * @param lDurationNanos
+     *            the duration of the run
+     * @param lockWaitCountsBefore
+     *            the counts of the buckets of the lock wait histogram before the run
+     * @param lockWaitCountsAfter
+     *            the counts of the buckets of the lock wait histogram after the run
+     */
+    private void report( long lDurationNanos, long [ ] lockWaitCountsBefore, long [ ] lockWaitCountsAfter )
+    {
+        double dSeconds = lDurationNanos / (double) TimeUnit.SECONDS.toNanos( 1 );
+        StringBuilder sbReport = new StringBuilder( );
+        sbReport.append( "Booking stress test: " ).append( NB_THREADS ).append( " threads, " ).append( _nbSaved.get( ) ).append( " saved, " )
+                .append( _nbRejected.get( ) ).append( " rejected in " ).append( String.format( "%.2f", dSeconds ) ).append( " s, " )
+                .append( String.format( "%.1f", _nbSaved.get( ) / dSeconds ) ).append( " bookings/s" );
+        long [ ] bucketBounds = AppointmentMetrics.SLOT_LOCK_WAIT.getBucketBounds( );
+        long [ ] counts = new long [ lockWaitCountsAfter.length];
+        for ( int i = 0; i < counts.length; i++ )
+        {
+            counts [i] = lockWaitCountsAfter [i] - lockWaitCountsBefore [i];
+        }
+        for ( double dQuantile : QUANTILES )
+        {
+            long lUpperBound = LatencyHistogram.getQuantileUpperBound( bucketBounds, counts, dQuantile );
+            sbReport.append( ", lock wait p" ).append( Math.round( dQuantile * 100 ) );
+            if ( lUpperBound < 0 )
+            {
+                sbReport.append( " > " ).append( bucketBounds [bucketBounds.length - 1] ).append( " ms" );
+            }
+            else
+            {
+                sbReport.append( " <= " ).append( lUpperBound ).append( " ms" );
+            }
+        }
+        AppLogService.info( sbReport.toString( ) );
+    }
+
+    /**
+     * Delete the appointments, the users and the form of the test
+     * 
+     * @param nIdForm
+     *            the id of the form
+     */
+    private void cleanUp( int nIdForm )
+    {
+        for ( Integer nIdAppointment : _listIdAppointment )
+        {
+            AppointmentHome.delete( nIdAppointment );
+        }
+        for ( int nUser = 0; nUser < NB_THREADS; nUser++ )
+        {
+            for ( User user : UserHome.findByEmail( "stress" + nUser + "@appointment.test" ) )
+            {
+                UserHome.delete( user.getIdUser( ) );
+            }
+        }
+        FormServiceTest.cleanForm( nIdForm );
+    }
+}
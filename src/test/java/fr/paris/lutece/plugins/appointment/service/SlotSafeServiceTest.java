@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Lock;
+
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * Test Class for the locks of the slots
+ */
+public class SlotSafeServiceTest extends LuteceTestCase
+{
+    private static final int NB_STRIPES = Math.max( AppPropertiesService.getPropertyInt( "appointment.slot.lock.stripes", 1024 ), 1 );
+    private static final long TIMEOUT = 10L;
+
+    public void testGetLockOnSlot( )
+    {
+        // The slots of the same stripe share their lock
+        assertSame( SlotSafeService.getLockOnSlot( 1 ), SlotSafeService.getLockOnSlot( 1 + NB_STRIPES ) );
+        if ( NB_STRIPES > 1 )
+        {
+            assertNotSame( SlotSafeService.getLockOnSlot( 1 ), SlotSafeService.getLockOnSlot( 2 ) );
+        }
+    }
+
+    public void testLockSlotsOfOneStripe( ) throws InterruptedException
+    {
+        List<Lock> listLock = new ArrayList<>( );
+        SlotSafeService.lockSlots( Arrays.asList( 1, 1 + NB_STRIPES ), listLock );
+        try
+        {
+            // The lock of the stripe is only taken once
+            assertEquals( 1, listLock.size( ) );
+        }
+        finally
+        {
+            listLock.forEach( Lock::unlock );
+        }
+    }
+
+    public void testConcurrentBookingsOnOneStripe( ) throws Exception
+    {
+        ExecutorService executor = Executors.newSingleThreadExecutor( );
+        List<Lock> listLock = new ArrayList<>( );
+        SlotSafeService.lockSlots( Arrays.asList( 1 ), listLock );
+        try
+        {
+            // A booking on another slot of the same stripe waits for the first booking
+            Future<?> futureSameStripe = executor.submit( ( ) -> lockAndUnlockSlots( Arrays.asList( 1 + NB_STRIPES ) ) );
+            try
+            {
+                futureSameStripe.get( 500L, TimeUnit.MILLISECONDS );
+                fail( "The lock of the stripe must be held by the first booking" );
+            }
+            catch( TimeoutException e )
+            {
+                // The second booking waits
+            }
+            listLock.forEach( Lock::unlock );
+            listLock.clear( );
+            futureSameStripe.get( TIMEOUT, TimeUnit.SECONDS );
+        }
+        finally
+        {
+            listLock.forEach( Lock::unlock );
+            executor.shutdownNow( );
+        }
+    }
+
+    public void testLockSlotsInOppositeOrders( ) throws Exception
+    {
+        // The slots are locked in the order of their stripes whatever the order of the booking, so that the bookings can not deadlock
+        ExecutorService executor = Executors.newFixedThreadPool( 2 );
+        try
+        {
+            Future<?> future1 = executor.submit( ( ) -> repeatLockSlots( Arrays.asList( 2, 3, 4 ) ) );
+            Future<?> future2 = executor.submit( ( ) -> repeatLockSlots( Arrays.asList( 4, 3, 2 ) ) );
+            future1.get( TIMEOUT, TimeUnit.SECONDS );
+            future2.get( TIMEOUT, TimeUnit.SECONDS );
+        }
+        finally
+        {
+            executor.shutdownNow( );
+        }
+    }
+
+    /**
+     * Lock and unlock slots many times
+     * 
+     * @param listIdSlot
+     *            the ids of the slots
+     */
+    private static void repeatLockSlots( Collection<Integer> listIdSlot )
+    {
+        for ( int i = 0; i < 10000; i++ )
+        {
+            lockAndUnlockSlots( listIdSlot );
+        }
+    }
+
+    /**
+     * Lock slots, then unlock them
+     * 
+     * @param listIdSlot
+     *            the ids of the slots
+     */
+    private static void lockAndUnlockSlots( Collection<Integer> listIdSlot )
+    {
+        List<Lock> listLock = new ArrayList<>( );
+        try
+        {
+            SlotSafeService.lockSlots( listIdSlot, listLock );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+        }
+        finally
+        {
+            listLock.forEach( Lock::unlock );
+        }
+    }
+}
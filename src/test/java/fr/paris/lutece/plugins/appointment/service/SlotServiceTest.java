@@ -153,4 +153,31 @@ public class SlotServiceTest extends LuteceTestCase
         assertEquals( 177, listSlots.stream( ).filter( s -> s.getIsOpen( ) ).collect( Collectors.toList( ) ).size( ) );
         FormServiceTest.cleanForm( nIdForm );
     }
+
+    // Check that the next slots of the day are shifted when the ending time of a slot is changed
+    public void testUpdateSlotWithShift( )
+    {
+        // Build the form
+        AppointmentFormDTO appointmentForm = FormServiceTest.buildAppointmentForm( );
+        appointmentForm.setName( "appointment_form" );
+        appointmentForm.setDateStartValidity( Date.valueOf( _nextMonday ) );
+        appointmentForm.setDateEndValidity( Date.valueOf( _sundayTwoWeeks ) );
+        int nIdForm = FormService.createAppointmentForm( appointmentForm );
+
+        Slot slot = SlotTest.buildSlot( nIdForm, _nextMonday.atTime( _startSlot ), _nextMonday.atTime( _endSlot ), 3, 3, 0, 3, Boolean.TRUE, Boolean.FALSE );
+        slot = SlotService.saveSlot( slot );
+        // The slot ends 15 minutes later, the next slots are shifted
+        slot.setEndingDateTime( _nextMonday.atTime( 10, 45 ) );
+        SlotService.updateSlot( slot, true, _endSlot, true );
+
+        List<Slot> listSlots = SlotService.findSlotsByIdFormAndDateRange( nIdForm, _nextMonday.atTime( _startSlot ), _nextMonday.atTime( LocalTime.MAX ) );
+        Slot slotShifted = listSlots.stream( ).filter( s -> s.getStartingDateTime( ).equals( _nextMonday.atTime( 10, 45 ) ) ).findFirst( ).orElse( null );
+        assertNotNull( slotShifted );
+        assertEquals( _nextMonday.atTime( 11, 15 ), slotShifted.getEndingDateTime( ) );
+        assertTrue( slotShifted.getIsSpecific( ) );
+        // No slot is after the ending time of the day
+        assertTrue( listSlots.stream( ).noneMatch( s -> s.getEndingDateTime( ).isAfter( _nextMonday.atTime( 18, 0 ) ) ) );
+        assertEquals( listSlots.size( ), listSlots.stream( ).map( Slot::getStartingDateTime ).distinct( ).count( ) );
+        FormServiceTest.cleanForm( nIdForm );
+    }
 }
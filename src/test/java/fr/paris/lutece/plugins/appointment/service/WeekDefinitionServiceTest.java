@@ -37,6 +37,7 @@ import java.sql.Date;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
@@ -282,4 +283,114 @@ public class WeekDefinitionServiceTest extends LuteceTestCase
         assertEquals( 5, WeekDefinitionService.getOpenDaysOfWeek( openDays ).size( ) );
         FormServiceTest.cleanForm( nIdForm );
     }
+
+    /**
+     * Assign a reservation rule in the middle of a week definition, next to the same reservation rule and back over the first reservation rule, and check the
+     * weeks of the form after each assignment
+     */
+    public void testAssignWeekDefinitionSplitAndMerge( )
+    {
+        // Build the form with a single week definition on the year
+        AppointmentFormDTO appointmentForm = FormServiceTest.buildAppointmentForm( );
+        appointmentForm.setDateStartValidity( Date.valueOf( LocalDate.parse( "2028-01-01" ) ) );
+        appointmentForm.setDateEndValidity( Date.valueOf( LocalDate.parse( "2028-12-31" ) ) );
+        int nIdForm = FormService.createAppointmentForm( appointmentForm );
+        appointmentForm.setIdForm( nIdForm );
+        List<WeekDefinition> listWeekDefinition = findSortedListWeekDefinition( nIdForm );
+        assertEquals( 1, listWeekDefinition.size( ) );
+        int nIdFirstWeekDefinition = listWeekDefinition.get( 0 ).getIdWeekDefinition( );
+        int nIdReservationRule1 = listWeekDefinition.get( 0 ).getIdReservationRule( );
+        int nIdReservationRule2 = ReservationRuleService.createTypicalWeek( appointmentForm );
+
+        // Split the week definition in three
+        WeekDefinition weekAssigned = assignWeekDefinition( nIdForm, nIdReservationRule2, "2028-06-01", "2028-06-15" );
+        listWeekDefinition = findSortedListWeekDefinition( nIdForm );
+        assertEquals( 3, listWeekDefinition.size( ) );
+        checkWeekDefinition( listWeekDefinition.get( 0 ), nIdReservationRule1, "2028-01-01", "2028-05-31" );
+        checkWeekDefinition( listWeekDefinition.get( 1 ), nIdReservationRule2, "2028-06-01", "2028-06-15" );
+        checkWeekDefinition( listWeekDefinition.get( 2 ), nIdReservationRule1, "2028-06-16", "2028-12-31" );
+        // The first week definition is updated, not recreated
+        assertEquals( nIdFirstWeekDefinition, listWeekDefinition.get( 0 ).getIdWeekDefinition( ) );
+        int nIdSecondWeekDefinition = listWeekDefinition.get( 1 ).getIdWeekDefinition( );
+        // The week assigned is the new week, with its id in database
+        assertEquals( nIdSecondWeekDefinition, weekAssigned.getIdWeekDefinition( ) );
+
+        // Assign the same reservation rule just after: the weeks are merged
+        weekAssigned = assignWeekDefinition( nIdForm, nIdReservationRule2, "2028-06-16", "2028-06-30" );
+        listWeekDefinition = findSortedListWeekDefinition( nIdForm );
+        assertEquals( 3, listWeekDefinition.size( ) );
+        checkWeekDefinition( listWeekDefinition.get( 0 ), nIdReservationRule1, "2028-01-01", "2028-05-31" );
+        checkWeekDefinition( listWeekDefinition.get( 1 ), nIdReservationRule2, "2028-06-01", "2028-06-30" );
+        checkWeekDefinition( listWeekDefinition.get( 2 ), nIdReservationRule1, "2028-07-01", "2028-12-31" );
+        assertEquals( nIdFirstWeekDefinition, listWeekDefinition.get( 0 ).getIdWeekDefinition( ) );
+        assertEquals( nIdSecondWeekDefinition, listWeekDefinition.get( 1 ).getIdWeekDefinition( ) );
+        // The week assigned is the week it has been merged into
+        assertEquals( nIdSecondWeekDefinition, weekAssigned.getIdWeekDefinition( ) );
+        checkWeekDefinition( weekAssigned, nIdReservationRule2, "2028-06-01", "2028-06-30" );
+
+        // Assign back the first reservation rule: the three weeks are merged
+        weekAssigned = assignWeekDefinition( nIdForm, nIdReservationRule1, "2028-06-01", "2028-06-30" );
+        listWeekDefinition = findSortedListWeekDefinition( nIdForm );
+        assertEquals( 1, listWeekDefinition.size( ) );
+        checkWeekDefinition( listWeekDefinition.get( 0 ), nIdReservationRule1, "2028-01-01", "2028-12-31" );
+        assertEquals( nIdFirstWeekDefinition, listWeekDefinition.get( 0 ).getIdWeekDefinition( ) );
+        assertEquals( nIdFirstWeekDefinition, weekAssigned.getIdWeekDefinition( ) );
+        checkWeekDefinition( weekAssigned, nIdReservationRule1, "2028-01-01", "2028-12-31" );
+
+        FormServiceTest.cleanForm( nIdForm );
+    }
+
+    /**
+     * Assign a reservation rule to a period of a form
+     * 
+     * @param nIdForm
+     *            the form id
+     * @param nIdReservationRule
+     *            the reservation rule id
+     * @param strDateOfApply
+     *            the date of apply
+     * @param strEndingDateOfApply
+     *            the ending date of apply
+     * @return the week persisted with the period
+     */
+    private static WeekDefinition assignWeekDefinition( int nIdForm, int nIdReservationRule, String strDateOfApply, String strEndingDateOfApply )
+    {
+        WeekDefinition weekDefinition = new WeekDefinition( );
+        WeekDefinitionService.fillInWeekDefinition( weekDefinition, nIdReservationRule, LocalDate.parse( strDateOfApply ),
+                LocalDate.parse( strEndingDateOfApply ) );
+        return WeekDefinitionService.assignWeekDefinition( nIdForm, weekDefinition );
+    }
+
+    /**
+     * Find the week definitions of a form, sorted by date of apply
+     * 
+     * @param nIdForm
+     *            the form id
+     * @return the week definitions of the form
+     */
+    private static List<WeekDefinition> findSortedListWeekDefinition( int nIdForm )
+    {
+        List<WeekDefinition> listWeekDefinition = WeekDefinitionService.findListWeekDefinition( nIdForm );
+        listWeekDefinition.sort( Comparator.comparing( WeekDefinition::getDateOfApply ) );
+        return listWeekDefinition;
+    }
+
+    /**
+     * Check the reservation rule and the dates of a week definition
+     * 
+     * @param weekDefinition
+     *            the week definition
+     * @param nIdReservationRule
+     *            the expected reservation rule id
+     * @param strDateOfApply
+     *            the expected date of apply
+     * @param strEndingDateOfApply
+     *            the expected ending date of apply
+     */
+    private static void checkWeekDefinition( WeekDefinition weekDefinition, int nIdReservationRule, String strDateOfApply, String strEndingDateOfApply )
+    {
+        assertEquals( nIdReservationRule, weekDefinition.getIdReservationRule( ) );
+        assertEquals( LocalDate.parse( strDateOfApply ), weekDefinition.getDateOfApply( ) );
+        assertEquals( LocalDate.parse( strEndingDateOfApply ), weekDefinition.getEndingDateOfApply( ) );
+    }
 }
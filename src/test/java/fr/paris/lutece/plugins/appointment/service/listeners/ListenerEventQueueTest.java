@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service.listeners;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import fr.paris.lutece.plugins.appointment.service.listeners.ListenerEventBus.OverflowPolicy;
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * Test Class for the queue of the listener event bus
+ */
+public class ListenerEventQueueTest extends LuteceTestCase
+{
+    // Long enough for the dispatcher to hold its first event until the shutdown
+    private static final long COALESCING_WINDOW = 60_000L;
+    private static final long TIMEOUT = 10_000L;
+
+    public void testCoalescing( ) throws InterruptedException
+    {
+        ListenerEventQueue queue = new ListenerEventQueue( 10, 10, COALESCING_WINDOW, OverflowPolicy.BLOCK );
+        AtomicInteger nbSlotDeliveries = new AtomicInteger( );
+        AtomicInteger nbFormDeliveries = new AtomicInteger( );
+        queue.publish( "slot_1", nbSlotDeliveries::incrementAndGet );
+        // The event of the same key is still waiting to be delivered
+        queue.publish( "slot_1", nbSlotDeliveries::incrementAndGet );
+        queue.publish( "form_1", nbFormDeliveries::incrementAndGet );
+        assertEquals( 2, queue.getPublishedCount( ) );
+        assertEquals( 1, queue.getCoalescedCount( ) );
+
+        queue.shutdown( );
+        waitFor( ( ) -> queue.getDeliveredCount( ) == 2 );
+        assertEquals( 1, nbSlotDeliveries.get( ) );
+        assertEquals( 1, nbFormDeliveries.get( ) );
+
+        // Once the event has been delivered, the key is not coalesced anymore
+        queue.publish( "slot_1", nbSlotDeliveries::incrementAndGet );
+        assertEquals( 2, nbSlotDeliveries.get( ) );
+    }
+
+    public void testDiscard( ) throws InterruptedException
+    {
+        ListenerEventQueue queue = fillQueue( OverflowPolicy.DISCARD );
+        AtomicInteger nbDeliveries = new AtomicInteger( );
+        queue.publish( null, nbDeliveries::incrementAndGet );
+        assertEquals( 1, queue.getDiscardedCount( ) );
+
+        queue.shutdown( );
+        waitFor( ( ) -> queue.getDeliveredCount( ) == 2 );
+        assertEquals( 0, nbDeliveries.get( ) );
+    }
+
+    public void testCallerRuns( ) throws InterruptedException
+    {
+        ListenerEventQueue queue = fillQueue( OverflowPolicy.CALLER_RUNS );
+        AtomicReference<Thread> deliveryThread = new AtomicReference<>( );
+        queue.publish( null, ( ) -> deliveryThread.set( Thread.currentThread( ) ) );
+        assertSame( Thread.currentThread( ), deliveryThread.get( ) );
+        assertEquals( 1, queue.getDeliveredCount( ) );
+        assertEquals( 0, queue.getDiscardedCount( ) );
+
+        queue.shutdown( );
+        waitFor( ( ) -> queue.getDeliveredCount( ) == 3 );
+    }
+
+    public void testBlock( ) throws InterruptedException
+    {
+        ListenerEventQueue queue = fillQueue( OverflowPolicy.BLOCK );
+        AtomicInteger nbDeliveries = new AtomicInteger( );
+        Thread publisher = new Thread( ( ) -> queue.publish( null, nbDeliveries::incrementAndGet ) );
+        publisher.start( );
+        publisher.join( 500L );
+        // The publisher waits for room in the queue
+        assertTrue( publisher.isAlive( ) );
+
+        // The shutdown ends the coalescing window: the dispatcher makes room and the event is delivered
+        queue.shutdown( );
+        publisher.join( TIMEOUT );
+        assertFalse( publisher.isAlive( ) );
+        waitFor( ( ) -> queue.getDeliveredCount( ) == 3 );
+        assertEquals( 1, nbDeliveries.get( ) );
+        assertEquals( 0, queue.getDiscardedCount( ) );
+    }
+
+    public void testPublishAfterShutdown( )
+    {
+        ListenerEventQueue queue = new ListenerEventQueue( 1, 1, COALESCING_WINDOW, OverflowPolicy.DISCARD );
+        queue.shutdown( );
+        AtomicReference<Thread> deliveryThread = new AtomicReference<>( );
+        queue.publish( "slot_1", ( ) -> deliveryThread.set( Thread.currentThread( ) ) );
+        // The closed queue delivers the events in the calling thread
+        assertSame( Thread.currentThread( ), deliveryThread.get( ) );
+        assertEquals( 0, queue.getDepth( ) );
+    }
+
+    /**
+     * Build a queue of one event and fill it: the dispatcher holds a first event in its coalescing window and a second event waits in the queue
+     * 
+     * @param overflowPolicy
+     *            the overflow policy
+     * @return the full queue
+     * @throws InterruptedException
+     *             if the thread is interrupted
+     */
+    private static ListenerEventQueue fillQueue( OverflowPolicy overflowPolicy ) throws InterruptedException
+    {
+        ListenerEventQueue queue = new ListenerEventQueue( 1, 10, COALESCING_WINDOW, overflowPolicy );
+        queue.publish( null, ( ) -> {
+        } );
+        waitFor( ( ) -> queue.getDepth( ) == 0 );
+        queue.publish( null, ( ) -> {
+        } );
+        assertEquals( 1, queue.getDepth( ) );
+        return queue;
+    }
+
+    /**
+     * Wait for a condition, and fail if it is not met before the timeout
+     * 
+     * @param condition
+     *            the condition
+     * @throws InterruptedException
+     *             if the thread is interrupted
+     */
+    private static void waitFor( BooleanSupplier condition ) throws InterruptedException
+    {
+        long lDeadline = System.currentTimeMillis( ) + TIMEOUT;
+        while ( !condition.getAsBoolean( ) )
+        {
+            if ( System.currentTimeMillis( ) > lDeadline )
+            {
+                fail( "The condition has not been met in time" );
+            }
+            Thread.sleep( 10L );
+        }
+    }
+}
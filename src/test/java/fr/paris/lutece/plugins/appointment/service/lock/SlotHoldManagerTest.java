@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service.lock;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.paris.lutece.plugins.appointment.business.slot.SlotHold;
+import fr.paris.lutece.plugins.appointment.business.slot.SlotHoldHome;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * Test Class for the manager of the holds on the slots
+ */
+public class SlotHoldManagerTest extends LuteceTestCase
+{
+    private static final String ID_SESSION = "SlotHoldManagerTest";
+    private static final int ID_SLOT = -42;
+    private static final int ID_FORM = -42;
+
+    public void testHoldAndExpire( )
+    {
+        SlotHoldManager manager = SlotHoldManager.INSTANCE;
+        SlotHold slotHold = manager.hold( ID_SESSION, ID_SLOT, ID_FORM, 2 );
+        assertTrue( manager.isActive( slotHold ) );
+        assertEquals( 1, manager.getNbActiveHolds( ID_FORM ) );
+        assertNotNull( findStoredSlotHold( ID_SESSION ) );
+
+        // The places held again on the slot are added to the hold
+        SlotHold slotHoldAgain = manager.hold( ID_SESSION, ID_SLOT, ID_FORM, 1 );
+        assertFalse( manager.isActive( slotHold ) );
+        assertTrue( manager.isActive( slotHoldAgain ) );
+        assertEquals( 3, slotHoldAgain.getNbPlaces( ) );
+        assertEquals( 1, manager.getNbActiveHolds( ID_FORM ) );
+        assertEquals( 3, findStoredSlotHold( ID_SESSION ).getNbPlaces( ) );
+
+        // Once expired, the hold is removed from the memory and the database
+        long lMinutes = AppPropertiesService.getPropertyInt( "appointment.edit.expired.time", 1 ) + 1L;
+        manager.tick( System.currentTimeMillis( ) + lMinutes * 60_000L );
+        assertFalse( manager.isActive( slotHoldAgain ) );
+        assertEquals( 0, manager.getNbActiveHolds( ID_FORM ) );
+        assertNull( findStoredSlotHold( ID_SESSION ) );
+    }
+
+    public void testCancel( )
+    {
+        SlotHoldManager manager = SlotHoldManager.INSTANCE;
+        SlotHold slotHold = manager.hold( ID_SESSION, ID_SLOT, ID_FORM, 1 );
+        manager.cancel( slotHold );
+        assertFalse( manager.isActive( slotHold ) );
+        assertEquals( 0, manager.getNbActiveHolds( ID_FORM ) );
+        assertNull( findStoredSlotHold( ID_SESSION ) );
+    }
+
+    public void testRecover( )
+    {
+        SlotHoldManager manager = SlotHoldManager.INSTANCE;
+        String strIdSessionExpired = ID_SESSION + "Expired";
+        String strIdSessionActive = ID_SESSION + "Active";
+        SlotHoldHome.create( buildSlotHold( strIdSessionExpired, LocalDateTime.now( ).minusMinutes( 1 ), manager.getIdNode( ) ) );
+        SlotHoldHome.create( buildSlotHold( strIdSessionActive, LocalDateTime.now( ).plusMinutes( 10 ), manager.getIdNode( ) ) );
+        SlotHold slotHoldOtherNode = buildSlotHold( ID_SESSION + "OtherNode", LocalDateTime.now( ).minusMinutes( 1 ), "SlotHoldManagerTestNode" );
+        SlotHoldHome.create( slotHoldOtherNode );
+
+        manager.recover( );
+
+        // The expired hold is released, the active one is registered again and the hold of the other node is left to it
+        assertNull( findStoredSlotHold( strIdSessionExpired ) );
+        assertNotNull( findStoredSlotHold( strIdSessionActive ) );
+        assertEquals( 1, manager.getNbActiveHolds( ID_FORM ) );
+        assertEquals( 1, SlotHoldHome.findByIdNode( "SlotHoldManagerTestNode" ).size( ) );
+
+        SlotHold slotHold = manager.hold( strIdSessionActive, ID_SLOT, ID_FORM, 1 );
+        assertEquals( 3, slotHold.getNbPlaces( ) );
+        manager.cancel( slotHold );
+        assertEquals( 0, manager.getNbActiveHolds( ID_FORM ) );
+
+        List<SlotHold> listSlotHold = new ArrayList<>( );
+        listSlotHold.add( slotHoldOtherNode );
+        SlotHoldHome.deleteList( listSlotHold );
+    }
+
+    /**
+     * Build a hold of two places
+     * 
+     * @param strIdSession
+     *            the id of the session
+     * @param expirationDateTime
+     *            the expiration date of the hold
+     * @param strIdNode
+     *            the id of the node
+     * @return the hold
+     */
+    private static SlotHold buildSlotHold( String strIdSession, LocalDateTime expirationDateTime, String strIdNode )
+    {
+        SlotHold slotHold = new SlotHold( );
+        slotHold.setIdSession( strIdSession );
+        slotHold.setIdSlot( ID_SLOT );
+        slotHold.setIdForm( ID_FORM );
+        slotHold.setNbPlaces( 2 );
+        slotHold.setExpirationDateTime( expirationDateTime );
+        slotHold.setIdNode( strIdNode );
+        return slotHold;
+    }
+
+    /**
+     * Find the hold of a session stored by the node of the manager
+     * 
+     * @param strIdSession
+     *            the id of the session
+     * @return the hold, or null if there is none
+     */
+    private static SlotHold findStoredSlotHold( String strIdSession )
+    {
+        return SlotHoldHome.findByIdNode( SlotHoldManager.INSTANCE.getIdNode( ) ).stream( )
+                .filter( slotHold -> slotHold.getIdSession( ).equals( strIdSession ) && slotHold.getIdSlot( ) == ID_SLOT ).findFirst( ).orElse( null );
+    }
+}
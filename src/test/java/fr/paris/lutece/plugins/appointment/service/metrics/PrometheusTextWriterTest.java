@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service.metrics;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * Test Class for the histograms of the metrics and their Prometheus export
+ */
+public class PrometheusTextWriterTest extends LuteceTestCase
+{
+    public void testQuantileUpperBound( )
+    {
+        LatencyHistogram histogram = new LatencyHistogram( new long [ ] {
+                10L, 100L
+        } );
+        assertEquals( 0L, histogram.getQuantileUpperBound( 0.5 ) );
+
+        for ( int i = 0; i < 8; i++ )
+        {
+            histogram.record( TimeUnit.MILLISECONDS.toNanos( 5 ) );
+        }
+        histogram.record( TimeUnit.MILLISECONDS.toNanos( 50 ) );
+        histogram.record( TimeUnit.MILLISECONDS.toNanos( 500 ) );
+
+        assertEquals( 10L, histogram.getQuantileUpperBound( 0.5 ) );
+        assertEquals( 100L, histogram.getQuantileUpperBound( 0.9 ) );
+        assertEquals( -1L, histogram.getQuantileUpperBound( 0.99 ) );
+    }
+
+    public void testWrite( )
+    {
+        // The metrics are built outside of the registry, so that the test does not add metrics to the export of the plugin
+        LatencyHistogram histogram = new LatencyHistogram( );
+        histogram.record( TimeUnit.MILLISECONDS.toNanos( 3 ) );
+        histogram.record( TimeUnit.MILLISECONDS.toNanos( 20000 ) );
+        List<AppointmentMetrics.Metric> listMetrics = Arrays.asList(
+                new AppointmentMetrics.Metric( "appointment_test_timer", "Test timer", AppointmentMetrics.Type.HISTOGRAM, null, ( ) -> histogram ),
+                new AppointmentMetrics.Metric( "appointment_test_counter", "Test counter", AppointmentMetrics.Type.COUNTER, ( ) -> 2L, null ) );
+
+        String strText = PrometheusTextWriter.write( listMetrics );
+
+        assertTrue( strText.contains( "# TYPE appointment_test_timer_seconds histogram\n" ) );
+        assertTrue( strText.contains( "appointment_test_timer_seconds_bucket{le=\"0.001\"} 0\n" ) );
+        assertTrue( strText.contains( "appointment_test_timer_seconds_bucket{le=\"0.005\"} 1\n" ) );
+        assertTrue( strText.contains( "appointment_test_timer_seconds_bucket{le=\"10.0\"} 1\n" ) );
+        assertTrue( strText.contains( "appointment_test_timer_seconds_bucket{le=\"+Inf\"} 2\n" ) );
+        assertTrue( strText.contains( "appointment_test_timer_seconds_count 2\n" ) );
+        assertTrue( strText.contains( "# TYPE appointment_test_counter_total counter\n" ) );
+        assertTrue( strText.contains( "appointment_test_counter_total 2\n" ) );
+        assertFalse( PrometheusTextWriter.write( AppointmentMetrics.getMetrics( ) ).contains( "appointment_test_" ) );
+    }
+}
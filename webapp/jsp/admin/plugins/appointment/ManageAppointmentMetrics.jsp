@@ -0,0 +1,16 @@
+<%@ page errorPage="../../ErrorPage.jsp" trimDirectiveWhitespaces="true" %>
+<jsp:useBean id="manageAppointmentMetrics" scope="session" class="fr.paris.lutece.plugins.appointment.web.AppointmentMetricsJspBean" />
+<%
+	String strContent = manageAppointmentMetrics.processController ( request , response );
+	if ( strContent != null )
+	{
+%>
+
+<jsp:include page="../../AdminHeader.jsp" />
+
+<%= strContent %>
+
+<%@ include file="../../AdminFooter.jsp" %>
+<%
+	}
+%>